@@ -4,14 +4,21 @@ import java.rmi.RemoteException;
 import java.util.concurrent.ExecutionException;
 
 import at.fhhagenberg.sqelevator.Building;
+import at.fhhagenberg.sqelevator.Elevator;
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
 import at.fhhagenberg.sqelevator.ElevatorsMqttClient;
-import at.fhhagenberg.sqelevator.MqttTopicGenerator;
+import at.fhhagenberg.sqelevator.TopicKind;
+import at.fhhagenberg.sqelevator.TopicRouter;
 import sqelevator.IElevator;
 
 public class AlgorithmMqttAdapter implements IElevator {
 
 	private static final  String INVALID_ELEVATOR = "Invalid elevator number!";
 	private static final  String INVALID_FLOOR = "Invalid floor!";
+	private static final TopicKind[] FLOOR_BUTTON_TOPICS = {TopicKind.BUTTON_DOWN, TopicKind.BUTTON_UP};
+	private static final TopicKind[] STATUS_TOPICS = {TopicKind.ACCELERATION, TopicKind.CAPACITY, TopicKind.DOORS,
+			TopicKind.FLOOR, TopicKind.POSITION, TopicKind.SPEED, TopicKind.WEIGHT, TopicKind.BUTTON,
+			TopicKind.SERVICES_FLOOR, TopicKind.BUTTON_DOWN, TopicKind.BUTTON_UP};
 
 	private final int numElevators;
 	private final int numFloors;
@@ -19,139 +26,94 @@ public class AlgorithmMqttAdapter implements IElevator {
 	private boolean isInitialized = false;
 	private	Building mBuilding;
 	private ElevatorsMqttClient mClient;
-	private final MqttTopicGenerator topics = new MqttTopicGenerator();
 
+	/**
+	 * Subscribe to the per-field status topics of all elevators and floors.
+	 * All topics are received through one wildcard subscription per field and routed by a TopicRouter.
+	 * @return if all subscriptions were successful (true) or not (false)
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
 	public boolean subscribeToStatusMessages() throws InterruptedException, ExecutionException {
+		return subscribeToStatus(STATUS_TOPICS, false);
+	}
+
+	/**
+	 * Subscribe to the state frames of all elevators and to the floor buttons.
+	 * This is the alternative to subscribeToStatusMessages() for adapters which publish the state topic.
+	 * @return if all subscriptions were successful (true) or not (false)
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	public boolean subscribeToStateMessages() throws InterruptedException, ExecutionException {
+		return subscribeToStatus(FLOOR_BUTTON_TOPICS, true);
+	}
+
+	private boolean subscribeToStatus(TopicKind[] kinds, boolean state) throws InterruptedException, ExecutionException {
 		if(!mClient.isConnected()) {
 			return false;
 		}
 
-		for(int i = 0; i < numElevators; ++i) {
-			final int elevator = i;
-
-			if (!mClient.subscribe_int(topics.getAccelerationTopic(elevator),
-					(args, intval)->{
-						synchronized(this) {
-							mBuilding.getElevators()[elevator].setAcceleration((int)intval);
-						}
-					},
-					elevator)) {
-				return false;
-			}
-
-			if (!mClient.subscribe_int(topics.getCapacityTopic(elevator),
-					(args, intval)->{
-						synchronized(this) {
-							mBuilding.getElevators()[elevator].setCapacity((int)intval);
-						}
-					},
-					elevator)) {
-				return false;
-			}
+		TopicRouter router = new TopicRouter(numElevators, numFloors);
 
-			if (!mClient.subscribe_int(topics.getDoorsTopic(elevator),
-					(args, intval)->{
-						synchronized(this) {
-							mBuilding.getElevators()[elevator].setDoorStatus((int)intval);
-						}
-					},
-					elevator)) {
-				return false;
-			}
+		for(TopicKind kind : kinds) {
+			router.on(kind, (elevator, floor, payload) -> statusReceived(kind, elevator, floor, payload.getInt()));
+		}
 
-			if (!mClient.subscribe_int(topics.getFloorTopic(elevator),
-					(args, intval)->{
-						synchronized(this) {
-							mBuilding.getElevators()[elevator].setFloor((int)intval);
-						}
-					},
-					elevator)) {
-				return false;
-			}
+		if(state) {
+			router.on(TopicKind.STATE, (elevator, floor, payload) -> applyElevatorState(ElevatorSnapshot.readFrom(payload)));
+		}
 
-			if (!mClient.subscribe_int(topics.getPositionTopic(elevator),
-					(args, intval)->{
-						synchronized(this) {
-							mBuilding.getElevators()[elevator].setPosition((int)intval);
-						}
-					},
-					elevator)) {
-				return false;
-			}
+		return mClient.subscribe(router);
+	}
 
-			if (!mClient.subscribe_int(topics.getSpeedTopic(elevator),
-					(args, intval)->{
-						synchronized(this) {
-							mBuilding.getElevators()[elevator].setSpeed((int)intval);
-						}
-					},
-					elevator)) {
-				return false;
+	private synchronized void statusReceived(TopicKind kind, int elevator, int floor, int value) {
+		switch(kind) {
+		case ACCELERATION: mBuilding.getElevators()[elevator].setAcceleration(value); break;
+		case CAPACITY: mBuilding.getElevators()[elevator].setCapacity(value); break;
+		case DOORS: mBuilding.getElevators()[elevator].setDoorStatus(value); break;
+		case FLOOR: mBuilding.getElevators()[elevator].setFloor(value); break;
+		case POSITION: mBuilding.getElevators()[elevator].setPosition(value); break;
+		case SPEED: mBuilding.getElevators()[elevator].setSpeed(value); break;
+		case WEIGHT: mBuilding.getElevators()[elevator].setWeight(value); break;
+		case BUTTON: mBuilding.getElevators()[elevator].setStopRequest(floor, value == 1); break;
+		case SERVICES_FLOOR:
+			try {
+				mBuilding.getElevators()[elevator].setServicesFloor(floor, value == 1);
+			} catch (RemoteException e) {
+				// RemoteException cannot happen here, ignore it
 			}
+			break;
+		case BUTTON_DOWN: mBuilding.getFloors()[floor].setButtonDown(value == 1); break;
+		case BUTTON_UP: mBuilding.getFloors()[floor].setButtonUp(value == 1); break;
+		default: break;
+		}
+	}
 
-			if (!mClient.subscribe_int(topics.getWeightTopic(elevator),
-					(args, intval)->{
-						synchronized(this) {
-							mBuilding.getElevators()[elevator].setWeight((int)intval);
-						}
-					},
-					elevator)) {
-				return false;
-			}
+	private synchronized void applyElevatorState(ElevatorSnapshot state) {
+		if(state.getNumber() < 0 || state.getNumber() >= numElevators || state.getNumberOfFloors() != numFloors) {
+			return;
+		}
 
-			for(int j = 0; j < numFloors; ++j) {
-				final int floor = j;
-
-				if (!mClient.subscribe_int(topics.getButtonTopic(elevator,floor),
-						(args, intval)->{
-							synchronized(this) {
-								mBuilding.getElevators()[elevator].setStopRequest(floor,(int)intval == 1);
-							}
-						},
-						elevator,floor)) {
-					return false;
-				}
-
-				if (!mClient.subscribe_int(topics.getServicesFloorTopic(elevator,floor),
-						(args, intval)->{
-							try {
-								synchronized(this) {
-									mBuilding.getElevators()[elevator].setServicesFloor(floor, (int)intval == 1);
-								}
-							} catch (RemoteException e) {
-								// RemoteException cannot happen here, ignore it
-								return;
-							}
-						},
-						elevator,floor)) {
-					return false;
-				}
-
-				/* only once per floor */
-				if(i == 0) {
-					if (!mClient.subscribe_int(topics.getButtonDownTopic(floor),
-							(args, intval)->{
-								synchronized(this) {
-									mBuilding.getFloors()[floor].setButtonDown((int)intval == 1);
-								}
-							},
-							floor)) {
-						return false;
-					}
-
-					if (!mClient.subscribe_int(topics.getButtonUpTopic(elevator),
-							(args, intval)->{
-								synchronized(this) {
-									mBuilding.getFloors()[floor].setButtonUp((int)intval == 1);
-								}
-							},
-							floor)) {
-						return false;
-					}
-				}
-			}
+		Elevator elevator = mBuilding.getElevators()[state.getNumber()];
+		elevator.beginUpdate();
+
+		try {
+			elevator.setAcceleration(state.getAcceleration());
+			elevator.setCapacity(state.getCapacity());
+			elevator.setDoorStatus(state.getDoorStatus());
+			elevator.setFloor(state.getFloor());
+			elevator.setPosition(state.getPosition());
+			elevator.setSpeed(state.getSpeed());
+			elevator.setWeight(state.getWeight());
+			elevator.setServicesFloors(state.getServicedFloors());
+			elevator.setStopRequests(state.getStopRequests());
+		} catch (RemoteException e) {
+			// RemoteException cannot happen here, ignore it
+		}
+		finally {
+			elevator.commitUpdate();
 		}
-		return true;
 	}
 
 	public AlgorithmMqttAdapter(ElevatorsMqttClient client, int numElevators, int numFloors, int floorHeight) throws RemoteException {
@@ -0,0 +1,148 @@
+package at.fhhagenberg.sqelevator.algorithm;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces dispatch requests of the ElevatorAlgorithm.
+ * During a burst of status messages every message would recompute the targets of all elevators, although only the
+ * result after the burst matters. With a window > 0 the first request schedules one run after the window and all
+ * further requests within the window are merged into it. Latency-critical requests (see requestNow()) run immediately.
+ * With a window of 0 every request runs synchronously, which is the behaviour without the scheduler.
+ */
+public class DispatchScheduler {
+
+	private final Runnable task;
+	private final Object lock;
+	private final long windowMs;
+	private ScheduledExecutorService executor;
+	private ScheduledFuture<?> pending;
+	private long runCount = 0;
+
+	/**
+	 * Create a new scheduler.
+	 * @param task the dispatch to run
+	 * @param lock the object to synchronize the scheduled runs with (e.g. the adapter which applies the status messages)
+	 * @param windowMs the window in ms in which requests are coalesced, 0 to run every request synchronously
+	 */
+	public DispatchScheduler(Runnable task, Object lock, long windowMs) {
+		if(task == null || lock == null) {
+			throw new IllegalArgumentException("Task and lock must be valid!");
+		}
+
+		if(windowMs < 0) {
+			throw new IllegalArgumentException("The dispatch window can't be negative!");
+		}
+
+		this.task = task;
+		this.lock = lock;
+		this.windowMs = windowMs;
+	}
+
+	/**
+	 * Requests a dispatch. It is run synchronously with a window of 0, otherwise at the end of the current window.
+	 */
+	public void request() {
+		if(windowMs == 0) {
+			run();
+			return;
+		}
+
+		synchronized(this) {
+			if(pending != null) {
+				return;
+			}
+
+			if(executor == null) {
+				executor = Executors.newSingleThreadScheduledExecutor(r -> {
+					Thread thread = new Thread(r, "dispatch-scheduler");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+
+			pending = executor.schedule(this::runScheduled, windowMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Runs a dispatch immediately (e.g. when the doors open at the target floor) and cancels a pending one,
+	 * because the immediate run already contains all requests so far.
+	 */
+	public void requestNow() {
+		cancelPending();
+		run();
+	}
+
+	/**
+	 * Provides whether a dispatch is scheduled but not yet run.
+	 * @return whether a dispatch is pending (true) or not (false)
+	 */
+	public synchronized boolean isPending() {
+		return pending != null;
+	}
+
+	/**
+	 * Provides the number of dispatches run so far.
+	 * @return the number of runs
+	 */
+	public synchronized long getRunCount() {
+		return runCount;
+	}
+
+	/**
+	 * Provides the window in which requests are coalesced.
+	 * @return the window in ms
+	 */
+	public long getWindowMs() {
+		return windowMs;
+	}
+
+	/**
+	 * Cancels a pending dispatch and stops the scheduler thread.
+	 */
+	public void close() {
+		ScheduledExecutorService toShutdown;
+
+		synchronized(this) {
+			if(pending != null) {
+				pending.cancel(false);
+				pending = null;
+			}
+
+			toShutdown = executor;
+			executor = null;
+		}
+
+		if(toShutdown != null) {
+			toShutdown.shutdownNow();
+		}
+	}
+
+	private synchronized void cancelPending() {
+		if(pending != null) {
+			pending.cancel(false);
+			pending = null;
+		}
+	}
+
+	private void runScheduled() {
+		synchronized(this) {
+			pending = null;
+		}
+
+		run();
+	}
+
+	private void run() {
+		synchronized(lock) {
+			synchronized(this) {
+				++runCount;
+			}
+
+			task.run();
+		}
+	}
+}
@@ -1,7 +1,5 @@
 package at.fhhagenberg.sqelevator.algorithm;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 import java.rmi.RemoteException;
 import java.util.Arrays;
 import java.util.Dictionary;
@@ -9,11 +7,20 @@ import java.util.Enumeration;
 import java.util.Hashtable;
 
 import at.fhhagenberg.sqelevator.Building;
+import at.fhhagenberg.sqelevator.BuildingSnapshot;
 import at.fhhagenberg.sqelevator.Elevator;
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
 import at.fhhagenberg.sqelevator.Floor;
+import at.fhhagenberg.sqelevator.IElevatorListener;
+import at.fhhagenberg.sqelevator.IFloorListener;
+import at.fhhagenberg.sqelevator.PolledField;
 import sqelevator.IElevator;
 
-public class ElevatorAlgorithm implements PropertyChangeListener {
+public class ElevatorAlgorithm implements IElevatorListener, IFloorListener {
+
+	/* elevator fields whose change requires new targets (not the ones the algorithm sets itself) */
+	private static final int DISPATCH_FIELDS = ~((1 << PolledField.DIRECTION.ordinal()) | (1 << PolledField.TARGET.ordinal())
+			| (1 << PolledField.SERVICES_FLOORS.ordinal()));
 
 	private Building mBuilding;
 	private AlgorithmMqttAdapter mAdapter;
@@ -23,6 +30,10 @@ public class ElevatorAlgorithm implements PropertyChangeListener {
     private final boolean[] mDownTarget;
     private boolean initialStatusReceived = false;
     private boolean waitForInitialStatus = false;
+    /* last received state of the floor buttons, repeated messages with the same state don't require new targets */
+    private final boolean[] mButtonUp;
+    private final boolean[] mButtonDown;
+    private final DispatchScheduler mScheduler;
 
     private Dictionary<Object, Dictionary<String , Boolean>> mProps = new Hashtable<>();
 
@@ -65,38 +76,139 @@ public class ElevatorAlgorithm implements PropertyChangeListener {
     	waitForInitialStatus = status;
     }
 
-	@Override
-	public void propertyChange(PropertyChangeEvent evt) {
-		mProps.get(evt.getSource()).put(evt.getPropertyName(), true);
+    /**
+     * marks a property of an elevator or floor as received and determines the next targets
+     * 
+     * @param source the elevator or floor which changed
+     * @param propertyName the name of the changed property
+     * @param update whether the change requires new targets (elevator changes are dispatched once per update in onElevatorUpdated)
+     * @return void
+     */
+
+	private void received(Object source, String propertyName, boolean update) {
+		mProps.get(source).put(propertyName, true);
 		
-		switch (evt.getPropertyName()) {
-		case Elevator.SERVICED_FLOORS_PROPERTY_NAME: break;
-		case Elevator.TARGET_PROPERTY_NAME: break;
-		case Elevator.COMMITTED_DIRECTION_PROPERTY_NAME: break;
-		default:
-			try {
-				if(!waitForInitialStatus || checkInitialStatus()) {
-					if(!initialStatusReceived) {
-						initialStatusReceived = true;
-						System.out.println("Initial status received, starting algorithm");
-					}
-					this.setNextTargets();					
+		if(update || (waitForInitialStatus && !initialStatusReceived && checkInitialStatus())) {
+			mScheduler.request();
+		}
+	}
+
+	private void dispatch() {
+		try {
+			if(!waitForInitialStatus || checkInitialStatus()) {
+				if(!initialStatusReceived) {
+					initialStatusReceived = true;
+					System.out.println("Initial status received, starting algorithm");
 				}
-			} catch (RemoteException e) {
-				// RemoteException cannot happen here, ignore
+				this.setNextTargets();					
 			}
+		} catch (RemoteException e) {
+			// RemoteException cannot happen here, ignore
 		}
 	}
+
+	@Override
+	public void onCommittedDirectionChanged(Elevator elevator, int oldValue, int newValue) {
+		received(elevator, Elevator.COMMITTED_DIRECTION_PROPERTY_NAME, false);
+	}
+
+	@Override
+	public void onAccelerationChanged(Elevator elevator, int oldValue, int newValue) {
+		received(elevator, Elevator.ACCELERATION_PROPERTY_NAME, false);
+	}
+
+	@Override
+	public void onStopRequestChanged(Elevator elevator, int floor, boolean stop) {
+		received(elevator, Elevator.STOP_REQUESTS_PROPERTY_NAME, false);
+	}
+
+	@Override
+	public void onCapacityChanged(Elevator elevator, int oldValue, int newValue) {
+		received(elevator, Elevator.CAPACITY_PROPERTY_NAME, false);
+	}
+
+	@Override
+	public void onDoorStatusChanged(Elevator elevator, int oldValue, int newValue) {
+		received(elevator, Elevator.DOOR_STATUS_PROPERTY_NAME, false);
+	}
+
+	@Override
+	public void onFloorChanged(Elevator elevator, int oldValue, int newValue) {
+		received(elevator, Elevator.FLOOR_PROPERTY_NAME, false);
+	}
+
+	@Override
+	public void onPositionChanged(Elevator elevator, int oldValue, int newValue) {
+		received(elevator, Elevator.POSITION_PROPERTY_NAME, false);
+	}
+
+	@Override
+	public void onSpeedChanged(Elevator elevator, int oldValue, int newValue) {
+		received(elevator, Elevator.SPEED_PROPERTY_NAME, false);
+	}
+
+	@Override
+	public void onWeightChanged(Elevator elevator, int oldValue, int newValue) {
+		received(elevator, Elevator.WEIGHT_PROPERTY_NAME, false);
+	}
+
+	@Override
+	public void onServicesFloorChanged(Elevator elevator, int floor, boolean service) {
+		received(elevator, Elevator.SERVICED_FLOORS_PROPERTY_NAME, false);
+	}
+
+	@Override
+	public void onTargetChanged(Elevator elevator, int oldValue, int newValue) {
+		received(elevator, Elevator.TARGET_PROPERTY_NAME, false);
+	}
+
+	@Override
+	public void onElevatorUpdated(Elevator elevator, int changeMask) {
+		if(Elevator.isChanged(changeMask, PolledField.DOORS) && isOpeningOnTarget(elevator)) {
+			/* passengers are waiting for the next target, don't delay it */
+			mScheduler.requestNow();
+		}
+		else if((changeMask & DISPATCH_FIELDS) != 0) {
+			mScheduler.request();
+		}
+	}
+
+	@Override
+	public void onButtonUpChanged(Floor floor, boolean buttonUp) {
+		boolean changed = mButtonUp[floor.getNumber()] != buttonUp;
+		mButtonUp[floor.getNumber()] = buttonUp;
+		received(floor, Floor.BUTTON_UP_PROPERTY_NAME, changed);
+	}
+
+	@Override
+	public void onButtonDownChanged(Floor floor, boolean buttonDown) {
+		boolean changed = mButtonDown[floor.getNumber()] != buttonDown;
+		mButtonDown[floor.getNumber()] = buttonDown;
+		received(floor, Floor.BUTTON_DOWN_PROPERTY_NAME, changed);
+	}
 	
+    /**
+     * ElevatorAlgorithm constructor, the targets are determined synchronously on every relevant change
+     *
+     * @param mqttAdapter Adapter to connect to the mqtt client
+     * @return none
+     */
+
+	public ElevatorAlgorithm(AlgorithmMqttAdapter mqttAdapter) {
+		this(mqttAdapter, 0);
+	}
+
     /**
      * ElevatorAlgorithm constructor
      *
      * @param mqttAdapter Adapter to connect to the mqtt client
+     * @param dispatchWindowMs window in ms in which changes are coalesced into one determination of the targets, 0 to determine them on every change
      * @return none
      */
 
-	public ElevatorAlgorithm(AlgorithmMqttAdapter mqttAdapter) {		
+	public ElevatorAlgorithm(AlgorithmMqttAdapter mqttAdapter, long dispatchWindowMs) {
 		mAdapter = mqttAdapter;
+		mScheduler = new DispatchScheduler(this::dispatch, mqttAdapter, dispatchWindowMs);
 		mBuilding = mqttAdapter.getBuilding();
         mUp = new boolean[mBuilding.getElevatorCount()];
         Arrays.fill(mUp, true);
@@ -104,9 +216,11 @@ public class ElevatorAlgorithm implements PropertyChangeListener {
         Arrays.fill(mUpTarget, false);
         mDownTarget = new boolean[mBuilding.getFloorCount()];
         Arrays.fill(mDownTarget, false);
+        mButtonUp = new boolean[mBuilding.getFloorCount()];
+        mButtonDown = new boolean[mBuilding.getFloorCount()];
 
 		for(int i = 0; i < mBuilding.getElevatorCount(); ++i) {
-			mBuilding.getElevators()[i].addPropertyChangeListener(this);
+			mBuilding.getElevators()[i].addElevatorListener(this);
 
 			Dictionary<String , Boolean> d = new Hashtable<>();
 			d.put(Elevator.ACCELERATION_PROPERTY_NAME, false);
@@ -122,7 +236,9 @@ public class ElevatorAlgorithm implements PropertyChangeListener {
 		}
 
 		for(int i = 0; i < mBuilding.getFloorCount(); ++i) {
-			mBuilding.getFloors()[i].addPropertyChangeListener(this);
+			mBuilding.getFloors()[i].addFloorListener(this);
+			mButtonUp[i] = mBuilding.getFloors()[i].isButtonUp();
+			mButtonDown[i] = mBuilding.getFloors()[i].isButtonDown();
 
 			Dictionary<String , Boolean> d = new Hashtable<>();
 			d.put(Floor.BUTTON_DOWN_PROPERTY_NAME, false);
@@ -135,43 +251,62 @@ public class ElevatorAlgorithm implements PropertyChangeListener {
 
 	public void Shutdown() {		
 		for(int i = 0; i < mBuilding.getElevatorCount(); ++i) {
-			mBuilding.getElevators()[i].removePropertyChangeListener(this);
+			mBuilding.getElevators()[i].removeElevatorListener(this);
 		}
 
 		for(int i = 0; i < mBuilding.getFloorCount(); ++i) {
-			mBuilding.getFloors()[i].removePropertyChangeListener(null);
+			mBuilding.getFloors()[i].removeFloorListener(this);
 		}
+
+		mScheduler.close();
 	}
 
+    /**
+     * determines if the doors of an elevator start to open on its target floor
+     *
+     * @param elevator which to check
+     * @return true if the doors are opening or open on the target floor, false otherwise
+     */
+    private boolean isOpeningOnTarget(Elevator elevator) {
+        return elevator.getTarget() == elevator.getFloor()
+        		&& (elevator.getDoorStatus() == IElevator.ELEVATOR_DOORS_OPEN || elevator.getDoorStatus() == IElevator.ELEVATOR_DOORS_OPENING);
+    }
+
     /**
      * determines if an elevator is standing on its target floor
      *
-     * @param elevator which to check if it is standing on its target floor
+     * @param elevator snapshot of the elevator which to check if it is standing on its target floor
      * @return true if standing on the target floor, false otherwise
      */
-    private boolean isOnTargetFloor(Elevator elevator) {
+    private boolean isOnTargetFloor(ElevatorSnapshot elevator) {
         return elevator.getTarget() == elevator.getFloor() && elevator.getSpeed() == 0 && elevator.getDoorStatus() == IElevator.ELEVATOR_DOORS_OPEN;
     }
 
     /**
      * determines the next targets for the elevators
+     * publishes one snapshot of the building for the whole dispatch, so all changes applied so far (e.g. all
+     * status messages of a dispatch window) are seen together and the elevators are read without locking them
      *
      * @return void
      */
 	
     public void setNextTargets() throws RemoteException {
+        setNextTargets(mBuilding.publishSnapshot());
+    }
+
+    private void setNextTargets(BuildingSnapshot building) throws RemoteException {
         
     	/* collect all up/down button presses */
-        var upPressed = new boolean[mBuilding.getFloorCount()];
-        var downPressed = new boolean[mBuilding.getFloorCount()];
-        for (var floor : mBuilding.getFloors()) {
-            downPressed[floor.getNumber()] = floor.isButtonDown();
-            upPressed[floor.getNumber()] = floor.isButtonUp();
+        var upPressed = new boolean[building.getFloorCount()];
+        var downPressed = new boolean[building.getFloorCount()];
+        for (int floor = 0; floor < building.getFloorCount(); ++floor) {
+            downPressed[floor] = building.isButtonDown(floor);
+            upPressed[floor] = building.isButtonUp(floor);
         }
     	
         /* handle the targets one after the other, keep them until the elevator arrives */
-    	for (var elevator : mBuilding.getElevators()) {
-            handleElevatorTargets(elevator, upPressed, downPressed);
+    	for (int elevator = 0; elevator < building.getElevatorCount(); ++elevator) {
+            handleElevatorTargets(building.getElevator(elevator), upPressed, downPressed);
         }
     }
     
@@ -181,6 +316,7 @@ public class ElevatorAlgorithm implements PropertyChangeListener {
     	
     	private int currentfloor;
     	private boolean breakNeeded;
+    	private int target;
     	
     	public int getCurrentFloor()
     	{
@@ -192,10 +328,16 @@ public class ElevatorAlgorithm implements PropertyChangeListener {
     		return this.breakNeeded;
     	}
     	
-    	public searchAndHandleStopsReturn(int currentfloor, boolean breakNeeded)
+    	public int getTarget()
+    	{
+    		return this.target;
+    	}
+    	
+    	public searchAndHandleStopsReturn(int currentfloor, boolean breakNeeded, int target)
     	{
     		this.currentfloor = currentfloor;
     		this.breakNeeded = breakNeeded;
+    		this.target = target;
     	}
     }
     
@@ -203,20 +345,22 @@ public class ElevatorAlgorithm implements PropertyChangeListener {
     /**
      * get a new target for the current elevator
      *
-     * @param elevator current elevator to handle the targets for
+     * @param elevator snapshot of the current elevator to handle the targets for
      * @param upPressed up buttons of each floor
      * @param downPressed down buttons of each floor
      * @return void
      */
     
-    private void handleElevatorTargets(Elevator elevator, boolean[] upPressed, boolean[] downPressed) throws RemoteException {
+    private void handleElevatorTargets(ElevatorSnapshot elevator, boolean[] upPressed, boolean[] downPressed) throws RemoteException {
       
     	if (isOnTargetFloor(elevator)) {
     		
     		int currentFloor = elevator.getFloor();
+    		/* the snapshot isn't updated by setTarget, so the new target is tracked here */
+    		int target = elevator.getTarget();
     		
     		/* collection of all stops, prevents stopping on current floor */
-            var stops = new boolean[mBuilding.getFloorCount()];
+            var stops = new boolean[elevator.getNumberOfFloors()];
             for (int i = 0; i < elevator.getNumberOfFloors(); ++i) {
                 stops[i] = elevator.getStopRequest(i);
             }
@@ -248,6 +392,7 @@ public class ElevatorAlgorithm implements PropertyChangeListener {
                     starting with the upmost floor */
 	            	currentFloor = ret.getCurrentFloor();
 	            	if(ret.getBreakNeeded()) {
+	            		target = ret.getTarget();
 	            		break;
 	            	}
 	            }
@@ -258,12 +403,13 @@ public class ElevatorAlgorithm implements PropertyChangeListener {
 	            	
 	            	currentFloor = ret.getCurrentFloor();
 	            	if(ret.getBreakNeeded()) {
+	            		target = ret.getTarget();
 	            		break;
 	            	}
 	            }
             }
             
-            updateDirectionAndClearTargets(elevator);
+            updateDirectionAndClearTargets(elevator, target);
         }
     }
 
@@ -271,17 +417,17 @@ public class ElevatorAlgorithm implements PropertyChangeListener {
     /**
      * search for new target floor
      *
-     * @param elevator current elevator to handle the targets for
+     * @param elevator snapshot of the current elevator to handle the targets for
      * @param currentFloor current floor as search start point
      * @param pressedArray all up/down buttons of each floor
      * @param targetArray target arrays for up/down targets
      * @param stops contains all stop requests for current elevator
      * @param isUpwards specifies the direction
-     * @return searchAndHandleStopsReturn contains new current floor 
-     * 		   and information if the search is done
+     * @return searchAndHandleStopsReturn contains new current floor, 
+     * 		   information if the search is done and the new target if it is
      */
 
-    private searchAndHandleStopsReturn searchAndHandleStops(Elevator elevator, int currentFloor, boolean[] pressedArray, boolean[] targetArray, boolean[] stops, boolean isUpwards) throws RemoteException {
+    private searchAndHandleStopsReturn searchAndHandleStops(ElevatorSnapshot elevator, int currentFloor, boolean[] pressedArray, boolean[] targetArray, boolean[] stops, boolean isUpwards) throws RemoteException {
         int floorIterator = isUpwards ? currentFloor + 1 : currentFloor - 1;
         boolean breakRequest = false;
         
@@ -317,14 +463,14 @@ public class ElevatorAlgorithm implements PropertyChangeListener {
         	breakRequest = true;
         }
         
-        return new searchAndHandleStopsReturn(currentFloor,breakRequest);
+        return new searchAndHandleStopsReturn(currentFloor,breakRequest,floorIterator);
     }
 
     
     /**
      * search for a new stop
      *
-     * @param elevator current elevator to handle the targets for
+     * @param elevator snapshot of the current elevator to handle the targets for
      * @param floor floor to check as stop
      * @param pressedArray all up/down buttons of each floor
      * @param targetArray target arrays for up/down targets
@@ -332,7 +478,7 @@ public class ElevatorAlgorithm implements PropertyChangeListener {
      * @return boolean returns true if stop was found, false otherwise
      */
     
-    private boolean handleFloorStopRequest(Elevator elevator, int floor, boolean[] pressedArray, boolean[] targetArray, boolean[] stops) throws RemoteException {
+    private boolean handleFloorStopRequest(ElevatorSnapshot elevator, int floor, boolean[] pressedArray, boolean[] targetArray, boolean[] stops) throws RemoteException {
     	if (((pressedArray[floor] && !targetArray[floor]) || stops[floor]) &&
                 elevator.getServicesFloor(floor)) {
             mAdapter.setTarget(elevator.getNumber(), floor);
@@ -347,17 +493,18 @@ public class ElevatorAlgorithm implements PropertyChangeListener {
     /**
      * publish the new direction based on the target
      *
-     * @param elevator current elevator to handle the targets for
+     * @param elevator snapshot of the current elevator to handle the targets for
+     * @param target the target of the elevator after this dispatch
      * @return void
      */
     
-    private void updateDirectionAndClearTargets(Elevator elevator) throws RemoteException {
+    private void updateDirectionAndClearTargets(ElevatorSnapshot elevator, int target) throws RemoteException {
         /* set direction based on the target */
-        if (elevator.getTarget() == elevator.getFloor()) {
+        if (target == elevator.getFloor()) {
             mAdapter.setCommittedDirection(elevator.getNumber(), IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
-        } else if (elevator.getTarget() < elevator.getFloor()) {
+        } else if (target < elevator.getFloor()) {
             mAdapter.setCommittedDirection(elevator.getNumber(), IElevator.ELEVATOR_DIRECTION_DOWN);
-        } else if (elevator.getTarget() > elevator.getFloor()) {
+        } else if (target > elevator.getFloor()) {
             mAdapter.setCommittedDirection(elevator.getNumber(), IElevator.ELEVATOR_DIRECTION_UP);
         }
     }
@@ -6,6 +6,8 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.concurrent.ExecutionException;
 
+import javax.management.JMException;
+
 import at.fhhagenberg.sqelevator.ElevatorProperties;
 import at.fhhagenberg.sqelevator.ElevatorsMqttClient;
 import at.fhhagenberg.sqelevator.ExitCommandThread;
@@ -26,6 +28,7 @@ public class Main {
 
 	public void run( ElevatorProperties props, InputStream in, OutputStream out) throws IOException, InterruptedException, ExecutionException {
 		ElevatorsMqttClient mqtt = new ElevatorsMqttClient(props.getMqttAddress(), props.getMqttPort());
+		mqtt.configure(props);
 
 		ExitCommandThread exitThread = new ExitCommandThread(in, props.getExitLine());
 		exitThread.start();
@@ -34,6 +37,14 @@ public class Main {
 		writer.write("Enter \"" + props.getExitLine() + "\" to stop the application.\n");
 		writer.flush();
 
+		try {
+			writer.write("Publish metrics available via JMX: " + mqtt.getPublishMetrics().register("algorithm") + "\n");
+		}
+		catch(JMException e) {
+			writer.write("Publish metrics not available via JMX: " + e.getMessage() + "\n");
+		}
+		writer.flush();
+
 		writer.write("Waiting for initial mqtt messages to arrive.\n");
 		writer.flush();
 
@@ -73,12 +84,16 @@ public class Main {
 		writer.write("got initial data...");
 		writer.flush();
 
+		mqtt.useTopicTable(numElevators, numFloors);
 		AlgorithmMqttAdapter mqttAdapter = new AlgorithmMqttAdapter(mqtt,numElevators, numFloors, floorHeight);
-		ElevatorAlgorithm elevatorAlgorithm = new ElevatorAlgorithm(mqttAdapter);
+		ElevatorAlgorithm elevatorAlgorithm = new ElevatorAlgorithm(mqttAdapter, props.getDispatchWindow());
 
 		elevatorAlgorithm.setWaitForInitialStatusReceived(true);
 		
-		if(!mqttAdapter.subscribeToStatusMessages()) {
+		boolean useStateTopic = props.getTelemetryFormat() != null && props.getTelemetryFormat().usesStateTopic();
+		boolean subscribed = useStateTopic ? mqttAdapter.subscribeToStateMessages() : mqttAdapter.subscribeToStatusMessages();
+
+		if(!subscribed) {
 			writer.write("could not subscribe to all status messages\n");
 			writer.flush();
 			return;
@@ -0,0 +1,87 @@
+package at.fhhagenberg.sqelevator.algorithm;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class DispatchSchedulerTest {
+
+	@Test
+	void testInvalidArguments() {
+		Object lock = new Object();
+		assertThrows(IllegalArgumentException.class, () -> new DispatchScheduler(null, lock, 0));
+		assertThrows(IllegalArgumentException.class, () -> new DispatchScheduler(() -> {}, null, 0));
+		assertThrows(IllegalArgumentException.class, () -> new DispatchScheduler(() -> {}, lock, -1));
+	}
+
+	@Test
+	void testZeroWindowRunsSynchronously() {
+		AtomicInteger runs = new AtomicInteger();
+		DispatchScheduler scheduler = new DispatchScheduler(runs::incrementAndGet, new Object(), 0);
+
+		scheduler.request();
+		scheduler.request();
+
+		assertEquals(2, runs.get());
+		assertEquals(2, scheduler.getRunCount());
+		assertFalse(scheduler.isPending());
+		scheduler.close();
+	}
+
+	@Test
+	void testBurstIsCoalesced() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicInteger runs = new AtomicInteger();
+		DispatchScheduler scheduler = new DispatchScheduler(() -> {
+			runs.incrementAndGet();
+			latch.countDown();
+		}, new Object(), 100);
+
+		for(int i = 0; i < 50; ++i) {
+			scheduler.request();
+		}
+
+		assertTrue(scheduler.isPending());
+		assertEquals(0, runs.get());
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		Thread.sleep(200);
+
+		assertEquals(1, runs.get());
+		assertFalse(scheduler.isPending());
+		scheduler.close();
+	}
+
+	@Test
+	void testRequestNowCancelsPending() throws InterruptedException {
+		AtomicInteger runs = new AtomicInteger();
+		DispatchScheduler scheduler = new DispatchScheduler(runs::incrementAndGet, new Object(), 100);
+
+		scheduler.request();
+		assertTrue(scheduler.isPending());
+
+		scheduler.requestNow();
+		assertEquals(1, runs.get());
+		assertFalse(scheduler.isPending());
+
+		Thread.sleep(250);
+		assertEquals(1, runs.get());
+		scheduler.close();
+	}
+
+	@Test
+	void testClose() throws InterruptedException {
+		AtomicInteger runs = new AtomicInteger();
+		DispatchScheduler scheduler = new DispatchScheduler(runs::incrementAndGet, new Object(), 50);
+
+		scheduler.request();
+		scheduler.close();
+		Thread.sleep(150);
+
+		assertEquals(0, runs.get());
+		assertFalse(scheduler.isPending());
+	}
+}
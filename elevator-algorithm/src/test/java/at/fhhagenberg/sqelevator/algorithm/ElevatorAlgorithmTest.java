@@ -506,5 +506,92 @@ class ElevatorAlgorithmTest {
         assertEquals(2, elevator1.getTarget());
         assertEquals(IElevator.ELEVATOR_DIRECTION_UP, elevator1.getCommittedDirection());
     }
-	
+
+    @Test
+    void testDispatchWindowCoalescesAndDoorsOpeningDispatchImmediately() throws RemoteException, InterruptedException, ExecutionException {
+    	ElevatorsMqttClient mqttclient = mock(ElevatorsMqttClient.class);
+    	when(mqttclient.isConnected()).thenReturn(true);
+        AlgorithmMqttAdapter ama = new AlgorithmMqttAdapter(mqttclient,1,4,10);
+        ElevatorAlgorithm logic = new ElevatorAlgorithm(ama, 60000);
+        var building = ama.getBuilding();
+        var elevator0 = building.getElevators()[0];
+        var floors = building.getFloors();
+        elevator0.setServicesFloor(0, true);
+        elevator0.setServicesFloor(1, true);
+        elevator0.setServicesFloor(2, true);
+        elevator0.setServicesFloor(3, true);
+
+        /* coalesced into the pending dispatch */
+        elevator0.setStopRequest(2, true);
+        floors[3].setButtonDown(true);
+        assertEquals(0, elevator0.getTarget());
+
+        /* doors opening on the target floor dispatch immediately */
+        elevator0.setDoorStatus(IElevator.ELEVATOR_DOORS_OPEN);
+        assertEquals(2, elevator0.getTarget());
+        assertEquals(IElevator.ELEVATOR_DIRECTION_UP, elevator0.getCommittedDirection());
+
+        logic.Shutdown();
+    }
+
+    @Test
+    void testDispatchReadsOneSnapshotOfTheWindow() throws RemoteException, InterruptedException, ExecutionException {
+    	ElevatorsMqttClient mqttclient = mock(ElevatorsMqttClient.class);
+    	when(mqttclient.isConnected()).thenReturn(true);
+        AlgorithmMqttAdapter ama = new AlgorithmMqttAdapter(mqttclient,1,4,10);
+        ElevatorAlgorithm logic = new ElevatorAlgorithm(ama, 60000);
+        var building = ama.getBuilding();
+        var elevator0 = building.getElevators()[0];
+        var floors = building.getFloors();
+        elevator0.setServicesFloor(0, true);
+        elevator0.setServicesFloor(1, true);
+        elevator0.setServicesFloor(2, true);
+        elevator0.setServicesFloor(3, true);
+        var before = building.getSnapshot();
+
+        /* the status messages of the window don't publish snapshots */
+        elevator0.setStopRequest(2, true);
+        floors[3].setButtonDown(true);
+        assertSame(before, building.getSnapshot());
+
+        /* the dispatch publishes one snapshot with all changes of the window */
+        elevator0.setDoorStatus(IElevator.ELEVATOR_DOORS_OPEN);
+        var snapshot = building.getSnapshot();
+        assertEquals(before.getVersion() + 1, snapshot.getVersion());
+        assertTrue(snapshot.getElevator(0).getStopRequest(2));
+        assertTrue(snapshot.isButtonDown(3));
+        assertEquals(IElevator.ELEVATOR_DOORS_OPEN, snapshot.getElevator(0).getDoorStatus());
+        assertEquals(2, elevator0.getTarget());
+
+        logic.Shutdown();
+    }
+
+    @Test
+    void testRepeatedFloorButtonDoesNotDispatch() throws RemoteException, InterruptedException, ExecutionException {
+    	ElevatorsMqttClient mqttclient = mock(ElevatorsMqttClient.class);
+    	when(mqttclient.isConnected()).thenReturn(true);
+        AlgorithmMqttAdapter ama = new AlgorithmMqttAdapter(mqttclient,1,4,10);
+        ElevatorAlgorithm logic = new ElevatorAlgorithm(ama);
+        var building = ama.getBuilding();
+        var elevator0 = building.getElevators()[0];
+        var floors = building.getFloors();
+        elevator0.setDoorStatus(IElevator.ELEVATOR_DOORS_OPEN);
+        elevator0.setServicesFloor(0, true);
+        elevator0.setServicesFloor(1, true);
+        elevator0.setServicesFloor(2, true);
+        elevator0.setServicesFloor(3, true);
+
+        clearInvocations(mqttclient);
+
+        /* repeated messages with the same state don't determine new targets */
+        floors[2].setButtonUp(false);
+        floors[2].setButtonUp(false);
+        verify(mqttclient, never()).publishDirectionReceived(anyInt(), anyInt());
+
+        floors[2].setButtonUp(true);
+        assertEquals(2, elevator0.getTarget());
+        verify(mqttclient, atLeastOnce()).publishDirectionReceived(0, IElevator.ELEVATOR_DIRECTION_UP);
+
+        logic.Shutdown();
+    }
 }
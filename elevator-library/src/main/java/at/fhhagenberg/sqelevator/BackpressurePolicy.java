@@ -0,0 +1,35 @@
+package at.fhhagenberg.sqelevator;
+
+/**
+ * Policy of the PublishPipeline for messages which are submitted while the publish queue is full.
+ * CONFLATE additionally acts on every submit, not only when the queue is full.
+ */
+public enum BackpressurePolicy {
+
+	/** The submitting thread waits until there is space in the queue. */
+	BLOCK,
+
+	/** The oldest queued message is dropped (its future is cancelled) to make space for the new one. */
+	DROP_OLDEST,
+
+	/**
+	 * On every submit, also while the queue has space, a queued message for the same topic (with the same QoS and
+	 * retain flag) is replaced with the new payload, keeping its place in the queue, and both submitters get the
+	 * same future. If there is no such queued message, the new message is appended; if the queue is full, the
+	 * submitting thread waits like with BLOCK.
+	 */
+	CONFLATE;
+
+	/**
+	 * Parses a policy name case-insensitively (e.g. from elevator.properties).
+	 * @param name the name of the policy
+	 * @return the matching policy
+	 */
+	public static BackpressurePolicy parse(String name) {
+		if(name == null) {
+			throw new IllegalArgumentException("Backpressure policy must not be null!");
+		}
+
+		return valueOf(name.trim().toUpperCase());
+	}
+}
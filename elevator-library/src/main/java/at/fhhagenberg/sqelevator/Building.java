@@ -1,45 +1,240 @@
 package at.fhhagenberg.sqelevator;
 
 import java.rmi.RemoteException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import sqelevator.IElevator;
 
 /**
  * Class representing a building with elevators and floors.
  * The building is initialized in the constructor using information from the control unit.
+ * With an executor the elevators and floors are read concurrently, so the initial load takes about
+ * (elevators + floors) / threads elevator reads instead of one read after the other.
+ * After each batch of updates the writer publishes an immutable BuildingSnapshot (publishSnapshot()), which readers
+ * get via a volatile reference (getSnapshot()) without locking the elevators and floors.
  */
 public class Building {
 
+	private final IElevator plc;
 	private final Elevator[] elevators;
 	private final Floor[] floors;
 	private final int floorHeight;
+	private final long loadTimeNanos;
+	private final int[] elevatorChanges;
+	private final int[] floorChanges;
+	private volatile BuildingSnapshot snapshot;
 
 	/**
-	 * Create a new building from the given IElevator API.
+	 * Create a new building from the given IElevator API. The elevators and floors are read one after the other.
 	 * @param plc the IElevator API to create the building from
 	 * @throws RemoteException if the connection to the IElevator API is broken
 	 */
 	public Building(IElevator plc) throws RemoteException {		
+		this(plc, null);
+	}
+
+	/**
+	 * Create a new building from the given IElevator API. The elevators and floors are read concurrently on the
+	 * given executor, which should be bounded (e.g. a fixed thread pool) to limit the concurrent remote calls.
+	 * @param plc the IElevator API to create the building from
+	 * @param executor the executor which reads the elevators and floors, null to read them one after the other
+	 * @throws RemoteException if the connection to the IElevator API is broken
+	 */
+	public Building(IElevator plc, ExecutorService executor) throws RemoteException {		
 		if(plc == null) {
 			throw new IllegalArgumentException("Plc must be valid!"); 
 		}
 		
+		long start = System.nanoTime();
+		this.plc = plc;
 		int numElevators = plc.getElevatorNum();
 		int numFloors = plc.getFloorNum();
 		floorHeight = plc.getFloorHeight();
 		elevators = new Elevator[numElevators];
 		floors = new Floor[numFloors];
 		
-		for(int i = 0; i < elevators.length; ++i) {
-			Elevator elevator = new Elevator(plc, i);
-			elevators[i] = elevator;
+		if(executor == null) {
+			for(int i = 0; i < elevators.length; ++i) {
+				Elevator elevator = new Elevator(plc, i);
+				elevators[i] = elevator;
+			}
+			
+			for(int i = 0; i < floors.length; ++i) {
+				Floor floor = new Floor(plc, i);
+				floors[i] = floor;
+			}
+		}
+		else {
+			load(plc, executor);
 		}
 		
+		loadTimeNanos = System.nanoTime() - start;
+		elevatorChanges = new int[numElevators];
+		floorChanges = new int[numFloors];
+		publishSnapshot();
+	}
+
+	private void load(IElevator plc, ExecutorService executor) throws RemoteException {
+		List<Future<Elevator>> elevatorFutures = new ArrayList<>(elevators.length);
+		List<Future<Floor>> floorFutures = new ArrayList<>(floors.length);
+
+		try {
+			for(int i = 0; i < elevators.length; ++i) {
+				int number = i;
+				elevatorFutures.add(executor.submit(() -> new Elevator(plc, number)));
+			}
+
+			for(int i = 0; i < floors.length; ++i) {
+				int number = i;
+				floorFutures.add(executor.submit(() -> new Floor(plc, number)));
+			}
+
+			for(int i = 0; i < elevators.length; ++i) {
+				elevators[i] = elevatorFutures.get(i).get();
+			}
+
+			for(int i = 0; i < floors.length; ++i) {
+				floors[i] = floorFutures.get(i).get();
+			}
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RemoteException("Loading of the building interrupted!", e);
+		}
+		catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+
+			if(cause instanceof RemoteException) {
+				throw (RemoteException) cause;
+			}
+
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+
+			throw new RemoteException("Loading of the building failed!", cause);
+		}
+		finally {
+			cancel(elevatorFutures);
+			cancel(floorFutures);
+		}
+	}
+
+	private static void cancel(List<? extends Future<?>> futures) {
+		for(Future<?> future : futures) {
+			future.cancel(true);
+		}
+	}
+
+	/**
+	 * Provides the elevator PLC connection object the building was created from.
+	 * @return the elevator PLC connection object
+	 */
+	public IElevator getPlc() {
+		return plc;
+	}
+
+	/**
+	 * Provides the time the constructor took to read the building from the IElevator API.
+	 * @return the load time in ms
+	 */
+	public long getLoadTimeMs() {
+		return TimeUnit.NANOSECONDS.toMillis(loadTimeNanos);
+	}
+
+	/**
+	 * Provides the last published snapshot of the building. The method does not lock, so it can be called from any thread.
+	 * @return the last published snapshot
+	 */
+	public BuildingSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Publishes a new snapshot of the building if an elevator or floor changed since the last snapshot.
+	 * It is called once per batch of updates while the writer is blocked (e.g. by the ElevatorAlgorithm at the start of
+	 * each dispatch, which runs under the lock of its MQTT adapter), so the readers never see a partially applied batch. Only the elevators which changed are copied; the others are shared with the previous
+	 * snapshot.
+	 * @return the published snapshot, the previous one if nothing changed
+	 */
+	public synchronized BuildingSnapshot publishSnapshot() {
+		BuildingSnapshot previous = snapshot;
+		ElevatorSnapshot[] elevatorSnapshots = previous == null ? new ElevatorSnapshot[elevators.length] : null;
+		boolean floorsChanged = previous == null;
+
+		for(int i = 0; i < elevators.length; ++i) {
+			int changes = elevators[i].getChangeCount();
+
+			if(previous == null || changes != elevatorChanges[i]) {
+				if(elevatorSnapshots == null) {
+					elevatorSnapshots = previous.elevators().clone();
+				}
+
+				elevatorChanges[i] = changes;
+				elevatorSnapshots[i] = ElevatorSnapshot.of(elevators[i]);
+			}
+		}
+
 		for(int i = 0; i < floors.length; ++i) {
-			Floor floor = new Floor(plc, i);
-			floors[i] = floor;
+			int changes = floors[i].getChangeCount();
+
+			if(changes != floorChanges[i]) {
+				floorChanges[i] = changes;
+				floorsChanged = true;
+			}
+		}
+
+		if(elevatorSnapshots == null && !floorsChanged) {
+			return previous;
+		}
+
+		long[] buttonsUp;
+		long[] buttonsDown;
+
+		if(floorsChanged) {
+			buttonsUp = new long[ElevatorSnapshot.wordCount(floors.length)];
+			buttonsDown = new long[buttonsUp.length];
+
+			for(int i = 0; i < floors.length; ++i) {
+				if(floors[i].isButtonUp()) {
+					buttonsUp[i >>> 6] |= 1L << i;
+				}
+
+				if(floors[i].isButtonDown()) {
+					buttonsDown[i >>> 6] |= 1L << i;
+				}
+			}
+		}
+		else {
+			buttonsUp = previous.getButtonsUp();
+			buttonsDown = previous.getButtonsDown();
+		}
+
+		BuildingSnapshot next = new BuildingSnapshot(previous == null ? 1 : previous.getVersion() + 1, floorHeight,
+				elevatorSnapshots == null ? previous.elevators() : elevatorSnapshots, floors.length, buttonsUp, buttonsDown);
+		snapshot = next;
+		return next;
+	}
+
+	/**
+	 * Checks whether the given IElevator API has the same number of elevators and floors and the same floor height as
+	 * the building, e.g. after a reconnect to a restarted simulator. If it has, the building can be kept and updated.
+	 * @param plc the IElevator API to compare the building with
+	 * @return whether the layout of the IElevator API matches the building (true) or not (false)
+	 * @throws RemoteException if the connection to the IElevator API is broken
+	 */
+	public boolean matchesLayout(IElevator plc) throws RemoteException {
+		if(plc == null) {
+			throw new IllegalArgumentException("Plc must be valid!");
 		}
+
+		return plc.getElevatorNum() == elevators.length && plc.getFloorNum() == floors.length && plc.getFloorHeight() == floorHeight;
 	}
 
 	/**
@@ -0,0 +1,119 @@
+package at.fhhagenberg.sqelevator;
+
+/**
+ * Immutable, versioned snapshot of the state of all elevators and floors of a building.
+ * The elevators are stored as ElevatorSnapshots and the floor buttons as bitsets with one bit per floor.
+ * A Building publishes a new snapshot after each batch of updates (see Building.publishSnapshot()), so readers get a
+ * consistent view of the whole building without locks. Snapshots of elevators which did not change are shared between
+ * versions.
+ */
+public final class BuildingSnapshot {
+
+	private final long version;
+	private final int floorHeight;
+	private final ElevatorSnapshot[] elevators;
+	private final int floors;
+	private final long[] buttonsUp;
+	private final long[] buttonsDown;
+
+	BuildingSnapshot(long version, int floorHeight, ElevatorSnapshot[] elevators, int floors, long[] buttonsUp, long[] buttonsDown) {
+		this.version = version;
+		this.floorHeight = floorHeight;
+		this.elevators = elevators;
+		this.floors = floors;
+		this.buttonsUp = buttonsUp;
+		this.buttonsDown = buttonsDown;
+	}
+
+	/**
+	 * Provides the version of the snapshot. The version is incremented with every published snapshot of a building,
+	 * so a reader can detect whether the building changed since its last snapshot.
+	 * @return the version of the snapshot, starting with 1
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Provides the height of the floors in the building.
+	 * @return the height of the floors
+	 */
+	public int getFloorHeight() {
+		return floorHeight;
+	}
+
+	/**
+	 * Provides the number of elevators in the building.
+	 * @return the number of elevators
+	 */
+	public int getElevatorCount() {
+		return elevators.length;
+	}
+
+	/**
+	 * Provides the number of floors in the building.
+	 * @return the number of floors
+	 */
+	public int getFloorCount() {
+		return floors;
+	}
+
+	/**
+	 * Provides the snapshot of an elevator.
+	 * @param elevator the elevator number
+	 * @return the snapshot of the elevator
+	 */
+	public ElevatorSnapshot getElevator(int elevator) {
+		if(elevator < 0 || elevator >= elevators.length) {
+			throw new IllegalArgumentException("Invalid elevator!");
+		}
+
+		return elevators[elevator];
+	}
+
+	/**
+	 * Provides the status of the Up button of a floor.
+	 * @param floor the floor number
+	 * @return whether the button is active (true) or not (false)
+	 */
+	public boolean isButtonUp(int floor) {
+		checkFloor(floor);
+		return (buttonsUp[floor >>> 6] & (1L << floor)) != 0;
+	}
+
+	/**
+	 * Provides the status of the Down button of a floor.
+	 * @param floor the floor number
+	 * @return whether the button is active (true) or not (false)
+	 */
+	public boolean isButtonDown(int floor) {
+		checkFloor(floor);
+		return (buttonsDown[floor >>> 6] & (1L << floor)) != 0;
+	}
+
+	/**
+	 * Provides a copy of the Up buttons of the floors.
+	 * @return the bitset of the Up buttons with one bit per floor
+	 */
+	public long[] getButtonsUp() {
+		return buttonsUp.clone();
+	}
+
+	/**
+	 * Provides a copy of the Down buttons of the floors.
+	 * @return the bitset of the Down buttons with one bit per floor
+	 */
+	public long[] getButtonsDown() {
+		return buttonsDown.clone();
+	}
+
+	ElevatorSnapshot[] elevators() {
+		return elevators;
+	}
+
+	private void checkFloor(int floor) {
+		if(floor < 0 || floor >= floors) {
+			throw new IllegalArgumentException("Invalid floor!");
+		}
+	}
+}
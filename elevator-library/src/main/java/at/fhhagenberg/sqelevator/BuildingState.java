@@ -0,0 +1,441 @@
+package at.fhhagenberg.sqelevator;
+
+import java.util.Arrays;
+
+/**
+ * Columnar (struct of arrays) store of the state of all elevators and floors of a building.
+ *
+ * Every elevator field is stored in one int array with one slot per elevator, the per-floor fields (stop requests,
+ * serviced floors) in one bitset per field with ElevatorSnapshot.wordCount(floors) words per elevator and the floor
+ * buttons in one bitset with one bit per floor.
+ * The state is double buffered: the updaters write the next tick into the back buffer (write, setFloorButtons) and
+ * swap() compares the back with the front buffer column by column (Arrays.mismatch, which is vectorized by the JIT),
+ * makes the back buffer the new front buffer and records the changed (dirty) slots, so only these are published.
+ * Writing a snapshot copies its values into the slots of the elevator without allocating.
+ *
+ * The ElevatorsMqttAdapter uses the state instead of the MQTT bridges if the building_state property is set: the
+ * updaters write each tick into the back buffer and the BuildingStatePublisher swaps and publishes it after the tick.
+ *
+ * Elevators and floors may be written concurrently by different threads, but swap() must not run concurrently with
+ * the writes of a tick.
+ */
+public class BuildingState {
+
+	private static final PolledField[] VALUE_FIELDS = {
+			PolledField.DIRECTION, PolledField.ACCELERATION, PolledField.CAPACITY, PolledField.DOORS, PolledField.FLOOR,
+			PolledField.POSITION, PolledField.SPEED, PolledField.WEIGHT, PolledField.TARGET };
+	private static final int[] COLUMNS = new int[PolledField.values().length];
+
+	static {
+		Arrays.fill(COLUMNS, -1);
+
+		for(int i = 0; i < VALUE_FIELDS.length; ++i) {
+			COLUMNS[VALUE_FIELDS[i].ordinal()] = i;
+		}
+	}
+
+	private final int elevators;
+	private final int floors;
+	private final int words;
+	private int[][] front;
+	private int[][] back;
+	private long[] frontStops;
+	private long[] backStops;
+	private long[] frontServices;
+	private long[] backServices;
+	private long[] frontUp;
+	private long[] backUp;
+	private long[] frontDown;
+	private long[] backDown;
+	private final int[] dirtyFields;
+	private final long[] dirtyElevators;
+	private final long[] stopChanges;
+	private final long[] serviceChanges;
+	private final long[] upChanges;
+	private final long[] downChanges;
+
+	/**
+	 * Create a new state with all values 0 and all bits cleared.
+	 * @param elevators the number of elevators in the building
+	 * @param floors the number of floors in the building
+	 */
+	public BuildingState(int elevators, int floors) {
+		if(elevators < 0 || floors < 0) {
+			throw new IllegalArgumentException("The number of elevators and floors must be >=0!");
+		}
+
+		this.elevators = elevators;
+		this.floors = floors;
+		words = ElevatorSnapshot.wordCount(floors);
+		front = new int[VALUE_FIELDS.length][elevators];
+		back = new int[VALUE_FIELDS.length][elevators];
+		frontStops = new long[elevators * words];
+		backStops = new long[elevators * words];
+		frontServices = new long[elevators * words];
+		backServices = new long[elevators * words];
+		frontUp = new long[words];
+		backUp = new long[words];
+		frontDown = new long[words];
+		backDown = new long[words];
+		dirtyFields = new int[elevators];
+		dirtyElevators = new long[ElevatorSnapshot.wordCount(elevators)];
+		stopChanges = new long[elevators * words];
+		serviceChanges = new long[elevators * words];
+		upChanges = new long[words];
+		downChanges = new long[words];
+	}
+
+	/**
+	 * Provides the number of elevators in the state.
+	 * @return the number of elevators
+	 */
+	public int getElevatorCount() {
+		return elevators;
+	}
+
+	/**
+	 * Provides the number of floors in the state.
+	 * @return the number of floors
+	 */
+	public int getFloorCount() {
+		return floors;
+	}
+
+	private void checkElevator(int elevator) {
+		if(elevator < 0 || elevator >= elevators) {
+			throw new IllegalArgumentException("Invalid elevator!");
+		}
+	}
+
+	private void checkFloor(int floor) {
+		if(floor < 0 || floor >= floors) {
+			throw new IllegalArgumentException("Invalid floor!");
+		}
+	}
+
+	private static int column(PolledField field) {
+		int column = field == null ? -1 : COLUMNS[field.ordinal()];
+
+		if(column < 0) {
+			throw new IllegalArgumentException("Field must be an elevator value field!");
+		}
+
+		return column;
+	}
+
+	private static boolean isSet(long[] bits, int offset, int index) {
+		return (bits[offset + (index >>> 6)] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Writes the state of an elevator into the back buffer. It becomes visible with the next swap().
+	 * @param snapshot the snapshot of the elevator, its number selects the slot
+	 */
+	public void write(ElevatorSnapshot snapshot) {
+		if(snapshot == null) {
+			throw new IllegalArgumentException("Snapshot must not be null!");
+		}
+
+		checkElevator(snapshot.getNumber());
+
+		if(snapshot.getNumberOfFloors() != floors) {
+			throw new IllegalArgumentException("Snapshot must match the number of floors!");
+		}
+
+		int elevator = snapshot.getNumber();
+		back[column(PolledField.DIRECTION)][elevator] = snapshot.getCommittedDirection();
+		back[column(PolledField.ACCELERATION)][elevator] = snapshot.getAcceleration();
+		back[column(PolledField.CAPACITY)][elevator] = snapshot.getCapacity();
+		back[column(PolledField.DOORS)][elevator] = snapshot.getDoorStatus();
+		back[column(PolledField.FLOOR)][elevator] = snapshot.getFloor();
+		back[column(PolledField.POSITION)][elevator] = snapshot.getPosition();
+		back[column(PolledField.SPEED)][elevator] = snapshot.getSpeed();
+		back[column(PolledField.WEIGHT)][elevator] = snapshot.getWeight();
+		back[column(PolledField.TARGET)][elevator] = snapshot.getTarget();
+		System.arraycopy(snapshot.stopRequests(), 0, backStops, elevator * words, words);
+		System.arraycopy(snapshot.servicedFloors(), 0, backServices, elevator * words, words);
+	}
+
+	/**
+	 * Writes the buttons of a floor into the back buffer. They become visible with the next swap().
+	 * @param floor the floor number
+	 * @param buttonUp whether the Up button is active (true) or not (false)
+	 * @param buttonDown whether the Down button is active (true) or not (false)
+	 */
+	public synchronized void setFloorButtons(int floor, boolean buttonUp, boolean buttonDown) {
+		checkFloor(floor);
+		long bit = 1L << floor;
+
+		if(buttonUp) {
+			backUp[floor >>> 6] |= bit;
+		}
+		else {
+			backUp[floor >>> 6] &= ~bit;
+		}
+
+		if(buttonDown) {
+			backDown[floor >>> 6] |= bit;
+		}
+		else {
+			backDown[floor >>> 6] &= ~bit;
+		}
+	}
+
+	/**
+	 * Compares the back with the front buffer, records the changed slots and makes the written state the current one.
+	 * The back buffer keeps the current state afterwards, so elevators and floors which are not written on the next
+	 * tick stay unchanged.
+	 * @return whether any value changed (true) or not (false)
+	 */
+	public synchronized boolean swap() {
+		Arrays.fill(dirtyFields, 0);
+		Arrays.fill(dirtyElevators, 0);
+		Arrays.fill(stopChanges, 0);
+		Arrays.fill(serviceChanges, 0);
+		boolean changed = false;
+
+		for(int c = 0; c < VALUE_FIELDS.length; ++c) {
+			int mask = 1 << VALUE_FIELDS[c].ordinal();
+			int from = 0;
+			int index;
+
+			while(from < elevators && (index = Arrays.mismatch(front[c], from, elevators, back[c], from, elevators)) >= 0) {
+				markDirty(from + index, mask);
+				from += index + 1;
+				changed = true;
+			}
+		}
+
+		changed |= diff(frontStops, backStops, stopChanges, 1 << PolledField.STOP_REQUESTS.ordinal());
+		changed |= diff(frontServices, backServices, serviceChanges, 1 << PolledField.SERVICES_FLOORS.ordinal());
+
+		for(int w = 0; w < words; ++w) {
+			upChanges[w] = frontUp[w] ^ backUp[w];
+			downChanges[w] = frontDown[w] ^ backDown[w];
+			changed |= upChanges[w] != 0 || downChanges[w] != 0;
+		}
+
+		int[][] values = front;
+		front = back;
+		back = values;
+		long[] bits = frontStops;
+		frontStops = backStops;
+		backStops = bits;
+		bits = frontServices;
+		frontServices = backServices;
+		backServices = bits;
+		bits = frontUp;
+		frontUp = backUp;
+		backUp = bits;
+		bits = frontDown;
+		frontDown = backDown;
+		backDown = bits;
+
+		for(int c = 0; c < VALUE_FIELDS.length; ++c) {
+			System.arraycopy(front[c], 0, back[c], 0, elevators);
+		}
+
+		System.arraycopy(frontStops, 0, backStops, 0, frontStops.length);
+		System.arraycopy(frontServices, 0, backServices, 0, frontServices.length);
+		System.arraycopy(frontUp, 0, backUp, 0, words);
+		System.arraycopy(frontDown, 0, backDown, 0, words);
+		return changed;
+	}
+
+	private boolean diff(long[] current, long[] next, long[] changes, int mask) {
+		int length = current.length;
+		int from = 0;
+		int index;
+		boolean changed = false;
+
+		while(from < length && (index = Arrays.mismatch(current, from, length, next, from, length)) >= 0) {
+			int word = from + index;
+			changes[word] = current[word] ^ next[word];
+			markDirty(word / words, mask);
+			from = word + 1;
+			changed = true;
+		}
+
+		return changed;
+	}
+
+	private void markDirty(int elevator, int mask) {
+		dirtyFields[elevator] |= mask;
+		dirtyElevators[elevator >>> 6] |= 1L << elevator;
+	}
+
+	/**
+	 * Provides the next elevator which changed with the last swap().
+	 * @param from the first elevator number to check
+	 * @return the number of the next changed elevator, -1 if there is none
+	 */
+	public int nextDirtyElevator(int from) {
+		if(from < 0) {
+			from = 0;
+		}
+
+		for(int w = from >>> 6; w < dirtyElevators.length; ++w) {
+			long word = dirtyElevators[w];
+
+			if(w == from >>> 6) {
+				word &= -1L << from;
+			}
+
+			if(word != 0) {
+				return (w << 6) + Long.numberOfTrailingZeros(word);
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Provides the next floor whose Up or Down button changed with the last swap().
+	 * @param from the first floor number to check
+	 * @return the number of the next changed floor, -1 if there is none
+	 */
+	public int nextDirtyFloor(int from) {
+		if(from < 0) {
+			from = 0;
+		}
+
+		for(int w = from >>> 6; w < words; ++w) {
+			long word = upChanges[w] | downChanges[w];
+
+			if(w == from >>> 6) {
+				word &= -1L << from;
+			}
+
+			if(word != 0) {
+				return (w << 6) + Long.numberOfTrailingZeros(word);
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Provides whether a field of an elevator changed with the last swap().
+	 * @param elevator the elevator number
+	 * @param field the field, STOP_REQUESTS and SERVICES_FLOORS for any floor of the per-floor fields
+	 * @return whether the field changed (true) or not (false)
+	 */
+	public boolean isDirty(int elevator, PolledField field) {
+		checkElevator(elevator);
+		return (dirtyFields[elevator] & (1 << field.ordinal())) != 0;
+	}
+
+	/**
+	 * Provides whether a floor request button of an elevator changed with the last swap().
+	 * @param elevator the elevator number
+	 * @param floor the floor number of the button
+	 * @return whether the button changed (true) or not (false)
+	 */
+	public boolean isStopRequestChanged(int elevator, int floor) {
+		checkElevator(elevator);
+		checkFloor(floor);
+		return isSet(stopChanges, elevator * words, floor);
+	}
+
+	/**
+	 * Provides whether the service status of a floor of an elevator changed with the last swap().
+	 * @param elevator the elevator number
+	 * @param floor the floor number
+	 * @return whether the service status changed (true) or not (false)
+	 */
+	public boolean isServicesFloorChanged(int elevator, int floor) {
+		checkElevator(elevator);
+		checkFloor(floor);
+		return isSet(serviceChanges, elevator * words, floor);
+	}
+
+	/**
+	 * Provides whether the Up button of a floor changed with the last swap().
+	 * @param floor the floor number
+	 * @return whether the button changed (true) or not (false)
+	 */
+	public boolean isButtonUpChanged(int floor) {
+		checkFloor(floor);
+		return isSet(upChanges, 0, floor);
+	}
+
+	/**
+	 * Provides whether the Down button of a floor changed with the last swap().
+	 * @param floor the floor number
+	 * @return whether the button changed (true) or not (false)
+	 */
+	public boolean isButtonDownChanged(int floor) {
+		checkFloor(floor);
+		return isSet(downChanges, 0, floor);
+	}
+
+	/**
+	 * Provides the current value of a field of an elevator.
+	 * @param elevator the elevator number
+	 * @param field the field, one of the fields with a single value per elevator
+	 * @return the current value
+	 */
+	public int get(int elevator, PolledField field) {
+		checkElevator(elevator);
+		return front[column(field)][elevator];
+	}
+
+	/**
+	 * Provides the current status of a floor request button of an elevator.
+	 * @param elevator the elevator number
+	 * @param floor the floor number of the button
+	 * @return whether the button is active (true) or not (false)
+	 */
+	public boolean getStopRequest(int elevator, int floor) {
+		checkElevator(elevator);
+		checkFloor(floor);
+		return isSet(frontStops, elevator * words, floor);
+	}
+
+	/**
+	 * Provides whether an elevator currently services a floor.
+	 * @param elevator the elevator number
+	 * @param floor the floor number
+	 * @return whether the floor is serviced (true) or not (false)
+	 */
+	public boolean getServicesFloor(int elevator, int floor) {
+		checkElevator(elevator);
+		checkFloor(floor);
+		return isSet(frontServices, elevator * words, floor);
+	}
+
+	/**
+	 * Provides the current status of the Up button of a floor.
+	 * @param floor the floor number
+	 * @return whether the button is active (true) or not (false)
+	 */
+	public boolean isButtonUp(int floor) {
+		checkFloor(floor);
+		return isSet(frontUp, 0, floor);
+	}
+
+	/**
+	 * Provides the current status of the Down button of a floor.
+	 * @param floor the floor number
+	 * @return whether the button is active (true) or not (false)
+	 */
+	public boolean isButtonDown(int floor) {
+		checkFloor(floor);
+		return isSet(frontDown, 0, floor);
+	}
+
+	/**
+	 * Provides the current state of an elevator as snapshot.
+	 * @param elevator the elevator number
+	 * @return the snapshot of the elevator
+	 */
+	public ElevatorSnapshot getSnapshot(int elevator) {
+		checkElevator(elevator);
+		int from = elevator * words;
+		return new ElevatorSnapshot(elevator, get(elevator, PolledField.DIRECTION), get(elevator, PolledField.ACCELERATION),
+				get(elevator, PolledField.CAPACITY), get(elevator, PolledField.DOORS), get(elevator, PolledField.FLOOR),
+				get(elevator, PolledField.POSITION), get(elevator, PolledField.SPEED), get(elevator, PolledField.WEIGHT),
+				get(elevator, PolledField.TARGET), floors, Arrays.copyOfRange(frontStops, from, from + words),
+				Arrays.copyOfRange(frontServices, from, from + words));
+	}
+}
@@ -0,0 +1,213 @@
+package at.fhhagenberg.sqelevator;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+
+/**
+ * Latest-value publisher for high-rate topics (e.g. position and speed of a moving elevator).
+ *
+ * Every topic has one slot holding the latest value and a dirty flag. At most one message per topic is in flight:
+ * values published while the previous message is not yet acknowledged only replace the value in the slot, and the
+ * current value is sent as soon as the acknowledge arrives. So the number of outstanding messages is bounded by the
+ * number of topics instead of by the change rate, the messages of a topic keep their order and the last value
+ * published is always the one which ends up retained at the broker.
+ *
+ * The publisher does not wait for anything; messages are sent from the publishing thread or from the thread
+ * which completes the acknowledge of the previous message.
+ */
+public class ConflatingPublisher {
+
+	private final PublishPipeline.ISender sender;
+	private final Consumer<byte[]> recycler;
+	private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+	private volatile boolean closed = false;
+
+	/**
+	 * Create a new conflating publisher.
+	 * @param sender the sender which publishes the messages
+	 * @param recycler the recycler which gets the payloads published with recycling once they are no longer needed, may be null
+	 */
+	public ConflatingPublisher(PublishPipeline.ISender sender, Consumer<byte[]> recycler) {
+		if(sender == null) {
+			throw new IllegalArgumentException("Sender must not be null!");
+		}
+
+		this.sender = sender;
+		this.recycler = recycler;
+	}
+
+	/**
+	 * Publish the latest value of a topic.
+	 * @param topic the topic to publish the message to
+	 * @param payload the payload of the message
+	 * @param qos the QoS of the message
+	 * @param retain whether the message should be a retained message (true) or not (false)
+	 * @param recycle whether the payload is handed to the recycler when it is no longer needed (true) or not (false)
+	 * @return a future which completes when the broker acknowledged this value or a newer value of the topic
+	 */
+	public CompletableFuture<Void> publish(String topic, byte[] payload, MqttQos qos, boolean retain, boolean recycle) {
+		if(topic == null || payload == null || qos == null) {
+			throw new IllegalArgumentException("Topic, payload and QoS must not be null!");
+		}
+
+		if(closed) {
+			recycle(payload, recycle);
+			return CompletableFuture.failedFuture(new IllegalStateException("Conflating publisher is closed!"));
+		}
+
+		Slot slot = slots.computeIfAbsent(topic, Slot::new);
+		CompletableFuture<Void> future;
+
+		synchronized(slot) {
+			if(slot.inFlight) {
+				if(slot.dirty) {
+					recycle(slot.payload, slot.recycle);
+				}
+				else {
+					slot.next = new CompletableFuture<>();
+				}
+
+				slot.payload = payload;
+				slot.qos = qos;
+				slot.retain = retain;
+				slot.recycle = recycle;
+				slot.dirty = true;
+				return slot.next;
+			}
+
+			slot.inFlight = true;
+			future = new CompletableFuture<>();
+		}
+
+		send(slot, payload, qos, retain, recycle, future);
+		return future;
+	}
+
+	/**
+	 * Provides the number of topics with a value which waits for the acknowledge of the previous message.
+	 * @return the number of dirty topics
+	 */
+	public int getDirtyCount() {
+		int count = 0;
+
+		for(Slot slot : slots.values()) {
+			synchronized(slot) {
+				if(slot.dirty) {
+					++count;
+				}
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Provides the number of topics with a message in flight.
+	 * @return the number of messages in flight
+	 */
+	public int getInFlightCount() {
+		int count = 0;
+
+		for(Slot slot : slots.values()) {
+			synchronized(slot) {
+				if(slot.inFlight) {
+					++count;
+				}
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Close the publisher: Values which were not sent yet are dropped and their futures fail.
+	 */
+	public void close() {
+		closed = true;
+
+		for(Slot slot : slots.values()) {
+			synchronized(slot) {
+				if(slot.dirty) {
+					recycle(slot.payload, slot.recycle);
+					slot.payload = null;
+					slot.dirty = false;
+					slot.next.completeExceptionally(new IllegalStateException("Conflating publisher is closed!"));
+				}
+			}
+		}
+	}
+
+	private void send(Slot slot, byte[] payload, MqttQos qos, boolean retain, boolean recycle, CompletableFuture<Void> future) {
+		CompletableFuture<?> ack;
+
+		try {
+			ack = sender.send(slot.topic, payload, qos, retain);
+		}
+		catch(RuntimeException e) {
+			ack = CompletableFuture.failedFuture(e);
+		}
+
+		ack.whenComplete((result, throwable) -> {
+			recycle(payload, recycle);
+
+			if(throwable != null) {
+				future.completeExceptionally(throwable);
+			}
+			else {
+				future.complete(null);
+			}
+
+			sendNext(slot);
+		});
+	}
+
+	private void sendNext(Slot slot) {
+		byte[] payload;
+		MqttQos qos;
+		boolean retain;
+		boolean recycle;
+		CompletableFuture<Void> future;
+
+		synchronized(slot) {
+			if(!slot.dirty || closed) {
+				slot.inFlight = false;
+				return;
+			}
+
+			payload = slot.payload;
+			qos = slot.qos;
+			retain = slot.retain;
+			recycle = slot.recycle;
+			future = slot.next;
+			slot.payload = null;
+			slot.next = null;
+			slot.dirty = false;
+		}
+
+		send(slot, payload, qos, retain, recycle, future);
+	}
+
+	private void recycle(byte[] payload, boolean recycle) {
+		if(recycle && recycler != null) {
+			recycler.accept(payload);
+		}
+	}
+
+	private static class Slot {
+		private final String topic;
+		private boolean inFlight = false;
+		private boolean dirty = false;
+		private byte[] payload;
+		private MqttQos qos;
+		private boolean retain;
+		private boolean recycle;
+		private CompletableFuture<Void> next;
+
+		private Slot(String topic) {
+			this.topic = topic;
+		}
+	}
+}
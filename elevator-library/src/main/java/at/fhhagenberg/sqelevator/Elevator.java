@@ -4,6 +4,8 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.rmi.RemoteException;
 import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 
 import sqelevator.IElevator;
 
@@ -11,28 +13,42 @@ import sqelevator.IElevator;
  * Class representing an elevator in a building.
  * The elevator is initialized in the constructor using information from the control unit provided.
  * Every elevator has a unique number.
- * This class implements PropertyChangeSupport and lets PropertyChangeListeners listen to property changes.
+ * Stop requests and serviced floors are stored as bitsets with one bit per floor (like in ElevatorSnapshot).
+ * Changes are delivered to typed IElevatorListeners without allocations (copy-on-write listener array).
+ * Updates can be batched with beginUpdate() / commitUpdate(), which fires one aggregated onElevatorUpdated event.
+ * The setters and the batches are guarded by one reentrant lock, which a batch holds from beginUpdate() to commitUpdate():
+ * a setter called by another thread (e.g. for a control message) waits until the batch is committed and fires its own
+ * event, so it is neither folded into the batch nor loses its change.
+ * For compatibility the class also implements PropertyChangeSupport and lets PropertyChangeListeners listen to
+ * property changes; the events are only created if a PropertyChangeListener is registered.
  */
 public class Elevator {
 	
 	private static final String INVALID_FLOOR = "Invalid floor!";
 
+	private static final Predicate<PolledField> ALL_FIELDS = field -> true;
+
 	private final IElevator plc;
 	private final int number;
 	private final int numberOfFloors;
 	private final int floorHeight;
 	private int committedDirection;
 	private int acceleration;
-	private boolean[] stopRequests;
+	private final long[] stopRequests;
 	private int capacity;
 	private int doorStatus;
 	private int floor;
 	private int position;
 	private int speed;
 	private int weight;
-	private boolean[] servicedFloors;
+	private final long[] servicedFloors;
 	private int target;
 	private boolean alwaysCallPropertyChange = false;
+	private volatile int changeCount;
+	private volatile int updateDepth;
+	private int changeMask;
+	private final ReentrantLock lock = new ReentrantLock();
+	private volatile IElevatorListener[] listeners = new IElevatorListener[0];
 
 	private final PropertyChangeSupport pcs = new PropertyChangeSupport(this);
 
@@ -87,12 +103,12 @@ public class Elevator {
 		this.number = number;
 		numberOfFloors = plc.getFloorNum();
 		floorHeight = plc.getFloorHeight();
+		stopRequests = new long[ElevatorSnapshot.wordCount(numberOfFloors)];
+		servicedFloors = new long[ElevatorSnapshot.wordCount(numberOfFloors)];
 		
 		this.setCommittedDirection(plc.getCommittedDirection(number));
 		this.setAcceleration(plc.getElevatorAccel(number));
 		
-		stopRequests = new boolean[numberOfFloors];
-		
 		for(int floorIdx = 0; floorIdx < numberOfFloors; ++floorIdx) {
 			this.setStopRequest(floorIdx, plc.getElevatorButton(number, floorIdx));
 		}
@@ -104,8 +120,6 @@ public class Elevator {
 		this.setSpeed(plc.getElevatorSpeed(number));
 		this.setWeight(plc.getElevatorWeight(number));
 
-		servicedFloors = new boolean[numberOfFloors];
-
 		for(int floorIdx = 0; floorIdx < numberOfFloors; ++floorIdx) {
 			this.setServicesFloor(floorIdx, plc.getServicesFloors(number, floorIdx));
 		}
@@ -113,6 +127,246 @@ public class Elevator {
 		this.setTarget(plc.getTarget(number));
 	}
 
+	/**
+	 * Adds a typed listener. A listener which is already registered is not added again.
+	 * @param listener the listener to add
+	 */
+	public synchronized void addElevatorListener(IElevatorListener listener) {
+		if(listener == null) {
+			throw new IllegalArgumentException("Listener must not be null!");
+		}
+
+		for(IElevatorListener registered : listeners) {
+			if(registered == listener) {
+				return;
+			}
+		}
+
+		IElevatorListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+		newListeners[listeners.length] = listener;
+		listeners = newListeners;
+	}
+
+	/**
+	 * Removes a typed listener.
+	 * @param listener the listener to remove
+	 */
+	public synchronized void removeElevatorListener(IElevatorListener listener) {
+		for(int i = 0; i < listeners.length; ++i) {
+			if(listeners[i] == listener) {
+				IElevatorListener[] newListeners = new IElevatorListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, newListeners, 0, i);
+				System.arraycopy(listeners, i + 1, newListeners, i, listeners.length - i - 1);
+				listeners = newListeners;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Records a change of a field. With alwaysCallPropertyChange the per-field listeners are also called for equal
+	 * values, but only a real change counts and ends up in the change mask, so onElevatorUpdated is de-duplicated.
+	 */
+	private void changed(PolledField field, boolean differs) {
+		if(differs) {
+			++changeCount;
+			changeMask |= 1 << field.ordinal();
+		}
+	}
+
+	private void endChange() {
+		if(updateDepth == 0) {
+			fireUpdated();
+		}
+	}
+
+	private void fireUpdated() {
+		int mask = changeMask;
+		changeMask = 0;
+
+		if(mask != 0) {
+			for(IElevatorListener listener : listeners) {
+				listener.onElevatorUpdated(this, mask);
+			}
+		}
+	}
+
+	/**
+	 * Starts a batch of updates (e.g. one tick of the updater). The per-field changes are still notified immediately,
+	 * but the aggregated onElevatorUpdated event is fired once with all changed fields by the matching commitUpdate().
+	 * Batches can be nested; the event is fired by the outermost commitUpdate().
+	 * The calling thread holds the lock of the elevator until the matching commitUpdate(), so setters called by other
+	 * threads meanwhile wait for the commit.
+	 */
+	public void beginUpdate() {
+		lock.lock();
+		++updateDepth;
+	}
+
+	/**
+	 * Ends a batch of updates started with beginUpdate() and fires one onElevatorUpdated event if any field changed.
+	 */
+	public void commitUpdate() {
+		if(!lock.isHeldByCurrentThread() || updateDepth == 0) {
+			throw new IllegalStateException("No update in progress!");
+		}
+
+		try {
+			if(--updateDepth == 0) {
+				fireUpdated();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Provides whether a batch of updates is in progress.
+	 * @return whether beginUpdate() was called without the matching commitUpdate() (true) or not (false)
+	 */
+	public boolean isUpdating() {
+		return updateDepth > 0;
+	}
+
+	/**
+	 * Checks whether a field is contained in the change mask of an onElevatorUpdated event.
+	 * @param changeMask the change mask of the event
+	 * @param field the field to check
+	 * @return whether the field changed (true) or not (false)
+	 */
+	public static boolean isChanged(int changeMask, PolledField field) {
+		return (changeMask & (1 << field.ordinal())) != 0;
+	}
+
+	/**
+	 * Applies all fields of a snapshot in one batch, so the listeners get one onElevatorUpdated event.
+	 * The committed direction, serviced floors and target are written to the PLC if they differ (like their setters).
+	 * @param snapshot the snapshot of this elevator
+	 * @throws RemoteException if the connection to the IElevator API is lost
+	 */
+	public void apply(ElevatorSnapshot snapshot) throws RemoteException {
+		apply(snapshot, ALL_FIELDS);
+	}
+
+	/**
+	 * Applies the selected fields of a snapshot in one batch, so the listeners get one onElevatorUpdated event
+	 * (e.g. the fields which were due on a tick of the updater).
+	 * @param snapshot the snapshot of this elevator
+	 * @param fields selects the fields which are applied
+	 * @throws RemoteException if the connection to the IElevator API is lost
+	 */
+	public void apply(ElevatorSnapshot snapshot, Predicate<PolledField> fields) throws RemoteException {
+		if(snapshot == null || snapshot.getNumber() != number || snapshot.getNumberOfFloors() != numberOfFloors) {
+			throw new IllegalArgumentException("Snapshot must match the elevator!");
+		}
+
+		beginUpdate();
+
+		try {
+			if(fields.test(PolledField.DIRECTION)) {
+				setCommittedDirection(snapshot.getCommittedDirection());
+			}
+
+			if(fields.test(PolledField.ACCELERATION)) {
+				setAcceleration(snapshot.getAcceleration());
+			}
+
+			if(fields.test(PolledField.STOP_REQUESTS)) {
+				setStopRequests(snapshot.getStopRequests());
+			}
+
+			if(fields.test(PolledField.CAPACITY)) {
+				setCapacity(snapshot.getCapacity());
+			}
+
+			if(fields.test(PolledField.DOORS)) {
+				setDoorStatus(snapshot.getDoorStatus());
+			}
+
+			if(fields.test(PolledField.FLOOR)) {
+				setFloor(snapshot.getFloor());
+			}
+
+			if(fields.test(PolledField.POSITION)) {
+				setPosition(snapshot.getPosition());
+			}
+
+			if(fields.test(PolledField.SPEED)) {
+				setSpeed(snapshot.getSpeed());
+			}
+
+			if(fields.test(PolledField.WEIGHT)) {
+				setWeight(snapshot.getWeight());
+			}
+
+			if(fields.test(PolledField.SERVICES_FLOORS)) {
+				setServicesFloors(snapshot.getServicedFloors());
+			}
+
+			if(fields.test(PolledField.TARGET)) {
+				setTarget(snapshot.getTarget());
+			}
+		}
+		finally {
+			commitUpdate();
+		}
+	}
+
+	private void fireBeanChange(String propertyName, int oldValue, int newValue) {
+		if(pcs.hasListeners(propertyName)) {
+			pcs.firePropertyChange(propertyName, alwaysCallPropertyChange ? newValue - 1 : oldValue, newValue);
+		}
+	}
+
+	private void fireBeanChange(String propertyName, long[] bits, int floor) {
+		if(pcs.hasListeners(propertyName)) {
+			boolean[] newValue = new boolean[numberOfFloors];
+
+			for(int i = 0; i < numberOfFloors; ++i) {
+				newValue[i] = isSet(bits, i);
+			}
+
+			boolean[] oldValue = Arrays.copyOf(newValue, newValue.length);
+			oldValue[floor] = !oldValue[floor];
+			pcs.firePropertyChange(propertyName, oldValue, newValue);
+		}
+	}
+
+	private static boolean isSet(long[] bits, int floor) {
+		return (bits[floor >>> 6] & (1L << floor)) != 0;
+	}
+
+	private static void set(long[] bits, int floor, boolean value) {
+		if(value) {
+			bits[floor >>> 6] |= 1L << floor;
+		}
+		else {
+			bits[floor >>> 6] &= ~(1L << floor);
+		}
+	}
+
+	private void checkBitset(long[] bits) {
+		if(bits == null || bits.length != ElevatorSnapshot.wordCount(numberOfFloors)) {
+			throw new IllegalArgumentException("Bitset must match the number of floors!");
+		}
+	}
+
+	/**
+	 * Provides the mask of the bits which differ between the current and the given word of a bitset.
+	 * With alwaysCallPropertyChange all valid bits of the word are returned.
+	 */
+	private long changedBits(long current, long incoming, int word) {
+		long valid = -1L;
+		int remaining = numberOfFloors - (word << 6);
+
+		if(remaining < Long.SIZE) {
+			valid = (1L << remaining) - 1;
+		}
+
+		return (alwaysCallPropertyChange ? -1L : current ^ incoming) & valid;
+	}
+
 	/**
 	 * Adds a property change listener.
 	 * @param listener property change listener to add
@@ -137,6 +391,15 @@ public class Elevator {
 		return plc;
 	}
 
+	/**
+	 * Provides the number of changes of the elevator so far. It is incremented on every real change, so a reader can
+	 * detect whether the elevator changed since it last looked (e.g. Building.publishSnapshot()).
+	 * @return the number of changes
+	 */
+	public int getChangeCount() {
+		return changeCount;
+	}
+
 	/**
 	 * Provides the unique number of the elevator.
 	 * @return the unique number of the elevator
@@ -172,16 +435,24 @@ public class Elevator {
 				&& committedDirection != IElevator.ELEVATOR_DIRECTION_UNCOMMITTED) {
 			throw new IllegalArgumentException("The commited direction must be 0, 1 or 2!");
 		}
-		if(alwaysCallPropertyChange || this.committedDirection != committedDirection) {
-			int oldValue = this.committedDirection;
-			if(this.committedDirection != committedDirection) {
-				this.committedDirection = committedDirection;
-				plc.setCommittedDirection(getNumber(), committedDirection);
+		lock.lock();
+		try {
+			if(alwaysCallPropertyChange || this.committedDirection != committedDirection) {
+				int oldValue = this.committedDirection;
+				if(this.committedDirection != committedDirection) {
+					this.committedDirection = committedDirection;
+					plc.setCommittedDirection(getNumber(), committedDirection);
+				}
+				changed(PolledField.DIRECTION, oldValue != committedDirection);
+				for(IElevatorListener listener : listeners) {
+					listener.onCommittedDirectionChanged(this, oldValue, committedDirection);
+				}
+				fireBeanChange(COMMITTED_DIRECTION_PROPERTY_NAME, oldValue, committedDirection);
+				endChange();
 			}
-			if(alwaysCallPropertyChange) {
-				oldValue = committedDirection -1;
-			}
-			this.pcs.firePropertyChange(COMMITTED_DIRECTION_PROPERTY_NAME, oldValue, committedDirection);			
+		}
+		finally {
+			lock.unlock();
 		}
 	}
 
@@ -198,13 +469,21 @@ public class Elevator {
 	 * @param committedDirection the acceleration of the elevator where positive speed is acceleration and negative is deceleration
 	 */
 	public void setAcceleration(int acceleration) {
-		if(alwaysCallPropertyChange || this.acceleration != acceleration) {
-			int oldValue = this.acceleration;
-			this.acceleration = acceleration;
-			if(alwaysCallPropertyChange) {
-				oldValue = acceleration-1;
+		lock.lock();
+		try {
+			if(alwaysCallPropertyChange || this.acceleration != acceleration) {
+				int oldValue = this.acceleration;
+				this.acceleration = acceleration;
+				changed(PolledField.ACCELERATION, oldValue != acceleration);
+				for(IElevatorListener listener : listeners) {
+					listener.onAccelerationChanged(this, oldValue, acceleration);
+				}
+				fireBeanChange(ACCELERATION_PROPERTY_NAME, oldValue, acceleration);
+				endChange();
 			}
-			this.pcs.firePropertyChange(ACCELERATION_PROPERTY_NAME, oldValue, acceleration);				
+		}
+		finally {
+			lock.unlock();
 		}
 	}
 	
@@ -218,7 +497,7 @@ public class Elevator {
 			throw new IllegalArgumentException(INVALID_FLOOR);
 		}
 		
-		return this.stopRequests[floor];
+		return isSet(stopRequests, floor);
 	}
 	
 	/**
@@ -231,14 +510,55 @@ public class Elevator {
 			throw new IllegalArgumentException(INVALID_FLOOR);
 		}
 		
-		if(alwaysCallPropertyChange || this.stopRequests[floor] != stop) {
-			boolean[] oldValue = Arrays.copyOf(this.stopRequests, this.stopRequests.length);
-			this.stopRequests[floor] = stop;
-			if(alwaysCallPropertyChange) {
-				oldValue = Arrays.copyOf(this.stopRequests, this.stopRequests.length);
-				oldValue[floor] = !oldValue[floor];
+		lock.lock();
+		try {
+			if(alwaysCallPropertyChange || isSet(stopRequests, floor) != stop) {
+				boolean differs = isSet(stopRequests, floor) != stop;
+				set(stopRequests, floor, stop);
+				changed(PolledField.STOP_REQUESTS, differs);
+				for(IElevatorListener listener : listeners) {
+					listener.onStopRequestChanged(this, floor, stop);
+				}
+				fireBeanChange(STOP_REQUESTS_PROPERTY_NAME, this.stopRequests, floor);
+				endChange();
 			}
-			this.pcs.firePropertyChange(STOP_REQUESTS_PROPERTY_NAME, oldValue, this.stopRequests);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Provides a copy of the floor request buttons of the elevator.
+	 * @return the bitset of the floor request buttons with one bit per floor
+	 */
+	public long[] getStopRequests() {
+		return stopRequests.clone();
+	}
+
+	/**
+	 * Sets the status of all floor request buttons on the elevator.
+	 * The given bitset is compared word by word with the current one (XOR), so only the floors which changed are
+	 * set and notified; the listeners get one onElevatorUpdated event for all of them.
+	 * @param stops the bitset of the floor request buttons with one bit per floor
+	 */
+	public void setStopRequests(long[] stops) {
+		checkBitset(stops);
+		beginUpdate();
+
+		try {
+			for(int word = 0; word < stops.length; ++word) {
+				long changed = changedBits(stopRequests[word], stops[word], word);
+
+				while(changed != 0) {
+					int floor = (word << 6) + Long.numberOfTrailingZeros(changed);
+					setStopRequest(floor, isSet(stops, floor));
+					changed &= changed - 1;
+				}
+			}
+		}
+		finally {
+			commitUpdate();
 		}
 	}
 
@@ -255,13 +575,21 @@ public class Elevator {
 	 * @param capacity maximum number of passengers
 	 */
 	public void setCapacity(int capacity) {
-		if(alwaysCallPropertyChange || this.capacity != capacity) {
-			int oldValue = this.capacity;
-			this.capacity = capacity;
-			if(alwaysCallPropertyChange) {
-				oldValue = capacity-1;
+		lock.lock();
+		try {
+			if(alwaysCallPropertyChange || this.capacity != capacity) {
+				int oldValue = this.capacity;
+				this.capacity = capacity;
+				changed(PolledField.CAPACITY, oldValue != capacity);
+				for(IElevatorListener listener : listeners) {
+					listener.onCapacityChanged(this, oldValue, capacity);
+				}
+				fireBeanChange(CAPACITY_PROPERTY_NAME, oldValue, capacity);
+				endChange();
 			}
-			this.pcs.firePropertyChange(CAPACITY_PROPERTY_NAME, oldValue, capacity);			
+		}
+		finally {
+			lock.unlock();
 		}
 	}
 
@@ -286,13 +614,21 @@ public class Elevator {
 			throw new IllegalArgumentException("Invalid door status!");
 		}
 		
-		if(alwaysCallPropertyChange || this.doorStatus != doorStatus) {
-			int oldValue = this.doorStatus;
-			this.doorStatus = doorStatus;
-			if(alwaysCallPropertyChange) {
-				oldValue = doorStatus-1;
+		lock.lock();
+		try {
+			if(alwaysCallPropertyChange || this.doorStatus != doorStatus) {
+				int oldValue = this.doorStatus;
+				this.doorStatus = doorStatus;
+				changed(PolledField.DOORS, oldValue != doorStatus);
+				for(IElevatorListener listener : listeners) {
+					listener.onDoorStatusChanged(this, oldValue, doorStatus);
+				}
+				fireBeanChange(DOOR_STATUS_PROPERTY_NAME, oldValue, doorStatus);
+				endChange();
 			}
-			this.pcs.firePropertyChange(DOOR_STATUS_PROPERTY_NAME, oldValue, doorStatus);			
+		}
+		finally {
+			lock.unlock();
 		}
 	}
 
@@ -312,13 +648,21 @@ public class Elevator {
 		if (floor < 0 || floor >= numberOfFloors) {
 			throw new IllegalArgumentException(INVALID_FLOOR);
 		}
-		if(alwaysCallPropertyChange || this.floor != floor) {
-			int oldValue = this.floor;
-			this.floor = floor;
-			if(alwaysCallPropertyChange) {
-				oldValue = floor-1;
+		lock.lock();
+		try {
+			if(alwaysCallPropertyChange || this.floor != floor) {
+				int oldValue = this.floor;
+				this.floor = floor;
+				changed(PolledField.FLOOR, oldValue != floor);
+				for(IElevatorListener listener : listeners) {
+					listener.onFloorChanged(this, oldValue, floor);
+				}
+				fireBeanChange(FLOOR_PROPERTY_NAME, oldValue, floor);
+				endChange();
 			}
-			this.pcs.firePropertyChange(FLOOR_PROPERTY_NAME, oldValue, floor);			
+		}
+		finally {
+			lock.unlock();
 		}
 	}
 
@@ -338,13 +682,21 @@ public class Elevator {
 		if (position < 0 || position > numberOfFloors * floorHeight) {
 			throw new IllegalArgumentException("Invalid Position!");
 		}
-		if(alwaysCallPropertyChange || this.position != position) {
-			int oldValue = this.position;
-			this.position = position;
-			if(alwaysCallPropertyChange) {
-				oldValue = position-1;
+		lock.lock();
+		try {
+			if(alwaysCallPropertyChange || this.position != position) {
+				int oldValue = this.position;
+				this.position = position;
+				changed(PolledField.POSITION, oldValue != position);
+				for(IElevatorListener listener : listeners) {
+					listener.onPositionChanged(this, oldValue, position);
+				}
+				fireBeanChange(POSITION_PROPERTY_NAME, oldValue, position);
+				endChange();
 			}
-			this.pcs.firePropertyChange(POSITION_PROPERTY_NAME, oldValue, position);			
+		}
+		finally {
+			lock.unlock();
 		}
 	}
 
@@ -361,13 +713,21 @@ public class Elevator {
 	 * @param speed the speed of the elevator where positive speed is up and negative is down
 	 */
 	public void setSpeed(int speed) {
-		if(alwaysCallPropertyChange || this.speed != speed) {
-			int oldValue = this.speed;
-			this.speed = speed;
-			if(alwaysCallPropertyChange) {
-				oldValue = speed -1;
+		lock.lock();
+		try {
+			if(alwaysCallPropertyChange || this.speed != speed) {
+				int oldValue = this.speed;
+				this.speed = speed;
+				changed(PolledField.SPEED, oldValue != speed);
+				for(IElevatorListener listener : listeners) {
+					listener.onSpeedChanged(this, oldValue, speed);
+				}
+				fireBeanChange(SPEED_PROPERTY_NAME, oldValue, speed);
+				endChange();
 			}
-			this.pcs.firePropertyChange(SPEED_PROPERTY_NAME, oldValue, speed);			
+		}
+		finally {
+			lock.unlock();
 		}
 	}
 
@@ -387,13 +747,21 @@ public class Elevator {
 		if (weight < 0) {
 			throw new IllegalArgumentException("The weight can't be negative!");
 		}
-		if(alwaysCallPropertyChange || this.weight != weight) {
-			int oldValue = this.weight;
-			this.weight = weight;
-			if(alwaysCallPropertyChange) {
-				oldValue = weight -1;
+		lock.lock();
+		try {
+			if(alwaysCallPropertyChange || this.weight != weight) {
+				int oldValue = this.weight;
+				this.weight = weight;
+				changed(PolledField.WEIGHT, oldValue != weight);
+				for(IElevatorListener listener : listeners) {
+					listener.onWeightChanged(this, oldValue, weight);
+				}
+				fireBeanChange(WEIGHT_PROPERTY_NAME, oldValue, weight);
+				endChange();
 			}
-			this.pcs.firePropertyChange(WEIGHT_PROPERTY_NAME, oldValue, weight);			
+		}
+		finally {
+			lock.unlock();
 		}
 	}
 	
@@ -407,7 +775,7 @@ public class Elevator {
 			throw new IllegalArgumentException(INVALID_FLOOR);
 		}
 		
-		return this.servicedFloors[floor];
+		return isSet(servicedFloors, floor);
 	}
 
 	/** 
@@ -421,17 +789,58 @@ public class Elevator {
 			throw new IllegalArgumentException(INVALID_FLOOR);
 		}
 		
-		if(alwaysCallPropertyChange || this.servicedFloors[floor] != service) {
-			boolean[] oldValue = Arrays.copyOf(this.servicedFloors, this.servicedFloors.length);
-			if(this.servicedFloors[floor] != service) {
-				this.servicedFloors[floor] = service;
-				plc.setServicesFloors(number, floor, service);
+		lock.lock();
+		try {
+			if(alwaysCallPropertyChange || isSet(servicedFloors, floor) != service) {
+				boolean differs = isSet(servicedFloors, floor) != service;
+				if(differs) {
+					set(servicedFloors, floor, service);
+					plc.setServicesFloors(number, floor, service);
+				}
+				changed(PolledField.SERVICES_FLOORS, differs);
+				for(IElevatorListener listener : listeners) {
+					listener.onServicesFloorChanged(this, floor, service);
+				}
+				fireBeanChange(SERVICED_FLOORS_PROPERTY_NAME, this.servicedFloors, floor);
+				endChange();
 			}
-			if(alwaysCallPropertyChange) {
-				oldValue = Arrays.copyOf(this.servicedFloors, this.servicedFloors.length);
-				oldValue[floor] = !oldValue[floor];
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Provides a copy of the service status of all floors.
+	 * @return the bitset of the serviced floors with one bit per floor
+	 */
+	public long[] getServicedFloors() {
+		return servicedFloors.clone();
+	}
+
+	/** 
+	 * Sets the service status of all floors.
+	 * The given bitset is compared word by word with the current one (XOR), so only the floors which changed are
+	 * set in the PLC and notified; the listeners get one onElevatorUpdated event for all of them.
+	 * @param services the bitset of the serviced floors with one bit per floor
+	 */
+	public void setServicesFloors(long[] services) throws RemoteException {
+		checkBitset(services);
+		beginUpdate();
+
+		try {
+			for(int word = 0; word < services.length; ++word) {
+				long changed = changedBits(servicedFloors[word], services[word], word);
+
+				while(changed != 0) {
+					int floor = (word << 6) + Long.numberOfTrailingZeros(changed);
+					setServicesFloor(floor, isSet(services, floor));
+					changed &= changed - 1;
+				}
 			}
-			this.pcs.firePropertyChange(SERVICED_FLOORS_PROPERTY_NAME, oldValue, this.servicedFloors);	
+		}
+		finally {
+			commitUpdate();
 		}
 	}
 
@@ -452,16 +861,24 @@ public class Elevator {
 		if (target < 0 || target >= numberOfFloors) {
 			throw new IllegalArgumentException(INVALID_FLOOR);
 		}
-		if(alwaysCallPropertyChange || this.target != target) {
-			int oldValue = this.target;
-			if(this.target != target) {
-				this.target = target;
-				plc.setTarget(number, target);
+		lock.lock();
+		try {
+			if(alwaysCallPropertyChange || this.target != target) {
+				int oldValue = this.target;
+				if(this.target != target) {
+					this.target = target;
+					plc.setTarget(number, target);
+				}
+				changed(PolledField.TARGET, oldValue != target);
+				for(IElevatorListener listener : listeners) {
+					listener.onTargetChanged(this, oldValue, target);
+				}
+				fireBeanChange(TARGET_PROPERTY_NAME, oldValue, target);
+				endChange();
 			}
-			if(alwaysCallPropertyChange) {
-				oldValue = target -1;
-			}
-			this.pcs.firePropertyChange(TARGET_PROPERTY_NAME, oldValue, target);			
+		}
+		finally {
+			lock.unlock();
 		}
 	}
 	
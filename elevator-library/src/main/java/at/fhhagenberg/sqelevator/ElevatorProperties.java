@@ -17,6 +17,27 @@ public class ElevatorProperties {
 	private final int mqttPort;
 	private final int rmiPollingInterval;
 	private final String exitLine;
+	private final int publishQueueCapacity;
+	private final int publishSenderThreads;
+	private final BackpressurePolicy publishBackpressure;
+	private final TelemetryFormat telemetryFormat;
+	private final TopicPolicy topicPolicy;
+	private final int mqttVersion;
+	private final int mqttTopicAliases;
+	private final int updateThreads;
+	private final PollingPolicy pollingPolicy;
+	private final boolean clockTickGating;
+	private final OverrunPolicy tickOverrunPolicy;
+	private final int idlePollingInterval;
+	private final int rmiCallTimeout;
+	private final int rmiBreakerFailures;
+	private final int rmiBreakerOpen;
+	private final int rmiReconnectInitial;
+	private final int rmiReconnectMax;
+	private final int rmiCacheTtl;
+	private final int loadThreads;
+	private final int dispatchWindow;
+	private final boolean buildingState;
 
 	/**
 	 * Create new ElevatorProperties object and try to parse the elevator.properties file.
@@ -37,7 +58,28 @@ public class ElevatorProperties {
 			mqttAddress = appProps.getProperty("mqtt_address");
 			mqttPort = Integer.parseInt(appProps.getProperty("mqtt_port"));
 			rmiPollingInterval = Integer.parseInt(appProps.getProperty("polling_interval"));
-			exitLine = appProps.getProperty("exit_line");			
+			exitLine = appProps.getProperty("exit_line");
+			publishQueueCapacity = Integer.parseInt(appProps.getProperty("publish_queue_capacity", String.valueOf(PublishPipeline.DEFAULT_CAPACITY)));
+			publishSenderThreads = Integer.parseInt(appProps.getProperty("publish_sender_threads", String.valueOf(PublishPipeline.DEFAULT_SENDER_THREADS)));
+			publishBackpressure = BackpressurePolicy.parse(appProps.getProperty("publish_backpressure", BackpressurePolicy.BLOCK.name()));
+			telemetryFormat = TelemetryFormat.parse(appProps.getProperty("telemetry_format", TelemetryFormat.FIELDS.name()));
+			topicPolicy = TopicPolicy.parse(appProps);
+			mqttVersion = Integer.parseInt(appProps.getProperty("mqtt_version", "3"));
+			mqttTopicAliases = Integer.parseInt(appProps.getProperty("mqtt_topic_aliases", String.valueOf(Mqtt5Transport.DEFAULT_TOPIC_ALIASES)));
+			updateThreads = Integer.parseInt(appProps.getProperty("update_threads", "1"));
+			pollingPolicy = PollingPolicy.parse(appProps);
+			tickOverrunPolicy = OverrunPolicy.parse(appProps.getProperty("tick_overrun_policy", OverrunPolicy.SKIP.name()));
+			idlePollingInterval = Integer.parseInt(appProps.getProperty("idle_polling_interval", "0").trim());
+			rmiCallTimeout = Integer.parseInt(appProps.getProperty("rmi_call_timeout", "0").trim());
+			rmiBreakerFailures = Integer.parseInt(appProps.getProperty("rmi_breaker_failures", "3").trim());
+			rmiBreakerOpen = Integer.parseInt(appProps.getProperty("rmi_breaker_open", "2000").trim());
+			rmiReconnectInitial = Integer.parseInt(appProps.getProperty("rmi_reconnect_initial", "500").trim());
+			rmiReconnectMax = Integer.parseInt(appProps.getProperty("rmi_reconnect_max", "10000").trim());
+			rmiCacheTtl = Integer.parseInt(appProps.getProperty("rmi_cache_ttl", "0").trim());
+			loadThreads = Integer.parseInt(appProps.getProperty("load_threads", "8").trim());
+			dispatchWindow = Integer.parseInt(appProps.getProperty("dispatch_window", "0").trim());
+			clockTickGating = Boolean.parseBoolean(appProps.getProperty("clock_tick_gating", "false").trim());
+			buildingState = Boolean.parseBoolean(appProps.getProperty("building_state", "false").trim());
 		}
 	}
 
@@ -68,4 +110,88 @@ public class ElevatorProperties {
 	public String getExitLine() {
 		return exitLine;
 	}
+
+	public int getPublishQueueCapacity() {
+		return publishQueueCapacity;
+	}
+
+	public int getPublishSenderThreads() {
+		return publishSenderThreads;
+	}
+
+	public BackpressurePolicy getPublishBackpressure() {
+		return publishBackpressure;
+	}
+
+	public TelemetryFormat getTelemetryFormat() {
+		return telemetryFormat;
+	}
+
+	public TopicPolicy getTopicPolicy() {
+		return topicPolicy;
+	}
+
+	public int getMqttVersion() {
+		return mqttVersion;
+	}
+
+	public int getMqttTopicAliases() {
+		return mqttTopicAliases;
+	}
+
+	public int getUpdateThreads() {
+		return updateThreads;
+	}
+
+	public PollingPolicy getPollingPolicy() {
+		return pollingPolicy;
+	}
+
+	public boolean isClockTickGating() {
+		return clockTickGating;
+	}
+
+	public OverrunPolicy getTickOverrunPolicy() {
+		return tickOverrunPolicy;
+	}
+
+	public int getIdlePollingInterval() {
+		return idlePollingInterval;
+	}
+
+	public int getRmiCallTimeout() {
+		return rmiCallTimeout;
+	}
+
+	public int getRmiBreakerFailures() {
+		return rmiBreakerFailures;
+	}
+
+	public int getRmiBreakerOpen() {
+		return rmiBreakerOpen;
+	}
+
+	public int getRmiReconnectInitial() {
+		return rmiReconnectInitial;
+	}
+
+	public int getRmiReconnectMax() {
+		return rmiReconnectMax;
+	}
+
+	public int getRmiCacheTtl() {
+		return rmiCacheTtl;
+	}
+
+	public int getLoadThreads() {
+		return loadThreads;
+	}
+
+	public int getDispatchWindow() {
+		return dispatchWindow;
+	}
+
+	public boolean isBuildingState() {
+		return buildingState;
+	}
 }
@@ -0,0 +1,337 @@
+package at.fhhagenberg.sqelevator;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import sqelevator.IElevator;
+
+/**
+ * Immutable snapshot of all state fields of one elevator.
+ * The per-floor arrays (stop requests, serviced floors) are stored as bitsets with one bit per floor.
+ *
+ * A snapshot can be encoded into a compact binary frame which is published on the elevator state topic.
+ * Frame layout (big endian): number, committed direction, acceleration, capacity, door status, floor, position,
+ * speed, weight, target and number of floors as int, followed by the stop request and the serviced floors bitsets
+ * as long words.
+ */
+public final class ElevatorSnapshot implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	private static final int INT_FIELDS = 11;
+
+	private final int number;
+	private final int committedDirection;
+	private final int acceleration;
+	private final int capacity;
+	private final int doorStatus;
+	private final int floor;
+	private final int position;
+	private final int speed;
+	private final int weight;
+	private final int target;
+	private final int numberOfFloors;
+	private final long[] stopRequests;
+	private final long[] servicedFloors;
+
+	/**
+	 * Create a new snapshot from the given values.
+	 * The bitset arrays are copied.
+	 * @param number the unique number of the elevator
+	 * @param committedDirection the committed direction where up=0, down=1 and uncommitted=2
+	 * @param acceleration the acceleration in feet per sec^2
+	 * @param capacity the maximum number of passengers
+	 * @param doorStatus the door status
+	 * @param floor the nearest floor
+	 * @param position the position in feet from the bottom of the building
+	 * @param speed the speed in feet per sec
+	 * @param weight the weight of the passengers in lbs
+	 * @param target the target floor
+	 * @param numberOfFloors the number of floors in the building
+	 * @param stopRequests the stop request bitset with one bit per floor
+	 * @param servicedFloors the serviced floors bitset with one bit per floor
+	 */
+	public ElevatorSnapshot(int number, int committedDirection, int acceleration, int capacity, int doorStatus, int floor,
+			int position, int speed, int weight, int target, int numberOfFloors, long[] stopRequests, long[] servicedFloors) {
+		if(numberOfFloors < 0) {
+			throw new IllegalArgumentException("The number of floors must be >=0!");
+		}
+
+		if(stopRequests == null || stopRequests.length != wordCount(numberOfFloors)
+				|| servicedFloors == null || servicedFloors.length != wordCount(numberOfFloors)) {
+			throw new IllegalArgumentException("Bitsets must match the number of floors!");
+		}
+
+		this.number = number;
+		this.committedDirection = committedDirection;
+		this.acceleration = acceleration;
+		this.capacity = capacity;
+		this.doorStatus = doorStatus;
+		this.floor = floor;
+		this.position = position;
+		this.speed = speed;
+		this.weight = weight;
+		this.target = target;
+		this.numberOfFloors = numberOfFloors;
+		this.stopRequests = stopRequests.clone();
+		this.servicedFloors = servicedFloors.clone();
+	}
+
+	/**
+	 * Create a snapshot of the current state of the given elevator.
+	 * @param elevator the elevator to take the snapshot of
+	 * @return the snapshot of the elevator
+	 */
+	public static ElevatorSnapshot of(Elevator elevator) {
+		if(elevator == null) {
+			throw new IllegalArgumentException("Elevator must not be null!");
+		}
+
+		int floors = elevator.getNumberOfFloors();
+		long[] stops = new long[wordCount(floors)];
+		long[] services = new long[wordCount(floors)];
+
+		for(int i = 0; i < floors; ++i) {
+			if(elevator.getStopRequest(i)) {
+				stops[i >>> 6] |= 1L << i;
+			}
+
+			if(elevator.getServicesFloor(i)) {
+				services[i >>> 6] |= 1L << i;
+			}
+		}
+
+		return new ElevatorSnapshot(elevator.getNumber(), elevator.getCommittedDirection(), elevator.getAcceleration(),
+				elevator.getCapacity(), elevator.getDoorStatus(), elevator.getFloor(), elevator.getPosition(),
+				elevator.getSpeed(), elevator.getWeight(), elevator.getTarget(), floors, stops, services);
+	}
+
+	/**
+	 * Provides the number of long words needed for a bitset with the given number of floors.
+	 * @param numberOfFloors the number of floors
+	 * @return the number of long words
+	 */
+	public static int wordCount(int numberOfFloors) {
+		return (numberOfFloors + Long.SIZE - 1) / Long.SIZE;
+	}
+
+	/**
+	 * Provides the size of the binary frame of this snapshot.
+	 * @return the size of the binary frame in bytes
+	 */
+	public int getEncodedSize() {
+		return INT_FIELDS * Integer.BYTES + 2 * stopRequests.length * Long.BYTES;
+	}
+
+	/**
+	 * Writes the binary frame of this snapshot to the given buffer.
+	 * @param buffer the buffer to write to, must have at least getEncodedSize() bytes remaining
+	 */
+	public void writeTo(ByteBuffer buffer) {
+		buffer.putInt(number)
+		.putInt(committedDirection)
+		.putInt(acceleration)
+		.putInt(capacity)
+		.putInt(doorStatus)
+		.putInt(floor)
+		.putInt(position)
+		.putInt(speed)
+		.putInt(weight)
+		.putInt(target)
+		.putInt(numberOfFloors);
+
+		for(long word : stopRequests) {
+			buffer.putLong(word);
+		}
+
+		for(long word : servicedFloors) {
+			buffer.putLong(word);
+		}
+	}
+
+	/**
+	 * Reads a snapshot from the binary frame in the given buffer.
+	 * @param buffer the buffer to read from
+	 * @return the snapshot read from the buffer
+	 */
+	public static ElevatorSnapshot readFrom(ByteBuffer buffer) {
+		if(buffer.remaining() < INT_FIELDS * Integer.BYTES) {
+			throw new IllegalArgumentException("Invalid elevator state frame!");
+		}
+
+		int number = buffer.getInt();
+		int committedDirection = buffer.getInt();
+		int acceleration = buffer.getInt();
+		int capacity = buffer.getInt();
+		int doorStatus = buffer.getInt();
+		int floor = buffer.getInt();
+		int position = buffer.getInt();
+		int speed = buffer.getInt();
+		int weight = buffer.getInt();
+		int target = buffer.getInt();
+		int numberOfFloors = buffer.getInt();
+
+		if(numberOfFloors < 0 || buffer.remaining() < 2 * wordCount(numberOfFloors) * Long.BYTES) {
+			throw new IllegalArgumentException("Invalid elevator state frame!");
+		}
+
+		long[] stops = new long[wordCount(numberOfFloors)];
+		long[] services = new long[stops.length];
+
+		for(int i = 0; i < stops.length; ++i) {
+			stops[i] = buffer.getLong();
+		}
+
+		for(int i = 0; i < services.length; ++i) {
+			services[i] = buffer.getLong();
+		}
+
+		return new ElevatorSnapshot(number, committedDirection, acceleration, capacity, doorStatus, floor,
+				position, speed, weight, target, numberOfFloors, stops, services);
+	}
+
+	public int getNumber() {
+		return number;
+	}
+
+	public int getCommittedDirection() {
+		return committedDirection;
+	}
+
+	public int getAcceleration() {
+		return acceleration;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getDoorStatus() {
+		return doorStatus;
+	}
+
+	public int getFloor() {
+		return floor;
+	}
+
+	public int getPosition() {
+		return position;
+	}
+
+	public int getSpeed() {
+		return speed;
+	}
+
+	public int getWeight() {
+		return weight;
+	}
+
+	public int getTarget() {
+		return target;
+	}
+
+	public int getNumberOfFloors() {
+		return numberOfFloors;
+	}
+
+	/**
+	 * Provides the status of a floor request button of the elevator.
+	 * @param floor the floor number of the button
+	 * @return whether the button is active (true) or not (false)
+	 */
+	public boolean getStopRequest(int floor) {
+		checkFloor(floor);
+		return (stopRequests[floor >>> 6] & (1L << floor)) != 0;
+	}
+
+	/**
+	 * Provides whether the elevator services the given floor.
+	 * @param floor the floor number
+	 * @return whether the floor is serviced by the elevator (true) or not (false)
+	 */
+	public boolean getServicesFloor(int floor) {
+		checkFloor(floor);
+		return (servicedFloors[floor >>> 6] & (1L << floor)) != 0;
+	}
+
+	/**
+	 * Provides whether any floor request button of the elevator is active.
+	 * @return whether there is a stop request (true) or not (false)
+	 */
+	public boolean hasStopRequests() {
+		for(long word : stopRequests) {
+			if(word != 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Provides whether the elevator is idle: not moving, doors closed, no stop requests and uncommitted direction.
+	 * @return whether the elevator is idle (true) or active (false)
+	 */
+	public boolean isIdle() {
+		return speed == 0 && doorStatus == IElevator.ELEVATOR_DOORS_CLOSED && !hasStopRequests()
+				&& committedDirection == IElevator.ELEVATOR_DIRECTION_UNCOMMITTED;
+	}
+
+	/**
+	 * Provides a copy of the stop request bitset.
+	 * @return the stop request bitset with one bit per floor
+	 */
+	public long[] getStopRequests() {
+		return stopRequests.clone();
+	}
+
+	/**
+	 * Provides a copy of the serviced floors bitset.
+	 * @return the serviced floors bitset with one bit per floor
+	 */
+	public long[] getServicedFloors() {
+		return servicedFloors.clone();
+	}
+
+	long[] stopRequests() {
+		return stopRequests;
+	}
+
+	long[] servicedFloors() {
+		return servicedFloors;
+	}
+
+	private void checkFloor(int floor) {
+		if(floor < 0 || floor >= numberOfFloors) {
+			throw new IllegalArgumentException("Invalid floor!");
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj) {
+			return true;
+		}
+
+		if(!(obj instanceof ElevatorSnapshot)) {
+			return false;
+		}
+
+		ElevatorSnapshot other = (ElevatorSnapshot) obj;
+		return number == other.number && committedDirection == other.committedDirection
+				&& acceleration == other.acceleration && capacity == other.capacity
+				&& doorStatus == other.doorStatus && floor == other.floor && position == other.position
+				&& speed == other.speed && weight == other.weight && target == other.target
+				&& numberOfFloors == other.numberOfFloors
+				&& Arrays.equals(stopRequests, other.stopRequests)
+				&& Arrays.equals(servicedFloors, other.servicedFloors);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = Arrays.hashCode(new int[] {number, committedDirection, acceleration, capacity, doorStatus,
+				floor, position, speed, weight, target, numberOfFloors});
+		result = 31 * result + Arrays.hashCode(stopRequests);
+		return 31 * result + Arrays.hashCode(servicedFloors);
+	}
+}
@@ -1,29 +1,57 @@
 package at.fhhagenberg.sqelevator;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
-import com.hivemq.client.mqtt.MqttClient;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
-import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
-import com.hivemq.client.mqtt.mqtt3.message.connect.connack.Mqtt3ConnAck;
-import com.hivemq.client.mqtt.mqtt3.message.connect.connack.Mqtt3ConnAckReturnCode;
-import com.hivemq.client.mqtt.mqtt3.message.subscribe.suback.Mqtt3SubAckReturnCode;
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
 
 /**
  * This class provides the MQTT client for the Elevators MQTT Adapter.
  * It wraps a HiveMQ MQTT client and provides methods to easily publish various messages and subscribe to control messages.
  * IMqttMessageListener objects can be added to get notified of control messages.
+ * Messages are published through a bounded PublishPipeline which is created on connect, so publishing never waits for the broker.
+ * Topic classes with conflation (telemetry by default) are sent through a ConflatingPublisher instead, which keeps
+ * at most one message per topic in flight and only sends the latest value.
+ * Int payloads and state frames are encoded into pooled arrays of a PayloadEncoder and the validated HiveMQ topics are cached,
+ * so the typed publish methods do not allocate payload buffers or topic objects in the steady state. What still remains per
+ * message is the bookkeeping of its completion: the returned CompletableFuture, the queue entry of the PublishPipeline and
+ * one completion callback (plus whatever the HiveMQ client allocates itself).
+ * Once the size of the building is known (useTopicTable), all topics are taken from a precomputed TopicTable.
+ * Every publish is recorded in the PublishMetrics of the client (counts, in-flight messages, failures and latency).
+ * The client speaks MQTT 3 by default; with mqtt_version=5 it uses an Mqtt5Transport (topic aliases for the telemetry
+ * and message expiry per topic class) and falls back to MQTT 3 if the broker does not accept the MQTT 5 connect.
  */
 public class ElevatorsMqttClient {
 
-	private final Mqtt3AsyncClient client;
+	private final String host;
+	private final int port;
 	private final HashSet<IMqttMessageListener> listeners = new HashSet<>();
 	private final MqttTopicGenerator topics = new MqttTopicGenerator();
+	private final PayloadEncoder encoder = new PayloadEncoder();
+	private final ConcurrentHashMap<String, MqttTopic> mqttTopics = new ConcurrentHashMap<>();
+	private final PublishMetrics metrics = new PublishMetrics();
 	private boolean connected = false;
+	private int mqttVersion = 3;
+	private int topicAliases = Mqtt5Transport.DEFAULT_TOPIC_ALIASES;
+	private volatile IMqttTransport transport;
+	private int publishQueueCapacity = PublishPipeline.DEFAULT_CAPACITY;
+	private int publishSenderThreads = PublishPipeline.DEFAULT_SENDER_THREADS;
+	private BackpressurePolicy publishBackpressure = BackpressurePolicy.BLOCK;
+	private volatile TopicPolicy topicPolicy = TopicPolicy.DEFAULT;
+	private volatile PublishPipeline pipeline;
+	private volatile ConflatingPublisher conflater;
+	private volatile TopicTable topicTable;
+	private final Set<String> subscribedFilters = ConcurrentHashMap.newKeySet();
+	private volatile List<String> controlFilters = List.of();
 
 	/**
 	 * Create and build new MQTT client.
@@ -31,12 +59,117 @@ public class ElevatorsMqttClient {
 	 * @param port port of the MQTT broker service on the server
 	 */
 	public ElevatorsMqttClient(String host, int port) {
-		client = MqttClient.builder()
-		        .useMqttVersion3()
-		        .identifier(UUID.randomUUID().toString())
-		        .serverHost(host)
-		        .serverPort(port)
-		        .buildAsync();
+		this(host, port, new Mqtt3Transport(host, port));
+	}
+
+	/**
+	 * Create a new MQTT client with the given transport (e.g. a stub transport in tests).
+	 * @param host address to the MQTT broker server
+	 * @param port port of the MQTT broker service on the server
+	 * @param transport the transport to use until configure() replaces it
+	 */
+	ElevatorsMqttClient(String host, int port, IMqttTransport transport) {
+		this.host = host;
+		this.port = port;
+		this.transport = transport;
+	}
+
+	/**
+	 * Applies the publish pipeline settings, the topic policy and the MQTT version from the given properties.
+	 * Settings which are not set (values &lt;= 0 or null) keep their defaults.
+	 * The settings take effect on the next successful connect.
+	 * @param props the properties to read the settings from
+	 */
+	public void configure(ElevatorProperties props) {
+		if(props == null) {
+			throw new IllegalArgumentException("ElevatorProperties must not be null!");
+		}
+
+		if(props.getPublishQueueCapacity() > 0) {
+			publishQueueCapacity = props.getPublishQueueCapacity();
+		}
+
+		if(props.getPublishSenderThreads() > 0) {
+			publishSenderThreads = props.getPublishSenderThreads();
+		}
+
+		if(props.getPublishBackpressure() != null) {
+			publishBackpressure = props.getPublishBackpressure();
+		}
+
+		if(props.getTopicPolicy() != null) {
+			topicPolicy = props.getTopicPolicy();
+		}
+
+		if(props.getMqttTopicAliases() > 0) {
+			topicAliases = props.getMqttTopicAliases();
+		}
+
+		if(props.getMqttVersion() > 0) {
+			if(props.getMqttVersion() != 3 && props.getMqttVersion() != 5) {
+				throw new IllegalArgumentException("MQTT version must be 3 or 5!");
+			}
+
+			mqttVersion = props.getMqttVersion();
+		}
+
+		if(!isConnected()) {
+			transport = createTransport(mqttVersion);
+		}
+	}
+
+	/**
+	 * Provides the MQTT protocol version the client uses (or will use on connect).
+	 * @return the MQTT protocol version (3 or 5)
+	 */
+	public int getMqttVersion() {
+		return transport.getVersion();
+	}
+
+	/**
+	 * Provides the publish metrics of the client.
+	 * @return the publish metrics
+	 */
+	public PublishMetrics getPublishMetrics() {
+		return metrics;
+	}
+
+	private IMqttTransport createTransport(int version) {
+		return version == 5 ? new Mqtt5Transport(host, port, topicAliases) : new Mqtt3Transport(host, port);
+	}
+
+	/**
+	 * Provides the QoS and retain policy per topic class.
+	 * @return the topic policy
+	 */
+	public TopicPolicy getTopicPolicy() {
+		return topicPolicy;
+	}
+
+	/**
+	 * Builds the topic table for a building of the given size and uses it for all following publishes and subscriptions.
+	 * An existing table of the same size is kept.
+	 * @param numberOfElevators the number of elevators in the building
+	 * @param numberOfFloors the number of floors in the building
+	 * @return the topic table
+	 */
+	public TopicTable useTopicTable(int numberOfElevators, int numberOfFloors) {
+		TopicTable current = topicTable;
+
+		if(current == null || current.getNumberOfElevators() != numberOfElevators || current.getNumberOfFloors() != numberOfFloors) {
+			current = new TopicTable(numberOfElevators, numberOfFloors);
+			topicTable = current;
+		}
+
+		return current;
+	}
+
+	/**
+	 * Provides the topic table used by the client.
+	 * @return the topic table or null if the size of the building is not known yet
+	 */
+	public TopicTable getTopicTable() {
+		return topicTable;
 	}
 
 	/**
@@ -65,6 +198,7 @@ public class ElevatorsMqttClient {
 
 	/**
 	 * Connects the MQTT client to the MQTT broker.
+	 * If MQTT 5 is configured but the broker does not accept the MQTT 5 connect, the client connects with MQTT 3.
 	 * @return if the connection attempt was successful (true) or not (false)
 	 * @throws InterruptedException
 	 * @throws ExecutionException
@@ -74,10 +208,29 @@ public class ElevatorsMqttClient {
 			return true;
 		}
 
-		Mqtt3ConnAck result = client.connect().get();
-		Mqtt3ConnAckReturnCode code = result.getReturnCode();
-		connected = code == Mqtt3ConnAckReturnCode.SUCCESS;		
-		return connected;	
+		if(transport.getVersion() == 5) {
+			try {
+				connected = transport.connect();
+			} catch (ExecutionException e) {
+				connected = false;
+			}
+
+			if(!connected) {
+				System.err.println("MQTT 5 connect failed, falling back to MQTT 3!");
+				transport = createTransport(3);
+			}
+		}
+
+		if(!connected) {
+			connected = transport.connect();
+		}
+
+		if(connected && pipeline == null) {
+			pipeline = new PublishPipeline(this::send, publishQueueCapacity, publishSenderThreads, publishBackpressure, encoder::release);
+			conflater = new ConflatingPublisher(this::send, encoder::release);
+		}
+
+		return connected;
 	}
 	
 	@FunctionalInterface
@@ -86,31 +239,63 @@ public class ElevatorsMqttClient {
 	}
 
     public boolean subscribe_int(String topic, MqttCallback callback, Object... args) throws InterruptedException, ExecutionException {
-        if (!isConnected()) {
-            return false;
-        }
-
-        List<Mqtt3SubAckReturnCode> codes = client.subscribeWith()
-                .topicFilter(topic)
-                .qos(MqttQos.EXACTLY_ONCE)
-                .callback(publish -> {
-                    if (publish.getPayload().isPresent()) {
-                        callback.processSetMethod(args, publish.getPayload().get().getInt());
-                    }
-                })
-                .send().get().getReturnCodes();
-        
-		for(Mqtt3SubAckReturnCode code : codes) {
-			if(code == Mqtt3SubAckReturnCode.FAILURE) {
-				return false;
+        return subscribe(topic, payload -> callback.processSetMethod(args, payload.getInt()));
+    }
+
+	/**
+	 * Subscribe to the state frames of an elevator.
+	 * @param elevator the number of the elevator
+	 * @param callback the callback which gets the decoded state of the elevator
+	 * @return if the subscription was successful (true) or not (false)
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	public boolean subscribeToElevatorState(int elevator, Consumer<ElevatorSnapshot> callback) throws InterruptedException, ExecutionException {
+		return subscribe(topic(TopicKind.STATE, elevator, -1), payload -> callback.accept(ElevatorSnapshot.readFrom(payload)));
+	}
+
+	private boolean subscribe(String topic, Consumer<ByteBuffer> callback) throws InterruptedException, ExecutionException {
+		if (!isConnected()) {
+			return false;
+		}
+
+		subscribedFilters.add(topic);
+		return transport.subscribe(List.of(topic), List.of(topicPolicy.getQos(topicClass(topic))),
+				(mqttTopic, payload) -> callback.accept(payload));
+	}
+
+	/**
+	 * Subscribe to the wildcard topic filters of all kinds handled by the router in one SUBSCRIBE round trip.
+	 * Every received message is handed to the router.
+	 * @param router the router which dispatches the messages to its handlers
+	 * @return if the subscription was successful (true) or not (false)
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	public boolean subscribe(TopicRouter router) throws InterruptedException, ExecutionException {
+		if (!isConnected()) {
+			return false;
+		}
+
+		List<String> filters = new ArrayList<>();
+		List<MqttQos> qos = new ArrayList<>();
+
+		for(TopicKind kind : TopicKind.values()) {
+			if(router.handles(kind)) {
+				filters.add(TopicRouter.getTopicFilter(kind));
+				qos.add(topicPolicy.getQos(kind.getTopicClass()));
 			}
 		}
 
-		return true;
-    }
+		subscribedFilters.addAll(filters);
+		return transport.subscribe(filters, qos, (topic, payload) -> router.route(topic.toString(), payload));
+	}
 
 	/**
 	 * Subscribe to all control messages required for the system.
+	 * The control messages of all elevators and floors are received through one wildcard subscription per control topic.
+	 * An existing subscription of the control messages (e.g. for a building with another layout) is replaced, so every
+	 * control message is delivered only once.
 	 * @param numberOfElevators the number of elevators in the system
 	 * @param numberOfFloors the number of floors in the system
 	 * @return if the subscription to all control messages was successful (true) or not (false)
@@ -122,47 +307,51 @@ public class ElevatorsMqttClient {
 			return false;
 		}
 
-		for(int i = 0; i < numberOfElevators; ++i) {
-			final int elevator = i;
+		unsubscribeFromControlMessages();
+		useTopicTable(numberOfElevators, numberOfFloors);
 
-			if (!subscribe_int(	topics.getSetDirectionTopic(elevator),
-								(args, intval)->setDirectionReceived((int)args[0],(int)intval),
-								elevator)) {
-				unsubscribeAll();
-				return false;
-			}
+		TopicRouter router = new TopicRouter(numberOfElevators, numberOfFloors)
+				.on(TopicKind.SET_DIRECTION, (elevator, floor, payload) -> setDirectionReceived(elevator, payload.getInt()))
+				.on(TopicKind.SET_TARGET, (elevator, floor, payload) -> setTargetReceived(elevator, payload.getInt()))
+				.on(TopicKind.SET_SERVICES_FLOOR, (elevator, floor, payload) -> setServicesFloorReceived(elevator, floor, payload.getInt() == 1));
 
-			if (!subscribe_int(	topics.getSetTargetTopic(elevator),
-					(args, intval)->setTargetReceived((int)args[0],(int)intval),
-					elevator)) {
-				unsubscribeAll();
-				return false;
-			}
+		controlFilters = router.getTopicFilters();
 
-			for(int j = 0; j < numberOfFloors; ++j) {
-				final int floor = j;
-
-				if (!subscribe_int(	topics.getSetServicesFloorTopic(elevator,floor),
-						(args, intval)->setServicesFloorReceived((int)args[0], (int)args[1],(int)intval == 1),
-						elevator,floor)) {
-					unsubscribeAll();
-					return false;
-				}
-			}
+		if(!subscribe(router)) {
+			unsubscribeAll();
+			return false;
 		}
 
 		return true;
-	}	
+	}
 
 	/**
-	 * Unsubscribe from all control messages.
+	 * Unsubscribe from the control messages subscribed by subscribeToControlMessages(), if subscribed.
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	public void unsubscribeFromControlMessages() throws InterruptedException, ExecutionException {
+		List<String> filters = controlFilters;
+		controlFilters = List.of();
+
+		for(String filter : filters) {
+			subscribedFilters.remove(filter);
+			transport.unsubscribe(filter);
+		}
+	}
+
+	/**
+	 * Unsubscribe from all topic filters subscribed by the client.
 	 * @throws InterruptedException
 	 * @throws ExecutionException
 	 */
 	public void unsubscribeAll() throws InterruptedException, ExecutionException {
-		client.unsubscribeWith()
-		.topicFilter(MqttTopicGenerator.TOPIC_LEVEL_BUILDING)
-        .send().get();
+		controlFilters = List.of();
+
+		for(String filter : List.copyOf(subscribedFilters)) {
+			subscribedFilters.remove(filter);
+			transport.unsubscribe(filter);
+		}
 	}
 
 	private void setDirectionReceived(int elevator, int direction) {
@@ -185,140 +374,198 @@ public class ElevatorsMqttClient {
 
 	/**
 	 * Publish a MQTT message.
+	 * The message is queued in the publish pipeline and sent asynchronously by a sender thread.
+	 * The QoS and whether the message is conflated are taken from the topic policy of the topic's class.
 	 * @param topic the topic to publish the message to
 	 * @param payload the payload to publish the message with
 	 * @param retain whether the message should be a retained message (true) or not (false)
+	 * @return a future which completes when the broker acknowledged the message
 	 */
-	public boolean publish(String topic, ByteBuffer payload, boolean retain) {
-		try {
-			Thread t = new Thread(() ->
-				client.publishWith()
-				.topic(topic)
-				.payload(payload.array())
-				.qos(MqttQos.EXACTLY_ONCE)
-				.retain(retain)
-				.send()
-				.whenComplete((mqtt5Publish, throwable) -> {
-	                if (throwable != null) {
-	                    System.err.println("Publish failed!! Topic: " + topic + " Details: " + throwable.getMessage());
-	                }
-	            })       
-			);
-			t.start();
-			t.join();
-		} catch (InterruptedException e) {
-			return false;
-		}
-		return true;
+	public CompletableFuture<Void> publish(String topic, ByteBuffer payload, boolean retain) {
+		TopicClass topicClass = topicClass(topic);
+		return publish(topic, payload.array(), topicClass, topicPolicy.getQos(topicClass), retain, false);
 	}
 
 	/**
 	 * Publish a retained MQTT message.
 	 * @param topic the topic to publish the message to
 	 * @param payload the payload to publish the message with
+	 * @return a future which completes when the broker acknowledged the message
 	 */
-	public void publishRetained(String topic, ByteBuffer payload) {
-		publish(topic, payload, true);
+	public CompletableFuture<Void> publishRetained(String topic, ByteBuffer payload) {
+		return publish(topic, payload, true);
+	}
+
+	private String topic(TopicKind kind, int elevator, int floor) {
+		TopicTable table = topicTable;
+
+		if(table != null && table.contains(kind, elevator, floor)) {
+			return table.getEntry(kind, elevator, floor).getTopic();
+		}
+
+		return kind.buildTopic(topics, elevator, floor);
 	}
 
-	public void publishNumberOfElevators(int numberOfElevators) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(numberOfElevators);		
-		publishRetained(topics.getNumElevatorsTopic(), payload);
+	private CompletableFuture<Void> publish(TopicKind kind, int elevator, int floor, int value) {
+		TopicPolicy policy = topicPolicy;
+		TopicClass topicClass = kind.getTopicClass();
+		return publish(topic(kind, elevator, floor), encoder.encode(value), topicClass, policy.getQos(topicClass), policy.isRetained(topicClass), true);
 	}
 
-	public void publishNumberOfFloors(int numberOfFloors) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(numberOfFloors);
-		publishRetained(topics.getNumFloorsTopic(), payload);
+	private CompletableFuture<Void> publish(TopicKind kind, int elevator, int floor, boolean value) {
+		TopicPolicy policy = topicPolicy;
+		TopicClass topicClass = kind.getTopicClass();
+		return publish(topic(kind, elevator, floor), PayloadEncoder.encode(value), topicClass, policy.getQos(topicClass), policy.isRetained(topicClass), false);
 	}
 
-	public void publishFloorHeight(int floorHeight) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(floorHeight);
-		publishRetained(topics.getFloorHeightTopic(), payload);
+	private CompletableFuture<Void> publish(String topic, byte[] payload, TopicClass topicClass, MqttQos qos, boolean retain, boolean recycle) {
+		long start = metrics.published(topicClass);
+		CompletableFuture<Void> future = submit(topic, payload, topicClass, qos, retain, recycle);
+		future.whenComplete((result, throwable) -> {
+			metrics.completed(start, throwable);
+
+			if(throwable != null && !(throwable instanceof CancellationException)) {
+				System.err.println("Publish failed!! Topic: " + topic + " Details: " + throwable.getMessage());
+			}
+		});
+		return future;
 	}
 
-	public void publishConnected(boolean connected) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(connected ? 1 : 0);
-		publishRetained(topics.getConnectedTopic(), payload);
+	private CompletableFuture<Void> submit(String topic, byte[] payload, TopicClass topicClass, MqttQos qos, boolean retain, boolean recycle) {
+		PublishPipeline current = pipeline;
+		ConflatingPublisher currentConflater = conflater;
+
+		if(current == null || currentConflater == null) {
+			if(recycle) {
+				encoder.release(payload);
+			}
+
+			return CompletableFuture.failedFuture(new IllegalStateException("MQTT client is not connected!"));
+		}
+
+		if(topicPolicy.isConflated(topicClass)) {
+			return currentConflater.publish(topic, payload, qos, retain, recycle);
+		}
+
+		try {
+			return current.submit(topic, payload, qos, retain, recycle);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return CompletableFuture.failedFuture(e);
+		}
 	}
 
-	public void publishDirection(int elevator, int direction) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(direction);
-		publishRetained(topics.getDirectionTopic(elevator), payload);
+	private TopicClass topicClass(String topic) {
+		TopicTable table = topicTable;
+		TopicTable.Entry entry = table != null ? table.lookup(topic) : null;
+		return entry != null ? entry.getKind().getTopicClass() : topics.getTopicClass(topic);
+	}
+
+	private CompletableFuture<?> send(String topic, byte[] payload, MqttQos qos, boolean retain) {
+		TopicTable table = topicTable;
+		TopicTable.Entry entry = table != null ? table.lookup(topic) : null;
+
+		if(entry != null) {
+			return transport.publish(entry.getMqttTopic(), payload, qos, retain,
+					topicPolicy.getMessageExpiry(entry.getKind().getTopicClass()));
+		}
+
+		return transport.publish(mqttTopics.computeIfAbsent(topic, MqttTopic::of), payload, qos, retain,
+				topicPolicy.getMessageExpiry(topics.getTopicClass(topic)));
 	}
 
-	public void publishAcceleration(int elevator, int acceleration) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(acceleration);
-		publishRetained(topics.getAccelerationTopic(elevator), payload);
+	public CompletableFuture<Void> publishNumberOfElevators(int numberOfElevators) {
+		return publish(TopicKind.NUM_ELEVATORS, -1, -1, numberOfElevators);
 	}
 
-	public void publishButtonPressed(int elevator, int floor, boolean button) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(button ? 1 : 0);
-		publishRetained(topics.getButtonTopic(elevator, floor), payload);
+	public CompletableFuture<Void> publishNumberOfFloors(int numberOfFloors) {
+		return publish(TopicKind.NUM_FLOORS, -1, -1, numberOfFloors);
 	}
 
-	public void publishCapacity(int elevator, int capacity) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(capacity);
-		publishRetained(topics.getCapacityTopic(elevator), payload);
+	public CompletableFuture<Void> publishFloorHeight(int floorHeight) {
+		return publish(TopicKind.FLOOR_HEIGHT, -1, -1, floorHeight);
 	}
 
-	public void publishDoors(int elevator, int doors) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(doors);
-		publishRetained(topics.getDoorsTopic(elevator), payload);
+	public CompletableFuture<Void> publishConnected(boolean connected) {
+		return publish(TopicKind.CONNECTED, -1, -1, connected);
 	}
 
-	public void publishFloor(int elevator, int floor) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(floor);
-		publishRetained(topics.getFloorTopic(elevator), payload);
+	public CompletableFuture<Void> publishDirection(int elevator, int direction) {
+		return publish(TopicKind.DIRECTION, elevator, -1, direction);
 	}
 
-	public void publishPosition(int elevator, int position) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(position);
-		publishRetained(topics.getPositionTopic(elevator), payload);
+	public CompletableFuture<Void> publishAcceleration(int elevator, int acceleration) {
+		return publish(TopicKind.ACCELERATION, elevator, -1, acceleration);
 	}
 
-	public void publishSpeed(int elevator, int speed) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(speed);
-		publishRetained(topics.getSpeedTopic(elevator), payload);
+	public CompletableFuture<Void> publishButtonPressed(int elevator, int floor, boolean button) {
+		return publish(TopicKind.BUTTON, elevator, floor, button);
 	}
 
-	public void publishWeight(int elevator, int weight) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(weight);
-		publishRetained(topics.getWeightTopic(elevator), payload);
+	public CompletableFuture<Void> publishCapacity(int elevator, int capacity) {
+		return publish(TopicKind.CAPACITY, elevator, -1, capacity);
 	}
 
-	public void publishServicesFloor(int elevator, int floor, boolean service) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(service ? 1 : 0);
-		publishRetained(topics.getServicesFloorTopic(elevator, floor), payload);
+	public CompletableFuture<Void> publishDoors(int elevator, int doors) {
+		return publish(TopicKind.DOORS, elevator, -1, doors);
+	}
+
+	public CompletableFuture<Void> publishFloor(int elevator, int floor) {
+		return publish(TopicKind.FLOOR, elevator, -1, floor);
+	}
+
+	public CompletableFuture<Void> publishPosition(int elevator, int position) {
+		return publish(TopicKind.POSITION, elevator, -1, position);
+	}
+
+	public CompletableFuture<Void> publishSpeed(int elevator, int speed) {
+		return publish(TopicKind.SPEED, elevator, -1, speed);
+	}
+
+	public CompletableFuture<Void> publishWeight(int elevator, int weight) {
+		return publish(TopicKind.WEIGHT, elevator, -1, weight);
+	}
+
+	public CompletableFuture<Void> publishServicesFloor(int elevator, int floor, boolean service) {
+		return publish(TopicKind.SERVICES_FLOOR, elevator, floor, service);
 	}
 	
-	public void publishTarget(int elevator, int target) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(target);
-		publishRetained(topics.getTargetTopic(elevator), payload);
+	public CompletableFuture<Void> publishTarget(int elevator, int target) {
+		return publish(TopicKind.TARGET, elevator, -1, target);
+	}
+
+	public CompletableFuture<Void> publishButtonUp(int floor, boolean pressed) {
+		return publish(TopicKind.BUTTON_UP, -1, floor, pressed);
 	}
 
-	public void publishButtonUp(int floor, boolean pressed) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(pressed ? 1 : 0);
-		publishRetained(topics.getButtonUpTopic(floor), payload);
+	public CompletableFuture<Void> publishButtonDown(int floor, boolean pressed) {
+		return publish(TopicKind.BUTTON_DOWN, -1, floor, pressed);
 	}
 
-	public void publishButtonDown(int floor, boolean pressed) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(pressed ? 1 : 0);
-		publishRetained(topics.getButtonDownTopic(floor), payload);
+	/**
+	 * Publish the state frame of an elevator.
+	 * @param snapshot the state of the elevator to publish
+	 * @return a future which completes when the broker acknowledged the message
+	 */
+	public CompletableFuture<Void> publishElevatorState(ElevatorSnapshot snapshot) {
+		TopicPolicy policy = topicPolicy;
+		TopicClass topicClass = TopicKind.STATE.getTopicClass();
+		byte[] payload = encoder.frame(snapshot.getEncodedSize());
+		snapshot.writeTo(ByteBuffer.wrap(payload));
+		return publish(topic(TopicKind.STATE, snapshot.getNumber(), -1), payload, topicClass, policy.getQos(topicClass),
+				policy.isRetained(topicClass), true);
 	}
 
-	public void publishDirectionReceived(int elevator, int direction) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(direction);
-		publishRetained(topics.getSetDirectionTopic(elevator), payload);
+	public CompletableFuture<Void> publishDirectionReceived(int elevator, int direction) {
+		return publish(TopicKind.SET_DIRECTION, elevator, -1, direction);
 	}
 
-	public void publishTargetReceived(int elevator, int target) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(target);
-		publishRetained(topics.getSetTargetTopic(elevator), payload);
+	public CompletableFuture<Void> publishTargetReceived(int elevator, int target) {
+		return publish(TopicKind.SET_TARGET, elevator, -1, target);
 	}
 
-	public void publishServicesFloorReceived(int elevator, int floor, boolean service) {
-		ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES).putInt(service ? 1 : 0);
-		publishRetained(topics.getSetServicesFloorTopic(elevator,floor), payload);
+	public CompletableFuture<Void> publishServicesFloorReceived(int elevator, int floor, boolean service) {
+		return publish(TopicKind.SET_SERVICES_FLOOR, elevator, floor, service);
 	}
 
 	/**
@@ -327,8 +574,18 @@ public class ElevatorsMqttClient {
 	 * @throws ExecutionException
 	 */
 	public void disconnect() throws InterruptedException, ExecutionException {
+		if(conflater != null) {
+			conflater.close();
+			conflater = null;
+		}
+
+		if(pipeline != null) {
+			pipeline.close();
+			pipeline = null;
+		}
+
 		unsubscribeAll();
-		client.disconnect().get();
+		transport.disconnect();
 		connected = false;
 	}
 
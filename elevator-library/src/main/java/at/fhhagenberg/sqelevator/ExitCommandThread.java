@@ -2,14 +2,18 @@ package at.fhhagenberg.sqelevator;
 
 import java.io.InputStream;
 import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class which starts a new thread and waits for a specific input line on the given input stream.
  * If the right input is detected the exit request flag is set and the thread runs out.
+ * Other threads can poll the flag with isExitRequest() or wait for it with awaitExitRequest().
  */
 public class ExitCommandThread extends Thread {	
 	private final InputStream input;
 	private final String exitLine;
+	private final CountDownLatch exitSignal = new CountDownLatch(1);
 	private volatile boolean exitRequest = false;
 
 	/**
@@ -46,6 +50,7 @@ public class ExitCommandThread extends Thread {
 					
 					if(exitLine.equals(line)) {
 						exitRequest = true;
+						exitSignal.countDown();
 						return;
 					}
 				}
@@ -60,4 +65,15 @@ public class ExitCommandThread extends Thread {
 	public boolean isExitRequest() {
 		return exitRequest;
 	}
+
+	/**
+	 * Waits until the exit command is detected or the timeout elapsed.
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return whether the exit command was detected (true) or the timeout elapsed (false)
+	 * @throws InterruptedException if the waiting thread is interrupted
+	 */
+	public boolean awaitExitRequest(long timeout, TimeUnit unit) throws InterruptedException {
+		return exitSignal.await(timeout, unit);
+	}
 }
@@ -3,6 +3,7 @@ package at.fhhagenberg.sqelevator;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.rmi.RemoteException;
+import java.util.Arrays;
 
 import sqelevator.IElevator;
 
@@ -10,7 +11,9 @@ import sqelevator.IElevator;
  * Class representing a floor in a building.
  * The floor is initialized in the constructor using information from the control unit provided.
  * Every floor has a unique number.
- * This class implements PropertyChangeSupport and lets PropertyChangeListeners listen to property changes.
+ * Changes are delivered to typed IFloorListeners without allocations (copy-on-write listener array).
+ * For compatibility the class also implements PropertyChangeSupport and lets PropertyChangeListeners listen to
+ * property changes; the events are only created if a PropertyChangeListener is registered.
  */
 public class Floor {
 
@@ -19,6 +22,8 @@ public class Floor {
 	private boolean buttonDown;
 	private boolean buttonUp;
 	private boolean alwaysCallPropertyChange = false;
+	private volatile int changeCount;
+	private volatile IFloorListener[] listeners = new IFloorListener[0];
 
 	private final PropertyChangeSupport pcs = new PropertyChangeSupport(this);
 
@@ -46,6 +51,48 @@ public class Floor {
 		this.setButtonUp(plc.getFloorButtonUp(number));
 	}
 
+	/**
+	 * Adds a typed listener. A listener which is already registered is not added again.
+	 * @param listener the listener to add
+	 */
+	public synchronized void addFloorListener(IFloorListener listener) {
+		if(listener == null) {
+			throw new IllegalArgumentException("Listener must not be null!");
+		}
+
+		for(IFloorListener registered : listeners) {
+			if(registered == listener) {
+				return;
+			}
+		}
+
+		IFloorListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+		newListeners[listeners.length] = listener;
+		listeners = newListeners;
+	}
+
+	/**
+	 * Removes a typed listener.
+	 * @param listener the listener to remove
+	 */
+	public synchronized void removeFloorListener(IFloorListener listener) {
+		for(int i = 0; i < listeners.length; ++i) {
+			if(listeners[i] == listener) {
+				IFloorListener[] newListeners = new IFloorListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, newListeners, 0, i);
+				System.arraycopy(listeners, i + 1, newListeners, i, listeners.length - i - 1);
+				listeners = newListeners;
+				return;
+			}
+		}
+	}
+
+	private void fireBeanChange(String propertyName, boolean oldValue, boolean newValue) {
+		if(pcs.hasListeners(propertyName)) {
+			pcs.firePropertyChange(propertyName, alwaysCallPropertyChange ? !newValue : oldValue, newValue);
+		}
+	}
+
 	/**
 	 * Adds a property change listener.
 	 * @param listener property change listener to add
@@ -70,6 +117,15 @@ public class Floor {
 		return plc;
 	}
 
+	/**
+	 * Provides the number of changes of the floor so far. It is incremented on every notified change, so a reader can
+	 * detect whether the floor changed since it last looked (e.g. Building.publishSnapshot()).
+	 * @return the number of changes
+	 */
+	public int getChangeCount() {
+		return changeCount;
+	}
+
 	/**
 	 * Provides the unique number of the floor.
 	 * @return the unique number of the floor
@@ -94,10 +150,11 @@ public class Floor {
 		if(alwaysCallPropertyChange || this.buttonDown != buttonDown) {
 			boolean oldValue = this.buttonDown;
 			this.buttonDown = buttonDown;
-			if(alwaysCallPropertyChange) {
-				oldValue = !buttonDown;
+			++changeCount;
+			for(IFloorListener listener : listeners) {
+				listener.onButtonDownChanged(this, buttonDown);
 			}
-			this.pcs.firePropertyChange(BUTTON_DOWN_PROPERTY_NAME, oldValue, buttonDown);
+			fireBeanChange(BUTTON_DOWN_PROPERTY_NAME, oldValue, buttonDown);
 		}
 	}
 
@@ -117,10 +174,11 @@ public class Floor {
 		if(alwaysCallPropertyChange || this.buttonUp != buttonUp) {
 			boolean oldValue = this.buttonUp;
 			this.buttonUp = buttonUp;
-			if(alwaysCallPropertyChange) {
-				oldValue = !buttonUp;
+			++changeCount;
+			for(IFloorListener listener : listeners) {
+				listener.onButtonUpChanged(this, buttonUp);
 			}
-			this.pcs.firePropertyChange(BUTTON_UP_PROPERTY_NAME, oldValue, buttonUp);
+			fireBeanChange(BUTTON_UP_PROPERTY_NAME, oldValue, buttonUp);
 		}
 	}
 	
@@ -0,0 +1,23 @@
+package at.fhhagenberg.sqelevator;
+
+import java.rmi.RemoteException;
+
+import sqelevator.IElevator;
+
+/**
+ * Optional extension of the remote IElevator API which provides the whole state of an elevator with one remote call.
+ *
+ * The fine-grained IElevator getters need 9 + 2 x floors round trips per elevator. A remote side which implements
+ * this interface as well is detected on connect (the RMI stub implements all remote interfaces of the remote object)
+ * and read with one round trip per elevator instead.
+ */
+public interface IElevatorBulk extends IElevator {
+
+	/**
+	 * Provides the state of one elevator.
+	 * @param elevatorNumber elevator number whose state is being retrieved
+	 * @return the snapshot of all state fields of the elevator
+	 * @throws RemoteException
+	 */
+	public ElevatorSnapshot getElevatorSnapshot(int elevatorNumber) throws RemoteException;
+}
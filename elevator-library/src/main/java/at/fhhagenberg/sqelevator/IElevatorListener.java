@@ -0,0 +1,121 @@
+package at.fhhagenberg.sqelevator;
+
+/**
+ * Typed listener for changes of the properties of an Elevator.
+ * The values are passed as primitives, so a change is delivered without boxing or event objects.
+ * All methods have an empty default implementation, so listeners only implement the changes they are interested in.
+ * With setAlwaysSetPropertyChange(true) the methods are also called if a property is set to its current value.
+ */
+public interface IElevatorListener {
+
+	/**
+	 * Called when the committed direction of the elevator changed.
+	 * @param elevator the elevator which changed
+	 * @param oldValue the previous direction
+	 * @param newValue the new direction where up=0, down=1 and uncommitted=2
+	 */
+	default void onCommittedDirectionChanged(Elevator elevator, int oldValue, int newValue) {
+	}
+
+	/**
+	 * Called when the acceleration of the elevator changed.
+	 * @param elevator the elevator which changed
+	 * @param oldValue the previous acceleration
+	 * @param newValue the new acceleration in feet per sec^2
+	 */
+	default void onAccelerationChanged(Elevator elevator, int oldValue, int newValue) {
+	}
+
+	/**
+	 * Called when a floor request button in the elevator changed.
+	 * @param elevator the elevator which changed
+	 * @param floor the floor of the button
+	 * @param stop whether the button is active (true) or not (false)
+	 */
+	default void onStopRequestChanged(Elevator elevator, int floor, boolean stop) {
+	}
+
+	/**
+	 * Called when the capacity of the elevator changed.
+	 * @param elevator the elevator which changed
+	 * @param oldValue the previous capacity
+	 * @param newValue the new maximum number of passengers
+	 */
+	default void onCapacityChanged(Elevator elevator, int oldValue, int newValue) {
+	}
+
+	/**
+	 * Called when the door status of the elevator changed.
+	 * @param elevator the elevator which changed
+	 * @param oldValue the previous door status
+	 * @param newValue the new door status
+	 */
+	default void onDoorStatusChanged(Elevator elevator, int oldValue, int newValue) {
+	}
+
+	/**
+	 * Called when the nearest floor of the elevator changed.
+	 * @param elevator the elevator which changed
+	 * @param oldValue the previous floor
+	 * @param newValue the new floor
+	 */
+	default void onFloorChanged(Elevator elevator, int oldValue, int newValue) {
+	}
+
+	/**
+	 * Called when the position of the elevator changed.
+	 * @param elevator the elevator which changed
+	 * @param oldValue the previous position
+	 * @param newValue the new position in feet from the bottom of the building
+	 */
+	default void onPositionChanged(Elevator elevator, int oldValue, int newValue) {
+	}
+
+	/**
+	 * Called when the speed of the elevator changed.
+	 * @param elevator the elevator which changed
+	 * @param oldValue the previous speed
+	 * @param newValue the new speed in feet per sec
+	 */
+	default void onSpeedChanged(Elevator elevator, int oldValue, int newValue) {
+	}
+
+	/**
+	 * Called when the weight of the passengers of the elevator changed.
+	 * @param elevator the elevator which changed
+	 * @param oldValue the previous weight
+	 * @param newValue the new weight in lbs
+	 */
+	default void onWeightChanged(Elevator elevator, int oldValue, int newValue) {
+	}
+
+	/**
+	 * Called when the service status of a floor changed.
+	 * @param elevator the elevator which changed
+	 * @param floor the floor whose service status changed
+	 * @param service whether the floor is serviced (true) or not (false)
+	 */
+	default void onServicesFloorChanged(Elevator elevator, int floor, boolean service) {
+	}
+
+	/**
+	 * Called when the target of the elevator changed.
+	 * @param elevator the elevator which changed
+	 * @param oldValue the previous target
+	 * @param newValue the new target floor
+	 */
+	default void onTargetChanged(Elevator elevator, int oldValue, int newValue) {
+	}
+
+	/**
+	 * Called once after a change of the elevator or, for a batch (Elevator.beginUpdate() / commitUpdate()), once after
+	 * the batch with all fields which changed in it. It is called after the per-field methods, so a listener can do
+	 * expensive work (e.g. dispatching) once per batch instead of once per field. Unlike the per-field methods it only
+	 * contains fields whose value really changed, also with setAlwaysSetPropertyChange(true), and is not called at all
+	 * if nothing changed.
+	 * @param elevator the elevator which changed
+	 * @param changeMask the changed fields with bit {@code 1 << PolledField.ordinal()} set per field, see Elevator.isChanged()
+	 */
+	default void onElevatorUpdated(Elevator elevator, int changeMask) {
+	}
+}
@@ -0,0 +1,25 @@
+package at.fhhagenberg.sqelevator;
+
+/**
+ * Typed listener for changes of the buttons of a Floor.
+ * The values are passed as primitives, so a change is delivered without boxing or event objects.
+ * With setAlwaysSetPropertyChange(true) the methods are also called if a button is set to its current state.
+ */
+public interface IFloorListener {
+
+	/**
+	 * Called when the Up button of the floor changed.
+	 * @param floor the floor which changed
+	 * @param buttonUp whether the button is active (true) or not (false)
+	 */
+	default void onButtonUpChanged(Floor floor, boolean buttonUp) {
+	}
+
+	/**
+	 * Called when the Down button of the floor changed.
+	 * @param floor the floor which changed
+	 * @param buttonDown whether the button is active (true) or not (false)
+	 */
+	default void onButtonDownChanged(Floor floor, boolean buttonDown) {
+	}
+}
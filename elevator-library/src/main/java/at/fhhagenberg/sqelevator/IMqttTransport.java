@@ -0,0 +1,80 @@
+package at.fhhagenberg.sqelevator;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+
+/**
+ * Interface for the MQTT protocol version specific part of the ElevatorsMqttClient (MQTT 3 or MQTT 5).
+ */
+public interface IMqttTransport {
+
+	/**
+	 * Handler for received messages.
+	 */
+	@FunctionalInterface
+	interface IMessageHandler {
+
+		/**
+		 * Handle a received message.
+		 * @param topic the topic of the message
+		 * @param payload the payload of the message
+		 */
+		void handle(MqttTopic topic, ByteBuffer payload);
+	}
+
+	/**
+	 * Provides the MQTT protocol version of the transport.
+	 * @return the MQTT protocol version (3 or 5)
+	 */
+	int getVersion();
+
+	/**
+	 * Connects to the MQTT broker.
+	 * @return if the connection attempt was successful (true) or not (false)
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	boolean connect() throws InterruptedException, ExecutionException;
+
+	/**
+	 * Disconnects from the MQTT broker.
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	void disconnect() throws InterruptedException, ExecutionException;
+
+	/**
+	 * Publish a message asynchronously.
+	 * @param topic the topic to publish the message to
+	 * @param payload the payload of the message
+	 * @param qos the QoS of the message
+	 * @param retain whether the message should be a retained message (true) or not (false)
+	 * @param expirySeconds the message expiry interval in seconds, 0 for no expiry (ignored by MQTT 3)
+	 * @return a future which completes when the broker acknowledged the message
+	 */
+	CompletableFuture<?> publish(MqttTopic topic, byte[] payload, MqttQos qos, boolean retain, long expirySeconds);
+
+	/**
+	 * Subscribe to topic filters in one SUBSCRIBE round trip.
+	 * @param filters the topic filters
+	 * @param qos the QoS per topic filter
+	 * @param handler the handler of the received messages
+	 * @return if all subscriptions were granted (true) or not (false)
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	boolean subscribe(List<String> filters, List<MqttQos> qos, IMessageHandler handler) throws InterruptedException, ExecutionException;
+
+	/**
+	 * Unsubscribe from a topic filter.
+	 * @param filter the topic filter
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	void unsubscribe(String filter) throws InterruptedException, ExecutionException;
+}
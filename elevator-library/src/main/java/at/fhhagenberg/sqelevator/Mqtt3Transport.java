@@ -0,0 +1,103 @@
+package at.fhhagenberg.sqelevator;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
+import com.hivemq.client.mqtt.mqtt3.message.connect.connack.Mqtt3ConnAckReturnCode;
+import com.hivemq.client.mqtt.mqtt3.message.subscribe.Mqtt3Subscribe;
+import com.hivemq.client.mqtt.mqtt3.message.subscribe.Mqtt3SubscribeBuilder;
+import com.hivemq.client.mqtt.mqtt3.message.subscribe.Mqtt3Subscription;
+import com.hivemq.client.mqtt.mqtt3.message.subscribe.suback.Mqtt3SubAckReturnCode;
+
+/**
+ * MQTT 3.1.1 transport of the ElevatorsMqttClient based on the HiveMQ Mqtt3AsyncClient.
+ * Message expiry is not supported by MQTT 3 and ignored.
+ */
+public class Mqtt3Transport implements IMqttTransport {
+
+	private final Mqtt3AsyncClient client;
+
+	/**
+	 * Create and build a new MQTT 3 client.
+	 * @param host address to the MQTT broker server
+	 * @param port port of the MQTT broker service on the server
+	 */
+	public Mqtt3Transport(String host, int port) {
+		client = MqttClient.builder()
+		        .useMqttVersion3()
+		        .identifier(UUID.randomUUID().toString())
+		        .serverHost(host)
+		        .serverPort(port)
+		        .buildAsync();
+	}
+
+	@Override
+	public int getVersion() {
+		return 3;
+	}
+
+	@Override
+	public boolean connect() throws InterruptedException, ExecutionException {
+		return client.connect().get().getReturnCode() == Mqtt3ConnAckReturnCode.SUCCESS;
+	}
+
+	@Override
+	public void disconnect() throws InterruptedException, ExecutionException {
+		client.disconnect().get();
+	}
+
+	@Override
+	public CompletableFuture<?> publish(MqttTopic topic, byte[] payload, MqttQos qos, boolean retain, long expirySeconds) {
+		return client.publishWith()
+				.topic(topic)
+				.payload(payload)
+				.qos(qos)
+				.retain(retain)
+				.send();
+	}
+
+	@Override
+	public boolean subscribe(List<String> filters, List<MqttQos> qos, IMessageHandler handler) throws InterruptedException, ExecutionException {
+		Mqtt3SubscribeBuilder.Start builder = Mqtt3Subscribe.builder();
+		Mqtt3SubscribeBuilder.Complete complete = null;
+
+		for(int i = 0; i < filters.size(); ++i) {
+			complete = (complete == null ? builder : complete).addSubscription(Mqtt3Subscription.builder()
+					.topicFilter(filters.get(i))
+					.qos(qos.get(i))
+					.build());
+		}
+
+		if(complete == null) {
+			return true;
+		}
+
+		List<Mqtt3SubAckReturnCode> codes = client.subscribe(complete.build(), publish -> {
+					if (publish.getPayload().isPresent()) {
+						handler.handle(publish.getTopic(), publish.getPayload().get());
+					}
+				})
+				.get().getReturnCodes();
+
+		for(Mqtt3SubAckReturnCode code : codes) {
+			if(code == Mqtt3SubAckReturnCode.FAILURE) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public void unsubscribe(String filter) throws InterruptedException, ExecutionException {
+		client.unsubscribeWith()
+		.topicFilter(filter)
+		.send().get();
+	}
+}
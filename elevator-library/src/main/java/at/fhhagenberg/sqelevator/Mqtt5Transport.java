@@ -0,0 +1,135 @@
+package at.fhhagenberg.sqelevator;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
+import com.hivemq.client.mqtt.mqtt5.message.connect.connack.Mqtt5ConnAckReasonCode;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishBuilder;
+import com.hivemq.client.mqtt.mqtt5.message.subscribe.Mqtt5Subscribe;
+import com.hivemq.client.mqtt.mqtt5.message.subscribe.Mqtt5SubscribeBuilder;
+import com.hivemq.client.mqtt.mqtt5.message.subscribe.Mqtt5Subscription;
+import com.hivemq.client.mqtt.mqtt5.message.subscribe.suback.Mqtt5SubAckReasonCode;
+
+/**
+ * MQTT 5 transport of the ElevatorsMqttClient based on the HiveMQ Mqtt5AsyncClient.
+ *
+ * The client announces the maximum number of topic aliases it wants to send on connect. The HiveMQ client maps the
+ * most frequently published topics (the telemetry of the elevators) to aliases automatically, as far as the broker
+ * allows, so these messages only carry a two byte alias instead of the full topic. Messages with an expiry interval
+ * are discarded by the broker (including the retained value) when they were not delivered within the interval.
+ */
+public class Mqtt5Transport implements IMqttTransport {
+
+	/** Default maximum number of topic aliases the client sends. */
+	public static final int DEFAULT_TOPIC_ALIASES = 16;
+
+	private final Mqtt5AsyncClient client;
+	private final int topicAliases;
+
+	/**
+	 * Create and build a new MQTT 5 client.
+	 * @param host address to the MQTT broker server
+	 * @param port port of the MQTT broker service on the server
+	 * @param topicAliases the maximum number of topic aliases the client sends, 0 disables topic aliases
+	 */
+	public Mqtt5Transport(String host, int port, int topicAliases) {
+		if(topicAliases < 0 || topicAliases > 65535) {
+			throw new IllegalArgumentException("Topic aliases must be between 0 and 65535!");
+		}
+
+		this.topicAliases = topicAliases;
+		client = MqttClient.builder()
+		        .useMqttVersion5()
+		        .identifier(UUID.randomUUID().toString())
+		        .serverHost(host)
+		        .serverPort(port)
+		        .buildAsync();
+	}
+
+	@Override
+	public int getVersion() {
+		return 5;
+	}
+
+	/**
+	 * Provides the maximum number of topic aliases the client sends.
+	 * @return the maximum number of topic aliases
+	 */
+	public int getTopicAliases() {
+		return topicAliases;
+	}
+
+	@Override
+	public boolean connect() throws InterruptedException, ExecutionException {
+		return client.connectWith()
+				.restrictions()
+					.sendTopicAliasMaximum(topicAliases)
+					.applyRestrictions()
+				.send().get().getReasonCode() == Mqtt5ConnAckReasonCode.SUCCESS;
+	}
+
+	@Override
+	public void disconnect() throws InterruptedException, ExecutionException {
+		client.disconnect().get();
+	}
+
+	@Override
+	public CompletableFuture<?> publish(MqttTopic topic, byte[] payload, MqttQos qos, boolean retain, long expirySeconds) {
+		Mqtt5PublishBuilder.Send.Complete<CompletableFuture<com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishResult>> builder = client.publishWith()
+				.topic(topic)
+				.payload(payload)
+				.qos(qos)
+				.retain(retain);
+
+		if(expirySeconds > 0) {
+			builder.messageExpiryInterval(expirySeconds);
+		}
+
+		return builder.send();
+	}
+
+	@Override
+	public boolean subscribe(List<String> filters, List<MqttQos> qos, IMessageHandler handler) throws InterruptedException, ExecutionException {
+		Mqtt5SubscribeBuilder.Start builder = Mqtt5Subscribe.builder();
+		Mqtt5SubscribeBuilder.Complete complete = null;
+
+		for(int i = 0; i < filters.size(); ++i) {
+			complete = (complete == null ? builder : complete).addSubscription(Mqtt5Subscription.builder()
+					.topicFilter(filters.get(i))
+					.qos(qos.get(i))
+					.build());
+		}
+
+		if(complete == null) {
+			return true;
+		}
+
+		List<Mqtt5SubAckReasonCode> codes = client.subscribe(complete.build(), publish -> {
+					if (publish.getPayload().isPresent()) {
+						handler.handle(publish.getTopic(), publish.getPayload().get());
+					}
+				})
+				.get().getReasonCodes();
+
+		for(Mqtt5SubAckReasonCode code : codes) {
+			if(code.isError()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public void unsubscribe(String filter) throws InterruptedException, ExecutionException {
+		client.unsubscribeWith()
+		.topicFilter(filter)
+		.send().get();
+	}
+}
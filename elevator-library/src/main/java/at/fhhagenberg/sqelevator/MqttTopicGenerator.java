@@ -28,6 +28,7 @@ public class MqttTopicGenerator {
 	public static final String TOPIC_LEVEL_SET_SERVICES_FLOOR = "setservicesFloor";
 	public static final String TOPIC_LEVEL_SET_TARGET = "setTarget";
 	public static final String TOPIC_LEVEL_CONNECTED = "connected";
+	public static final String TOPIC_LEVEL_STATE = "state";
 
 	public String getTopic(String... topicLevels) {
 		if(topicLevels.length == 0) {
@@ -112,6 +113,10 @@ public class MqttTopicGenerator {
 		return getTopic(getElevatorTopic(), String.valueOf(elevator), TOPIC_LEVEL_TARGET);
 	}
 	
+	public String getStateTopic(int elevator) {
+		return getTopic(getElevatorTopic(), String.valueOf(elevator), TOPIC_LEVEL_STATE);
+	}
+	
 	public String getSetDirectionTopic(int elevator) {
 		return getTopic(getElevatorTopic(), String.valueOf(elevator), TOPIC_LEVEL_SET_DIRECTION);
 	}
@@ -131,4 +136,40 @@ public class MqttTopicGenerator {
 	public String getButtonDownTopic(int floor) {
 		return getTopic(getFloorTopic(), String.valueOf(floor), TOPIC_LEVEL_DOWN);
 	}
+
+	/**
+	 * Provides the topic class of a topic built by this generator.
+	 * Unknown topics are treated as telemetry.
+	 * @param topic the topic to classify
+	 * @return the class of the topic
+	 */
+	public TopicClass getTopicClass(String topic) {
+		String[] levels = topic.split(String.valueOf(TOPIC_LEVEL_SEPERATOR));
+
+		if(levels.length < 2 || !TOPIC_LEVEL_BUILDING.equals(levels[0])) {
+			return TopicClass.TELEMETRY;
+		}
+
+		if(levels.length == 2 || levels.length == 3) {
+			return TopicClass.CONFIGURATION;
+		}
+
+		if(TOPIC_LEVEL_FLOOR.equals(levels[1])) {
+			return TopicClass.BUTTON_STATE;
+		}
+
+		switch(levels[3]) {
+		case TOPIC_LEVEL_SET_DIRECTION:
+		case TOPIC_LEVEL_SET_TARGET:
+		case TOPIC_LEVEL_SET_SERVICES_FLOOR:
+			return TopicClass.CONTROL;
+		case TOPIC_LEVEL_BUTTON:
+			return TopicClass.BUTTON_STATE;
+		case TOPIC_LEVEL_CAPACITY:
+		case TOPIC_LEVEL_SERVICES_FLOOR:
+			return TopicClass.CONFIGURATION;
+		default:
+			return TopicClass.TELEMETRY;
+		}
+	}
 }
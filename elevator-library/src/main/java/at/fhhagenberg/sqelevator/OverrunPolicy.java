@@ -0,0 +1,29 @@
+package at.fhhagenberg.sqelevator;
+
+/**
+ * Policy of a fixed-rate tick scheduler for ticks which were missed because a tick took longer than the period.
+ */
+public enum OverrunPolicy {
+
+	/** Missed ticks are dropped: the next tick runs immediately and the following ones on the original schedule. */
+	SKIP,
+
+	/**
+	 * Missed ticks run back to back without waiting until the schedule is caught up.
+	 * Only a limited backlog is caught up, older missed ticks are dropped like with SKIP.
+	 */
+	COMPRESS;
+
+	/**
+	 * Parses a policy name case-insensitively (e.g. from elevator.properties).
+	 * @param name the name of the policy
+	 * @return the matching policy
+	 */
+	public static OverrunPolicy parse(String name) {
+		if(name == null) {
+			throw new IllegalArgumentException("Overrun policy must not be null!");
+		}
+
+		return valueOf(name.trim().toUpperCase());
+	}
+}
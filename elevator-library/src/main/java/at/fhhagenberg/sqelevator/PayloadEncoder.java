@@ -0,0 +1,202 @@
+package at.fhhagenberg.sqelevator;
+
+/**
+ * Encodes the int payloads of the MQTT messages (4 bytes, big endian) without allocating in the steady state.
+ *
+ * Small values (booleans, door status, direction, floors, ...) are pre-encoded once and shared; these arrays must
+ * never be modified. Other values are written into 4 byte arrays taken from a bounded pool. Pooled arrays are given
+ * back with release() once the message was sent, which the PublishPipeline does for messages submitted with recycling.
+ * Larger frames (e.g. the elevator state frames) are taken from a second pool with frame() and given back the same way.
+ */
+public final class PayloadEncoder {
+
+	/** Smallest value which is pre-encoded. */
+	public static final int MIN_CACHED = -16;
+
+	/** Largest value which is pre-encoded. */
+	public static final int MAX_CACHED = 1023;
+
+	/** Default maximum number of arrays kept in the pool. */
+	public static final int DEFAULT_POOL_SIZE = 1024;
+
+	private static final byte[][] CACHE = new byte[MAX_CACHED - MIN_CACHED + 1][];
+
+	static {
+		for(int i = MIN_CACHED; i <= MAX_CACHED; ++i) {
+			CACHE[i - MIN_CACHED] = write(i, new byte[Integer.BYTES]);
+		}
+	}
+
+	private final byte[][] pool;
+	private final byte[][] frames;
+	private int pooled = 0;
+	private int pooledFrames = 0;
+
+	/**
+	 * Create a new encoder with the default pool size.
+	 */
+	public PayloadEncoder() {
+		this(DEFAULT_POOL_SIZE);
+	}
+
+	/**
+	 * Create a new encoder.
+	 * @param poolSize the maximum number of arrays kept in the pool
+	 */
+	public PayloadEncoder(int poolSize) {
+		if(poolSize < 0) {
+			throw new IllegalArgumentException("Pool size must be >=0!");
+		}
+
+		pool = new byte[poolSize][];
+		frames = new byte[poolSize][];
+	}
+
+	/**
+	 * Provides the shared pre-encoded payload of a boolean (1 or 0).
+	 * @param value the value to encode
+	 * @return the shared payload, must not be modified
+	 */
+	public static byte[] encode(boolean value) {
+		return CACHE[(value ? 1 : 0) - MIN_CACHED];
+	}
+
+	/**
+	 * Provides whether the given value is pre-encoded.
+	 * @param value the value to check
+	 * @return whether encode(int) returns a shared payload for the value (true) or not (false)
+	 */
+	public static boolean isCached(int value) {
+		return value >= MIN_CACHED && value <= MAX_CACHED;
+	}
+
+	/**
+	 * Encodes an int payload.
+	 * @param value the value to encode
+	 * @return the shared payload for small values or a pooled array, must not be modified
+	 */
+	public byte[] encode(int value) {
+		if(isCached(value)) {
+			return CACHE[value - MIN_CACHED];
+		}
+
+		return write(value, acquire());
+	}
+
+	/**
+	 * Provides an array for a frame payload of the given size from the frame pool.
+	 * Pooled frames of another size are dropped, so the pool adapts when the frame size changes.
+	 * @param size the size of the frame in bytes
+	 * @return a pooled or new array of the given size, its content is undefined
+	 */
+	public byte[] frame(int size) {
+		synchronized(frames) {
+			while(pooledFrames > 0) {
+				byte[] frame = frames[--pooledFrames];
+				frames[pooledFrames] = null;
+
+				if(frame.length == size) {
+					return frame;
+				}
+			}
+		}
+
+		return new byte[size];
+	}
+
+	/**
+	 * Gives a payload back to the pool. Shared payloads are ignored, arrays which are not int payloads go back to the frame pool.
+	 * The payload must not be used by the caller after this call.
+	 * @param payload the payload to give back
+	 */
+	public void release(byte[] payload) {
+		if(payload == null) {
+			return;
+		}
+
+		if(payload.length != Integer.BYTES) {
+			releaseFrame(payload);
+			return;
+		}
+
+		if(isShared(payload)) {
+			return;
+		}
+
+		synchronized(pool) {
+			if(pooled < pool.length) {
+				pool[pooled++] = payload;
+			}
+		}
+	}
+
+	/**
+	 * Provides the number of arrays currently in the pool.
+	 * @return the number of pooled arrays
+	 */
+	public int getPooledCount() {
+		synchronized(pool) {
+			return pooled;
+		}
+	}
+
+	/**
+	 * Provides the number of arrays currently in the frame pool.
+	 * @return the number of pooled frames
+	 */
+	public int getPooledFrameCount() {
+		synchronized(frames) {
+			return pooledFrames;
+		}
+	}
+
+	/**
+	 * Decodes an int payload.
+	 * @param payload the payload to decode
+	 * @return the decoded value
+	 */
+	public static int decode(byte[] payload) {
+		if(payload == null || payload.length != Integer.BYTES) {
+			throw new IllegalArgumentException("Invalid int payload!");
+		}
+
+		return (payload[0] & 0xff) << 24 | (payload[1] & 0xff) << 16 | (payload[2] & 0xff) << 8 | (payload[3] & 0xff);
+	}
+
+	private byte[] acquire() {
+		synchronized(pool) {
+			if(pooled > 0) {
+				byte[] payload = pool[--pooled];
+				pool[pooled] = null;
+				return payload;
+			}
+		}
+
+		return new byte[Integer.BYTES];
+	}
+
+	private void releaseFrame(byte[] frame) {
+		if(frame.length == 0) {
+			return;
+		}
+
+		synchronized(frames) {
+			if(pooledFrames < frames.length) {
+				frames[pooledFrames++] = frame;
+			}
+		}
+	}
+
+	private static boolean isShared(byte[] payload) {
+		int value = decode(payload);
+		return isCached(value) && CACHE[value - MIN_CACHED] == payload;
+	}
+
+	private static byte[] write(int value, byte[] payload) {
+		payload[0] = (byte) (value >>> 24);
+		payload[1] = (byte) (value >>> 16);
+		payload[2] = (byte) (value >>> 8);
+		payload[3] = (byte) value;
+		return payload;
+	}
+}
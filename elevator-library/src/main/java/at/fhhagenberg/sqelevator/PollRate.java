@@ -0,0 +1,32 @@
+package at.fhhagenberg.sqelevator;
+
+/**
+ * Rate class at which a field of the elevators or floors is polled from the RMI API (see PollingPolicy).
+ */
+public enum PollRate {
+
+	/** Continuously changing fields (position, speed), polled at polling_interval_fast. */
+	FAST,
+
+	/** Fields which change with the operation of the elevators, polled at polling_interval. */
+	NORMAL,
+
+	/** Rarely changing fields, polled at polling_interval_slow. */
+	SLOW,
+
+	/** Fields which do not change while connected, polled once after the connect. */
+	STATIC;
+
+	/**
+	 * Parses a rate name case-insensitively (e.g. from elevator.properties).
+	 * @param name the name of the rate
+	 * @return the matching rate
+	 */
+	public static PollRate parse(String name) {
+		if(name == null) {
+			throw new IllegalArgumentException("Poll rate must not be null!");
+		}
+
+		return valueOf(name.trim().toUpperCase());
+	}
+}
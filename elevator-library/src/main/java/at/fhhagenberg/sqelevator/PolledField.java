@@ -0,0 +1,27 @@
+package at.fhhagenberg.sqelevator;
+
+/**
+ * Field (or group of per-floor fields) of the elevators and floors which is polled from the RMI API.
+ */
+public enum PolledField {
+	DIRECTION,
+	ACCELERATION,
+	STOP_REQUESTS,
+	CAPACITY,
+	DOORS,
+	FLOOR,
+	POSITION,
+	SPEED,
+	WEIGHT,
+	SERVICES_FLOORS,
+	TARGET,
+	FLOOR_BUTTONS;
+
+	/**
+	 * Provides the name of the field used in elevator.properties (e.g. services_floors).
+	 * @return the property name of the field
+	 */
+	public String getPropertyName() {
+		return name().toLowerCase();
+	}
+}
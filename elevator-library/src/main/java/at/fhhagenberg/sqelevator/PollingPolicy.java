@@ -0,0 +1,135 @@
+package at.fhhagenberg.sqelevator;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Immutable table of the PollRate per PolledField and of the polling interval per rate.
+ *
+ * The table can be read from elevator.properties with the keys poll_{field} (fast, normal, slow or static, e.g.
+ * poll_position=fast) and the intervals polling_interval_fast, polling_interval (normal) and polling_interval_slow
+ * in ms. Fields which are not configured are polled at the normal rate; the fast interval defaults to the normal
+ * interval and the slow interval to ten times the normal interval.
+ */
+public final class PollingPolicy {
+
+	/** Default polling interval in ms of the normal rate. */
+	public static final int DEFAULT_INTERVAL = 250;
+
+	/** Policy which polls all fields at the default normal interval. */
+	public static final PollingPolicy DEFAULT = new PollingPolicy(defaultRates(), new int[] { DEFAULT_INTERVAL, DEFAULT_INTERVAL, 10 * DEFAULT_INTERVAL, 0 });
+
+	private final PollRate[] rates;
+	private final int[] intervals;
+
+	private PollingPolicy(PollRate[] rates, int[] intervals) {
+		this.rates = rates;
+		this.intervals = intervals;
+	}
+
+	/**
+	 * Create a copy of this policy with a different rate for the given field.
+	 * @param field the field to change
+	 * @param rate the new rate of the field
+	 * @return the new policy
+	 */
+	public PollingPolicy withRate(PolledField field, PollRate rate) {
+		if(field == null || rate == null) {
+			throw new IllegalArgumentException("Field and rate must not be null!");
+		}
+
+		PollRate[] copy = rates.clone();
+		copy[field.ordinal()] = rate;
+		return new PollingPolicy(copy, intervals);
+	}
+
+	/**
+	 * Create a copy of this policy with a different polling interval for the given rate.
+	 * @param rate the rate to change, must not be STATIC
+	 * @param intervalMs the new polling interval in ms
+	 * @return the new policy
+	 */
+	public PollingPolicy withInterval(PollRate rate, int intervalMs) {
+		if(rate == null || rate == PollRate.STATIC) {
+			throw new IllegalArgumentException("Rate must not be null or static!");
+		}
+
+		if(intervalMs <= 0) {
+			throw new IllegalArgumentException("Polling interval must be greater than 0!");
+		}
+
+		int[] copy = intervals.clone();
+		copy[rate.ordinal()] = intervalMs;
+		return new PollingPolicy(rates, copy);
+	}
+
+	/**
+	 * Provides the rate of the given field.
+	 * @param field the field
+	 * @return the rate at which the field is polled
+	 */
+	public PollRate getRate(PolledField field) {
+		return rates[field.ordinal()];
+	}
+
+	/**
+	 * Provides the polling interval of the given rate.
+	 * @param rate the rate
+	 * @return the polling interval in ms, 0 for STATIC
+	 */
+	public int getInterval(PollRate rate) {
+		return intervals[rate.ordinal()];
+	}
+
+	/**
+	 * Provides the period of the polling ticks: the shortest interval of all rates which are used by a field.
+	 * @return the tick period in ms
+	 */
+	public int getTickPeriod() {
+		int period = Integer.MAX_VALUE;
+
+		for(PollRate rate : rates) {
+			if(rate != PollRate.STATIC) {
+				period = Math.min(period, getInterval(rate));
+			}
+		}
+
+		return period == Integer.MAX_VALUE ? getInterval(PollRate.NORMAL) : period;
+	}
+
+	/**
+	 * Reads the policy from the given properties. Missing keys keep the defaults.
+	 * @param props the properties to read from
+	 * @return the policy defined by the properties
+	 */
+	public static PollingPolicy parse(Properties props) {
+		if(props == null) {
+			throw new IllegalArgumentException("Properties must not be null!");
+		}
+
+		int normal = Integer.parseInt(props.getProperty("polling_interval", String.valueOf(DEFAULT_INTERVAL)).trim());
+		int fast = Integer.parseInt(props.getProperty("polling_interval_fast", String.valueOf(normal)).trim());
+		int slow = Integer.parseInt(props.getProperty("polling_interval_slow", String.valueOf(10 * normal)).trim());
+
+		PollingPolicy policy = DEFAULT
+				.withInterval(PollRate.NORMAL, normal)
+				.withInterval(PollRate.FAST, fast)
+				.withInterval(PollRate.SLOW, slow);
+
+		for(PolledField field : PolledField.values()) {
+			String rate = props.getProperty("poll_" + field.getPropertyName());
+
+			if(rate != null) {
+				policy = policy.withRate(field, PollRate.parse(rate));
+			}
+		}
+
+		return policy;
+	}
+
+	private static PollRate[] defaultRates() {
+		PollRate[] result = new PollRate[PolledField.values().length];
+		Arrays.fill(result, PollRate.NORMAL);
+		return result;
+	}
+}
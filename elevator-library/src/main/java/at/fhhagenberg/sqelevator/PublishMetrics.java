@@ -0,0 +1,270 @@
+package at.fhhagenberg.sqelevator;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publish-side metrics of an ElevatorsMqttClient: published messages per topic class, messages in flight, failures
+ * and a histogram of the latency from the publish call to the acknowledge of the broker (PUBACK/PUBCOMP, or the
+ * hand over to the connection for QoS 0).
+ *
+ * The latency includes the time a message waits in the PublishPipeline or ConflatingPublisher, so a growing
+ * in-flight count with high latencies points at the broker, while failures with a full pipeline point at the adapter.
+ * All counters are lock free; the histogram has power of two buckets from 1 us to about 16 s.
+ * The metrics can be registered at the platform MBeanServer to read them with JMX tools (e.g. JConsole).
+ */
+public class PublishMetrics implements PublishMetricsMXBean {
+
+	/** Domain and type of the JMX object names. */
+	public static final String OBJECT_NAME_PREFIX = "at.fhhagenberg.sqelevator:type=PublishMetrics,name=";
+
+	/** Number of latency histogram buckets. */
+	public static final int BUCKETS = 26;
+
+	private final LongAdder[] published = new LongAdder[TopicClass.values().length];
+	private final LongAdder inFlight = new LongAdder();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder latencySum = new LongAdder();
+	private final AtomicLong latencyMax = new AtomicLong();
+	private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+	private ObjectName objectName;
+
+	/**
+	 * Create new metrics with all counters 0.
+	 */
+	public PublishMetrics() {
+		for(int i = 0; i < published.length; ++i) {
+			published[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records a publish call.
+	 * @param topicClass the class of the published topic
+	 * @return the start time to pass to completed()
+	 */
+	public long published(TopicClass topicClass) {
+		published[topicClass.ordinal()].increment();
+		inFlight.increment();
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records the completion of a published message.
+	 * @param startNanos the start time returned by published()
+	 * @param throwable the failure of the message or null if the broker acknowledged it
+	 */
+	public void completed(long startNanos, Throwable throwable) {
+		inFlight.decrement();
+
+		if(throwable != null) {
+			failed.increment();
+			return;
+		}
+
+		long micros = Math.max(0, (System.nanoTime() - startNanos) / 1000);
+		completed.increment();
+		latencySum.add(micros);
+		latencyMax.accumulateAndGet(micros, Math::max);
+		histogram.incrementAndGet(bucket(micros));
+	}
+
+	/**
+	 * Provides the number of published messages of a topic class.
+	 * @param topicClass the topic class
+	 * @return the number of published messages
+	 */
+	public long getPublishedCount(TopicClass topicClass) {
+		return published[topicClass.ordinal()].sum();
+	}
+
+	@Override
+	public Map<String, Long> getPublishedCounts() {
+		Map<String, Long> counts = new LinkedHashMap<>();
+
+		for(TopicClass topicClass : TopicClass.values()) {
+			counts.put(topicClass.getPropertyName(), getPublishedCount(topicClass));
+		}
+
+		return counts;
+	}
+
+	@Override
+	public long getPublishedCount() {
+		long count = 0;
+
+		for(LongAdder adder : published) {
+			count += adder.sum();
+		}
+
+		return count;
+	}
+
+	@Override
+	public long getInFlightCount() {
+		return inFlight.sum();
+	}
+
+	@Override
+	public long getCompletedCount() {
+		return completed.sum();
+	}
+
+	@Override
+	public long getFailedCount() {
+		return failed.sum();
+	}
+
+	@Override
+	public long getLatencyMeanMicros() {
+		long count = completed.sum();
+		return count == 0 ? 0 : latencySum.sum() / count;
+	}
+
+	@Override
+	public long getLatencyMaxMicros() {
+		return latencyMax.get();
+	}
+
+	@Override
+	public long getLatencyP50Micros() {
+		return getLatencyPercentileMicros(0.5);
+	}
+
+	@Override
+	public long getLatencyP99Micros() {
+		return getLatencyPercentileMicros(0.99);
+	}
+
+	/**
+	 * Provides a latency percentile from the histogram.
+	 * @param percentile the percentile between 0 and 1, e.g. 0.95
+	 * @return the upper bound of the bucket containing the percentile in microseconds (the maximum latency for the
+	 * last bucket) or 0 if no message completed yet
+	 */
+	public long getLatencyPercentileMicros(double percentile) {
+		if(percentile < 0 || percentile > 1) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 1!");
+		}
+
+		long[] counts = getLatencyHistogram();
+		long total = 0;
+
+		for(long count : counts) {
+			total += count;
+		}
+
+		if(total == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(percentile * total));
+		long cumulative = 0;
+
+		for(int i = 0; i < counts.length - 1; ++i) {
+			cumulative += counts[i];
+
+			if(cumulative >= rank) {
+				return bound(i);
+			}
+		}
+
+		return latencyMax.get();
+	}
+
+	@Override
+	public long[] getLatencyHistogram() {
+		long[] counts = new long[BUCKETS];
+
+		for(int i = 0; i < BUCKETS; ++i) {
+			counts[i] = histogram.get(i);
+		}
+
+		return counts;
+	}
+
+	@Override
+	public long[] getLatencyBucketBoundsMicros() {
+		long[] bounds = new long[BUCKETS - 1];
+
+		for(int i = 0; i < bounds.length; ++i) {
+			bounds[i] = bound(i);
+		}
+
+		return bounds;
+	}
+
+	@Override
+	public void reset() {
+		for(LongAdder adder : published) {
+			adder.reset();
+		}
+
+		completed.reset();
+		failed.reset();
+		latencySum.reset();
+		latencyMax.set(0);
+
+		for(int i = 0; i < BUCKETS; ++i) {
+			histogram.set(i, 0);
+		}
+	}
+
+	/**
+	 * Registers the metrics at the platform MBeanServer. An existing registration of the metrics is replaced.
+	 * @param name the name of the metrics, e.g. mqttadapter
+	 * @return the object name of the registered MBean
+	 * @throws JMException if the MBean could not be registered
+	 */
+	public synchronized ObjectName register(String name) throws JMException {
+		unregister();
+
+		ObjectName newName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		if(server.isRegistered(newName)) {
+			server.unregisterMBean(newName);
+		}
+
+		server.registerMBean(this, newName);
+		objectName = newName;
+		return newName;
+	}
+
+	/**
+	 * Removes the registration of the metrics from the platform MBeanServer, if registered.
+	 * @throws JMException if the MBean could not be unregistered
+	 */
+	public synchronized void unregister() throws JMException {
+		if(objectName != null) {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+			if(server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+
+			objectName = null;
+		}
+	}
+
+	private static int bucket(long micros) {
+		if(micros <= 1) {
+			return 0;
+		}
+
+		return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros - 1));
+	}
+
+	private static long bound(int bucket) {
+		return 1L << bucket;
+	}
+}
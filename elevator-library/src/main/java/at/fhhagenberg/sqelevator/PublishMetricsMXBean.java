@@ -0,0 +1,80 @@
+package at.fhhagenberg.sqelevator;
+
+import java.util.Map;
+
+/**
+ * JMX interface of the PublishMetrics of an ElevatorsMqttClient.
+ */
+public interface PublishMetricsMXBean {
+
+	/**
+	 * Provides the number of published messages per topic class.
+	 * @return the number of published messages by topic class name
+	 */
+	Map<String, Long> getPublishedCounts();
+
+	/**
+	 * Provides the total number of published messages.
+	 * @return the number of published messages
+	 */
+	long getPublishedCount();
+
+	/**
+	 * Provides the number of messages which were published but are not acknowledged (or failed) yet.
+	 * @return the number of messages in flight
+	 */
+	long getInFlightCount();
+
+	/**
+	 * Provides the number of messages which were acknowledged by the broker.
+	 * @return the number of completed messages
+	 */
+	long getCompletedCount();
+
+	/**
+	 * Provides the number of messages which failed (rejected, dropped or not acknowledged).
+	 * @return the number of failed messages
+	 */
+	long getFailedCount();
+
+	/**
+	 * Provides the mean latency from publish call to acknowledge.
+	 * @return the mean latency in microseconds
+	 */
+	long getLatencyMeanMicros();
+
+	/**
+	 * Provides the maximum latency from publish call to acknowledge.
+	 * @return the maximum latency in microseconds
+	 */
+	long getLatencyMaxMicros();
+
+	/**
+	 * Provides the median latency from publish call to acknowledge (upper bound of its histogram bucket).
+	 * @return the median latency in microseconds
+	 */
+	long getLatencyP50Micros();
+
+	/**
+	 * Provides the 99th percentile latency from publish call to acknowledge (upper bound of its histogram bucket).
+	 * @return the 99th percentile latency in microseconds
+	 */
+	long getLatencyP99Micros();
+
+	/**
+	 * Provides the latency histogram, see getLatencyBucketBoundsMicros() for the bucket bounds.
+	 * @return the number of acknowledged messages per bucket
+	 */
+	long[] getLatencyHistogram();
+
+	/**
+	 * Provides the upper bounds of the latency histogram buckets. The last bucket has no upper bound.
+	 * @return the upper bound of each bucket in microseconds
+	 */
+	long[] getLatencyBucketBoundsMicros();
+
+	/**
+	 * Resets all counters except the in-flight count.
+	 */
+	void reset();
+}
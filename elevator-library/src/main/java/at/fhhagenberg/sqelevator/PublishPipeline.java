@@ -0,0 +1,358 @@
+package at.fhhagenberg.sqelevator;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+
+/**
+ * Bounded, non-blocking publish pipeline between the callers of the MQTT client and the broker connection.
+ *
+ * Submitted messages are put into a bounded queue and handed to the MQTT client by a few long-lived sender threads.
+ * The caller gets a CompletableFuture which completes when the broker acknowledged the message, so neither polling
+ * nor bridge code has to wait for broker round trips.
+ *
+ * Every sender thread owns one lane with its own queue. A topic is always mapped to the same lane, so messages
+ * of one topic are sent in the order they were submitted.
+ * What happens when a lane is full is defined by the BackpressurePolicy. With CONFLATE, a still queued message of
+ * the same topic is replaced on every submit, whether the lane is full or not.
+ *
+ * Payloads submitted with recycling are handed to the recycler (e.g. PayloadEncoder::release) as soon as they are
+ * no longer needed: after the broker acknowledged them, or when they were dropped or replaced in the queue.
+ */
+public class PublishPipeline {
+
+	/** Default number of messages which can be queued. */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	/** Default number of sender threads. */
+	public static final int DEFAULT_SENDER_THREADS = 1;
+
+	/**
+	 * Interface for the object which actually sends the messages (e.g. the HiveMQ client).
+	 */
+	@FunctionalInterface
+	public interface ISender {
+
+		/**
+		 * Send a message asynchronously.
+		 * @param topic the topic to publish the message to
+		 * @param payload the payload of the message
+		 * @param qos the QoS of the message
+		 * @param retain whether the message should be a retained message (true) or not (false)
+		 * @return a future which completes when the broker acknowledged the message
+		 */
+		CompletableFuture<?> send(String topic, byte[] payload, MqttQos qos, boolean retain);
+	}
+
+	private final ISender sender;
+	private final Consumer<byte[]> recycler;
+	private final BackpressurePolicy policy;
+	private final Lane[] lanes;
+	private volatile boolean closed = false;
+
+	/**
+	 * Create and start a new publish pipeline.
+	 * @param sender the sender which publishes the messages
+	 * @param capacity the maximum number of queued messages (split evenly between the sender threads)
+	 * @param senderThreads the number of sender threads
+	 * @param policy the backpressure policy (CONFLATE also acts while the queue has space)
+	 */
+	public PublishPipeline(ISender sender, int capacity, int senderThreads, BackpressurePolicy policy) {
+		this(sender, capacity, senderThreads, policy, null);
+	}
+
+	/**
+	 * Create and start a new publish pipeline with a payload recycler.
+	 * @param sender the sender which publishes the messages
+	 * @param capacity the maximum number of queued messages (split evenly between the sender threads)
+	 * @param senderThreads the number of sender threads
+	 * @param policy the backpressure policy (CONFLATE also acts while the queue has space)
+	 * @param recycler the recycler which gets the payloads submitted with recycling, may be null
+	 */
+	public PublishPipeline(ISender sender, int capacity, int senderThreads, BackpressurePolicy policy, Consumer<byte[]> recycler) {
+		if(sender == null) {
+			throw new IllegalArgumentException("Sender must not be null!");
+		}
+
+		if(capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be greater than 0!");
+		}
+
+		if(senderThreads <= 0 || senderThreads > capacity) {
+			throw new IllegalArgumentException("Number of sender threads must be between 1 and capacity!");
+		}
+
+		if(policy == null) {
+			throw new IllegalArgumentException("Backpressure policy must not be null!");
+		}
+
+		this.sender = sender;
+		this.policy = policy;
+		this.recycler = recycler;
+		lanes = new Lane[senderThreads];
+
+		int laneCapacity = (capacity + senderThreads - 1) / senderThreads;
+
+		for(int i = 0; i < lanes.length; ++i) {
+			lanes[i] = new Lane(laneCapacity, "mqtt-publish-" + i);
+		}
+	}
+
+	/**
+	 * Submit a message for publishing.
+	 * Depending on the BackpressurePolicy this method waits while the queue is full. With CONFLATE, a queued message
+	 * of the same topic is replaced instead and the future of the queued message is returned.
+	 * @param topic the topic to publish the message to
+	 * @param payload the payload of the message
+	 * @param qos the QoS of the message
+	 * @param retain whether the message should be a retained message (true) or not (false)
+	 * @return a future which completes when the broker acknowledged the message
+	 * @throws InterruptedException if the calling thread was interrupted while waiting for space in the queue
+	 */
+	public CompletableFuture<Void> submit(String topic, byte[] payload, MqttQos qos, boolean retain) throws InterruptedException {
+		return submit(topic, payload, qos, retain, false);
+	}
+
+	/**
+	 * Submit a message for publishing.
+	 * Depending on the BackpressurePolicy this method waits while the queue is full. With CONFLATE, a queued message
+	 * of the same topic is replaced instead and the future of the queued message is returned.
+	 * @param topic the topic to publish the message to
+	 * @param payload the payload of the message
+	 * @param qos the QoS of the message
+	 * @param retain whether the message should be a retained message (true) or not (false)
+	 * @param recycle whether the payload is handed to the recycler when it is no longer needed (true) or not (false)
+	 * @return a future which completes when the broker acknowledged the message
+	 * @throws InterruptedException if the calling thread was interrupted while waiting for space in the queue
+	 */
+	public CompletableFuture<Void> submit(String topic, byte[] payload, MqttQos qos, boolean retain, boolean recycle) throws InterruptedException {
+		if(topic == null) {
+			throw new IllegalArgumentException("Topic must not be null!");
+		}
+
+		if(payload == null) {
+			throw new IllegalArgumentException("Payload must not be null!");
+		}
+
+		if(qos == null) {
+			throw new IllegalArgumentException("QoS must not be null!");
+		}
+
+		if(closed) {
+			recycle(payload, recycle);
+			return CompletableFuture.failedFuture(new IllegalStateException("Publish pipeline is closed!"));
+		}
+
+		return lanes[(topic.hashCode() & 0x7fffffff) % lanes.length].submit(new PendingPublish(topic, payload, qos, retain, recycle));
+	}
+
+	/**
+	 * Provides the number of messages which are currently queued and not yet handed to the sender.
+	 * @return the number of queued messages
+	 */
+	public int getQueuedCount() {
+		int count = 0;
+
+		for(Lane lane : lanes) {
+			count += lane.size();
+		}
+
+		return count;
+	}
+
+	/**
+	 * Provides the backpressure policy of the pipeline.
+	 * @return the backpressure policy
+	 */
+	public BackpressurePolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Close the pipeline: Stop accepting messages, hand all queued messages to the sender and stop the sender threads.
+	 * @throws InterruptedException if the calling thread was interrupted while waiting for the sender threads
+	 */
+	public void close() throws InterruptedException {
+		closed = true;
+
+		for(Lane lane : lanes) {
+			lane.close();
+		}
+
+		for(Lane lane : lanes) {
+			lane.thread.join();
+		}
+	}
+
+	private void dispatch(PendingPublish message) {
+		try {
+			sender.send(message.topic, message.payload, message.qos, message.retain)
+			.whenComplete((result, throwable) -> {
+				recycle(message.payload, message.recycle);
+
+				if(throwable != null) {
+					message.future.completeExceptionally(throwable);
+				}
+				else {
+					message.future.complete(null);
+				}
+			});
+		}
+		catch(RuntimeException e) {
+			recycle(message.payload, message.recycle);
+			message.future.completeExceptionally(e);
+		}
+	}
+
+	private void recycle(byte[] payload, boolean recycle) {
+		if(recycle && recycler != null) {
+			recycler.accept(payload);
+		}
+	}
+
+	private static class PendingPublish {
+		private final String topic;
+		private final MqttQos qos;
+		private final boolean retain;
+		private final boolean recycle;
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+		private byte[] payload;
+
+		private PendingPublish(String topic, byte[] payload, MqttQos qos, boolean retain, boolean recycle) {
+			this.topic = topic;
+			this.payload = payload;
+			this.qos = qos;
+			this.retain = retain;
+			this.recycle = recycle;
+		}
+	}
+
+	private class Lane {
+		private final int capacity;
+		private final ArrayDeque<PendingPublish> queue;
+		private final HashMap<String, PendingPublish> queuedByTopic = new HashMap<>();
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Condition notEmpty = lock.newCondition();
+		private final Condition notFull = lock.newCondition();
+		private final Thread thread;
+		private boolean laneClosed = false;
+
+		private Lane(int capacity, String name) {
+			this.capacity = capacity;
+			queue = new ArrayDeque<>(capacity);
+			thread = new Thread(this::run, name);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		private CompletableFuture<Void> submit(PendingPublish message) throws InterruptedException {
+			lock.lockInterruptibly();
+			try {
+				if(policy == BackpressurePolicy.CONFLATE) {
+					PendingPublish queued = queuedByTopic.get(message.topic);
+
+					if(queued != null && queued.qos == message.qos && queued.retain == message.retain
+							&& queued.recycle == message.recycle) {
+						recycle(queued.payload, queued.recycle);
+						queued.payload = message.payload;
+						return queued.future;
+					}
+				}
+
+				while(!laneClosed && queue.size() >= capacity) {
+					if(policy == BackpressurePolicy.DROP_OLDEST) {
+						PendingPublish dropped = removeFirst();
+						recycle(dropped.payload, dropped.recycle);
+						dropped.future.cancel(false);
+					}
+					else {
+						notFull.await();
+					}
+				}
+
+				if(laneClosed) {
+					recycle(message.payload, message.recycle);
+					return CompletableFuture.failedFuture(new IllegalStateException("Publish pipeline is closed!"));
+				}
+
+				queue.addLast(message);
+
+				if(policy == BackpressurePolicy.CONFLATE) {
+					queuedByTopic.put(message.topic, message);
+				}
+
+				notEmpty.signal();
+				return message.future;
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		private PendingPublish removeFirst() {
+			PendingPublish message = queue.pollFirst();
+
+			if(message != null && policy == BackpressurePolicy.CONFLATE) {
+				queuedByTopic.remove(message.topic, message);
+			}
+
+			return message;
+		}
+
+		private int size() {
+			lock.lock();
+			try {
+				return queue.size();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		private void close() {
+			lock.lock();
+			try {
+				laneClosed = true;
+				notEmpty.signalAll();
+				notFull.signalAll();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+
+		private void run() {
+			while(true) {
+				PendingPublish message;
+
+				lock.lock();
+				try {
+					while(queue.isEmpty()) {
+						if(laneClosed) {
+							return;
+						}
+
+						notEmpty.await();
+					}
+
+					message = removeFirst();
+					notFull.signal();
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				finally {
+					lock.unlock();
+				}
+
+				dispatch(message);
+			}
+		}
+	}
+}
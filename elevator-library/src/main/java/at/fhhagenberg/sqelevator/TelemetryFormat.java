@@ -0,0 +1,45 @@
+package at.fhhagenberg.sqelevator;
+
+/**
+ * Format in which the elevator status is published via MQTT.
+ */
+public enum TelemetryFormat {
+
+	/** One retained message per elevator field (legacy topics, e.g. building/elevator/0/position). */
+	FIELDS,
+
+	/** One binary ElevatorSnapshot frame per elevator and tick on building/elevator/{n}/state. */
+	STATE,
+
+	/** Both the per-field topics and the state frame. */
+	BOTH;
+
+	/**
+	 * Provides whether the per-field topics are used.
+	 * @return whether the per-field topics are used (true) or not (false)
+	 */
+	public boolean usesFieldTopics() {
+		return this != STATE;
+	}
+
+	/**
+	 * Provides whether the state frame topic is used.
+	 * @return whether the state frame topic is used (true) or not (false)
+	 */
+	public boolean usesStateTopic() {
+		return this != FIELDS;
+	}
+
+	/**
+	 * Parses a format name case-insensitively (e.g. from elevator.properties).
+	 * @param name the name of the format
+	 * @return the matching format
+	 */
+	public static TelemetryFormat parse(String name) {
+		if(name == null) {
+			throw new IllegalArgumentException("Telemetry format must not be null!");
+		}
+
+		return valueOf(name.trim().toUpperCase());
+	}
+}
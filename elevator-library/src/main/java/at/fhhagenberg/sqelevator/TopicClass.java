@@ -0,0 +1,43 @@
+package at.fhhagenberg.sqelevator;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+
+/**
+ * Class of an MQTT topic. The QoS and the retain flag of a message are defined per topic class by the TopicPolicy.
+ */
+public enum TopicClass {
+
+	/** High-rate elevator status (position, speed, doors, ...), superseded by the next sample anyway. */
+	TELEMETRY(MqttQos.AT_MOST_ONCE),
+
+	/** Status of the elevator and floor buttons. */
+	BUTTON_STATE(MqttQos.AT_LEAST_ONCE),
+
+	/** Rarely changing building configuration (counts, floor height, capacity, serviced floors, connection). */
+	CONFIGURATION(MqttQos.AT_LEAST_ONCE),
+
+	/** Control commands from the algorithm (setTarget, setdirection, setservicesFloor). */
+	CONTROL(MqttQos.EXACTLY_ONCE);
+
+	private final MqttQos defaultQos;
+
+	TopicClass(MqttQos defaultQos) {
+		this.defaultQos = defaultQos;
+	}
+
+	/**
+	 * Provides the QoS used for this topic class if nothing else is configured.
+	 * @return the default QoS of the topic class
+	 */
+	public MqttQos getDefaultQos() {
+		return defaultQos;
+	}
+
+	/**
+	 * Provides the name of the topic class used in elevator.properties (e.g. button_state).
+	 * @return the property name of the topic class
+	 */
+	public String getPropertyName() {
+		return name().toLowerCase();
+	}
+}
@@ -0,0 +1,95 @@
+package at.fhhagenberg.sqelevator;
+
+/**
+ * Kind of an MQTT topic of the system. A kind is either global, per elevator, per elevator and floor or per floor.
+ */
+public enum TopicKind {
+	CONNECTED(false, false, TopicClass.CONFIGURATION),
+	NUM_ELEVATORS(false, false, TopicClass.CONFIGURATION),
+	NUM_FLOORS(false, false, TopicClass.CONFIGURATION),
+	FLOOR_HEIGHT(false, false, TopicClass.CONFIGURATION),
+	DIRECTION(true, false, TopicClass.TELEMETRY),
+	ACCELERATION(true, false, TopicClass.TELEMETRY),
+	CAPACITY(true, false, TopicClass.CONFIGURATION),
+	DOORS(true, false, TopicClass.TELEMETRY),
+	FLOOR(true, false, TopicClass.TELEMETRY),
+	POSITION(true, false, TopicClass.TELEMETRY),
+	SPEED(true, false, TopicClass.TELEMETRY),
+	WEIGHT(true, false, TopicClass.TELEMETRY),
+	TARGET(true, false, TopicClass.TELEMETRY),
+	STATE(true, false, TopicClass.TELEMETRY),
+	SET_DIRECTION(true, false, TopicClass.CONTROL),
+	SET_TARGET(true, false, TopicClass.CONTROL),
+	BUTTON(true, true, TopicClass.BUTTON_STATE),
+	SERVICES_FLOOR(true, true, TopicClass.CONFIGURATION),
+	SET_SERVICES_FLOOR(true, true, TopicClass.CONTROL),
+	BUTTON_UP(false, true, TopicClass.BUTTON_STATE),
+	BUTTON_DOWN(false, true, TopicClass.BUTTON_STATE);
+
+	private final boolean perElevator;
+	private final boolean perFloor;
+	private final TopicClass topicClass;
+
+	TopicKind(boolean perElevator, boolean perFloor, TopicClass topicClass) {
+		this.perElevator = perElevator;
+		this.perFloor = perFloor;
+		this.topicClass = topicClass;
+	}
+
+	/**
+	 * Provides whether there is one topic of this kind per elevator.
+	 * @return whether the topic contains an elevator number (true) or not (false)
+	 */
+	public boolean isPerElevator() {
+		return perElevator;
+	}
+
+	/**
+	 * Provides whether there is one topic of this kind per floor.
+	 * @return whether the topic contains a floor number (true) or not (false)
+	 */
+	public boolean isPerFloor() {
+		return perFloor;
+	}
+
+	/**
+	 * Provides the topic class which defines QoS and retain flag of the topic.
+	 * @return the topic class
+	 */
+	public TopicClass getTopicClass() {
+		return topicClass;
+	}
+
+	/**
+	 * Builds the topic of this kind with the given generator.
+	 * @param topics the generator to build the topic with
+	 * @param elevator the number of the elevator, ignored if the topic is not per elevator
+	 * @param floor the number of the floor, ignored if the topic is not per floor
+	 * @return the topic
+	 */
+	public String buildTopic(MqttTopicGenerator topics, int elevator, int floor) {
+		switch(this) {
+		case CONNECTED: return topics.getConnectedTopic();
+		case NUM_ELEVATORS: return topics.getNumElevatorsTopic();
+		case NUM_FLOORS: return topics.getNumFloorsTopic();
+		case FLOOR_HEIGHT: return topics.getFloorHeightTopic();
+		case DIRECTION: return topics.getDirectionTopic(elevator);
+		case ACCELERATION: return topics.getAccelerationTopic(elevator);
+		case CAPACITY: return topics.getCapacityTopic(elevator);
+		case DOORS: return topics.getDoorsTopic(elevator);
+		case FLOOR: return topics.getFloorTopic(elevator);
+		case POSITION: return topics.getPositionTopic(elevator);
+		case SPEED: return topics.getSpeedTopic(elevator);
+		case WEIGHT: return topics.getWeightTopic(elevator);
+		case TARGET: return topics.getTargetTopic(elevator);
+		case STATE: return topics.getStateTopic(elevator);
+		case SET_DIRECTION: return topics.getSetDirectionTopic(elevator);
+		case SET_TARGET: return topics.getSetTargetTopic(elevator);
+		case BUTTON: return topics.getButtonTopic(elevator, floor);
+		case SERVICES_FLOOR: return topics.getServicesFloorTopic(elevator, floor);
+		case SET_SERVICES_FLOOR: return topics.getSetServicesFloorTopic(elevator, floor);
+		case BUTTON_UP: return topics.getButtonUpTopic(floor);
+		default: return topics.getButtonDownTopic(floor);
+		}
+	}
+}
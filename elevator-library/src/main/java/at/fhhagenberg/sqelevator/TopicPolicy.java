@@ -0,0 +1,203 @@
+package at.fhhagenberg.sqelevator;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+
+/**
+ * Immutable table of the QoS, the retain flag, the conflation flag and the message expiry per TopicClass.
+ *
+ * The table can be read from elevator.properties with the keys qos_{class} (0, 1 or 2), retain_{class} and
+ * conflate_{class} (true or false) and expiry_{class} (seconds), e.g. qos_telemetry=0. Classes which are not configured
+ * use their default QoS, are retained and never expire; only telemetry is conflated by default (see ConflatingPublisher).
+ * The message expiry is only sent with MQTT 5. Note that an expired message is also removed as retained value.
+ */
+public final class TopicPolicy {
+
+	/** Policy with the default QoS of every topic class and all messages retained. */
+	public static final TopicPolicy DEFAULT = new TopicPolicy(defaultQos(), defaultRetain(), defaultConflate(), new long[TopicClass.values().length]);
+
+	private final MqttQos[] qos;
+	private final boolean[] retain;
+	private final boolean[] conflate;
+	private final long[] expiry;
+
+	private TopicPolicy(MqttQos[] qos, boolean[] retain, boolean[] conflate, long[] expiry) {
+		this.qos = qos;
+		this.retain = retain;
+		this.conflate = conflate;
+		this.expiry = expiry;
+	}
+
+	/**
+	 * Create a copy of this policy with a different QoS for the given topic class.
+	 * @param topicClass the topic class to change
+	 * @param qos the new QoS of the topic class
+	 * @return the new policy
+	 */
+	public TopicPolicy withQos(TopicClass topicClass, MqttQos qos) {
+		if(topicClass == null || qos == null) {
+			throw new IllegalArgumentException("Topic class and QoS must not be null!");
+		}
+
+		MqttQos[] copy = this.qos.clone();
+		copy[topicClass.ordinal()] = qos;
+		return new TopicPolicy(copy, retain, conflate, expiry);
+	}
+
+	/**
+	 * Create a copy of this policy with a different retain flag for the given topic class.
+	 * @param topicClass the topic class to change
+	 * @param retain whether messages of the topic class are retained (true) or not (false)
+	 * @return the new policy
+	 */
+	public TopicPolicy withRetain(TopicClass topicClass, boolean retain) {
+		if(topicClass == null) {
+			throw new IllegalArgumentException("Topic class must not be null!");
+		}
+
+		boolean[] copy = this.retain.clone();
+		copy[topicClass.ordinal()] = retain;
+		return new TopicPolicy(qos, copy, conflate, expiry);
+	}
+
+	/**
+	 * Create a copy of this policy with a different conflation flag for the given topic class.
+	 * @param topicClass the topic class to change
+	 * @param conflate whether messages of the topic class are conflated (true) or not (false)
+	 * @return the new policy
+	 */
+	public TopicPolicy withConflate(TopicClass topicClass, boolean conflate) {
+		if(topicClass == null) {
+			throw new IllegalArgumentException("Topic class must not be null!");
+		}
+
+		boolean[] copy = this.conflate.clone();
+		copy[topicClass.ordinal()] = conflate;
+		return new TopicPolicy(qos, retain, copy, expiry);
+	}
+
+	/**
+	 * Create a copy of this policy with a different message expiry interval for the given topic class.
+	 * @param topicClass the topic class to change
+	 * @param seconds the message expiry interval in seconds, 0 for no expiry
+	 * @return the new policy
+	 */
+	public TopicPolicy withExpiry(TopicClass topicClass, long seconds) {
+		if(topicClass == null) {
+			throw new IllegalArgumentException("Topic class must not be null!");
+		}
+
+		if(seconds < 0 || seconds > 0xFFFFFFFFL) {
+			throw new IllegalArgumentException("Message expiry must be between 0 and 4294967295 seconds!");
+		}
+
+		long[] copy = this.expiry.clone();
+		copy[topicClass.ordinal()] = seconds;
+		return new TopicPolicy(qos, retain, conflate, copy);
+	}
+
+	/**
+	 * Provides the QoS of the given topic class.
+	 * @param topicClass the topic class
+	 * @return the QoS used to publish and subscribe topics of the class
+	 */
+	public MqttQos getQos(TopicClass topicClass) {
+		return qos[topicClass.ordinal()];
+	}
+
+	/**
+	 * Provides whether messages of the given topic class are retained.
+	 * @param topicClass the topic class
+	 * @return whether messages of the topic class are retained (true) or not (false)
+	 */
+	public boolean isRetained(TopicClass topicClass) {
+		return retain[topicClass.ordinal()];
+	}
+
+	/**
+	 * Provides whether only the latest value of the topics of the given class is sent.
+	 * @param topicClass the topic class
+	 * @return whether messages of the topic class are conflated (true) or not (false)
+	 */
+	public boolean isConflated(TopicClass topicClass) {
+		return conflate[topicClass.ordinal()];
+	}
+
+	/**
+	 * Provides the message expiry interval of the given topic class.
+	 * @param topicClass the topic class
+	 * @return the message expiry interval in seconds, 0 for no expiry
+	 */
+	public long getMessageExpiry(TopicClass topicClass) {
+		return expiry[topicClass.ordinal()];
+	}
+
+	/**
+	 * Reads the policy from the given properties. Missing keys keep the defaults.
+	 * @param props the properties to read from
+	 * @return the policy defined by the properties
+	 */
+	public static TopicPolicy parse(Properties props) {
+		if(props == null) {
+			throw new IllegalArgumentException("Properties must not be null!");
+		}
+
+		TopicPolicy policy = DEFAULT;
+
+		for(TopicClass topicClass : TopicClass.values()) {
+			String qosValue = props.getProperty("qos_" + topicClass.getPropertyName());
+			String retainValue = props.getProperty("retain_" + topicClass.getPropertyName());
+			String conflateValue = props.getProperty("conflate_" + topicClass.getPropertyName());
+			String expiryValue = props.getProperty("expiry_" + topicClass.getPropertyName());
+
+			if(qosValue != null) {
+				MqttQos parsed = MqttQos.fromCode(Integer.parseInt(qosValue.trim()));
+
+				if(parsed == null) {
+					throw new IllegalArgumentException("QoS must be 0, 1 or 2!");
+				}
+
+				policy = policy.withQos(topicClass, parsed);
+			}
+
+			if(retainValue != null) {
+				policy = policy.withRetain(topicClass, Boolean.parseBoolean(retainValue.trim()));
+			}
+
+			if(conflateValue != null) {
+				policy = policy.withConflate(topicClass, Boolean.parseBoolean(conflateValue.trim()));
+			}
+
+			if(expiryValue != null) {
+				policy = policy.withExpiry(topicClass, Long.parseLong(expiryValue.trim()));
+			}
+		}
+
+		return policy;
+	}
+
+	private static MqttQos[] defaultQos() {
+		TopicClass[] classes = TopicClass.values();
+		MqttQos[] result = new MqttQos[classes.length];
+
+		for(TopicClass topicClass : classes) {
+			result[topicClass.ordinal()] = topicClass.getDefaultQos();
+		}
+
+		return result;
+	}
+
+	private static boolean[] defaultRetain() {
+		boolean[] result = new boolean[TopicClass.values().length];
+		Arrays.fill(result, true);
+		return result;
+	}
+
+	private static boolean[] defaultConflate() {
+		boolean[] result = new boolean[TopicClass.values().length];
+		result[TopicClass.TELEMETRY.ordinal()] = true;
+		return result;
+	}
+}
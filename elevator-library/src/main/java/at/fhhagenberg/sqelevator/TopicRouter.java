@@ -0,0 +1,273 @@
+package at.fhhagenberg.sqelevator;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes received MQTT messages to typed handlers per TopicKind.
+ *
+ * The router is a trie over the topic levels which is built once from the topics of all kinds. Elevator and floor
+ * numbers are parsed from the topic while walking the trie, so routing a message neither builds strings nor
+ * allocates. Instead of one subscription per topic, the client subscribes once to the wildcard filters of all kinds
+ * with a handler (e.g. building/elevator/+/setTarget) and hands every received message to route().
+ */
+public final class TopicRouter {
+
+	/**
+	 * Handler for the messages of one topic kind.
+	 */
+	@FunctionalInterface
+	public interface IHandler {
+
+		/**
+		 * Handle a received message.
+		 * @param elevator the number of the elevator or -1 if the topic is not per elevator
+		 * @param floor the number of the floor or -1 if the topic is not per floor
+		 * @param payload the payload of the message
+		 */
+		void handle(int elevator, int floor, ByteBuffer payload);
+	}
+
+	private static final String INDEX_PLACEHOLDER = "-1";
+	private static final String SINGLE_LEVEL_WILDCARD = "+";
+
+	private final int numberOfElevators;
+	private final int numberOfFloors;
+	private final IHandler[] handlers = new IHandler[TopicKind.values().length];
+	private final Node root = new Node(null);
+
+	/**
+	 * Create a new router for a building.
+	 * Messages with elevator or floor numbers outside of the building are ignored.
+	 * @param numberOfElevators the number of elevators in the building
+	 * @param numberOfFloors the number of floors in the building
+	 */
+	public TopicRouter(int numberOfElevators, int numberOfFloors) {
+		if(numberOfElevators < 0 || numberOfFloors < 0) {
+			throw new IllegalArgumentException("Number of elevators and floors must be >=0!");
+		}
+
+		this.numberOfElevators = numberOfElevators;
+		this.numberOfFloors = numberOfFloors;
+
+		MqttTopicGenerator topics = new MqttTopicGenerator();
+
+		for(TopicKind kind : TopicKind.values()) {
+			Node node = root;
+
+			for(String level : template(topics, kind).split(String.valueOf(MqttTopicGenerator.TOPIC_LEVEL_SEPERATOR))) {
+				node = node.child(level);
+			}
+
+			node.kind = kind;
+		}
+
+		root.compile();
+	}
+
+	/**
+	 * Sets the handler of a topic kind.
+	 * @param kind the topic kind
+	 * @param handler the handler of the messages of the kind
+	 * @return this router
+	 */
+	public TopicRouter on(TopicKind kind, IHandler handler) {
+		if(kind == null || handler == null) {
+			throw new IllegalArgumentException("Topic kind and handler must not be null!");
+		}
+
+		handlers[kind.ordinal()] = handler;
+		return this;
+	}
+
+	/**
+	 * Provides whether a handler is set for the topic kind.
+	 * @param kind the topic kind
+	 * @return whether a handler is set (true) or not (false)
+	 */
+	public boolean handles(TopicKind kind) {
+		return handlers[kind.ordinal()] != null;
+	}
+
+	/**
+	 * Provides the wildcard topic filters of all kinds with a handler.
+	 * @return the topic filters, one per kind with a handler
+	 */
+	public List<String> getTopicFilters() {
+		MqttTopicGenerator topics = new MqttTopicGenerator();
+		List<String> filters = new ArrayList<>();
+
+		for(TopicKind kind : TopicKind.values()) {
+			if(handles(kind)) {
+				filters.add(getTopicFilter(topics, kind));
+			}
+		}
+
+		return filters;
+	}
+
+	/**
+	 * Provides the wildcard topic filter of a kind (the elevator and floor numbers replaced by +).
+	 * @param kind the topic kind
+	 * @return the topic filter
+	 */
+	public static String getTopicFilter(TopicKind kind) {
+		return getTopicFilter(new MqttTopicGenerator(), kind);
+	}
+
+	private static String getTopicFilter(MqttTopicGenerator topics, TopicKind kind) {
+		String[] levels = template(topics, kind).split(String.valueOf(MqttTopicGenerator.TOPIC_LEVEL_SEPERATOR));
+
+		for(int i = 0; i < levels.length; ++i) {
+			if(INDEX_PLACEHOLDER.equals(levels[i])) {
+				levels[i] = SINGLE_LEVEL_WILDCARD;
+			}
+		}
+
+		return topics.getTopic(levels);
+	}
+
+	private static String template(MqttTopicGenerator topics, TopicKind kind) {
+		return kind.buildTopic(topics, -1, -1);
+	}
+
+	/**
+	 * Routes a received message to the handler of its topic kind.
+	 * @param topic the topic of the message
+	 * @param payload the payload of the message
+	 * @return whether the message was handled (true) or not (false) because the topic is unknown, has no handler or
+	 * contains elevator or floor numbers outside of the building
+	 */
+	public boolean route(String topic, ByteBuffer payload) {
+		Node node = root;
+		int first = -1;
+		int second = -1;
+		int indexes = 0;
+		int start = 0;
+		int length = topic.length();
+
+		while(start <= length) {
+			int end = topic.indexOf(MqttTopicGenerator.TOPIC_LEVEL_SEPERATOR, start);
+
+			if(end < 0) {
+				end = length;
+			}
+
+			Node next = node.literal(topic, start, end);
+
+			if(next == null && node.index != null) {
+				int value = parseIndex(topic, start, end);
+
+				if(value < 0) {
+					return false;
+				}
+
+				if(indexes++ == 0) {
+					first = value;
+				}
+				else {
+					second = value;
+				}
+
+				next = node.index;
+			}
+
+			if(next == null) {
+				return false;
+			}
+
+			node = next;
+			start = end + 1;
+		}
+
+		if(node.kind == null) {
+			return false;
+		}
+
+		TopicKind kind = node.kind;
+		IHandler handler = handlers[kind.ordinal()];
+		int elevator = kind.isPerElevator() ? first : -1;
+		int floor = kind.isPerFloor() ? (kind.isPerElevator() ? second : first) : -1;
+
+		if(handler == null || elevator >= numberOfElevators || floor >= numberOfFloors) {
+			return false;
+		}
+
+		handler.handle(elevator, floor, payload);
+		return true;
+	}
+
+	private static int parseIndex(String topic, int start, int end) {
+		if(start == end || end - start > 9) {
+			return -1;
+		}
+
+		int value = 0;
+
+		for(int i = start; i < end; ++i) {
+			char c = topic.charAt(i);
+
+			if(c < '0' || c > '9') {
+				return -1;
+			}
+
+			value = value * 10 + (c - '0');
+		}
+
+		return value;
+	}
+
+	private static class Node {
+		private final String level;
+		private final List<Node> children = new ArrayList<>();
+		private Node[] literals = new Node[0];
+		private Node index;
+		private TopicKind kind;
+
+		private Node(String level) {
+			this.level = level;
+		}
+
+		private Node child(String childLevel) {
+			for(Node child : children) {
+				if(child.level.equals(childLevel)) {
+					return child;
+				}
+			}
+
+			Node child = new Node(childLevel);
+			children.add(child);
+			return child;
+		}
+
+		private void compile() {
+			List<Node> literalChildren = new ArrayList<>();
+
+			for(Node child : children) {
+				if(INDEX_PLACEHOLDER.equals(child.level)) {
+					index = child;
+				}
+				else {
+					literalChildren.add(child);
+				}
+
+				child.compile();
+			}
+
+			literals = literalChildren.toArray(new Node[0]);
+		}
+
+		private Node literal(String topic, int start, int end) {
+			int length = end - start;
+
+			for(Node literal : literals) {
+				if(literal.level.length() == length && topic.regionMatches(start, literal.level, 0, length)) {
+					return literal;
+				}
+			}
+
+			return null;
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package at.fhhagenberg.sqelevator;
+
+import java.util.HashMap;
+
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+
+/**
+ * Table of all MQTT topics of a building with a fixed number of elevators and floors.
+ *
+ * All topics are built once in the constructor, so looking up a topic is an array access instead of building a new
+ * string. Every topic is available as String and as validated HiveMQ MqttTopic.
+ * The reverse lookup maps a received topic to its kind, elevator and floor.
+ */
+public final class TopicTable {
+
+	/**
+	 * Kind, elevator and floor of a topic in the table.
+	 */
+	public static final class Entry {
+		private final TopicKind kind;
+		private final int elevator;
+		private final int floor;
+		private final String topic;
+		private final MqttTopic mqttTopic;
+
+		private Entry(TopicKind kind, int elevator, int floor, String topic) {
+			this.kind = kind;
+			this.elevator = elevator;
+			this.floor = floor;
+			this.topic = topic;
+			this.mqttTopic = MqttTopic.of(topic);
+		}
+
+		public TopicKind getKind() {
+			return kind;
+		}
+
+		/**
+		 * Provides the number of the elevator of the topic.
+		 * @return the number of the elevator or -1 if the topic is not per elevator
+		 */
+		public int getElevator() {
+			return elevator;
+		}
+
+		/**
+		 * Provides the number of the floor of the topic.
+		 * @return the number of the floor or -1 if the topic is not per floor
+		 */
+		public int getFloor() {
+			return floor;
+		}
+
+		public String getTopic() {
+			return topic;
+		}
+
+		public MqttTopic getMqttTopic() {
+			return mqttTopic;
+		}
+	}
+
+	private final int numberOfElevators;
+	private final int numberOfFloors;
+	private final Entry[][] entries = new Entry[TopicKind.values().length][];
+	private final HashMap<String, Entry> byTopic = new HashMap<>();
+	private final HashMap<MqttTopic, Entry> byMqttTopic = new HashMap<>();
+
+	/**
+	 * Build the table for a building.
+	 * @param numberOfElevators the number of elevators in the building
+	 * @param numberOfFloors the number of floors in the building
+	 */
+	public TopicTable(int numberOfElevators, int numberOfFloors) {
+		if(numberOfElevators < 0 || numberOfFloors < 0) {
+			throw new IllegalArgumentException("Number of elevators and floors must be >=0!");
+		}
+
+		this.numberOfElevators = numberOfElevators;
+		this.numberOfFloors = numberOfFloors;
+
+		MqttTopicGenerator topics = new MqttTopicGenerator();
+
+		for(TopicKind kind : TopicKind.values()) {
+			int elevators = kind.isPerElevator() ? numberOfElevators : 1;
+			int floors = kind.isPerFloor() ? numberOfFloors : 1;
+			Entry[] kindEntries = new Entry[elevators * floors];
+
+			for(int e = 0; e < elevators; ++e) {
+				for(int f = 0; f < floors; ++f) {
+					int elevator = kind.isPerElevator() ? e : -1;
+					int floor = kind.isPerFloor() ? f : -1;
+					Entry entry = new Entry(kind, elevator, floor, kind.buildTopic(topics, elevator, floor));
+					kindEntries[e * floors + f] = entry;
+					byTopic.put(entry.topic, entry);
+					byMqttTopic.put(entry.mqttTopic, entry);
+				}
+			}
+
+			entries[kind.ordinal()] = kindEntries;
+		}
+	}
+
+	public int getNumberOfElevators() {
+		return numberOfElevators;
+	}
+
+	public int getNumberOfFloors() {
+		return numberOfFloors;
+	}
+
+	/**
+	 * Provides whether the table contains the topic of the given kind, elevator and floor.
+	 * @param kind the kind of the topic
+	 * @param elevator the number of the elevator, ignored if the topic is not per elevator
+	 * @param floor the number of the floor, ignored if the topic is not per floor
+	 * @return whether the topic is in the table (true) or not (false)
+	 */
+	public boolean contains(TopicKind kind, int elevator, int floor) {
+		return (!kind.isPerElevator() || (elevator >= 0 && elevator < numberOfElevators))
+				&& (!kind.isPerFloor() || (floor >= 0 && floor < numberOfFloors));
+	}
+
+	/**
+	 * Provides the table entry of the given kind, elevator and floor.
+	 * @param kind the kind of the topic
+	 * @param elevator the number of the elevator, ignored if the topic is not per elevator
+	 * @param floor the number of the floor, ignored if the topic is not per floor
+	 * @return the entry of the topic
+	 */
+	public Entry getEntry(TopicKind kind, int elevator, int floor) {
+		if(!contains(kind, elevator, floor)) {
+			throw new IllegalArgumentException("Topic is not in the table!");
+		}
+
+		int e = kind.isPerElevator() ? elevator : 0;
+		int f = kind.isPerFloor() ? floor : 0;
+		return entries[kind.ordinal()][e * (kind.isPerFloor() ? numberOfFloors : 1) + f];
+	}
+
+	/**
+	 * Provides a topic which is neither per elevator nor per floor.
+	 * @param kind the kind of the topic
+	 * @return the topic
+	 */
+	public String getTopic(TopicKind kind) {
+		return getEntry(kind, -1, -1).topic;
+	}
+
+	/**
+	 * Provides a topic which is either per elevator or per floor.
+	 * @param kind the kind of the topic
+	 * @param index the number of the elevator or floor
+	 * @return the topic
+	 */
+	public String getTopic(TopicKind kind, int index) {
+		return getEntry(kind, index, index).topic;
+	}
+
+	/**
+	 * Provides a topic which is per elevator and floor.
+	 * @param kind the kind of the topic
+	 * @param elevator the number of the elevator
+	 * @param floor the number of the floor
+	 * @return the topic
+	 */
+	public String getTopic(TopicKind kind, int elevator, int floor) {
+		return getEntry(kind, elevator, floor).topic;
+	}
+
+	/**
+	 * Provides the HiveMQ topic of the given kind, elevator and floor.
+	 * @param kind the kind of the topic
+	 * @param elevator the number of the elevator, ignored if the topic is not per elevator
+	 * @param floor the number of the floor, ignored if the topic is not per floor
+	 * @return the HiveMQ topic
+	 */
+	public MqttTopic getMqttTopic(TopicKind kind, int elevator, int floor) {
+		return getEntry(kind, elevator, floor).mqttTopic;
+	}
+
+	/**
+	 * Looks up a topic.
+	 * @param topic the topic to look up
+	 * @return the entry of the topic or null if the topic is not in the table
+	 */
+	public Entry lookup(String topic) {
+		return byTopic.get(topic);
+	}
+
+	/**
+	 * Looks up a received HiveMQ topic.
+	 * @param topic the topic to look up
+	 * @return the entry of the topic or null if the topic is not in the table
+	 */
+	public Entry lookup(MqttTopic topic) {
+		return byMqttTopic.get(topic);
+	}
+}
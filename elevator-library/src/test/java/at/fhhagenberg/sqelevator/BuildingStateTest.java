@@ -0,0 +1,128 @@
+package at.fhhagenberg.sqelevator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+class BuildingStateTest {
+
+	private static ElevatorSnapshot snapshot(int number, int position, long[] stops) {
+		return new ElevatorSnapshot(number, 2, 0, 8, 2, 0, position, 0, 0, 0, 70, stops, new long[2]);
+	}
+
+	@Test
+	void testInvalidSize() {
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> new BuildingState(-1, 2));
+		assertEquals("The number of elevators and floors must be >=0!", ex.getMessage());
+	}
+
+	@Test
+	void testWriteIsVisibleAfterSwap() {
+		BuildingState state = new BuildingState(2, 70);
+		state.write(snapshot(1, 40, new long[] {0, 1L << 2}));
+
+		assertEquals(0, state.get(1, PolledField.POSITION));
+		assertTrue(state.swap());
+		assertEquals(40, state.get(1, PolledField.POSITION));
+		assertEquals(8, state.get(1, PolledField.CAPACITY));
+		assertTrue(state.getStopRequest(1, 66));
+		assertEquals(snapshot(1, 40, new long[] {0, 1L << 2}), state.getSnapshot(1));
+	}
+
+	@Test
+	void testWriteAndSwapDoNotAllocate() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(!(bean instanceof com.sun.management.ThreadMXBean)) {
+			return;
+		}
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		BuildingState state = new BuildingState(2, 70);
+		ElevatorSnapshot[] snapshots = {snapshot(1, 40, new long[] {0, 1L << 2}), snapshot(1, 50, new long[] {1L << 5, 0})};
+		long thread = Thread.currentThread().getId();
+
+		// warm up the JIT
+		writeAndSwap(state, snapshots, 100_000);
+
+		long before = threads.getThreadAllocatedBytes(thread);
+		int changes = writeAndSwap(state, snapshots, 100_000);
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+		assertEquals(100_000, changes);
+		assertTrue(allocated < 1024, "Allocated " + allocated + " bytes for 100000 ticks");
+	}
+
+	private static int writeAndSwap(BuildingState state, ElevatorSnapshot[] snapshots, int ticks) {
+		int changes = 0;
+
+		for(int i = 0; i < ticks; ++i) {
+			state.write(snapshots[i & 1]);
+			state.setFloorButtons(i % 70, true, false);
+
+			if(state.swap()) {
+				++changes;
+			}
+		}
+
+		return changes;
+	}
+
+	@Test
+	void testSwapRecordsDirtySlots() {
+		BuildingState state = new BuildingState(130, 70);
+
+		for(int i = 0; i < 130; ++i) {
+			state.write(snapshot(i, 0, new long[2]));
+		}
+
+		state.swap();
+		state.write(snapshot(3, 10, new long[2]));
+		state.write(snapshot(129, 0, new long[] {0, 1L << 1}));
+		assertTrue(state.swap());
+
+		assertEquals(3, state.nextDirtyElevator(0));
+		assertEquals(129, state.nextDirtyElevator(4));
+		assertEquals(-1, state.nextDirtyElevator(130));
+		assertTrue(state.isDirty(3, PolledField.POSITION));
+		assertFalse(state.isDirty(3, PolledField.STOP_REQUESTS));
+		assertTrue(state.isDirty(129, PolledField.STOP_REQUESTS));
+		assertTrue(state.isStopRequestChanged(129, 65));
+		assertFalse(state.isStopRequestChanged(129, 1));
+		assertFalse(state.isServicesFloorChanged(129, 65));
+
+		assertFalse(state.swap());
+		assertEquals(-1, state.nextDirtyElevator(0));
+		assertEquals(10, state.get(3, PolledField.POSITION));
+	}
+
+	@Test
+	void testFloorButtons() {
+		BuildingState state = new BuildingState(1, 70);
+		state.setFloorButtons(66, true, false);
+
+		assertTrue(state.swap());
+		assertEquals(66, state.nextDirtyFloor(0));
+		assertTrue(state.isButtonUpChanged(66));
+		assertFalse(state.isButtonDownChanged(66));
+		assertTrue(state.isButtonUp(66));
+
+		state.setFloorButtons(66, false, false);
+		state.swap();
+		assertFalse(state.isButtonUp(66));
+		assertEquals(-1, state.nextDirtyFloor(67));
+	}
+
+	@Test
+	void testInvalidArguments() {
+		BuildingState state = new BuildingState(1, 2);
+
+		assertThrows(IllegalArgumentException.class, () -> state.write(null));
+		assertThrows(IllegalArgumentException.class, () -> state.write(snapshot(0, 0, new long[2])));
+		assertThrows(IllegalArgumentException.class, () -> state.get(1, PolledField.POSITION));
+		assertThrows(IllegalArgumentException.class, () -> state.getStopRequest(0, 2));
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> state.get(0, PolledField.STOP_REQUESTS));
+		assertEquals("Field must be an elevator value field!", ex.getMessage());
+	}
+}
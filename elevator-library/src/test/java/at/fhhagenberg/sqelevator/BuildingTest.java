@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.rmi.RemoteException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.jupiter.api.Test;
 
@@ -24,6 +26,7 @@ class BuildingTest {
 		Building building = new Building(plc);
 		
 		assertEquals(4, building.getElevators().length);
+		assertSame(plc, building.getPlc());
 	}
 	
 	@Test
@@ -37,6 +40,71 @@ class BuildingTest {
 	}
 	
 	
+	@Test
+	void testParallelLoad() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getElevatorNum()).thenReturn(3);
+		when(plc.getFloorNum()).thenReturn(4);
+		when(plc.getFloorHeight()).thenReturn(10);
+		when(plc.getElevatorDoorStatus(anyInt())).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		when(plc.getElevatorPosition(2)).thenReturn(30);
+		when(plc.getFloorButtonUp(3)).thenReturn(true);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		
+		try {
+			Building building = new Building(plc, executor);
+			
+			assertEquals(3, building.getElevatorCount());
+			assertEquals(4, building.getFloorCount());
+			assertEquals(2, building.getElevators()[2].getNumber());
+			assertEquals(30, building.getElevators()[2].getPosition());
+			assertEquals(3, building.getFloors()[3].getNumber());
+			assertTrue(building.getFloors()[3].isButtonUp());
+			assertTrue(building.getLoadTimeMs() >= 0);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	void testParallelLoadConnectionLoss() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getElevatorNum()).thenReturn(2);
+		when(plc.getFloorNum()).thenReturn(2);
+		when(plc.getElevatorDoorStatus(anyInt())).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		when(plc.getFloorButtonDown(1)).thenThrow(new RemoteException("Connection lost"));
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		
+		try {
+			RemoteException thrown = assertThrows(RemoteException.class, () -> new Building(plc, executor));
+			assertEquals("Connection lost", thrown.getMessage());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	void testMatchesLayout() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getElevatorNum()).thenReturn(0);
+		when(plc.getFloorNum()).thenReturn(3);
+		when(plc.getFloorHeight()).thenReturn(10);
+		
+		Building building = new Building(plc);
+		
+		assertTrue(building.matchesLayout(plc));
+		
+		IElevator restarted = mock(IElevator.class);
+		when(restarted.getElevatorNum()).thenReturn(0);
+		when(restarted.getFloorNum()).thenReturn(4);
+		when(restarted.getFloorHeight()).thenReturn(10);
+		
+		assertFalse(building.matchesLayout(restarted));
+		assertThrows(IllegalArgumentException.class, () -> building.matchesLayout(null));
+	}
+	
 	@Test
 	void testBuildingCreateWithNullPlc() throws RemoteException
 	{
@@ -45,5 +113,39 @@ class BuildingTest {
 		IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, ()->new Building(plc));		
 		assertEquals("Plc must be valid!", thrown.getMessage());
 	}
-
+	
+	@Test
+	void testPublishSnapshot() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getElevatorNum()).thenReturn(2);
+		when(plc.getFloorNum()).thenReturn(3);
+		when(plc.getFloorHeight()).thenReturn(10);
+		when(plc.getElevatorDoorStatus(anyInt())).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		when(plc.getElevatorPosition(1)).thenReturn(20);
+		
+		Building building = new Building(plc);
+		BuildingSnapshot first = building.getSnapshot();
+		
+		assertEquals(1, first.getVersion());
+		assertEquals(2, first.getElevatorCount());
+		assertEquals(3, first.getFloorCount());
+		assertEquals(10, first.getFloorHeight());
+		assertEquals(20, first.getElevator(1).getPosition());
+		assertSame(first, building.publishSnapshot());
+		
+		building.getElevators()[1].setPosition(10);
+		building.getFloors()[2].setButtonDown(true);
+		BuildingSnapshot second = building.publishSnapshot();
+		
+		assertSame(second, building.getSnapshot());
+		assertEquals(2, second.getVersion());
+		assertEquals(10, second.getElevator(1).getPosition());
+		assertSame(first.getElevator(0), second.getElevator(0));
+		assertTrue(second.isButtonDown(2));
+		assertFalse(second.isButtonUp(2));
+		assertFalse(first.isButtonDown(2));
+		assertEquals(20, first.getElevator(1).getPosition());
+		assertThrows(IllegalArgumentException.class, () -> second.getElevator(2));
+		assertThrows(IllegalArgumentException.class, () -> second.isButtonUp(3));
+	}
 }
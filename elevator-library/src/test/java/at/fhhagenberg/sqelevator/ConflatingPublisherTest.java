@@ -0,0 +1,115 @@
+package at.fhhagenberg.sqelevator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+
+class ConflatingPublisherTest {
+
+	private final List<String> sent = new ArrayList<>();
+	private final List<CompletableFuture<Object>> acks = new ArrayList<>();
+
+	private CompletableFuture<?> record(String topic, byte[] payload, MqttQos qos, boolean retain) {
+		sent.add(topic + "=" + payload[0] + (retain ? "r" : ""));
+		CompletableFuture<Object> ack = new CompletableFuture<>();
+		acks.add(ack);
+		return ack;
+	}
+
+	@Test
+	void testOnlyLatestValueIsSentAfterAcknowledge() {
+		ConflatingPublisher publisher = new ConflatingPublisher(this::record, null);
+
+		CompletableFuture<Void> first = publisher.publish("a", new byte[] {0}, MqttQos.AT_MOST_ONCE, true, false);
+		CompletableFuture<Void> second = publisher.publish("a", new byte[] {1}, MqttQos.AT_MOST_ONCE, true, false);
+		CompletableFuture<Void> third = publisher.publish("a", new byte[] {2}, MqttQos.AT_MOST_ONCE, true, false);
+
+		assertEquals(List.of("a=0r"), sent);
+		assertSame(second, third);
+		assertEquals(1, publisher.getInFlightCount());
+		assertEquals(1, publisher.getDirtyCount());
+
+		acks.get(0).complete(null);
+		assertTrue(first.isDone());
+		assertFalse(third.isDone());
+		assertEquals(List.of("a=0r", "a=2r"), sent);
+		assertEquals(0, publisher.getDirtyCount());
+
+		acks.get(1).complete(null);
+		assertTrue(third.isDone());
+		assertEquals(0, publisher.getInFlightCount());
+	}
+
+	@Test
+	void testTopicsAreIndependent() {
+		ConflatingPublisher publisher = new ConflatingPublisher(this::record, null);
+
+		publisher.publish("a", new byte[] {0}, MqttQos.AT_MOST_ONCE, true, false);
+		publisher.publish("b", new byte[] {1}, MqttQos.AT_MOST_ONCE, false, false);
+
+		assertEquals(List.of("a=0r", "b=1"), sent);
+		assertEquals(2, publisher.getInFlightCount());
+	}
+
+	@Test
+	void testLatestValueIsSentAfterFailure() {
+		ConflatingPublisher publisher = new ConflatingPublisher(this::record, null);
+
+		CompletableFuture<Void> first = publisher.publish("a", new byte[] {0}, MqttQos.AT_MOST_ONCE, true, false);
+		publisher.publish("a", new byte[] {1}, MqttQos.AT_MOST_ONCE, true, false);
+		acks.get(0).completeExceptionally(new IllegalStateException("broker"));
+
+		assertTrue(first.isCompletedExceptionally());
+		assertEquals(List.of("a=0r", "a=1r"), sent);
+	}
+
+	@Test
+	void testRecycling() {
+		List<byte[]> recycled = new ArrayList<>();
+		ConflatingPublisher publisher = new ConflatingPublisher(this::record, recycled::add);
+		byte[] first = {0};
+		byte[] replaced = {1};
+		byte[] latest = {2};
+
+		publisher.publish("a", first, MqttQos.AT_MOST_ONCE, true, true);
+		publisher.publish("a", replaced, MqttQos.AT_MOST_ONCE, true, true);
+		publisher.publish("a", latest, MqttQos.AT_MOST_ONCE, true, true);
+		assertEquals(List.of(replaced), recycled);
+
+		acks.get(0).complete(null);
+		acks.get(1).complete(null);
+		assertEquals(List.of(replaced, first, latest), recycled);
+	}
+
+	@Test
+	void testClose() {
+		ConflatingPublisher publisher = new ConflatingPublisher(this::record, null);
+
+		publisher.publish("a", new byte[] {0}, MqttQos.AT_MOST_ONCE, true, false);
+		CompletableFuture<Void> pending = publisher.publish("a", new byte[] {1}, MqttQos.AT_MOST_ONCE, true, false);
+		publisher.close();
+
+		assertTrue(pending.isCompletedExceptionally());
+		assertTrue(publisher.publish("b", new byte[] {0}, MqttQos.AT_MOST_ONCE, true, false).isCompletedExceptionally());
+
+		acks.get(0).complete(null);
+		assertEquals(List.of("a=0r"), sent);
+		assertEquals(0, publisher.getInFlightCount());
+	}
+
+	@Test
+	void testInvalidArguments() {
+		ConflatingPublisher publisher = new ConflatingPublisher(this::record, null);
+
+		assertThrows(IllegalArgumentException.class, () -> new ConflatingPublisher(null, null));
+		assertThrows(IllegalArgumentException.class, () -> publisher.publish(null, new byte[] {0}, MqttQos.AT_MOST_ONCE, true, false));
+		assertThrows(IllegalArgumentException.class, () -> publisher.publish("a", null, MqttQos.AT_MOST_ONCE, true, false));
+		assertThrows(IllegalArgumentException.class, () -> publisher.publish("a", new byte[] {0}, null, true, false));
+	}
+}
@@ -0,0 +1,131 @@
+package at.fhhagenberg.sqelevator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.ByteBuffer;
+import java.rmi.RemoteException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import sqelevator.IElevator;
+
+@ExtendWith(MockitoExtension.class)
+class ElevatorSnapshotTest {
+
+	@Test
+	void testOf() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(70);
+		when(plc.getFloorHeight()).thenReturn(10);
+		when(plc.getCommittedDirection(1)).thenReturn(IElevator.ELEVATOR_DIRECTION_DOWN);
+		when(plc.getElevatorAccel(1)).thenReturn(-2);
+		when(plc.getElevatorCapacity(1)).thenReturn(8);
+		when(plc.getElevatorDoorStatus(1)).thenReturn(IElevator.ELEVATOR_DOORS_OPENING);
+		when(plc.getElevatorFloor(1)).thenReturn(65);
+		when(plc.getElevatorPosition(1)).thenReturn(652);
+		when(plc.getElevatorSpeed(1)).thenReturn(-4);
+		when(plc.getElevatorWeight(1)).thenReturn(300);
+		when(plc.getTarget(1)).thenReturn(3);
+		when(plc.getElevatorButton(eq(1), anyInt())).thenAnswer(inv -> {
+			int floor = inv.getArgument(1);
+			return floor == 2 || floor == 66;
+		});
+		when(plc.getServicesFloors(eq(1), anyInt())).thenAnswer(inv -> {
+			int floor = inv.getArgument(1);
+			return floor == 0 || floor == 64;
+		});
+
+		ElevatorSnapshot snapshot = ElevatorSnapshot.of(new Elevator(plc, 1));
+
+		assertEquals(1, snapshot.getNumber());
+		assertEquals(IElevator.ELEVATOR_DIRECTION_DOWN, snapshot.getCommittedDirection());
+		assertEquals(-2, snapshot.getAcceleration());
+		assertEquals(8, snapshot.getCapacity());
+		assertEquals(IElevator.ELEVATOR_DOORS_OPENING, snapshot.getDoorStatus());
+		assertEquals(65, snapshot.getFloor());
+		assertEquals(652, snapshot.getPosition());
+		assertEquals(-4, snapshot.getSpeed());
+		assertEquals(300, snapshot.getWeight());
+		assertEquals(3, snapshot.getTarget());
+		assertEquals(70, snapshot.getNumberOfFloors());
+		assertTrue(snapshot.getStopRequest(2));
+		assertTrue(snapshot.getStopRequest(66));
+		assertFalse(snapshot.getStopRequest(3));
+		assertTrue(snapshot.getServicesFloor(0));
+		assertTrue(snapshot.getServicesFloor(64));
+		assertFalse(snapshot.getServicesFloor(1));
+		assertArrayEquals(new long[] {1L << 2, 1L << 2}, snapshot.getStopRequests());
+	}
+
+	@Test
+	void testEncodeDecode() {
+		ElevatorSnapshot snapshot = new ElevatorSnapshot(2, 1, 3, 4, 2, 5, 50, 6, 7, 8, 100,
+				new long[] {0x8000000000000001L, 0x5L}, new long[] {-1L, 0xfL});
+
+		ByteBuffer buffer = ByteBuffer.allocate(snapshot.getEncodedSize());
+		snapshot.writeTo(buffer);
+		assertFalse(buffer.hasRemaining());
+		buffer.flip();
+
+		ElevatorSnapshot decoded = ElevatorSnapshot.readFrom(buffer);
+		assertEquals(snapshot, decoded);
+		assertEquals(snapshot.hashCode(), decoded.hashCode());
+		assertTrue(decoded.getStopRequest(63));
+		assertTrue(decoded.getStopRequest(66));
+		assertFalse(decoded.getStopRequest(65));
+	}
+
+	@Test
+	void testEncodedSize() {
+		ElevatorSnapshot snapshot = new ElevatorSnapshot(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 60, new long[1], new long[1]);
+
+		assertEquals(11 * Integer.BYTES + 2 * Long.BYTES, snapshot.getEncodedSize());
+	}
+
+	@Test
+	void testReadFromTruncatedFrame() {
+		ElevatorSnapshot snapshot = new ElevatorSnapshot(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 60, new long[1], new long[1]);
+		ByteBuffer buffer = ByteBuffer.allocate(snapshot.getEncodedSize());
+		snapshot.writeTo(buffer);
+		buffer.flip();
+		buffer.limit(buffer.limit() - 1);
+
+		assertThrows(IllegalArgumentException.class, () -> ElevatorSnapshot.readFrom(buffer));
+		assertThrows(IllegalArgumentException.class, () -> ElevatorSnapshot.readFrom(ByteBuffer.allocate(4)));
+	}
+
+	@Test
+	void testInvalidBitsets() {
+		IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+				() -> new ElevatorSnapshot(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 65, new long[1], new long[2]));
+		assertEquals("Bitsets must match the number of floors!", thrown.getMessage());
+	}
+
+	@Test
+	void testInvalidFloor() {
+		ElevatorSnapshot snapshot = new ElevatorSnapshot(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, new long[1], new long[1]);
+
+		assertThrows(IllegalArgumentException.class, () -> snapshot.getStopRequest(2));
+		assertThrows(IllegalArgumentException.class, () -> snapshot.getServicesFloor(-1));
+	}
+
+	@Test
+	void testIsIdle() {
+		ElevatorSnapshot idle = new ElevatorSnapshot(0, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED, 0, 4, IElevator.ELEVATOR_DOORS_CLOSED, 0, 0, 0, 0, 0, 70, new long[2], new long[2]);
+		ElevatorSnapshot moving = new ElevatorSnapshot(0, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED, 0, 4, IElevator.ELEVATOR_DOORS_CLOSED, 0, 0, 2, 0, 0, 70, new long[2], new long[2]);
+		ElevatorSnapshot open = new ElevatorSnapshot(0, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED, 0, 4, IElevator.ELEVATOR_DOORS_OPEN, 0, 0, 0, 0, 0, 70, new long[2], new long[2]);
+		ElevatorSnapshot committed = new ElevatorSnapshot(0, IElevator.ELEVATOR_DIRECTION_UP, 0, 4, IElevator.ELEVATOR_DOORS_CLOSED, 0, 0, 0, 0, 0, 70, new long[2], new long[2]);
+		ElevatorSnapshot requested = new ElevatorSnapshot(0, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED, 0, 4, IElevator.ELEVATOR_DOORS_CLOSED, 0, 0, 0, 0, 0, 70, new long[] { 0, 32 }, new long[2]);
+
+		assertTrue(idle.isIdle());
+		assertFalse(idle.hasStopRequests());
+		assertFalse(moving.isIdle());
+		assertFalse(open.isIdle());
+		assertFalse(committed.isIdle());
+		assertFalse(requested.isIdle());
+		assertTrue(requested.hasStopRequests());
+	}
+}
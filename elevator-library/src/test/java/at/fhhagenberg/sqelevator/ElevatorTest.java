@@ -1077,4 +1077,276 @@ class ElevatorTest {
 		
 		assertTrue(elevator.getServicesFloor(0));
 	}
+	
+	@Test
+	void testElevatorListener_Changed() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(2);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		when(plc.getFloorHeight()).thenReturn(10);
+		IElevatorListener listener = mock(IElevatorListener.class);
+
+		Elevator elevator = new Elevator(plc, 0);
+		elevator.addElevatorListener(listener);
+		elevator.setPosition(10);
+		elevator.setPosition(10);
+		elevator.setStopRequest(1, true);
+		elevator.setServicesFloor(0, true);
+
+		verify(listener, times(1)).onPositionChanged(elevator, 0, 10);
+		verify(listener, times(1)).onStopRequestChanged(elevator, 1, true);
+		verify(listener, times(1)).onServicesFloorChanged(elevator, 0, true);
+		verify(listener, times(1)).onElevatorUpdated(elevator, 1 << PolledField.POSITION.ordinal());
+		verify(listener, times(1)).onElevatorUpdated(elevator, 1 << PolledField.STOP_REQUESTS.ordinal());
+		verify(listener, times(1)).onElevatorUpdated(elevator, 1 << PolledField.SERVICES_FLOORS.ordinal());
+		verifyNoMoreInteractions(listener);
+	}
+	
+	@Test
+	void testElevatorListener_AlwaysSetPropertyChange() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(2);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		when(plc.getTarget(0)).thenReturn(1);
+		IElevatorListener listener = mock(IElevatorListener.class);
+
+		Elevator elevator = new Elevator(plc, 0);
+		elevator.setAlwaysSetPropertyChange(true);
+		elevator.addElevatorListener(listener);
+		elevator.setTarget(1);
+
+		verify(listener, times(1)).onTargetChanged(elevator, 1, 1);
+	}
+	
+	@Test
+	void testElevatorListener_AddTwiceAndRemove() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(2);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		IElevatorListener listener = mock(IElevatorListener.class);
+
+		Elevator elevator = new Elevator(plc, 0);
+		elevator.addElevatorListener(listener);
+		elevator.addElevatorListener(listener);
+		elevator.setSpeed(5);
+		elevator.removeElevatorListener(listener);
+		elevator.setSpeed(6);
+
+		verify(listener, times(1)).onSpeedChanged(elevator, 0, 5);
+		verify(listener, times(1)).onElevatorUpdated(elevator, 1 << PolledField.SPEED.ordinal());
+		verifyNoMoreInteractions(listener);
+	}
+	
+	@Test
+	void testElevatorListener_Null() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(2);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+
+		Elevator elevator = new Elevator(plc, 0);
+		
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> elevator.addElevatorListener(null));
+		assertEquals("Listener must not be null!", ex.getMessage());
+	}
+	
+	@Test
+	void testSetStopRequests_OnlyChangedFloors() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(70);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		IElevatorListener listener = mock(IElevatorListener.class);
+
+		Elevator elevator = new Elevator(plc, 0);
+		elevator.setStopRequest(3, true);
+		elevator.addElevatorListener(listener);
+		
+		long[] stops = elevator.getStopRequests();
+		assertArrayEquals(new long[] {1L << 3, 0L}, stops);
+		stops[0] = 1L << 5;
+		stops[1] = 1L << 1;
+		elevator.setStopRequests(stops);
+
+		verify(listener, times(1)).onStopRequestChanged(elevator, 3, false);
+		verify(listener, times(1)).onStopRequestChanged(elevator, 5, true);
+		verify(listener, times(1)).onStopRequestChanged(elevator, 65, true);
+		verify(listener, times(1)).onElevatorUpdated(elevator, 1 << PolledField.STOP_REQUESTS.ordinal());
+		verifyNoMoreInteractions(listener);
+		assertTrue(elevator.getStopRequest(65));
+		assertFalse(elevator.getStopRequest(3));
+	}
+	
+	@Test
+	void testSetStopRequests_AlwaysSetPropertyChange() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(3);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		IElevatorListener listener = mock(IElevatorListener.class);
+
+		Elevator elevator = new Elevator(plc, 0);
+		elevator.setAlwaysSetPropertyChange(true);
+		elevator.addElevatorListener(listener);
+		elevator.setStopRequests(new long[] {0b010});
+
+		verify(listener, times(1)).onStopRequestChanged(elevator, 0, false);
+		verify(listener, times(1)).onStopRequestChanged(elevator, 1, true);
+		verify(listener, times(1)).onStopRequestChanged(elevator, 2, false);
+		verify(listener, times(1)).onElevatorUpdated(elevator, 1 << PolledField.STOP_REQUESTS.ordinal());
+		verifyNoMoreInteractions(listener);
+	}
+	
+	@Test
+	void testSetStopRequests_InvalidBitset() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(3);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+
+		Elevator elevator = new Elevator(plc, 0);
+		
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> elevator.setStopRequests(new long[2]));
+		assertEquals("Bitset must match the number of floors!", ex.getMessage());
+		assertThrows(IllegalArgumentException.class, () -> elevator.setServicesFloors(null));
+	}
+	
+	@Test
+	void testSetServicesFloors_OnlyChangedFloors() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(4);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		when(plc.getServicesFloors(0, 0)).thenReturn(true);
+		when(plc.getServicesFloors(0, 1)).thenReturn(true);
+
+		Elevator elevator = new Elevator(plc, 0);
+		clearInvocations(plc);
+		elevator.setServicesFloors(new long[] {0b1001});
+
+		verify(plc, times(1)).setServicesFloors(0, 1, false);
+		verify(plc, times(1)).setServicesFloors(0, 3, true);
+		verify(plc, never()).setServicesFloors(eq(0), eq(0), anyBoolean());
+		assertArrayEquals(new long[] {0b1001}, elevator.getServicedFloors());
+	}
+	
+	@Test
+	void testBatchedUpdate() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(2);
+		when(plc.getFloorHeight()).thenReturn(10);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		IElevatorListener listener = mock(IElevatorListener.class);
+
+		Elevator elevator = new Elevator(plc, 0);
+		elevator.addElevatorListener(listener);
+		elevator.beginUpdate();
+		elevator.beginUpdate();
+		elevator.setPosition(5);
+		elevator.setSpeed(2);
+		elevator.commitUpdate();
+		
+		assertTrue(elevator.isUpdating());
+		verify(listener, times(1)).onPositionChanged(elevator, 0, 5);
+		verify(listener, never()).onElevatorUpdated(any(), anyInt());
+		
+		elevator.setSpeed(2);
+		elevator.commitUpdate();
+
+		assertFalse(elevator.isUpdating());
+		verify(listener, times(1)).onElevatorUpdated(elevator, (1 << PolledField.POSITION.ordinal()) | (1 << PolledField.SPEED.ordinal()));
+		
+		elevator.beginUpdate();
+		elevator.commitUpdate();
+		verify(listener, times(1)).onElevatorUpdated(any(), anyInt());
+		
+		IllegalStateException ex = assertThrows(IllegalStateException.class, () -> elevator.commitUpdate());
+		assertEquals("No update in progress!", ex.getMessage());
+	}
+	
+	@Test
+	void testSetterOfOtherThreadWaitsForBatch() throws RemoteException, InterruptedException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(2);
+		when(plc.getFloorHeight()).thenReturn(10);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		IElevatorListener listener = mock(IElevatorListener.class);
+
+		Elevator elevator = new Elevator(plc, 0);
+		elevator.addElevatorListener(listener);
+		elevator.beginUpdate();
+		elevator.setPosition(5);
+		
+		Thread control = new Thread(() -> {
+			try {
+				elevator.setTarget(1);
+			} catch (RemoteException e) {
+				fail(e);
+			}
+		});
+		control.start();
+		control.join(200);
+		
+		// the control thread waits for the batch, so its change is neither folded into it nor lost by the commit
+		assertTrue(control.isAlive());
+		assertEquals(0, elevator.getTarget());
+		
+		elevator.commitUpdate();
+		control.join();
+		
+		assertEquals(1, elevator.getTarget());
+		assertThrows(IllegalStateException.class, () -> elevator.commitUpdate());
+		verify(listener, times(1)).onElevatorUpdated(elevator, 1 << PolledField.POSITION.ordinal());
+		verify(listener, times(1)).onElevatorUpdated(elevator, 1 << PolledField.TARGET.ordinal());
+		verify(plc, times(1)).setTarget(0, 1);
+	}
+	
+	@Test
+	void testAlwaysSetPropertyChange_OnlyRealChangesUpdate() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(2);
+		when(plc.getFloorHeight()).thenReturn(10);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		IElevatorListener listener = mock(IElevatorListener.class);
+
+		Elevator elevator = new Elevator(plc, 0);
+		elevator.setAlwaysSetPropertyChange(true);
+		elevator.addElevatorListener(listener);
+		int changeCount = elevator.getChangeCount();
+
+		elevator.beginUpdate();
+		elevator.setSpeed(0);
+		elevator.setStopRequest(1, false);
+		elevator.commitUpdate();
+
+		verify(listener, times(1)).onSpeedChanged(elevator, 0, 0);
+		verify(listener, times(1)).onStopRequestChanged(elevator, 1, false);
+		verify(listener, never()).onElevatorUpdated(any(), anyInt());
+		assertEquals(changeCount, elevator.getChangeCount());
+
+		elevator.beginUpdate();
+		elevator.setSpeed(0);
+		elevator.setStopRequest(1, true);
+		elevator.commitUpdate();
+
+		verify(listener, times(1)).onElevatorUpdated(elevator, 1 << PolledField.STOP_REQUESTS.ordinal());
+		assertEquals(changeCount + 1, elevator.getChangeCount());
+	}
+	
+	@Test
+	void testApplySnapshot() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(2);
+		when(plc.getFloorHeight()).thenReturn(10);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		when(plc.getCommittedDirection(0)).thenReturn(IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
+		IElevatorListener listener = mock(IElevatorListener.class);
+
+		Elevator elevator = new Elevator(plc, 0);
+		ElevatorSnapshot snapshot = new ElevatorSnapshot(0, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED, 0, 0, IElevator.ELEVATOR_DOORS_CLOSED, 1, 10, 0, 0, 0, 2, new long[] {0b10}, new long[1]);
+		elevator.addElevatorListener(listener);
+		elevator.apply(snapshot);
+		
+		assertEquals(snapshot, ElevatorSnapshot.of(elevator));
+		verify(listener, times(1)).onElevatorUpdated(elevator, (1 << PolledField.FLOOR.ordinal()) | (1 << PolledField.POSITION.ordinal())
+				| (1 << PolledField.STOP_REQUESTS.ordinal()));
+		assertTrue(Elevator.isChanged(1 << PolledField.FLOOR.ordinal(), PolledField.FLOOR));
+		assertFalse(Elevator.isChanged(1 << PolledField.FLOOR.ordinal(), PolledField.TARGET));
+		assertThrows(IllegalArgumentException.class, () -> elevator.apply(null));
+	}
 }
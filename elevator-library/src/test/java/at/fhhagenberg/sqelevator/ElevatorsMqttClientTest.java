@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.nio.ByteBuffer;
 import java.util.concurrent.ExecutionException;
@@ -325,6 +326,40 @@ class ElevatorsMqttClientTest {
     	verify(mocker, times(1)).setCommittedDirection(0, IElevator.ELEVATOR_DIRECTION_UP);
 
 	}
+
+    @Test
+    @Timeout(value = 1, unit = TimeUnit.MINUTES)
+	void testResubscribeControlMessagesDeliversOnce() throws InterruptedException, ExecutionException {
+    	IMqttMessageListener mocker = mock(IMqttMessageListener.class);
+    	mqtt.addListener(mocker);
+    	
+    	assertTrue(mqtt.subscribeToControlMessages(1, 2));
+    	assertTrue(mqtt.subscribeToControlMessages(2, 5));
+    	
+    	testClient.publishWith()
+    			.topic(topics.getSetDirectionTopic(1))
+    			.payload(ByteBuffer.allocate(Integer.BYTES).putInt(IElevator.ELEVATOR_DIRECTION_UP).array())
+    			.qos(MqttQos.EXACTLY_ONCE)
+    			.retain(false)
+    			.send();
+    	
+    	Thread.sleep(100);
+    	
+    	verify(mocker, times(1)).setCommittedDirection(1, IElevator.ELEVATOR_DIRECTION_UP);
+    	
+    	mqtt.unsubscribeFromControlMessages();
+    	
+    	testClient.publishWith()
+    			.topic(topics.getSetDirectionTopic(1))
+    			.payload(ByteBuffer.allocate(Integer.BYTES).putInt(IElevator.ELEVATOR_DIRECTION_DOWN).array())
+    			.qos(MqttQos.EXACTLY_ONCE)
+    			.retain(false)
+    			.send();
+    	
+    	Thread.sleep(100);
+    	
+    	verify(mocker, times(0)).setCommittedDirection(1, IElevator.ELEVATOR_DIRECTION_DOWN);
+	}
     
     @Test
     @Timeout(value = 1, unit = TimeUnit.MINUTES)
@@ -376,6 +411,44 @@ class ElevatorsMqttClientTest {
     
     
     
+    @Test
+    @Timeout(value = 1, unit = TimeUnit.MINUTES)
+	void testMqtt5PublishAndSubscribe() throws InterruptedException, ExecutionException {
+    	ElevatorProperties props = mock(ElevatorProperties.class);
+    	when(props.getMqttVersion()).thenReturn(5);
+    	when(props.getTopicPolicy()).thenReturn(TopicPolicy.DEFAULT.withExpiry(TopicClass.TELEMETRY, 60));
+
+    	ElevatorsMqttClient mqtt5 = new ElevatorsMqttClient(container.getHost(), container.getMqttPort());
+    	mqtt5.configure(props);
+    	assertEquals(5, mqtt5.getMqttVersion());
+    	assertTrue(mqtt5.connect());
+    	assertEquals(5, mqtt5.getMqttVersion());
+
+    	IMqttMessageListener mocker = mock(IMqttMessageListener.class);
+    	mqtt5.addListener(mocker);
+    	assertTrue(mqtt5.subscribeToControlMessages(2, 2));
+
+        testClient.subscribeWith().topicFilter(topics.getPositionTopic(1)).qos(MqttQos.EXACTLY_ONCE).send();
+        final Mqtt3BlockingClient.Mqtt3Publishes incoming = testClient.publishes(MqttGlobalPublishFilter.ALL);
+
+        mqtt5.publishPosition(1, 42);
+        final Mqtt3Publish received = incoming.receive();
+        assertEquals(42, received.getPayload().get().asIntBuffer().get());
+
+    	testClient.publishWith()
+    			.topic(topics.getSetTargetTopic(1))
+    			.payload(ByteBuffer.allocate(Integer.BYTES).putInt(1).array())
+    			.qos(MqttQos.EXACTLY_ONCE)
+    			.send();
+
+    	Thread.sleep(100);
+
+    	verify(mocker, times(1)).setTarget(1, 1);
+    	mqtt5.disconnect();
+	}
+    
+    
+    
     @AfterEach
     void cleanUp() throws InterruptedException, ExecutionException {
     	
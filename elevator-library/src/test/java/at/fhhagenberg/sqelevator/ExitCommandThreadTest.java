@@ -7,6 +7,7 @@ import java.io.OutputStreamWriter;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Test;
 
@@ -28,6 +29,29 @@ class ExitCommandThreadTest {
 		    });
 
 			assertTrue(thread.isExitRequest());
+			assertTrue(thread.awaitExitRequest(0, TimeUnit.MILLISECONDS));
+		}
+	}
+
+	@Test
+	void testAwaitExitRequest() throws IOException, InterruptedException {
+		PipedInputStream input = new PipedInputStream();
+		PipedOutputStream out = new PipedOutputStream(input);
+		try (OutputStreamWriter writer = new OutputStreamWriter(out)) {
+			
+			ExitCommandThread thread = new ExitCommandThread(input, "stop");	
+			thread.start();
+			
+			assertFalse(thread.awaitExitRequest(50, TimeUnit.MILLISECONDS));
+			
+			writer.write("stop\n");
+			writer.flush();
+			
+			assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+				assertTrue(thread.awaitExitRequest(10, TimeUnit.SECONDS));
+			});
+			
+			thread.join();
 		}
 	}
 	
@@ -236,4 +236,34 @@ class FloorTest {
 		floorObj.setButtonUp(false);
 		verify(listener, times(1)).propertyChange(argThat(event -> event.getPropertyName() == Floor.BUTTON_UP_PROPERTY_NAME && (boolean)event.getOldValue() == true && (boolean)event.getNewValue() == false));
 	}
+	
+	@Test
+	void testFloorListener() throws RemoteException
+	{
+		IElevator plc = mock(IElevator.class);
+		Floor floorObj = new Floor(plc,0);
+		IFloorListener listener = mock(IFloorListener.class);
+		floorObj.addFloorListener(listener);
+		floorObj.addFloorListener(listener);
+		
+		floorObj.setButtonUp(true);
+		floorObj.setButtonUp(true);
+		floorObj.setButtonDown(true);
+		floorObj.removeFloorListener(listener);
+		floorObj.setButtonDown(false);
+		
+		verify(listener, times(1)).onButtonUpChanged(floorObj, true);
+		verify(listener, times(1)).onButtonDownChanged(floorObj, true);
+		verifyNoMoreInteractions(listener);
+	}
+	
+	@Test
+	void testFloorListenerNull() throws RemoteException
+	{
+		IElevator plc = mock(IElevator.class);
+		Floor floorObj = new Floor(plc,0);
+		
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> floorObj.addFloorListener(null));
+		assertEquals("Listener must not be null!", ex.getMessage());
+	}
 }
@@ -107,6 +107,18 @@ class MqttTopicGeneratorTest {
 		assertEquals(expected, generator.getButtonTopic(1, 2));
 	}
 	
+	@Test
+	void testGetStateTopic_Elevator3() {
+		final String expected = MqttTopicGenerator.TOPIC_LEVEL_BUILDING 
+				+ MqttTopicGenerator.TOPIC_LEVEL_SEPERATOR
+				+ MqttTopicGenerator.TOPIC_LEVEL_ELEVATOR 
+				+ MqttTopicGenerator.TOPIC_LEVEL_SEPERATOR
+				+ "3"
+				+ MqttTopicGenerator.TOPIC_LEVEL_SEPERATOR
+				+ MqttTopicGenerator.TOPIC_LEVEL_STATE;
+		assertEquals(expected, generator.getStateTopic(3));
+	}
+	
 	@Test
 	void testGetCapacityTopic_Elevator1() {
 		final String expected = MqttTopicGenerator.TOPIC_LEVEL_BUILDING 
@@ -266,4 +278,22 @@ class MqttTopicGeneratorTest {
 				+ MqttTopicGenerator.TOPIC_LEVEL_DOWN;
 		assertEquals(expected, generator.getButtonDownTopic(1));
 	}
+
+	@Test
+	void testGetTopicClass() {
+		assertEquals(TopicClass.CONFIGURATION, generator.getTopicClass(generator.getConnectedTopic()));
+		assertEquals(TopicClass.CONFIGURATION, generator.getTopicClass(generator.getNumElevatorsTopic()));
+		assertEquals(TopicClass.CONFIGURATION, generator.getTopicClass(generator.getFloorHeightTopic()));
+		assertEquals(TopicClass.CONFIGURATION, generator.getTopicClass(generator.getCapacityTopic(1)));
+		assertEquals(TopicClass.CONFIGURATION, generator.getTopicClass(generator.getServicesFloorTopic(1, 2)));
+		assertEquals(TopicClass.TELEMETRY, generator.getTopicClass(generator.getPositionTopic(1)));
+		assertEquals(TopicClass.TELEMETRY, generator.getTopicClass(generator.getStateTopic(1)));
+		assertEquals(TopicClass.BUTTON_STATE, generator.getTopicClass(generator.getButtonTopic(1, 2)));
+		assertEquals(TopicClass.BUTTON_STATE, generator.getTopicClass(generator.getButtonUpTopic(2)));
+		assertEquals(TopicClass.BUTTON_STATE, generator.getTopicClass(generator.getButtonDownTopic(2)));
+		assertEquals(TopicClass.CONTROL, generator.getTopicClass(generator.getSetTargetTopic(1)));
+		assertEquals(TopicClass.CONTROL, generator.getTopicClass(generator.getSetDirectionTopic(1)));
+		assertEquals(TopicClass.CONTROL, generator.getTopicClass(generator.getSetServicesFloorTopic(1, 2)));
+		assertEquals(TopicClass.TELEMETRY, generator.getTopicClass("other/topic"));
+	}
 }
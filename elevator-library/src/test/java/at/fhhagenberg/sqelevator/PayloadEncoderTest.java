@@ -0,0 +1,228 @@
+package at.fhhagenberg.sqelevator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+
+import org.junit.jupiter.api.Test;
+
+class PayloadEncoderTest {
+
+	@Test
+	void testEncodeMatchesByteBuffer() {
+		PayloadEncoder encoder = new PayloadEncoder();
+		int[] values = {0, 1, -1, PayloadEncoder.MIN_CACHED, PayloadEncoder.MAX_CACHED, PayloadEncoder.MAX_CACHED + 1,
+				PayloadEncoder.MIN_CACHED - 1, Integer.MAX_VALUE, Integer.MIN_VALUE, 652};
+
+		for(int value : values) {
+			byte[] expected = ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+			byte[] payload = encoder.encode(value);
+			assertArrayEquals(expected, payload);
+			assertEquals(value, PayloadEncoder.decode(payload));
+		}
+
+		assertArrayEquals(ByteBuffer.allocate(Integer.BYTES).putInt(1).array(), PayloadEncoder.encode(true));
+		assertArrayEquals(ByteBuffer.allocate(Integer.BYTES).putInt(0).array(), PayloadEncoder.encode(false));
+	}
+
+	@Test
+	void testSmallValuesAreShared() {
+		PayloadEncoder encoder = new PayloadEncoder();
+
+		assertSame(encoder.encode(3), new PayloadEncoder().encode(3));
+		assertSame(PayloadEncoder.encode(true), encoder.encode(1));
+		assertNotSame(encoder.encode(5000), encoder.encode(5000));
+	}
+
+	@Test
+	void testReleaseReusesArrays() {
+		PayloadEncoder encoder = new PayloadEncoder(1);
+		byte[] first = encoder.encode(5000);
+
+		encoder.release(first);
+		assertEquals(1, encoder.getPooledCount());
+		assertSame(first, encoder.encode(-5000));
+		assertEquals(-5000, PayloadEncoder.decode(first));
+		assertEquals(0, encoder.getPooledCount());
+
+		encoder.release(encoder.encode(1));
+		encoder.release(new byte[8]);
+		encoder.release(null);
+		assertEquals(0, encoder.getPooledCount());
+
+		encoder.release(new byte[4]);
+		encoder.release(new byte[4]);
+		assertEquals(1, encoder.getPooledCount());
+	}
+
+	@Test
+	void testInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new PayloadEncoder(-1));
+		assertThrows(IllegalArgumentException.class, () -> PayloadEncoder.decode(new byte[3]));
+	}
+
+	@Test
+	void testSteadyStateDoesNotAllocate() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(!(bean instanceof com.sun.management.ThreadMXBean)) {
+			return;
+		}
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		PayloadEncoder encoder = new PayloadEncoder();
+		long thread = Thread.currentThread().getId();
+
+		// warm up the pool and the JIT
+		encodeAndRelease(encoder, 100_000);
+
+		long before = threads.getThreadAllocatedBytes(thread);
+		long checksum = encodeAndRelease(encoder, 100_000);
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+		assertNotEquals(0, checksum);
+		assertTrue(allocated < 1024, "Allocated " + allocated + " bytes for 100000 payloads");
+	}
+
+	@Test
+	void testFrameReuse() {
+		PayloadEncoder encoder = new PayloadEncoder(1);
+		byte[] frame = encoder.frame(76);
+
+		encoder.release(frame);
+		assertEquals(1, encoder.getPooledFrameCount());
+		assertEquals(0, encoder.getPooledCount());
+		assertSame(frame, encoder.frame(76));
+
+		encoder.release(frame);
+		assertNotSame(frame, encoder.frame(92));
+		assertEquals(0, encoder.getPooledFrameCount());
+	}
+
+	@Test
+	void testPublishPathAllocation() throws Exception {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(!(bean instanceof com.sun.management.ThreadMXBean)) {
+			return;
+		}
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		StubTransport transport = new StubTransport();
+		ElevatorsMqttClient client = new ElevatorsMqttClient("localhost", 1883, transport);
+		client.useTopicTable(4, 20);
+		assertTrue(client.connect());
+
+		ElevatorSnapshot state = new ElevatorSnapshot(1, 2, 0, 10, 1, 3, 120, 0, 70_000, 3, 20, new long[] {0b1010}, new long[] {0xfffff});
+
+		// warm up the pools, the topic table and the JIT
+		publish(client, state, 50_000);
+
+		long[] ids = publishThreads();
+		long before = sum(threads.getThreadAllocatedBytes(ids));
+		publish(client, state, 50_000);
+		long allocated = sum(threads.getThreadAllocatedBytes(ids)) - before;
+
+		client.disconnect();
+
+		// 4 messages per round: button (pipeline), position and weight (conflated) and the state frame (conflated).
+		// Payloads and topics come from pools and tables; what remains is the future, queue entry and completion callback.
+		long perMessage = allocated / (50_000 * 4);
+		assertTrue(transport.sent.get() > 0);
+		assertTrue(perMessage < 256, "Allocated " + perMessage + " bytes per message");
+	}
+
+	private static void publish(ElevatorsMqttClient client, ElevatorSnapshot state, int rounds) {
+		CompletableFuture<Void> last = null;
+
+		for(int i = 0; i < rounds; ++i) {
+			client.publishButtonPressed(1, i % 20, (i & 1) == 0);
+			client.publishPosition(1, 100_000 + i);
+			client.publishWeight(2, 200_000 + i);
+			last = client.publishElevatorState(state);
+
+			if(i % 1000 == 999) {
+				last.join();
+			}
+		}
+
+		last.join();
+	}
+
+	private static long[] publishThreads() {
+		List<Long> ids = new ArrayList<>();
+		ids.add(Thread.currentThread().getId());
+
+		for(Thread thread : Thread.getAllStackTraces().keySet()) {
+			if(thread.getName().startsWith("mqtt-publish-")) {
+				ids.add(thread.getId());
+			}
+		}
+
+		return ids.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	private static long sum(long[] values) {
+		long sum = 0;
+
+		for(long value : values) {
+			sum += Math.max(0, value);
+		}
+
+		return sum;
+	}
+
+	private static class StubTransport implements IMqttTransport {
+		private static final CompletableFuture<Void> ACK = CompletableFuture.completedFuture(null);
+		private final AtomicLong sent = new AtomicLong();
+
+		@Override
+		public int getVersion() {
+			return 3;
+		}
+
+		@Override
+		public boolean connect() {
+			return true;
+		}
+
+		@Override
+		public void disconnect() {
+		}
+
+		@Override
+		public CompletableFuture<?> publish(MqttTopic topic, byte[] payload, MqttQos qos, boolean retain, long expirySeconds) {
+			sent.incrementAndGet();
+			return ACK;
+		}
+
+		@Override
+		public boolean subscribe(List<String> filters, List<MqttQos> qos, IMessageHandler handler) {
+			return true;
+		}
+
+		@Override
+		public void unsubscribe(String filter) {
+		}
+	}
+
+	private static long encodeAndRelease(PayloadEncoder encoder, int count) {
+		long checksum = 0;
+
+		for(int i = 0; i < count; ++i) {
+			byte[] small = encoder.encode(i % 4);
+			byte[] large = encoder.encode(100_000 + i);
+			checksum += small[3] + large[3] + PayloadEncoder.encode((i & 1) == 0)[3];
+			encoder.release(small);
+			encoder.release(large);
+		}
+
+		return checksum;
+	}
+}
@@ -0,0 +1,68 @@
+package at.fhhagenberg.sqelevator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+class PollingPolicyTest {
+
+	@Test
+	void testDefault() {
+		for(PolledField field : PolledField.values()) {
+			assertEquals(PollRate.NORMAL, PollingPolicy.DEFAULT.getRate(field));
+		}
+
+		assertEquals(PollingPolicy.DEFAULT_INTERVAL, PollingPolicy.DEFAULT.getInterval(PollRate.NORMAL));
+		assertEquals(PollingPolicy.DEFAULT_INTERVAL, PollingPolicy.DEFAULT.getTickPeriod());
+	}
+
+	@Test
+	void testWithRateAndInterval() {
+		PollingPolicy policy = PollingPolicy.DEFAULT
+				.withRate(PolledField.POSITION, PollRate.FAST)
+				.withInterval(PollRate.FAST, 50);
+
+		assertEquals(PollRate.FAST, policy.getRate(PolledField.POSITION));
+		assertEquals(50, policy.getInterval(PollRate.FAST));
+		assertEquals(50, policy.getTickPeriod());
+		assertEquals(PollRate.NORMAL, PollingPolicy.DEFAULT.getRate(PolledField.POSITION));
+
+		// fast interval is not used by any field
+		assertEquals(PollingPolicy.DEFAULT_INTERVAL, PollingPolicy.DEFAULT.withInterval(PollRate.FAST, 50).getTickPeriod());
+	}
+
+	@Test
+	void testParse() {
+		Properties props = new Properties();
+		props.setProperty("polling_interval", "200");
+		props.setProperty("polling_interval_fast", "100");
+		props.setProperty("poll_position", "fast");
+		props.setProperty("poll_capacity", " Static ");
+		props.setProperty("poll_services_floors", "slow");
+
+		PollingPolicy policy = PollingPolicy.parse(props);
+
+		assertEquals(PollRate.FAST, policy.getRate(PolledField.POSITION));
+		assertEquals(PollRate.STATIC, policy.getRate(PolledField.CAPACITY));
+		assertEquals(PollRate.SLOW, policy.getRate(PolledField.SERVICES_FLOORS));
+		assertEquals(PollRate.NORMAL, policy.getRate(PolledField.SPEED));
+		assertEquals(100, policy.getInterval(PollRate.FAST));
+		assertEquals(200, policy.getInterval(PollRate.NORMAL));
+		assertEquals(2000, policy.getInterval(PollRate.SLOW));
+		assertEquals(100, policy.getTickPeriod());
+	}
+
+	@Test
+	void testInvalid() {
+		Properties props = new Properties();
+		props.setProperty("poll_speed", "sometimes");
+
+		assertThrows(IllegalArgumentException.class, () -> PollingPolicy.parse(props));
+		assertThrows(IllegalArgumentException.class, () -> PollingPolicy.parse(null));
+		assertThrows(IllegalArgumentException.class, () -> PollingPolicy.DEFAULT.withInterval(PollRate.STATIC, 100));
+		assertThrows(IllegalArgumentException.class, () -> PollingPolicy.DEFAULT.withInterval(PollRate.SLOW, 0));
+		assertThrows(IllegalArgumentException.class, () -> PollingPolicy.DEFAULT.withRate(null, PollRate.FAST));
+	}
+}
@@ -0,0 +1,100 @@
+package at.fhhagenberg.sqelevator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+class PublishMetricsTest {
+
+	@Test
+	void testCounts() {
+		PublishMetrics metrics = new PublishMetrics();
+
+		long first = metrics.published(TopicClass.TELEMETRY);
+		long second = metrics.published(TopicClass.TELEMETRY);
+		long third = metrics.published(TopicClass.CONTROL);
+
+		assertEquals(2, metrics.getPublishedCount(TopicClass.TELEMETRY));
+		assertEquals(1, metrics.getPublishedCount(TopicClass.CONTROL));
+		assertEquals(0, metrics.getPublishedCount(TopicClass.BUTTON_STATE));
+		assertEquals(3, metrics.getPublishedCount());
+		assertEquals(3, metrics.getInFlightCount());
+		assertEquals(2L, metrics.getPublishedCounts().get("telemetry"));
+
+		metrics.completed(first, null);
+		metrics.completed(second, new IllegalStateException("failed"));
+
+		assertEquals(1, metrics.getInFlightCount());
+		assertEquals(1, metrics.getCompletedCount());
+		assertEquals(1, metrics.getFailedCount());
+
+		metrics.completed(third, null);
+		metrics.reset();
+
+		assertEquals(0, metrics.getInFlightCount());
+		assertEquals(0, metrics.getPublishedCount());
+		assertEquals(0, metrics.getCompletedCount());
+		assertEquals(0, metrics.getFailedCount());
+		assertEquals(0, metrics.getLatencyMaxMicros());
+	}
+
+	@Test
+	void testLatency() {
+		PublishMetrics metrics = new PublishMetrics();
+
+		assertEquals(0, metrics.getLatencyP50Micros());
+		assertEquals(0, metrics.getLatencyMeanMicros());
+
+		for(int i = 0; i < 100; ++i) {
+			metrics.completed(metrics.published(TopicClass.TELEMETRY), null);
+		}
+
+		metrics.completed(System.nanoTime() - 5_000_000_000L, null);
+
+		long[] histogram = metrics.getLatencyHistogram();
+		long[] bounds = metrics.getLatencyBucketBoundsMicros();
+		long total = 0;
+
+		for(long count : histogram) {
+			total += count;
+		}
+
+		assertEquals(PublishMetrics.BUCKETS, histogram.length);
+		assertEquals(PublishMetrics.BUCKETS - 1, bounds.length);
+		assertEquals(1, bounds[0]);
+		assertEquals(1024, bounds[10]);
+		assertEquals(101, total);
+		assertTrue(metrics.getLatencyMaxMicros() >= 5_000_000);
+		assertTrue(metrics.getLatencyP50Micros() < 1_000_000);
+		assertTrue(metrics.getLatencyPercentileMicros(1.0) >= 5_000_000);
+		assertTrue(metrics.getLatencyMeanMicros() > 0);
+		assertThrows(IllegalArgumentException.class, () -> metrics.getLatencyPercentileMicros(1.5));
+	}
+
+	@Test
+	void testRegister() throws JMException {
+		PublishMetrics metrics = new PublishMetrics();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		ObjectName name = metrics.register("test");
+		metrics.published(TopicClass.CONFIGURATION);
+
+		assertTrue(server.isRegistered(name));
+		assertEquals(1L, server.getAttribute(name, "PublishedCount"));
+		assertEquals(1L, server.getAttribute(name, "InFlightCount"));
+
+		PublishMetrics other = new PublishMetrics();
+		assertEquals(name, other.register("test"));
+		assertEquals(0L, server.getAttribute(name, "PublishedCount"));
+
+		other.unregister();
+		metrics.unregister();
+		assertFalse(server.isRegistered(name));
+	}
+}
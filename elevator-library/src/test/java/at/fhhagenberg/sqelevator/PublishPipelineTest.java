@@ -0,0 +1,215 @@
+package at.fhhagenberg.sqelevator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+
+@Timeout(value = 10, unit = TimeUnit.SECONDS)
+class PublishPipelineTest {
+
+	private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+
+	private CompletableFuture<?> record(String topic, byte[] payload, MqttQos qos, boolean retain) {
+		sent.add(topic + "=" + payload[0]);
+		return CompletableFuture.completedFuture(null);
+	}
+
+	@Test
+	void testInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new PublishPipeline(null, 1, 1, BackpressurePolicy.BLOCK));
+		assertThrows(IllegalArgumentException.class, () -> new PublishPipeline(this::record, 0, 1, BackpressurePolicy.BLOCK));
+		assertThrows(IllegalArgumentException.class, () -> new PublishPipeline(this::record, 1, 0, BackpressurePolicy.BLOCK));
+		assertThrows(IllegalArgumentException.class, () -> new PublishPipeline(this::record, 1, 2, BackpressurePolicy.BLOCK));
+		assertThrows(IllegalArgumentException.class, () -> new PublishPipeline(this::record, 1, 1, null));
+	}
+
+	@Test
+	void testSubmitCompletesOnAcknowledge() throws Exception {
+		CompletableFuture<Object> ack = new CompletableFuture<>();
+		PublishPipeline pipeline = new PublishPipeline((topic, payload, qos, retain) -> ack, 4, 1, BackpressurePolicy.BLOCK);
+
+		CompletableFuture<Void> future = pipeline.submit("a", new byte[] {1}, MqttQos.AT_MOST_ONCE, true);
+		Thread.sleep(50);
+		assertFalse(future.isDone());
+
+		ack.complete(null);
+		future.get(1, TimeUnit.SECONDS);
+		pipeline.close();
+	}
+
+	@Test
+	void testSubmitFailsOnSendError() throws Exception {
+		PublishPipeline pipeline = new PublishPipeline((topic, payload, qos, retain) -> CompletableFuture.failedFuture(new IllegalStateException("broker")), 4, 1, BackpressurePolicy.BLOCK);
+
+		CompletableFuture<Void> future = pipeline.submit("a", new byte[] {1}, MqttQos.AT_MOST_ONCE, true);
+
+		assertThrows(Exception.class, () -> future.get(1, TimeUnit.SECONDS));
+		pipeline.close();
+	}
+
+	@Test
+	void testMessagesOfOneTopicKeepOrder() throws Exception {
+		PublishPipeline pipeline = new PublishPipeline(this::record, 16, 4, BackpressurePolicy.BLOCK);
+
+		for(byte i = 0; i < 10; ++i) {
+			pipeline.submit("a", new byte[] {i}, MqttQos.AT_MOST_ONCE, true);
+		}
+
+		pipeline.close();
+		assertEquals(10, sent.size());
+
+		for(int i = 0; i < 10; ++i) {
+			assertEquals("a=" + i, sent.get(i));
+		}
+	}
+
+	@Test
+	void testDropOldest() throws Exception {
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		PublishPipeline pipeline = new PublishPipeline((topic, payload, qos, retain) -> {
+			blocked.countDown();
+			awaitQuietly(release);
+			return record(topic, payload, qos, retain);
+		}, 2, 1, BackpressurePolicy.DROP_OLDEST);
+
+		pipeline.submit("a", new byte[] {0}, MqttQos.AT_MOST_ONCE, true);
+		blocked.await();
+		CompletableFuture<Void> oldest = pipeline.submit("b", new byte[] {1}, MqttQos.AT_MOST_ONCE, true);
+		pipeline.submit("c", new byte[] {2}, MqttQos.AT_MOST_ONCE, true);
+		pipeline.submit("d", new byte[] {3}, MqttQos.AT_MOST_ONCE, true);
+
+		assertTrue(oldest.isCancelled());
+		assertEquals(2, pipeline.getQueuedCount());
+
+		release.countDown();
+		pipeline.close();
+		assertEquals(List.of("a=0", "c=2", "d=3"), sent);
+	}
+
+	@Test
+	void testConflate() throws Exception {
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		PublishPipeline pipeline = new PublishPipeline((topic, payload, qos, retain) -> {
+			blocked.countDown();
+			awaitQuietly(release);
+			return record(topic, payload, qos, retain);
+		}, 4, 1, BackpressurePolicy.CONFLATE);
+
+		pipeline.submit("a", new byte[] {0}, MqttQos.AT_MOST_ONCE, true);
+		blocked.await();
+		CompletableFuture<Void> first = pipeline.submit("b", new byte[] {1}, MqttQos.AT_MOST_ONCE, true);
+		pipeline.submit("c", new byte[] {2}, MqttQos.AT_MOST_ONCE, true);
+		CompletableFuture<Void> second = pipeline.submit("b", new byte[] {3}, MqttQos.AT_MOST_ONCE, true);
+
+		assertSame(first, second);
+		assertEquals(2, pipeline.getQueuedCount());
+
+		release.countDown();
+		pipeline.close();
+		assertEquals(List.of("a=0", "b=3", "c=2"), sent);
+	}
+
+	@Test
+	void testBlockWaitsForSpace() throws Exception {
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		PublishPipeline pipeline = new PublishPipeline((topic, payload, qos, retain) -> {
+			blocked.countDown();
+			awaitQuietly(release);
+			return record(topic, payload, qos, retain);
+		}, 1, 1, BackpressurePolicy.BLOCK);
+
+		pipeline.submit("a", new byte[] {0}, MqttQos.AT_MOST_ONCE, true);
+		blocked.await();
+		pipeline.submit("b", new byte[] {1}, MqttQos.AT_MOST_ONCE, true);
+
+		Thread t = new Thread(() -> {
+			try {
+				pipeline.submit("c", new byte[] {2}, MqttQos.AT_MOST_ONCE, true);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		t.start();
+		Thread.sleep(100);
+		assertTrue(t.isAlive());
+
+		release.countDown();
+		t.join();
+		pipeline.close();
+		assertEquals(List.of("a=0", "b=1", "c=2"), sent);
+	}
+
+	@Test
+	void testQosAndRetainAreForwarded() throws Exception {
+		List<String> received = Collections.synchronizedList(new ArrayList<>());
+		PublishPipeline pipeline = new PublishPipeline((topic, payload, qos, retain) -> {
+			received.add(topic + ":" + qos + ":" + retain);
+			return CompletableFuture.completedFuture(null);
+		}, 4, 1, BackpressurePolicy.BLOCK);
+
+		pipeline.submit("a", new byte[] {0}, MqttQos.EXACTLY_ONCE, false);
+		pipeline.close();
+
+		assertEquals(List.of("a:EXACTLY_ONCE:false"), received);
+		assertThrows(IllegalArgumentException.class, () -> pipeline.submit("a", new byte[] {0}, null, true));
+	}
+
+	@Test
+	void testRecycledPayloads() throws Exception {
+		List<byte[]> recycled = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		PublishPipeline pipeline = new PublishPipeline((topic, payload, qos, retain) -> {
+			blocked.countDown();
+			awaitQuietly(release);
+			return record(topic, payload, qos, retain);
+		}, 4, 1, BackpressurePolicy.CONFLATE, recycled::add);
+
+		byte[] sentPayload = {0};
+		byte[] replaced = {1};
+		byte[] latest = {2};
+		byte[] notRecycled = {3};
+
+		pipeline.submit("a", sentPayload, MqttQos.AT_MOST_ONCE, true, true);
+		blocked.await();
+		pipeline.submit("b", replaced, MqttQos.AT_MOST_ONCE, true, true);
+		pipeline.submit("b", latest, MqttQos.AT_MOST_ONCE, true, true);
+		pipeline.submit("c", notRecycled, MqttQos.AT_MOST_ONCE, true, false);
+		assertEquals(List.of(replaced), recycled);
+
+		release.countDown();
+		pipeline.close();
+
+		assertEquals(List.of(replaced, sentPayload, latest), recycled);
+		assertEquals(List.of("a=0", "b=2", "c=3"), sent);
+	}
+
+	@Test
+	void testSubmitAfterClose() throws Exception {
+		PublishPipeline pipeline = new PublishPipeline(this::record, 4, 1, BackpressurePolicy.BLOCK);
+		pipeline.close();
+
+		assertTrue(pipeline.submit("a", new byte[] {0}, MqttQos.AT_MOST_ONCE, true).isCompletedExceptionally());
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package at.fhhagenberg.sqelevator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+
+class TopicPolicyTest {
+
+	@Test
+	void testDefault() {
+		assertEquals(MqttQos.AT_MOST_ONCE, TopicPolicy.DEFAULT.getQos(TopicClass.TELEMETRY));
+		assertEquals(MqttQos.AT_LEAST_ONCE, TopicPolicy.DEFAULT.getQos(TopicClass.BUTTON_STATE));
+		assertEquals(MqttQos.AT_LEAST_ONCE, TopicPolicy.DEFAULT.getQos(TopicClass.CONFIGURATION));
+		assertEquals(MqttQos.EXACTLY_ONCE, TopicPolicy.DEFAULT.getQos(TopicClass.CONTROL));
+
+		for(TopicClass topicClass : TopicClass.values()) {
+			assertTrue(TopicPolicy.DEFAULT.isRetained(topicClass));
+			assertEquals(topicClass == TopicClass.TELEMETRY, TopicPolicy.DEFAULT.isConflated(topicClass));
+		}
+	}
+
+	@Test
+	void testWithQosAndRetain() {
+		TopicPolicy policy = TopicPolicy.DEFAULT
+				.withQos(TopicClass.TELEMETRY, MqttQos.EXACTLY_ONCE)
+				.withRetain(TopicClass.CONTROL, false);
+
+		assertEquals(MqttQos.EXACTLY_ONCE, policy.getQos(TopicClass.TELEMETRY));
+		assertFalse(policy.isRetained(TopicClass.CONTROL));
+		assertEquals(MqttQos.AT_MOST_ONCE, TopicPolicy.DEFAULT.getQos(TopicClass.TELEMETRY));
+		assertTrue(TopicPolicy.DEFAULT.isRetained(TopicClass.CONTROL));
+	}
+
+	@Test
+	void testParse() {
+		Properties props = new Properties();
+		props.setProperty("qos_telemetry", "1");
+		props.setProperty("qos_control", " 0 ");
+		props.setProperty("retain_button_state", "false");
+		props.setProperty("conflate_telemetry", "false");
+		props.setProperty("conflate_button_state", "true");
+
+		TopicPolicy policy = TopicPolicy.parse(props);
+
+		assertEquals(MqttQos.AT_LEAST_ONCE, policy.getQos(TopicClass.TELEMETRY));
+		assertEquals(MqttQos.AT_MOST_ONCE, policy.getQos(TopicClass.CONTROL));
+		assertEquals(MqttQos.AT_LEAST_ONCE, policy.getQos(TopicClass.CONFIGURATION));
+		assertFalse(policy.isRetained(TopicClass.BUTTON_STATE));
+		assertTrue(policy.isRetained(TopicClass.TELEMETRY));
+		assertFalse(policy.isConflated(TopicClass.TELEMETRY));
+		assertTrue(policy.isConflated(TopicClass.BUTTON_STATE));
+	}
+
+	@Test
+	void testExpiry() {
+		TopicPolicy policy = TopicPolicy.DEFAULT.withExpiry(TopicClass.TELEMETRY, 30);
+
+		assertEquals(30, policy.getMessageExpiry(TopicClass.TELEMETRY));
+		assertEquals(0, policy.getMessageExpiry(TopicClass.CONTROL));
+		assertEquals(0, TopicPolicy.DEFAULT.getMessageExpiry(TopicClass.TELEMETRY));
+
+		Properties props = new Properties();
+		props.setProperty("expiry_button_state", " 120 ");
+		assertEquals(120, TopicPolicy.parse(props).getMessageExpiry(TopicClass.BUTTON_STATE));
+
+		assertThrows(IllegalArgumentException.class, () -> TopicPolicy.DEFAULT.withExpiry(TopicClass.TELEMETRY, -1));
+		assertThrows(IllegalArgumentException.class, () -> TopicPolicy.DEFAULT.withExpiry(null, 1));
+	}
+
+	@Test
+	void testParseInvalid() {
+		Properties props = new Properties();
+		props.setProperty("qos_telemetry", "3");
+
+		IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> TopicPolicy.parse(props));
+		assertEquals("QoS must be 0, 1 or 2!", thrown.getMessage());
+		assertThrows(IllegalArgumentException.class, () -> TopicPolicy.parse(null));
+		assertThrows(IllegalArgumentException.class, () -> TopicPolicy.DEFAULT.withQos(TopicClass.CONTROL, null));
+	}
+}
@@ -0,0 +1,90 @@
+package at.fhhagenberg.sqelevator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TopicRouterTest {
+
+	private final MqttTopicGenerator generator = new MqttTopicGenerator();
+	private final List<String> received = new ArrayList<>();
+
+	private TopicRouter.IHandler record(String name) {
+		return (elevator, floor, payload) -> received.add(name + ":" + elevator + ":" + floor + ":" + payload.getInt());
+	}
+
+	private static ByteBuffer payload(int value) {
+		return ByteBuffer.allocate(Integer.BYTES).putInt(0, value);
+	}
+
+	@Test
+	void testRouteToTypedHandlers() {
+		TopicRouter router = new TopicRouter(12, 120)
+				.on(TopicKind.SET_TARGET, record("target"))
+				.on(TopicKind.SET_SERVICES_FLOOR, record("services"))
+				.on(TopicKind.BUTTON_UP, record("up"))
+				.on(TopicKind.NUM_FLOORS, record("floors"));
+
+		assertTrue(router.route(generator.getSetTargetTopic(11), payload(5)));
+		assertTrue(router.route(generator.getSetServicesFloorTopic(3, 104), payload(1)));
+		assertTrue(router.route(generator.getButtonUpTopic(7), payload(0)));
+		assertTrue(router.route(generator.getNumFloorsTopic(), payload(120)));
+
+		assertEquals(List.of("target:11:-1:5", "services:3:104:1", "up:-1:7:0", "floors:-1:-1:120"), received);
+	}
+
+	@Test
+	void testIgnoredTopics() {
+		TopicRouter router = new TopicRouter(2, 3).on(TopicKind.SET_TARGET, record("target"));
+
+		assertFalse(router.route(generator.getSetDirectionTopic(0), payload(0)));
+		assertFalse(router.route(generator.getSetTargetTopic(2), payload(0)));
+		assertFalse(router.route("building/elevator/x/setTarget", payload(0)));
+		assertFalse(router.route("building/elevator/-1/setTarget", payload(0)));
+		assertFalse(router.route("building/elevator/0/setTarget/", payload(0)));
+		assertFalse(router.route("building/elevator/0", payload(0)));
+		assertFalse(router.route("other", payload(0)));
+		assertFalse(router.route("", payload(0)));
+		assertTrue(received.isEmpty());
+	}
+
+	@Test
+	void testEveryKindIsRouted() {
+		TopicRouter router = new TopicRouter(2, 3);
+
+		for(TopicKind kind : TopicKind.values()) {
+			router.on(kind, record(kind.name()));
+		}
+
+		for(TopicKind kind : TopicKind.values()) {
+			received.clear();
+			assertTrue(router.route(kind.buildTopic(generator, 1, 2), payload(9)));
+			assertEquals(List.of(kind.name() + ":" + (kind.isPerElevator() ? 1 : -1) + ":" + (kind.isPerFloor() ? 2 : -1) + ":9"), received);
+		}
+	}
+
+	@Test
+	void testTopicFilters() {
+		TopicRouter router = new TopicRouter(2, 3)
+				.on(TopicKind.SET_DIRECTION, record("direction"))
+				.on(TopicKind.SET_SERVICES_FLOOR, record("services"))
+				.on(TopicKind.BUTTON_DOWN, record("down"));
+
+		assertEquals(List.of("building/elevator/+/setdirection", "building/elevator/+/setservicesFloor/+", "building/floor/+/down"),
+				router.getTopicFilters());
+		assertEquals("building/floor/height", TopicRouter.getTopicFilter(TopicKind.FLOOR_HEIGHT));
+	}
+
+	@Test
+	void testInvalidArguments() {
+		TopicRouter router = new TopicRouter(1, 1);
+
+		assertThrows(IllegalArgumentException.class, () -> new TopicRouter(-1, 1));
+		assertThrows(IllegalArgumentException.class, () -> router.on(null, record("x")));
+		assertThrows(IllegalArgumentException.class, () -> router.on(TopicKind.SPEED, null));
+	}
+}
@@ -0,0 +1,84 @@
+package at.fhhagenberg.sqelevator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.hivemq.client.mqtt.datatypes.MqttTopic;
+
+class TopicTableTest {
+
+	private final MqttTopicGenerator generator = new MqttTopicGenerator();
+
+	@Test
+	void testTopicsMatchGenerator() {
+		TopicTable table = new TopicTable(2, 3);
+
+		assertEquals(generator.getConnectedTopic(), table.getTopic(TopicKind.CONNECTED));
+		assertEquals(generator.getNumElevatorsTopic(), table.getTopic(TopicKind.NUM_ELEVATORS));
+		assertEquals(generator.getPositionTopic(1), table.getTopic(TopicKind.POSITION, 1));
+		assertEquals(generator.getSetTargetTopic(0), table.getTopic(TopicKind.SET_TARGET, 0));
+		assertEquals(generator.getButtonTopic(1, 2), table.getTopic(TopicKind.BUTTON, 1, 2));
+		assertEquals(generator.getSetServicesFloorTopic(0, 1), table.getTopic(TopicKind.SET_SERVICES_FLOOR, 0, 1));
+		assertEquals(generator.getButtonUpTopic(2), table.getTopic(TopicKind.BUTTON_UP, 2));
+		assertEquals(generator.getButtonDownTopic(0), table.getTopic(TopicKind.BUTTON_DOWN, 0));
+	}
+
+	@Test
+	void testAllTopicsAreUnique() {
+		TopicTable table = new TopicTable(2, 3);
+
+		for(TopicKind kind : TopicKind.values()) {
+			int elevators = kind.isPerElevator() ? 2 : 1;
+			int floors = kind.isPerFloor() ? 3 : 1;
+
+			for(int e = 0; e < elevators; ++e) {
+				for(int f = 0; f < floors; ++f) {
+					TopicTable.Entry entry = table.getEntry(kind, e, f);
+					assertSame(entry, table.lookup(entry.getTopic()));
+					assertEquals(kind, entry.getKind());
+					assertEquals(kind.isPerElevator() ? e : -1, entry.getElevator());
+					assertEquals(kind.isPerFloor() ? f : -1, entry.getFloor());
+					assertEquals(entry.getTopic(), entry.getMqttTopic().toString());
+				}
+			}
+		}
+	}
+
+	@Test
+	void testLookup() {
+		TopicTable table = new TopicTable(2, 3);
+
+		TopicTable.Entry entry = table.lookup(MqttTopic.of(generator.getSetServicesFloorTopic(1, 2)));
+		assertEquals(TopicKind.SET_SERVICES_FLOOR, entry.getKind());
+		assertEquals(1, entry.getElevator());
+		assertEquals(2, entry.getFloor());
+
+		assertNull(table.lookup(generator.getPositionTopic(2)));
+		assertNull(table.lookup("unknown"));
+	}
+
+	@Test
+	void testContains() {
+		TopicTable table = new TopicTable(2, 3);
+
+		assertTrue(table.contains(TopicKind.CONNECTED, 5, 5));
+		assertTrue(table.contains(TopicKind.BUTTON_UP, 5, 2));
+		assertFalse(table.contains(TopicKind.BUTTON_UP, 0, 3));
+		assertFalse(table.contains(TopicKind.POSITION, -1, 0));
+		assertThrows(IllegalArgumentException.class, () -> table.getTopic(TopicKind.BUTTON, 2, 0));
+	}
+
+	@Test
+	void testInvalidSize() {
+		assertThrows(IllegalArgumentException.class, () -> new TopicTable(-1, 3));
+		assertThrows(IllegalArgumentException.class, () -> new TopicTable(1, -3));
+	}
+
+	@Test
+	void testTopicClass() {
+		assertEquals(generator.getTopicClass(generator.getSetTargetTopic(0)), TopicKind.SET_TARGET.getTopicClass());
+		assertEquals(generator.getTopicClass(generator.getServicesFloorTopic(0, 0)), TopicKind.SERVICES_FLOOR.getTopicClass());
+		assertEquals(generator.getTopicClass(generator.getButtonDownTopic(0)), TopicKind.BUTTON_DOWN.getTopicClass());
+	}
+}
@@ -0,0 +1,148 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
+
+/**
+ * Tracks the activity of the elevators to back off polling of idle cars.
+ *
+ * The ElevatorUpdater reports each snapshot with update(); a car is idle if the snapshot is (ElevatorSnapshot.isIdle()).
+ * An idle car is only read on every n-th tick (the idle interval), an active car on every tick. A hall button press
+ * (FloorUpdater) wakes all cars and a control command (ElevatorMqttBridge) wakes its car, so the car is read again on
+ * the next tick and its first movement is published without the idle delay. A wake during a read is not lost: the
+ * car stays awake until a snapshot read after the wake reports it idle again.
+ * With an idle interval of 1 tick (default) every car is read on every tick. Elevator numbers outside of the monitor
+ * are always read and never woken, so a monitor for 0 elevators disables the monitoring.
+ */
+public class ActivityMonitor {
+
+	private static final int ACTIVE = -1;
+	private static final int WOKEN = -2;
+
+	/**
+	 * Per car ACTIVE, WOKEN or the number of ticks skipped since the last read of the idle car.
+	 */
+	private final AtomicIntegerArray states;
+	private volatile int idleEveryTicks = 1;
+
+	/**
+	 * Create a new monitor for the given number of elevators, all active.
+	 * @param numberOfElevators the number of elevators in the building
+	 */
+	public ActivityMonitor(int numberOfElevators) {
+		if(numberOfElevators < 0) {
+			throw new IllegalArgumentException("Number of elevators must be >=0!");
+		}
+
+		states = new AtomicIntegerArray(numberOfElevators);
+
+		for(int i = 0; i < numberOfElevators; ++i) {
+			states.set(i, ACTIVE);
+		}
+	}
+
+	/**
+	 * Provides the number of ticks between two reads of an idle car.
+	 * @return the idle interval in ticks, 1 if idle cars are read on every tick
+	 */
+	public int getIdleEveryTicks() {
+		return idleEveryTicks;
+	}
+
+	/**
+	 * Sets the number of ticks between two reads of an idle car.
+	 * @param idleEveryTicks the idle interval in ticks, 1 reads idle cars on every tick
+	 */
+	public void setIdleEveryTicks(int idleEveryTicks) {
+		if(idleEveryTicks <= 0) {
+			throw new IllegalArgumentException("Idle interval must be greater than 0!");
+		}
+
+		this.idleEveryTicks = idleEveryTicks;
+	}
+
+	/**
+	 * Decides whether the car is read on the current tick. Must be called once per tick and car.
+	 * @param elevator the number of the elevator
+	 * @return whether the car is read (true) or keeps its last state (false)
+	 */
+	public boolean shouldPoll(int elevator) {
+		if(elevator < 0 || elevator >= states.length()) {
+			return true;
+		}
+
+		while(true) {
+			int state = states.get(elevator);
+
+			if(state == ACTIVE) {
+				return true;
+			}
+
+			if(state == WOKEN) {
+				if(states.compareAndSet(elevator, WOKEN, ACTIVE)) {
+					return true;
+				}
+				continue;
+			}
+
+			boolean poll = state + 1 >= idleEveryTicks;
+
+			if(states.compareAndSet(elevator, state, poll ? 0 : state + 1)) {
+				return poll;
+			}
+		}
+	}
+
+	/**
+	 * Reports a snapshot read from the car which decides whether the car is idle.
+	 * @param elevator the number of the elevator
+	 * @param snapshot the snapshot read from the car
+	 */
+	public void update(int elevator, ElevatorSnapshot snapshot) {
+		if(elevator < 0 || elevator >= states.length()) {
+			return;
+		}
+
+		if(snapshot.isIdle()) {
+			states.compareAndSet(elevator, ACTIVE, 0);
+			return;
+		}
+
+		while(true) {
+			int state = states.get(elevator);
+
+			if(state == ACTIVE || state == WOKEN || states.compareAndSet(elevator, state, ACTIVE)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Wakes a car, it is read on the next tick and until it is idle again.
+	 * @param elevator the number of the elevator
+	 */
+	public void wake(int elevator) {
+		if(elevator >= 0 && elevator < states.length()) {
+			states.set(elevator, WOKEN);
+		}
+	}
+
+	/**
+	 * Wakes all cars, e.g. on a hall button press which any car may serve.
+	 */
+	public void wakeAll() {
+		for(int i = 0; i < states.length(); ++i) {
+			states.set(i, WOKEN);
+		}
+	}
+
+	/**
+	 * Provides whether the car was idle at its last read.
+	 * @param elevator the number of the elevator
+	 * @return whether the car is idle (true) or active or woken (false)
+	 */
+	public boolean isIdle(int elevator) {
+		return elevator >= 0 && elevator < states.length() && states.get(elevator) >= 0;
+	}
+}
@@ -0,0 +1,73 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import java.rmi.RemoteException;
+
+import at.fhhagenberg.sqelevator.Building;
+import at.fhhagenberg.sqelevator.Elevator;
+import at.fhhagenberg.sqelevator.IMqttMessageListener;
+
+/**
+ * Listens to the MQTT control messages of all elevators of a building and updates the elevators accordingly.
+ * It handles the control messages if the ElevatorsMqttAdapter publishes a BuildingState instead of running the
+ * ElevatorMqttBridges, which handle them otherwise. Like the bridges it wakes the elevator in the ActivityMonitor,
+ * so its reaction is polled without the idle delay; the changed values are published after the next tick.
+ */
+public class BuildingControlListener implements IMqttMessageListener {
+
+	private final Elevator[] elevators;
+	private final ActivityMonitor activity;
+
+	/**
+	 * Create a new listener for the elevators of the given building.
+	 * @param building the building whose elevators are controlled
+	 * @param activity the monitor of the elevators to wake
+	 */
+	public BuildingControlListener(Building building, ActivityMonitor activity) {
+		if(building == null || activity == null) {
+			throw new IllegalArgumentException("Building and activity monitor must be valid!");
+		}
+
+		this.elevators = building.getElevators();
+		this.activity = activity;
+	}
+
+	private boolean isValid(int elevator) {
+		return elevator >= 0 && elevator < elevators.length;
+	}
+
+	@Override
+	public void setCommittedDirection(int elevator, int direction) {
+		if(isValid(elevator)) {
+			try {
+				elevators[elevator].setCommittedDirection(direction);
+				activity.wake(elevator);
+			} catch (RemoteException e) {
+				// Ignore RemoteException in this case, will be thrown at the next update cycle
+			}
+		}
+	}
+
+	@Override
+	public void setServicesFloor(int elevator, int floor, boolean service) {
+		if(isValid(elevator)) {
+			try {
+				elevators[elevator].setServicesFloor(floor, service);
+				activity.wake(elevator);
+			} catch (RemoteException e) {
+				// Ignore RemoteException in this case, will be thrown at the next update cycle
+			}
+		}
+	}
+
+	@Override
+	public void setTarget(int elevator, int target) {
+		if(isValid(elevator)) {
+			try {
+				elevators[elevator].setTarget(target);
+				activity.wake(elevator);
+			} catch (RemoteException e) {
+				// Ignore RemoteException in this case, will be thrown at the next update cycle
+			}
+		}
+	}
+}
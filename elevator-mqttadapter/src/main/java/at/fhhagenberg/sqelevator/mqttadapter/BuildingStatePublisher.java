@@ -0,0 +1,151 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import at.fhhagenberg.sqelevator.BuildingState;
+import at.fhhagenberg.sqelevator.ElevatorsMqttClient;
+import at.fhhagenberg.sqelevator.PolledField;
+import at.fhhagenberg.sqelevator.TelemetryFormat;
+
+/**
+ * Publishes the changed slots of a columnar BuildingState after a swap().
+ * It is the counterpart of the ElevatorMqttBridge and FloorMqttBridge for the BuildingState: instead of listening to
+ * every setter it walks the dirty elevators and floors of a tick, so the cost of a tick depends on the number of
+ * changes and not on the number of elevators and floors.
+ * The ElevatorsMqttAdapter uses it instead of the bridges if the building_state property is set.
+ */
+public class BuildingStatePublisher {
+
+	private final BuildingState state;
+	private final ElevatorsMqttClient mqtt;
+	private final TelemetryFormat telemetryFormat;
+
+	/**
+	 * Create a new publisher which publishes the per-field topics.
+	 * @param state the state to publish
+	 * @param mqtt the MQTT client to publish with
+	 */
+	public BuildingStatePublisher(BuildingState state, ElevatorsMqttClient mqtt) {
+		this(state, mqtt, TelemetryFormat.FIELDS);
+	}
+
+	/**
+	 * Create a new publisher.
+	 * @param state the state to publish
+	 * @param mqtt the MQTT client to publish with
+	 * @param telemetryFormat the format in which the elevator status is published
+	 */
+	public BuildingStatePublisher(BuildingState state, ElevatorsMqttClient mqtt, TelemetryFormat telemetryFormat) {
+		if(state == null || mqtt == null || telemetryFormat == null) {
+			throw new IllegalArgumentException("State, MQTT client and telemetry format must be valid!");
+		}
+
+		this.state = state;
+		this.mqtt = mqtt;
+		this.telemetryFormat = telemetryFormat;
+	}
+
+	/**
+	 * Swaps the buffers of the state and publishes the elevators and floors which changed.
+	 * @return whether anything changed (true) or not (false)
+	 */
+	public boolean publishTick() {
+		if(!state.swap()) {
+			return false;
+		}
+
+		for(int elevator = state.nextDirtyElevator(0); elevator >= 0; elevator = state.nextDirtyElevator(elevator + 1)) {
+			publishElevator(elevator, false);
+		}
+
+		for(int floor = state.nextDirtyFloor(0); floor >= 0; floor = state.nextDirtyFloor(floor + 1)) {
+			publishFloor(floor, false);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Swaps the buffers of the state and publishes all elevators and floors, e.g. the initial state on start.
+	 */
+	public void publishAll() {
+		state.swap();
+
+		for(int elevator = 0; elevator < state.getElevatorCount(); ++elevator) {
+			publishElevator(elevator, true);
+		}
+
+		for(int floor = 0; floor < state.getFloorCount(); ++floor) {
+			publishFloor(floor, true);
+		}
+	}
+
+	private void publishElevator(int elevator, boolean all) {
+		if(telemetryFormat.usesFieldTopics()) {
+			publishElevatorFields(elevator, all);
+		}
+
+		if(telemetryFormat.usesStateTopic()) {
+			mqtt.publishElevatorState(state.getSnapshot(elevator));
+		}
+	}
+
+	private void publishFloor(int floor, boolean all) {
+		if(all || state.isButtonUpChanged(floor)) {
+			mqtt.publishButtonUp(floor, state.isButtonUp(floor));
+		}
+
+		if(all || state.isButtonDownChanged(floor)) {
+			mqtt.publishButtonDown(floor, state.isButtonDown(floor));
+		}
+	}
+
+	private void publishElevatorFields(int elevator, boolean all) {
+		if(all || state.isDirty(elevator, PolledField.DIRECTION)) {
+			mqtt.publishDirection(elevator, state.get(elevator, PolledField.DIRECTION));
+		}
+
+		if(all || state.isDirty(elevator, PolledField.ACCELERATION)) {
+			mqtt.publishAcceleration(elevator, state.get(elevator, PolledField.ACCELERATION));
+		}
+
+		if(all || state.isDirty(elevator, PolledField.CAPACITY)) {
+			mqtt.publishCapacity(elevator, state.get(elevator, PolledField.CAPACITY));
+		}
+
+		if(all || state.isDirty(elevator, PolledField.DOORS)) {
+			mqtt.publishDoors(elevator, state.get(elevator, PolledField.DOORS));
+		}
+
+		if(all || state.isDirty(elevator, PolledField.FLOOR)) {
+			mqtt.publishFloor(elevator, state.get(elevator, PolledField.FLOOR));
+		}
+
+		if(all || state.isDirty(elevator, PolledField.POSITION)) {
+			mqtt.publishPosition(elevator, state.get(elevator, PolledField.POSITION));
+		}
+
+		if(all || state.isDirty(elevator, PolledField.SPEED)) {
+			mqtt.publishSpeed(elevator, state.get(elevator, PolledField.SPEED));
+		}
+
+		if(all || state.isDirty(elevator, PolledField.WEIGHT)) {
+			mqtt.publishWeight(elevator, state.get(elevator, PolledField.WEIGHT));
+		}
+
+		if(all || state.isDirty(elevator, PolledField.TARGET)) {
+			mqtt.publishTarget(elevator, state.get(elevator, PolledField.TARGET));
+		}
+
+		boolean stops = all || state.isDirty(elevator, PolledField.STOP_REQUESTS);
+		boolean services = all || state.isDirty(elevator, PolledField.SERVICES_FLOORS);
+
+		for(int floor = 0; (stops || services) && floor < state.getFloorCount(); ++floor) {
+			if(stops && (all || state.isStopRequestChanged(elevator, floor))) {
+				mqtt.publishButtonPressed(elevator, floor, state.getStopRequest(elevator, floor));
+			}
+
+			if(services && (all || state.isServicesFloorChanged(elevator, floor))) {
+				mqtt.publishServicesFloor(elevator, floor, state.getServicesFloor(elevator, floor));
+			}
+		}
+	}
+}
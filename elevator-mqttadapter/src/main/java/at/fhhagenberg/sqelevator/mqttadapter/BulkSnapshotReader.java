@@ -0,0 +1,38 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import java.rmi.RemoteException;
+
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
+import at.fhhagenberg.sqelevator.IElevatorBulk;
+
+/**
+ * Snapshot reader for remote APIs which implement IElevatorBulk: one remote call per elevator.
+ */
+public class BulkSnapshotReader implements IElevatorSnapshotReader {
+
+	private final IElevatorBulk plc;
+
+	/**
+	 * Create a new reader for the given bulk API.
+	 * @param plc the bulk API to read from
+	 */
+	public BulkSnapshotReader(IElevatorBulk plc) {
+		if(plc == null) {
+			throw new IllegalArgumentException("IElevatorBulk must not be null!");
+		}
+
+		this.plc = plc;
+	}
+
+	@Override
+	public ElevatorSnapshot readElevator(int elevatorNumber, int numberOfFloors) throws RemoteException {
+		ElevatorSnapshot snapshot = plc.getElevatorSnapshot(elevatorNumber);
+
+		if(snapshot == null || snapshot.getNumberOfFloors() != numberOfFloors) {
+			throw new RemoteException("Invalid snapshot of elevator " + elevatorNumber + "!");
+		}
+
+		return snapshot;
+	}
+
+}
@@ -0,0 +1,329 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import java.rmi.RemoteException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import sqelevator.IElevator;
+
+/**
+ * Read-through cache in front of an IElevator API.
+ *
+ * The building metadata (number of elevators and floors, floor height and elevator capacities) is fixed for a
+ * simulator scenario, so it is read once and cached for the lifetime of the object. The ElevatorsPlcConnection creates
+ * a new cache on every successful connect, so a reconnect to a restarted simulator reads the metadata again.
+ * The serviced floors change rarely (only via setServicesFloors) and are cached for the given time to live; a call of
+ * setServicesFloors updates the cached value. All other getters and setters are forwarded to the API.
+ * The getCached methods answer from the cache only and never call the API, so a caller can serve hits without
+ * going through the remote call handling (e.g. the circuit breaker of the ElevatorsPlcConnection).
+ */
+public class CachingElevator implements IElevator {
+
+	private final IElevator plc;
+	private final long ttlNanos;
+	private final LongSupplier clock;
+	private final Map<Integer, Integer> capacities = new ConcurrentHashMap<>();
+	private final Map<Long, CachedFlag> servicesFloors = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private volatile Integer elevatorNum;
+	private volatile Integer floorNum;
+	private volatile Integer floorHeight;
+
+	private static final class CachedFlag {
+		private final boolean value;
+		private final long expires;
+
+		private CachedFlag(boolean value, long expires) {
+			this.value = value;
+			this.expires = expires;
+		}
+	}
+
+	/**
+	 * Create a new cache which caches the building metadata only.
+	 * @param plc the API to read from
+	 */
+	public CachingElevator(IElevator plc) {
+		this(plc, 0);
+	}
+
+	/**
+	 * Create a new cache.
+	 * @param plc the API to read from
+	 * @param ttlMs the time to live of the cached serviced floors in ms, 0 to read them on every call
+	 */
+	public CachingElevator(IElevator plc, long ttlMs) {
+		this(plc, ttlMs, System::nanoTime);
+	}
+
+	CachingElevator(IElevator plc, long ttlMs, LongSupplier clock) {
+		if(plc == null) {
+			throw new IllegalArgumentException("Plc must be valid!");
+		}
+
+		if(ttlMs < 0) {
+			throw new IllegalArgumentException("Time to live must be >=0!");
+		}
+
+		this.plc = plc;
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+		this.clock = clock;
+	}
+
+	/**
+	 * Provides the API the cache reads from.
+	 * @return the API
+	 */
+	public IElevator getPlc() {
+		return plc;
+	}
+
+	/**
+	 * Removes all cached values, so they are read from the API again.
+	 */
+	public void invalidate() {
+		elevatorNum = null;
+		floorNum = null;
+		floorHeight = null;
+		capacities.clear();
+		servicesFloors.clear();
+	}
+
+	/**
+	 * Provides the number of calls which were answered from the cache.
+	 * @return the number of cache hits
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * Provides the number of cacheable calls which were forwarded to the API.
+	 * @return the number of cache misses
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	private <T> T count(T value) {
+		if(value != null) {
+			hits.increment();
+		}
+
+		return value;
+	}
+
+	private static long servicesFloorsKey(int elevatorNumber, int floor) {
+		return ((long) elevatorNumber << 32) | (floor & 0xffffffffL);
+	}
+
+	/**
+	 * Provides the cached number of elevators without calling the API.
+	 * @return the cached value (counted as hit) or null if it is not cached
+	 */
+	public Integer getCachedElevatorNum() {
+		return count(elevatorNum);
+	}
+
+	/**
+	 * Provides the cached number of floors without calling the API.
+	 * @return the cached value (counted as hit) or null if it is not cached
+	 */
+	public Integer getCachedFloorNum() {
+		return count(floorNum);
+	}
+
+	/**
+	 * Provides the cached floor height without calling the API.
+	 * @return the cached value (counted as hit) or null if it is not cached
+	 */
+	public Integer getCachedFloorHeight() {
+		return count(floorHeight);
+	}
+
+	/**
+	 * Provides the cached capacity of an elevator without calling the API.
+	 * @param elevatorNumber the number of the elevator
+	 * @return the cached value (counted as hit) or null if it is not cached
+	 */
+	public Integer getCachedElevatorCapacity(int elevatorNumber) {
+		return count(capacities.get(elevatorNumber));
+	}
+
+	/**
+	 * Provides the cached serviced floor flag of an elevator without calling the API.
+	 * @param elevatorNumber the number of the elevator
+	 * @param floor the number of the floor
+	 * @return the cached value (counted as hit) or null if it is not cached or expired
+	 */
+	public Boolean getCachedServicesFloors(int elevatorNumber, int floor) {
+		if(ttlNanos == 0) {
+			return null;
+		}
+
+		CachedFlag cached = servicesFloors.get(servicesFloorsKey(elevatorNumber, floor));
+
+		if(cached != null && clock.getAsLong() - cached.expires < 0) {
+			hits.increment();
+			return cached.value;
+		}
+
+		return null;
+	}
+
+	@Override
+	public int getElevatorNum() throws RemoteException {
+		Integer value = getCachedElevatorNum();
+
+		if(value == null) {
+			misses.increment();
+			value = plc.getElevatorNum();
+			elevatorNum = value;
+		}
+
+		return value;
+	}
+
+	@Override
+	public int getFloorNum() throws RemoteException {
+		Integer value = getCachedFloorNum();
+
+		if(value == null) {
+			misses.increment();
+			value = plc.getFloorNum();
+			floorNum = value;
+		}
+
+		return value;
+	}
+
+	@Override
+	public int getFloorHeight() throws RemoteException {
+		Integer value = getCachedFloorHeight();
+
+		if(value == null) {
+			misses.increment();
+			value = plc.getFloorHeight();
+			floorHeight = value;
+		}
+
+		return value;
+	}
+
+	@Override
+	public int getElevatorCapacity(int elevatorNumber) throws RemoteException {
+		Integer value = getCachedElevatorCapacity(elevatorNumber);
+
+		if(value == null) {
+			misses.increment();
+			value = plc.getElevatorCapacity(elevatorNumber);
+			capacities.put(elevatorNumber, value);
+		}
+
+		return value;
+	}
+
+	@Override
+	public boolean getServicesFloors(int elevatorNumber, int floor) throws RemoteException {
+		if(ttlNanos == 0) {
+			return plc.getServicesFloors(elevatorNumber, floor);
+		}
+
+		Boolean cached = getCachedServicesFloors(elevatorNumber, floor);
+
+		if(cached != null) {
+			return cached;
+		}
+
+		misses.increment();
+		long now = clock.getAsLong();
+		boolean value = plc.getServicesFloors(elevatorNumber, floor);
+		servicesFloors.put(servicesFloorsKey(elevatorNumber, floor), new CachedFlag(value, now + ttlNanos));
+		return value;
+	}
+
+	@Override
+	public void setServicesFloors(int elevatorNumber, int floor, boolean service) throws RemoteException {
+		long key = servicesFloorsKey(elevatorNumber, floor);
+		servicesFloors.remove(key);
+		plc.setServicesFloors(elevatorNumber, floor, service);
+
+		if(ttlNanos > 0) {
+			servicesFloors.put(key, new CachedFlag(service, clock.getAsLong() + ttlNanos));
+		}
+	}
+
+	@Override
+	public int getCommittedDirection(int elevatorNumber) throws RemoteException {
+		return plc.getCommittedDirection(elevatorNumber);
+	}
+
+	@Override
+	public int getElevatorAccel(int elevatorNumber) throws RemoteException {
+		return plc.getElevatorAccel(elevatorNumber);
+	}
+
+	@Override
+	public boolean getElevatorButton(int elevatorNumber, int floor) throws RemoteException {
+		return plc.getElevatorButton(elevatorNumber, floor);
+	}
+
+	@Override
+	public int getElevatorDoorStatus(int elevatorNumber) throws RemoteException {
+		return plc.getElevatorDoorStatus(elevatorNumber);
+	}
+
+	@Override
+	public int getElevatorFloor(int elevatorNumber) throws RemoteException {
+		return plc.getElevatorFloor(elevatorNumber);
+	}
+
+	@Override
+	public int getElevatorPosition(int elevatorNumber) throws RemoteException {
+		return plc.getElevatorPosition(elevatorNumber);
+	}
+
+	@Override
+	public int getElevatorSpeed(int elevatorNumber) throws RemoteException {
+		return plc.getElevatorSpeed(elevatorNumber);
+	}
+
+	@Override
+	public int getElevatorWeight(int elevatorNumber) throws RemoteException {
+		return plc.getElevatorWeight(elevatorNumber);
+	}
+
+	@Override
+	public boolean getFloorButtonDown(int floor) throws RemoteException {
+		return plc.getFloorButtonDown(floor);
+	}
+
+	@Override
+	public boolean getFloorButtonUp(int floor) throws RemoteException {
+		return plc.getFloorButtonUp(floor);
+	}
+
+	@Override
+	public int getTarget(int elevatorNumber) throws RemoteException {
+		return plc.getTarget(elevatorNumber);
+	}
+
+	@Override
+	public void setCommittedDirection(int elevatorNumber, int direction) throws RemoteException {
+		plc.setCommittedDirection(elevatorNumber, direction);
+	}
+
+	@Override
+	public void setTarget(int elevatorNumber, int target) throws RemoteException {
+		plc.setTarget(elevatorNumber, target);
+	}
+
+	@Override
+	public long getClockTick() throws RemoteException {
+		return plc.getClockTick();
+	}
+}
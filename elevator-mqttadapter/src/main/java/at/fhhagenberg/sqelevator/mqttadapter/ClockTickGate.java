@@ -0,0 +1,108 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.atomic.LongAdder;
+
+import sqelevator.IElevator;
+
+/**
+ * Gates the polling ticks on the clock tick of the simulator (IElevator.getClockTick()).
+ *
+ * If enabled, the ElevatorsMqttAdapter calls advance() before each tick and skips the tick if the simulator clock has
+ * not advanced since the last polled tick (e.g. the simulator is paused). The clock tick read by advance() is the start
+ * of the seqlock-style reads of the ConsistentSnapshotReader. If disabled, every tick is polled and no clock tick is read.
+ */
+public class ClockTickGate {
+
+	/**
+	 * Clock tick before the first read of the clock.
+	 */
+	public static final long UNKNOWN_TICK = -1;
+
+	private final IElevator plc;
+	private final LongAdder skippedTicks = new LongAdder();
+	private volatile boolean enabled;
+	private volatile long tick = UNKNOWN_TICK;
+
+	/**
+	 * Create a new disabled gate for the clock of the given PLC.
+	 * @param plc the PLC to read the clock tick from
+	 */
+	public ClockTickGate(IElevator plc) {
+		if(plc == null) {
+			throw new IllegalArgumentException("Plc must be valid!");
+		}
+
+		this.plc = plc;
+	}
+
+	/**
+	 * Provides whether polling ticks are gated on the clock tick.
+	 * @return whether the gate is enabled (true) or every tick is polled (false)
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables the gate. The next tick is polled in either case.
+	 * @param enabled whether ticks are gated on the clock tick (true) or every tick is polled (false)
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		this.tick = UNKNOWN_TICK;
+	}
+
+	/**
+	 * Forgets the last clock tick, so the next tick is polled, e.g. after a reconnect to a restarted simulator.
+	 */
+	public void reset() {
+		this.tick = UNKNOWN_TICK;
+	}
+
+	/**
+	 * Reads the clock tick of the simulator and decides whether the current polling tick is polled.
+	 * @return whether the clock has advanced since the last polled tick or the gate is disabled (true) or the tick is skipped (false)
+	 * @throws RemoteException if the connection to the RMI API is lost
+	 */
+	public boolean advance() throws RemoteException {
+		if(!enabled) {
+			return true;
+		}
+
+		long current = plc.getClockTick();
+
+		if(current == tick) {
+			skippedTicks.increment();
+			return false;
+		}
+
+		tick = current;
+		return true;
+	}
+
+	/**
+	 * Provides the clock tick read by the last call of advance().
+	 * @return the clock tick of the last polled tick or UNKNOWN_TICK if the clock was not read yet
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * Reads the current clock tick of the simulator without changing the tick of the gate.
+	 * @return the current clock tick
+	 * @throws RemoteException if the connection to the RMI API is lost
+	 */
+	public long readTick() throws RemoteException {
+		return plc.getClockTick();
+	}
+
+	/**
+	 * Provides the number of polling ticks skipped because the clock had not advanced.
+	 * @return the number of skipped ticks
+	 */
+	public long getSkippedTicks() {
+		return skippedTicks.sum();
+	}
+}
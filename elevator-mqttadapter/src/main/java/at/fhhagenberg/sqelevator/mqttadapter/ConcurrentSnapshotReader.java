@@ -0,0 +1,160 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
+import at.fhhagenberg.sqelevator.PolledField;
+import sqelevator.IElevator;
+
+/**
+ * Snapshot reader for remote APIs with only the fine-grained IElevator getters.
+ *
+ * The 9 + 2 x floors remote calls of an elevator are issued concurrently on an executor instead of one after the
+ * other, so reading an elevator takes about (calls / threads) round trips. RMI opens additional connections for
+ * concurrent calls on the same stub. Fields which are not due in the PollSchedule are not read at all.
+ */
+public class ConcurrentSnapshotReader implements IElevatorSnapshotReader {
+
+	/** Default number of threads of the shared executor. */
+	public static final int DEFAULT_THREADS = 16;
+
+	private static ExecutorService sharedExecutor;
+
+	private final IElevator plc;
+	private final ExecutorService executor;
+
+	/**
+	 * Create a new reader which issues the calls on a shared executor with DEFAULT_THREADS daemon threads.
+	 * @param plc the API to read from
+	 */
+	public ConcurrentSnapshotReader(IElevator plc) {
+		this(plc, getSharedExecutor());
+	}
+
+	/**
+	 * Create a new reader.
+	 * @param plc the API to read from
+	 * @param executor the executor which issues the remote calls
+	 */
+	public ConcurrentSnapshotReader(IElevator plc, ExecutorService executor) {
+		if(plc == null || executor == null) {
+			throw new IllegalArgumentException("IElevator and executor must not be null!");
+		}
+
+		this.plc = plc;
+		this.executor = executor;
+	}
+
+	private static synchronized ExecutorService getSharedExecutor() {
+		if(sharedExecutor == null) {
+			sharedExecutor = Executors.newFixedThreadPool(DEFAULT_THREADS, runnable -> {
+				Thread thread = new Thread(runnable, "snapshot-reader");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		return sharedExecutor;
+	}
+
+	@Override
+	public ElevatorSnapshot readElevator(int elevatorNumber, int numberOfFloors) throws RemoteException {
+		return readElevator(elevatorNumber, numberOfFloors, null, field -> true);
+	}
+
+	/**
+	 * Read the due fields of an elevator; the other fields are taken from the previous snapshot.
+	 * Only the calls of the due fields are issued.
+	 */
+	@Override
+	public ElevatorSnapshot readElevator(int elevatorNumber, int numberOfFloors, ElevatorSnapshot previous, Predicate<PolledField> due) throws RemoteException {
+		Predicate<PolledField> read = previous == null ? field -> true : due;
+		Future<Integer> direction = submit(read, PolledField.DIRECTION, () -> plc.getCommittedDirection(elevatorNumber), previous, ElevatorSnapshot::getCommittedDirection);
+		Future<Integer> acceleration = submit(read, PolledField.ACCELERATION, () -> plc.getElevatorAccel(elevatorNumber), previous, ElevatorSnapshot::getAcceleration);
+		Future<Integer> capacity = submit(read, PolledField.CAPACITY, () -> plc.getElevatorCapacity(elevatorNumber), previous, ElevatorSnapshot::getCapacity);
+		Future<Integer> doorStatus = submit(read, PolledField.DOORS, () -> plc.getElevatorDoorStatus(elevatorNumber), previous, ElevatorSnapshot::getDoorStatus);
+		Future<Integer> floor = submit(read, PolledField.FLOOR, () -> plc.getElevatorFloor(elevatorNumber), previous, ElevatorSnapshot::getFloor);
+		Future<Integer> position = submit(read, PolledField.POSITION, () -> plc.getElevatorPosition(elevatorNumber), previous, ElevatorSnapshot::getPosition);
+		Future<Integer> speed = submit(read, PolledField.SPEED, () -> plc.getElevatorSpeed(elevatorNumber), previous, ElevatorSnapshot::getSpeed);
+		Future<Integer> weight = submit(read, PolledField.WEIGHT, () -> plc.getElevatorWeight(elevatorNumber), previous, ElevatorSnapshot::getWeight);
+		Future<Integer> target = submit(read, PolledField.TARGET, () -> plc.getTarget(elevatorNumber), previous, ElevatorSnapshot::getTarget);
+		boolean readStops = read.test(PolledField.STOP_REQUESTS);
+		boolean readServices = read.test(PolledField.SERVICES_FLOORS);
+		List<Future<Boolean>> stopRequests = new ArrayList<>(readStops ? numberOfFloors : 0);
+		List<Future<Boolean>> servicedFloors = new ArrayList<>(readServices ? numberOfFloors : 0);
+
+		for(int i = 0; i < numberOfFloors; ++i) {
+			final int f = i;
+
+			if(readStops) {
+				stopRequests.add(submit(() -> plc.getElevatorButton(elevatorNumber, f)));
+			}
+
+			if(readServices) {
+				servicedFloors.add(submit(() -> plc.getServicesFloors(elevatorNumber, f)));
+			}
+		}
+
+		long[] stops = readStops ? new long[ElevatorSnapshot.wordCount(numberOfFloors)] : previous.getStopRequests();
+		long[] services = readServices ? new long[ElevatorSnapshot.wordCount(numberOfFloors)] : previous.getServicedFloors();
+
+		for(int i = 0; i < numberOfFloors; ++i) {
+			if(readStops && get(stopRequests.get(i))) {
+				stops[i >>> 6] |= 1L << i;
+			}
+
+			if(readServices && get(servicedFloors.get(i))) {
+				services[i >>> 6] |= 1L << i;
+			}
+		}
+
+		return new ElevatorSnapshot(elevatorNumber, get(direction), get(acceleration), get(capacity), get(doorStatus),
+				get(floor), get(position), get(speed), get(weight), get(target), numberOfFloors, stops, services);
+	}
+
+	private Future<Integer> submit(Predicate<PolledField> read, PolledField field, Callable<Integer> call, ElevatorSnapshot previous, ToIntFunction<ElevatorSnapshot> value) {
+		if(read.test(field)) {
+			return submit(call);
+		}
+
+		return CompletableFuture.completedFuture(value.applyAsInt(previous));
+	}
+
+	private <T> Future<T> submit(Callable<T> call) {
+		return executor.submit(call);
+	}
+
+	private static <T> T get(Future<T> future) throws RemoteException {
+		try {
+			return future.get();
+		}
+		catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+
+			if(cause instanceof RemoteException) {
+				throw (RemoteException) cause;
+			}
+
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+
+			throw new RemoteException("Remote call failed!", cause);
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RemoteException("Interrupted while reading the elevator state!", e);
+		}
+	}
+
+}
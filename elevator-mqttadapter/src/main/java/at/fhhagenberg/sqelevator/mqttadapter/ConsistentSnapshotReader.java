@@ -0,0 +1,96 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
+import at.fhhagenberg.sqelevator.PolledField;
+
+/**
+ * Snapshot reader which makes sure all fields of a snapshot belong to the same simulator clock tick.
+ *
+ * Works like a seqlock: the clock tick is read before (or taken from the ClockTickGate) and after the snapshot is read
+ * from the wrapped reader. If the clock advanced in between, the snapshot may be torn (e.g. position and floor of
+ * different instants) and is read again, at most maxRetries times. After the last retry the snapshot is used as is.
+ * If the gate is disabled, the wrapped reader is used directly and no clock tick is read.
+ */
+public class ConsistentSnapshotReader implements IElevatorSnapshotReader {
+
+	/**
+	 * Default number of repeated reads of a torn snapshot.
+	 */
+	public static final int DEFAULT_RETRIES = 2;
+
+	private final IElevatorSnapshotReader reader;
+	private final ClockTickGate clock;
+	private final int maxRetries;
+	private final LongAdder retries = new LongAdder();
+
+	/**
+	 * Create a new reader with DEFAULT_RETRIES.
+	 * @param reader the reader which reads the snapshots
+	 * @param clock the gate which provides the clock tick of the polling tick
+	 */
+	public ConsistentSnapshotReader(IElevatorSnapshotReader reader, ClockTickGate clock) {
+		this(reader, clock, DEFAULT_RETRIES);
+	}
+
+	/**
+	 * Create a new reader.
+	 * @param reader the reader which reads the snapshots
+	 * @param clock the gate which provides the clock tick of the polling tick
+	 * @param maxRetries the maximum number of repeated reads of a torn snapshot
+	 */
+	public ConsistentSnapshotReader(IElevatorSnapshotReader reader, ClockTickGate clock, int maxRetries) {
+		if(reader == null || clock == null) {
+			throw new IllegalArgumentException("Snapshot reader and clock tick gate must be valid!");
+		}
+
+		if(maxRetries < 0) {
+			throw new IllegalArgumentException("Number of retries must be >=0!");
+		}
+
+		this.reader = reader;
+		this.clock = clock;
+		this.maxRetries = maxRetries;
+	}
+
+	@Override
+	public ElevatorSnapshot readElevator(int elevatorNumber, int numberOfFloors) throws RemoteException {
+		return readElevator(elevatorNumber, numberOfFloors, null, field -> true);
+	}
+
+	@Override
+	public ElevatorSnapshot readElevator(int elevatorNumber, int numberOfFloors, ElevatorSnapshot previous, Predicate<PolledField> due) throws RemoteException {
+		if(!clock.isEnabled()) {
+			return reader.readElevator(elevatorNumber, numberOfFloors, previous, due);
+		}
+
+		long start = clock.getTick();
+
+		if(start == ClockTickGate.UNKNOWN_TICK) {
+			start = clock.readTick();
+		}
+
+		for(int attempt = 0; ; ++attempt) {
+			ElevatorSnapshot snapshot = reader.readElevator(elevatorNumber, numberOfFloors, previous, due);
+			long end = clock.readTick();
+
+			if(end == start || attempt == maxRetries) {
+				return snapshot;
+			}
+
+			start = end;
+			retries.increment();
+		}
+	}
+
+	/**
+	 * Provides the number of snapshots read again because the clock advanced during the read.
+	 * @return the number of retries
+	 */
+	public long getRetries() {
+		return retries.sum();
+	}
+}
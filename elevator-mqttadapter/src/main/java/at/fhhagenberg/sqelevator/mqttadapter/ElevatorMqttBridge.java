@@ -3,32 +3,164 @@ package at.fhhagenberg.sqelevator.mqttadapter;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.rmi.RemoteException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import at.fhhagenberg.sqelevator.Elevator;
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
 import at.fhhagenberg.sqelevator.ElevatorsMqttClient;
+import at.fhhagenberg.sqelevator.IElevatorListener;
 import at.fhhagenberg.sqelevator.IMqttMessageListener;
+import at.fhhagenberg.sqelevator.TelemetryFormat;
 
 /**
  * Class acting as a bridge between an elevator and a MQTT client.
- * The class implements PropertyChangeListener and listens to changes in the Elevator class.
+ * The class implements IElevatorListener and listens to changes in the Elevator class.
  * On changes in the elevator class, a MQTT message is published via the MQTT client.
+ * A changed stop request or serviced floor publishes only the topic of that floor.
+ * The class still implements PropertyChangeListener, so it can be used with the bean API of the Elevator class as well.
+ * Depending on the telemetry format, each changed field is published on its own topic immediately
+ * and/or the whole elevator state is published as one frame when the bridge is flushed.
  * The class also implements IMqttMessageListener and listens to control messages coming in via the MQTT client.
  * If the elevator number of the incoming control message matches the associated elevator, the associated elevator is updated accordingly.
+ * A control message also wakes the elevator in the ActivityMonitor, so its reaction is polled without the idle delay.
  */
-public class ElevatorMqttBridge implements IMqttBridge, PropertyChangeListener, IMqttMessageListener {
+public class ElevatorMqttBridge implements IMqttBridge, IElevatorListener, PropertyChangeListener, IMqttMessageListener {
 
 	private final Elevator elevator;
 	private final ElevatorsMqttClient mqtt;
+	private final TelemetryFormat telemetryFormat;
+	private final ActivityMonitor activity;
+	private final AtomicBoolean stateChanged = new AtomicBoolean(false);
 	private boolean started = false;
 
 	/**
-	 * Create a new Bridge between the given elevator and mqtt client.
+	 * Create a new Bridge between the given elevator and mqtt client which publishes the per-field topics.
 	 * @param elevator the elevator to create the bridge for
 	 * @param mqtt the mqtt client to create the bridge with
 	 */
 	public ElevatorMqttBridge(Elevator elevator, ElevatorsMqttClient mqtt) {
+		this(elevator, mqtt, TelemetryFormat.FIELDS);
+	}
+
+	/**
+	 * Create a new Bridge between the given elevator and mqtt client.
+	 * @param elevator the elevator to create the bridge for
+	 * @param mqtt the mqtt client to create the bridge with
+	 * @param telemetryFormat the format in which the elevator status is published
+	 */
+	public ElevatorMqttBridge(Elevator elevator, ElevatorsMqttClient mqtt, TelemetryFormat telemetryFormat) {
+		this(elevator, mqtt, telemetryFormat, new ActivityMonitor(0));
+	}
+
+	/**
+	 * Create a new Bridge between the given elevator and mqtt client which wakes the elevator in the activity monitor on control messages.
+	 * @param elevator the elevator to create the bridge for
+	 * @param mqtt the mqtt client to create the bridge with
+	 * @param telemetryFormat the format in which the elevator status is published
+	 * @param activity the monitor of the elevator to wake
+	 */
+	public ElevatorMqttBridge(Elevator elevator, ElevatorsMqttClient mqtt, TelemetryFormat telemetryFormat, ActivityMonitor activity) {
+		if(telemetryFormat == null) {
+			throw new IllegalArgumentException("Telemetry format must not be null!");
+		}
+
+		if(activity == null) {
+			throw new IllegalArgumentException("Activity monitor must not be null!");
+		}
+
 		this.elevator = elevator;
 		this.mqtt = mqtt;
+		this.telemetryFormat = telemetryFormat;
+		this.activity = activity;
+	}
+
+	private boolean changed(Object source) {
+		if(source != elevator) {
+			return false;
+		}
+
+		if(telemetryFormat.usesStateTopic()) {
+			stateChanged.set(true);
+		}
+
+		return telemetryFormat.usesFieldTopics();
+	}
+
+	@Override
+	public void onCommittedDirectionChanged(Elevator source, int oldValue, int newValue) {
+		if(changed(source)) {
+			publishCommittedDirection();
+		}
+	}
+
+	@Override
+	public void onAccelerationChanged(Elevator source, int oldValue, int newValue) {
+		if(changed(source)) {
+			publishAcceleration();
+		}
+	}
+
+	@Override
+	public void onStopRequestChanged(Elevator source, int floor, boolean stop) {
+		if(changed(source)) {
+			mqtt.publishButtonPressed(elevator.getNumber(), floor, stop);
+		}
+	}
+
+	@Override
+	public void onCapacityChanged(Elevator source, int oldValue, int newValue) {
+		if(changed(source)) {
+			publishCapacity();
+		}
+	}
+
+	@Override
+	public void onDoorStatusChanged(Elevator source, int oldValue, int newValue) {
+		if(changed(source)) {
+			publishDoorStatus();
+		}
+	}
+
+	@Override
+	public void onFloorChanged(Elevator source, int oldValue, int newValue) {
+		if(changed(source)) {
+			publishFloor();
+		}
+	}
+
+	@Override
+	public void onPositionChanged(Elevator source, int oldValue, int newValue) {
+		if(changed(source)) {
+			publishPosition();
+		}
+	}
+
+	@Override
+	public void onSpeedChanged(Elevator source, int oldValue, int newValue) {
+		if(changed(source)) {
+			publishSpeed();
+		}
+	}
+
+	@Override
+	public void onWeightChanged(Elevator source, int oldValue, int newValue) {
+		if(changed(source)) {
+			publishWeight();
+		}
+	}
+
+	@Override
+	public void onServicesFloorChanged(Elevator source, int floor, boolean service) {
+		if(changed(source)) {
+			mqtt.publishServicesFloor(elevator.getNumber(), floor, service);
+		}
+	}
+
+	@Override
+	public void onTargetChanged(Elevator source, int oldValue, int newValue) {
+		if(changed(source)) {
+			publishTarget();
+		}
 	}
 
 	/**
@@ -37,7 +169,7 @@ public class ElevatorMqttBridge implements IMqttBridge, PropertyChangeListener,
 	 */
 	@Override
 	public void propertyChange(PropertyChangeEvent evt) {
-		if(evt.getSource() != elevator) {
+		if(!changed(evt.getSource())) {
 			return;
 		}
 
@@ -94,6 +226,7 @@ public class ElevatorMqttBridge implements IMqttBridge, PropertyChangeListener,
 			
 			try {
 				this.elevator.setCommittedDirection(direction);
+				activity.wake(elevator);
 			} catch (RemoteException e) {
 				// Ignore RemoteException in this case, will be thrown at the next update cycle
 			}
@@ -112,6 +245,7 @@ public class ElevatorMqttBridge implements IMqttBridge, PropertyChangeListener,
 		if(started && elevator == this.elevator.getNumber()) {
 			try {
 				this.elevator.setServicesFloor(floor, service);
+				activity.wake(elevator);
 			} catch (RemoteException e) {
 				// Ignore RemoteException in this case, will be thrown at the next update cycle
 			}
@@ -129,6 +263,7 @@ public class ElevatorMqttBridge implements IMqttBridge, PropertyChangeListener,
 		if(started && elevator == this.elevator.getNumber()) {
 			try {
 				this.elevator.setTarget(target);
+				activity.wake(elevator);
 			} catch (RemoteException e) {
 				// Ignore RemoteException in this case, will be thrown at the next update cycle
 			}
@@ -136,7 +271,7 @@ public class ElevatorMqttBridge implements IMqttBridge, PropertyChangeListener,
 	}
 
 	/**
-	 * Start the bridge: Add the property change listener, publish the current information of the elevator and start handling control messages.
+	 * Start the bridge: Add the elevator listener, publish the current information of the elevator and start handling control messages.
 	 */
 	public void start() {
 		if(started) {
@@ -144,30 +279,51 @@ public class ElevatorMqttBridge implements IMqttBridge, PropertyChangeListener,
 		}
 
 		started = true;
-		elevator.addPropertyChangeListener(this);
+		elevator.addElevatorListener(this);
 		mqtt.addListener(this);
-		publishCommittedDirection();
-		publishAcceleration();
-		publishButtonsPressed();
-		publishCapacity();
-		publishDoorStatus();
-		publishFloor();
-		publishPosition();
-		publishSpeed();
-		publishWeight();
-		publishServicesFloors();
-		publishTarget();
+
+		if(telemetryFormat.usesFieldTopics()) {
+			publishCommittedDirection();
+			publishAcceleration();
+			publishButtonsPressed();
+			publishCapacity();
+			publishDoorStatus();
+			publishFloor();
+			publishPosition();
+			publishSpeed();
+			publishWeight();
+			publishServicesFloors();
+			publishTarget();
+		}
+
+		if(telemetryFormat.usesStateTopic()) {
+			stateChanged.set(false);
+			publishState();
+		}
 	}
 
 	/**
-	 * Stop the bridge: Remove the property change listener and stop handling control messages.
+	 * Stop the bridge: Remove the elevator listener and stop handling control messages.
 	 */
 	public void stop() {
 		started = false;
-		elevator.removePropertyChangeListener(this);
+		elevator.removeElevatorListener(this);
 		mqtt.removeListener(this);
 	}
 
+	/**
+	 * Flush the bridge: Publish the state frame of the elevator if it changed since the last flush.
+	 */
+	public void flush() {
+		if(started && stateChanged.getAndSet(false)) {
+			publishState();
+		}
+	}
+
+	private void publishState() {
+		mqtt.publishElevatorState(ElevatorSnapshot.of(elevator));
+	}
+
 	private void publishCommittedDirection() {
 		mqtt.publishDirection(elevator.getNumber(), elevator.getCommittedDirection());		
 	}
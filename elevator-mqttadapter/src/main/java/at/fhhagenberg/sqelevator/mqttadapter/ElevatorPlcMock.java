@@ -1,6 +1,7 @@
 package at.fhhagenberg.sqelevator.mqttadapter;
 
 import java.rmi.RemoteException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import sqelevator.IElevator;
 
@@ -8,6 +9,7 @@ import sqelevator.IElevator;
  * Class provides a mock object for the IElevator interface to run the application without the elevator simulator.
  * All getters return 0 by default.
  * Values set by the setters are stored so the associated getters can return different values.
+ * The clock tick advances on every call of a setter, so a poll loop gated on the clock tick reads the changed values.
  */
 public class ElevatorPlcMock implements IElevator {
 
@@ -30,6 +32,7 @@ public class ElevatorPlcMock implements IElevator {
 	private final boolean[] floorButtonUp;
 	private final int[] target;
 	private final boolean[][] servicedFloors;
+	private final AtomicLong clockTick = new AtomicLong();
 
 	/**
 	 * Create a new IElevator mock object with the given building parameters.
@@ -207,6 +210,7 @@ public class ElevatorPlcMock implements IElevator {
 		}
 		
 		committedDirection[elevatorNumber] = direction;
+		clockTick.incrementAndGet();
 	}
 
 	@Override
@@ -220,6 +224,7 @@ public class ElevatorPlcMock implements IElevator {
 		}
 		
 		servicedFloors[elevatorNumber][floor] = service;
+		clockTick.incrementAndGet();
 	}
 
 	@Override
@@ -233,11 +238,12 @@ public class ElevatorPlcMock implements IElevator {
 		}
 		
 		this.target[elevatorNumber] = target;
+		clockTick.incrementAndGet();
 	}
 
 	@Override
 	public long getClockTick() throws RemoteException {
-		return 0;
+		return clockTick.get();
 	}
 
 }
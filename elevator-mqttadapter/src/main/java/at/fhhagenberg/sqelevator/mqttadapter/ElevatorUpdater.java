@@ -1,51 +1,136 @@
 package at.fhhagenberg.sqelevator.mqttadapter;
 
 import java.rmi.RemoteException;
+import java.util.function.Predicate;
 
+import at.fhhagenberg.sqelevator.BuildingState;
 import at.fhhagenberg.sqelevator.Elevator;
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
+import at.fhhagenberg.sqelevator.IElevatorBulk;
+import at.fhhagenberg.sqelevator.PolledField;
 import sqelevator.IElevator;
 
 /**
  * Class for updating Elevator objects from the IElevator API.
+ * The state of the elevator is read as one ElevatorSnapshot by an IElevatorSnapshotReader.
+ * Only the fields which are due in the PollSchedule are read and applied to the elevator.
+ * Idle elevators are read less often according to the ActivityMonitor.
+ * The fields of one update are applied in one batch (Elevator.apply()), so the listeners get one aggregated change
+ * event per elevator and tick.
+ * With a BuildingState the snapshot is also written into its back buffer, which is published after the tick.
  */
 public class ElevatorUpdater implements IUpdater {
 
+	private static final Predicate<PolledField> ALL_FIELDS = field -> true;
+
 	private final Elevator elevator;
-	private final IElevator plc;
+	private final IElevatorSnapshotReader reader;
+	private final PollSchedule schedule;
+	private final ActivityMonitor activity;
+	private final BuildingState state;
 	private final int number;
 	private final int numberOfFloors;
+	private final Predicate<PolledField> due;
+	private ElevatorSnapshot previous;
 
 	/**
 	 * Create a new Updater object for the given elevator.
+	 * The snapshot reader is the PLC of the elevator if it is one (e.g. ElevatorsPlcConnection), a BulkSnapshotReader
+	 * if the PLC implements IElevatorBulk or a ConcurrentSnapshotReader otherwise.
 	 * @param elevator the elevator to create the updater for
 	 */
 	public ElevatorUpdater(Elevator elevator) {
+		this(elevator, createReader(elevator.getPlc()));
+	}
+
+	/**
+	 * Create a new Updater object for the given elevator which reads the elevator with the given reader.
+	 * @param elevator the elevator to create the updater for
+	 * @param reader the reader which reads the state of the elevator
+	 */
+	public ElevatorUpdater(Elevator elevator, IElevatorSnapshotReader reader) {
+		this(elevator, reader, new PollSchedule());
+	}
+
+	/**
+	 * Create a new Updater object for the given elevator which reads the due fields of the schedule with the given reader.
+	 * @param elevator the elevator to create the updater for
+	 * @param reader the reader which reads the state of the elevator
+	 * @param schedule the schedule which decides which fields are read on a tick
+	 */
+	public ElevatorUpdater(Elevator elevator, IElevatorSnapshotReader reader, PollSchedule schedule) {
+		this(elevator, reader, schedule, new ActivityMonitor(0));
+	}
+
+	/**
+	 * Create a new Updater object for the given elevator which reads the due fields of the schedule with the given reader
+	 * while the activity monitor does not back off the elevator.
+	 * @param elevator the elevator to create the updater for
+	 * @param reader the reader which reads the state of the elevator
+	 * @param schedule the schedule which decides which fields are read on a tick
+	 * @param activity the monitor which decides whether the elevator is read on a tick
+	 */
+	public ElevatorUpdater(Elevator elevator, IElevatorSnapshotReader reader, PollSchedule schedule, ActivityMonitor activity) {
+		this(elevator, reader, schedule, activity, null);
+	}
+
+	/**
+	 * Create a new Updater object for the given elevator which also writes the read state into a BuildingState.
+	 * @param elevator the elevator to create the updater for
+	 * @param reader the reader which reads the state of the elevator
+	 * @param schedule the schedule which decides which fields are read on a tick
+	 * @param activity the monitor which decides whether the elevator is read on a tick
+	 * @param state the state to write the elevator into, null to update the elevator only
+	 */
+	public ElevatorUpdater(Elevator elevator, IElevatorSnapshotReader reader, PollSchedule schedule, ActivityMonitor activity, BuildingState state) {
+		if(elevator == null || reader == null || schedule == null || activity == null) {
+			throw new IllegalArgumentException("Elevator, snapshot reader, schedule and activity monitor must be valid!");
+		}
+
 		this.elevator = elevator;
-		plc = elevator.getPlc();
+		this.reader = reader;
+		this.schedule = schedule;
+		this.activity = activity;
+		this.state = state;
 		number = elevator.getNumber();
 		numberOfFloors = elevator.getNumberOfFloors();
+		due = schedule::isDue;
+	}
+
+	/**
+	 * Create the default snapshot reader for the given PLC.
+	 * @param plc the PLC to read from
+	 * @return the PLC itself if it is a reader, a BulkSnapshotReader or a ConcurrentSnapshotReader
+	 */
+	public static IElevatorSnapshotReader createReader(IElevator plc) {
+		if(plc instanceof IElevatorSnapshotReader) {
+			return (IElevatorSnapshotReader) plc;
+		}
+
+		if(plc instanceof IElevatorBulk) {
+			return new BulkSnapshotReader((IElevatorBulk) plc);
+		}
+
+		return new ConcurrentSnapshotReader(plc);
 	}
 
 	public void update() throws RemoteException {
-		elevator.setCommittedDirection(plc.getCommittedDirection(number));
-		elevator.setAcceleration(plc.getElevatorAccel(number));
+		boolean all = previous == null;
 
-		for(int floor = 0; floor < numberOfFloors; ++floor) {
-			elevator.setStopRequest(floor, plc.getElevatorButton(number, floor));
+		if(!all && !activity.shouldPoll(number)) {
+			return;
 		}
 
-		elevator.setCapacity(plc.getElevatorCapacity(number));
-		elevator.setDoorStatus(plc.getElevatorDoorStatus(number));
-		elevator.setFloor(plc.getElevatorFloor(number));
-		elevator.setPosition(plc.getElevatorPosition(number));
-		elevator.setSpeed(plc.getElevatorSpeed(number));
-		elevator.setWeight(plc.getElevatorWeight(number));
+		ElevatorSnapshot snapshot = reader.readElevator(number, numberOfFloors, previous, due);
+
+		elevator.apply(snapshot, all ? ALL_FIELDS : due);
 
-		for(int floor = 0; floor < numberOfFloors; ++floor) {
-			elevator.setServicesFloor(floor, plc.getServicesFloors(number, floor));
+		if(state != null) {
+			state.write(snapshot);
 		}
 
-		elevator.setTarget(plc.getTarget(number));
+		previous = snapshot;
+		activity.update(number, snapshot);
 	}
 
 }
@@ -3,100 +3,272 @@ package at.fhhagenberg.sqelevator.mqttadapter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.rmi.RemoteException;
 import java.util.Arrays;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import at.fhhagenberg.sqelevator.Building;
+import at.fhhagenberg.sqelevator.BuildingState;
 import at.fhhagenberg.sqelevator.Elevator;
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
 import at.fhhagenberg.sqelevator.ElevatorsMqttClient;
 import at.fhhagenberg.sqelevator.ExitCommandThread;
 import at.fhhagenberg.sqelevator.Floor;
+import at.fhhagenberg.sqelevator.OverrunPolicy;
+import at.fhhagenberg.sqelevator.PollingPolicy;
+import at.fhhagenberg.sqelevator.TelemetryFormat;
 
 /**
  * This class is the main class of the Elevators MQTT Adapter program.
  * It takes a Building with its elevators and floors and updates them from the Elevators PLC in a configurable interval via the Updater classes.
+ * The ticks run at a fixed rate without drift (see TickScheduler). Idle elevators are read less often (see ActivityMonitor).
+ * With more than one update thread the updaters of a tick run concurrently (see UpdateTick).
+ * The PollSchedule decides which fields the updaters read on a tick (fast, normal, slow and static fields).
+ * With clock tick gating a tick is skipped if the simulator clock has not advanced and the elevators are read consistently
+ * within one clock tick (see ClockTickGate and ConsistentSnapshotReader).
  * The Bridge classes publish MQTT messages on changes in the Building and listen to MQTT control messages which update the PLC via the Elevator class.
+ * With a BuildingState the bridges are not used: the updaters also write each tick into the back buffer of the state, the
+ * BuildingStatePublisher publishes the changed slots after the tick and a BuildingControlListener handles the control messages.
+ * After a lost RMI connection the adapter can be run again with the same Building: it keeps its subscriptions and bridges
+ * and publishes only the state which changed meanwhile (warm reconnect).
  */
 public class ElevatorsMqttAdapter {
 	private final Building building;
 	private final ElevatorsMqttClient mqtt;
 	private final IUpdater[] updaters;
 	private final IMqttBridge[] bridges;
+	private final BuildingState state;
+	private final BuildingStatePublisher statePublisher;
+	private final BuildingControlListener control;
+	private final PollSchedule schedule = new PollSchedule();
+	private final ClockTickGate clock;
+	private final TickScheduler scheduler;
+	private final ActivityMonitor activity;
 	private long updateTimerPeriodMs = 250;
+	private long idlePollingIntervalMs = 0;
+	private int updateThreads = 1;
+	private boolean started = false;
 
 	/**
-	 * Create new ElevatorsMqttAdapter for the given building and MQTT client.
+	 * Create new ElevatorsMqttAdapter for the given building and MQTT client which publishes the per-field topics.
 	 * @param building the building to use in the adapter
 	 * @param mqtt the MQTT client to use in the adapter
 	 */
 	public ElevatorsMqttAdapter(Building building, ElevatorsMqttClient mqtt) {
+		this(building, mqtt, TelemetryFormat.FIELDS);
+	}
+
+	/**
+	 * Create new ElevatorsMqttAdapter for the given building and MQTT client.
+	 * @param building the building to use in the adapter
+	 * @param mqtt the MQTT client to use in the adapter
+	 * @param telemetryFormat the format in which the elevator status is published
+	 */
+	public ElevatorsMqttAdapter(Building building, ElevatorsMqttClient mqtt, TelemetryFormat telemetryFormat) {
+		this(building, mqtt, telemetryFormat, false);
+	}
+
+	/**
+	 * Create new ElevatorsMqttAdapter for the given building and MQTT client.
+	 * @param building the building to use in the adapter
+	 * @param mqtt the MQTT client to use in the adapter
+	 * @param telemetryFormat the format in which the elevator status is published
+	 * @param buildingState whether the changes are published from a BuildingState after each tick (true) or by the bridges (false)
+	 */
+	public ElevatorsMqttAdapter(Building building, ElevatorsMqttClient mqtt, TelemetryFormat telemetryFormat, boolean buildingState) {
 		this.building = building;
 		this.mqtt = mqtt;
+		this.clock = new ClockTickGate(building.getPlc());
+		this.scheduler = new TickScheduler(updateTimerPeriodMs, OverrunPolicy.SKIP);
 
 		Elevator[] elevators = building.getElevators();
 		Floor[] floors = building.getFloors();
+		activity = new ActivityMonitor(elevators.length);
 		updaters = new IUpdater[elevators.length + floors.length];
-		bridges = new IMqttBridge[elevators.length + floors.length];
+
+		if(buildingState) {
+			state = new BuildingState(elevators.length, floors.length);
+			statePublisher = new BuildingStatePublisher(state, mqtt, telemetryFormat);
+			control = new BuildingControlListener(building, activity);
+			bridges = new IMqttBridge[0];
+		}
+		else {
+			state = null;
+			statePublisher = null;
+			control = null;
+			bridges = new IMqttBridge[elevators.length + floors.length];
+		}
 
 		for(int i = 0; i < elevators.length; ++i) {
-			updaters[i] = new ElevatorUpdater(elevators[i]);
-			bridges[i] = new ElevatorMqttBridge(elevators[i], mqtt);
+			IElevatorSnapshotReader reader = new ConsistentSnapshotReader(ElevatorUpdater.createReader(elevators[i].getPlc()), clock);
+			updaters[i] = new ElevatorUpdater(elevators[i], reader, schedule, activity, state);
+
+			if(!buildingState) {
+				bridges[i] = new ElevatorMqttBridge(elevators[i], mqtt, telemetryFormat, activity);
+			}
 		}
 
 		for(int i = 0; i < floors.length; ++i) {
-			updaters[elevators.length + i] = new FloorUpdater(floors[i]);
-			bridges[elevators.length + i] = new FloorMqttBridge(floors[i], mqtt);
+			updaters[elevators.length + i] = new FloorUpdater(floors[i], schedule, activity, state);
+
+			if(!buildingState) {
+				bridges[elevators.length + i] = new FloorMqttBridge(floors[i], mqtt);
+			}
 		}
 	}
 
 	private void startMqttBridges() {
+		if(state != null) {
+			for(Elevator elevator : building.getElevators()) {
+				state.write(ElevatorSnapshot.of(elevator));
+			}
+
+			for(Floor floor : building.getFloors()) {
+				state.setFloorButtons(floor.getNumber(), floor.isButtonUp(), floor.isButtonDown());
+			}
+
+			statePublisher.publishAll();
+			mqtt.addListener(control);
+		}
+
 		for(IMqttBridge bridge : bridges) {
 			bridge.start();
 		}
 	}
 
 	private void stopMqttBridges() {
+		if(control != null) {
+			mqtt.removeListener(control);
+		}
+
 		for(IMqttBridge bridge : bridges) {
 			bridge.stop();
 		}
 	}
 
+	private boolean isCircuitClosed() {
+		return building.getPlc() instanceof ElevatorsPlcConnection && !((ElevatorsPlcConnection) building.getPlc()).getCircuitBreaker().isOpen();
+	}
+
 	/**
 	 * Run the Elevators MQTT Adapter. Periodically poll the RMI interface in a loop until the exit signal.
+	 * If the building is connected via an ElevatorsPlcConnection, a tick with a failed RMI call is skipped while the
+	 * circuit breaker of the connection is closed; once the breaker opens (or for other IElevator objects) the
+	 * RemoteException is thrown, so the caller can reconnect.
+	 * After a RemoteException the bridges stay started and the control messages stay subscribed. The next call of run()
+	 * (after the reconnect) does not publish the whole state again but reads all fields on its first tick, so only the
+	 * fields which changed while disconnected are published.
 	 * @param exitThread instance of ExitCommandThread which provides the signal to exit the program
 	 * @param output output stream to write information to
 	 */
 	public void run(ExitCommandThread exitThread, OutputStream output) throws InterruptedException, IOException, ExecutionException {		
 		OutputStreamWriter writer = new OutputStreamWriter(output);
 		
-		if(!mqtt.subscribeToControlMessages(building.getElevatorCount(), building.getFloorCount())) {
-			writer.write("Could not subscribe to control messages!\n");
-			return;
+		if(started) {
+			schedule.restart();
+			clock.reset();
+			activity.wakeAll();
+			writer.write("Resumed Elevators Mqtt Adapter.\n");
 		}
+		else {
+			long start = System.nanoTime();
 
-		mqtt.publishNumberOfElevators(building.getElevatorCount());
-		mqtt.publishNumberOfFloors(building.getFloorCount());
-		mqtt.publishFloorHeight(building.floorHeight());
+			if(!mqtt.subscribeToControlMessages(building.getElevatorCount(), building.getFloorCount())) {
+				writer.write("Could not subscribe to control messages!\n");
+				return;
+			}
 
-		stopMqttBridges();
-		startMqttBridges();
-		
-		writer.write("Started Elevators Mqtt Adapter.\n");
+			mqtt.publishNumberOfElevators(building.getElevatorCount());
+			mqtt.publishNumberOfFloors(building.getFloorCount());
+			mqtt.publishFloorHeight(building.floorHeight());
 
-		while(!exitThread.isExitRequest()) {
-			Thread.sleep(updateTimerPeriodMs);
+			stopMqttBridges();
+			startMqttBridges();
+			started = true;
 			
+			long publishMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			writer.write("Started Elevators Mqtt Adapter.\n");
+			writer.write("Published initial state in " + publishMs + " ms, time to first publish including building load "
+					+ (building.getLoadTimeMs() + publishMs) + " ms.\n");
+		}
+
+		writer.flush();
+
+		boolean connectionLost = false;
+
+		try (UpdateTick tick = new UpdateTick(updaters, updateThreads)) {
+			scheduler.start();
+
+			while(scheduler.awaitNextTick(exitThread)) {
+				try {
+					if(clock.advance()) {
+						tick.run();
+						schedule.nextTick();
+
+						if(statePublisher != null) {
+							statePublisher.publishTick();
+						}
+					}
+				}
+				catch(RemoteException e) {
+					if(!isCircuitClosed()) {
+						connectionLost = true;
+						throw e;
+					}
+
+					writer.write("Skipped tick after failed RMI call: " + e.getMessage() + "\n");
+					writer.flush();
+				}
+
+				for(IMqttBridge bridge : bridges) {
+					bridge.flush();
+				}
+			}
+
 			if(exitThread.isExitRequest()) {
 				exitThread.join();
-				break;
 			}
-			
-			for(IUpdater updater : updaters) {
-				updater.update();
+		}
+		finally {
+			if(!connectionLost) {
+				stop();
 			}
 		}
-		
+	}
+
+	/**
+	 * Provides whether the bridges are started and the control messages are subscribed, i.e. the next call of run()
+	 * resumes the adapter after a lost RMI connection without publishing the whole state again.
+	 * @return whether the adapter is started
+	 */
+	public boolean isStarted() {
+		return started;
+	}
+
+	/**
+	 * Stops the bridges of an adapter which is kept started after a lost RMI connection, e.g. if it is replaced because
+	 * the simulator has a different layout after the reconnect, and unsubscribes its control messages, so a new adapter
+	 * on the same MQTT client does not get them twice.
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	public void stop() throws InterruptedException, ExecutionException {
 		stopMqttBridges();
+
+		if(started && mqtt.isConnected()) {
+			mqtt.unsubscribeFromControlMessages();
+		}
+
+		started = false;
+	}
+
+	/**
+	 * Provides the building of the adapter.
+	 * @return the building
+	 */
+	public Building getBuilding() {
+		return building;
 	}
 
 	/**
@@ -109,12 +281,140 @@ public class ElevatorsMqttAdapter {
 
 	/**
 	 * Provides a copy of the array with the elevator and floor MQTT bridge objects.
-	 * @return an array with the MQTT bridge objects
+	 * @return an array with the MQTT bridge objects, empty if the changes are published from a BuildingState
 	 */
 	public IMqttBridge[] getBridges() {
 		return Arrays.copyOf(bridges, bridges.length);
 	}
 
+	/**
+	 * Provides the state which the updaters write and which is published after each tick.
+	 * @return the building state, null if the changes are published by the bridges
+	 */
+	public BuildingState getBuildingState() {
+		return state;
+	}
+
+	/**
+	 * Provides the schedule which decides which fields are read on a tick.
+	 * @return the poll schedule
+	 */
+	public PollSchedule getPollSchedule() {
+		return schedule;
+	}
+
+	/**
+	 * Sets the rates of the polled fields. The RMI polling interval is set to the tick period of the policy.
+	 * @param policy the polling policy
+	 */
+	public void setPollingPolicy(PollingPolicy policy) {
+		schedule.setPolicy(policy);
+		setUpdateTimerPeriodMs(policy.getTickPeriod());
+	}
+
+	/**
+	 * Provides whether polling ticks are skipped if the simulator clock tick has not advanced.
+	 * @return whether clock tick gating is enabled
+	 */
+	public boolean isClockTickGating() {
+		return clock.isEnabled();
+	}
+
+	/**
+	 * Enables or disables clock tick gating: a tick is skipped if the simulator clock tick has not advanced and
+	 * elevator snapshots are read again if the clock tick advanced during the read.
+	 * @param enabled whether clock tick gating is enabled
+	 */
+	public void setClockTickGating(boolean enabled) {
+		clock.setEnabled(enabled);
+	}
+
+	/**
+	 * Provides the gate which decides whether a tick is polled.
+	 * @return the clock tick gate
+	 */
+	public ClockTickGate getClockTickGate() {
+		return clock;
+	}
+
+	/**
+	 * Provides the fixed-rate scheduler of the ticks which also provides the tick metrics (overruns, lag).
+	 * @return the tick scheduler
+	 */
+	public TickScheduler getTickScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * Provides the policy for ticks missed because a tick took longer than the RMI polling interval.
+	 * @return the overrun policy
+	 */
+	public OverrunPolicy getOverrunPolicy() {
+		return scheduler.getOverrunPolicy();
+	}
+
+	/**
+	 * Sets the policy for ticks missed because a tick took longer than the RMI polling interval.
+	 * @param policy the overrun policy, SKIP drops missed ticks and COMPRESS catches them up
+	 */
+	public void setOverrunPolicy(OverrunPolicy policy) {
+		scheduler.setOverrunPolicy(policy);
+	}
+
+	/**
+	 * Provides the monitor which backs off polling of idle elevators.
+	 * @return the activity monitor
+	 */
+	public ActivityMonitor getActivityMonitor() {
+		return activity;
+	}
+
+	/**
+	 * Provides the interval in which idle elevators are read.
+	 * @return the idle polling interval in ms, 0 if idle elevators are read on every tick
+	 */
+	public long getIdlePollingIntervalMs() {
+		return idlePollingIntervalMs;
+	}
+
+	/**
+	 * Sets the interval in which idle elevators (not moving, doors closed, no requests) are read.
+	 * Hall buttons and control messages wake an elevator, it is read on every tick until it is idle again.
+	 * @param idlePollingIntervalMs the idle polling interval in ms, 0 reads idle elevators on every tick
+	 */
+	public void setIdlePollingIntervalMs(long idlePollingIntervalMs) {
+		if(idlePollingIntervalMs < 0) {
+			throw new IllegalArgumentException("Idle polling interval must be >=0!");
+		}
+
+		this.idlePollingIntervalMs = idlePollingIntervalMs;
+		updateIdleEveryTicks();
+	}
+
+	private void updateIdleEveryTicks() {
+		activity.setIdleEveryTicks((int) Math.max(1, Math.round((double) idlePollingIntervalMs / updateTimerPeriodMs)));
+	}
+
+	/**
+	 * Provides the number of threads which run the updaters of a tick.
+	 * @return the number of update threads, 1 if the updaters run one after another
+	 */
+	public int getUpdateThreads() {
+		return updateThreads;
+	}
+
+	/**
+	 * Sets the number of threads which run the updaters of a tick. Takes effect on the next call of run().
+	 * @param updateThreads the number of update threads, 1 runs the updaters one after another
+	 */
+	public void setUpdateThreads(int updateThreads) {
+		if(updateThreads <= 0) {
+			throw new IllegalArgumentException("Number of update threads must be greater than 0!");
+		}
+		
+		this.updateThreads = updateThreads;
+	}
+
 	/**
 	 * Provides the current RMI polling interval.
 	 * @return the current RMI polling interval in ms
@@ -133,5 +433,7 @@ public class ElevatorsMqttAdapter {
 		}
 		
 		this.updateTimerPeriodMs = updateTimerPeriodMs;
+		scheduler.setPeriodMs(updateTimerPeriodMs);
+		updateIdleEveryTicks();
 	}
 }
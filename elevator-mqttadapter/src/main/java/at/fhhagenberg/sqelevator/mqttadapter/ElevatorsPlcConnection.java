@@ -9,8 +9,12 @@ import java.rmi.RemoteException;
 import java.rmi.ServerException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.util.function.Predicate;
 
 import at.fhhagenberg.sqelevator.ElevatorProperties;
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
+import at.fhhagenberg.sqelevator.IElevatorBulk;
+import at.fhhagenberg.sqelevator.PolledField;
 import sqelevator.IElevator;
 
 /**
@@ -20,11 +24,27 @@ import sqelevator.IElevator;
  * This class provides reusable objects which forward method calls to the current IElevator object.
  * 
  * All IElevator methods throw a RuntimeException if connect() wasn't successful at least once before calling them.
+ * 
+ * The connection is also the IElevatorSnapshotReader of the elevators: connect() detects whether the remote object
+ * implements IElevatorBulk and reads the elevators with a BulkSnapshotReader if it does or with a ConcurrentSnapshotReader
+ * (fine-grained calls issued concurrently) if it doesn't.
+ *
+ * All remote calls go through a PlcCircuitBreaker: each call has a deadline (rmi_call_timeout) and after repeated
+ * failures the breaker opens and the calls fail fast until a trial call succeeds or connect() is successful again.
+ * The ConcurrentSnapshotReader reads through this connection, so each of its fine-grained calls has its own deadline
+ * and counts at the breaker on its own; a bulk read is one remote call and goes through the breaker as a whole.
+ *
+ * The remote object is wrapped in a CachingElevator which is replaced on every successful connect, so the building
+ * metadata is read once per connection and the serviced floors are cached for rmi_cache_ttl ms.
+ * Cached values are served before the breaker: a cache hit is no remote call, so it neither counts as success of the
+ * breaker (e.g. as trial call of a half-open breaker) nor is handed to the call pool when a deadline is configured.
  */
-public class ElevatorsPlcConnection implements IElevator {
+public class ElevatorsPlcConnection implements IElevator, IElevatorSnapshotReader {
 
 	private final ElevatorProperties props;
-	private IElevator plc;
+	private final PlcCircuitBreaker breaker;
+	private volatile CachingElevator plc;
+	private volatile IElevatorSnapshotReader snapshotReader;
 
 	/**
 	 * Create new IElevator connection object.
@@ -36,9 +56,20 @@ public class ElevatorsPlcConnection implements IElevator {
 		}
 		
 		this.props = props;
+		this.breaker = new PlcCircuitBreaker(Math.max(0, props.getRmiCallTimeout()),
+				props.getRmiBreakerFailures() > 0 ? props.getRmiBreakerFailures() : PlcCircuitBreaker.DEFAULT_FAILURE_THRESHOLD,
+				props.getRmiBreakerOpen() > 0 ? props.getRmiBreakerOpen() : PlcCircuitBreaker.DEFAULT_OPEN_MS);
+	}
+
+	/**
+	 * Provides the circuit breaker of the remote calls.
+	 * @return the circuit breaker
+	 */
+	public PlcCircuitBreaker getCircuitBreaker() {
+		return breaker;
 	}
 
-	private IElevator getPlc() {
+	private CachingElevator getPlc() {
 		if(plc == null) {
 			throw new RuntimeException("Connect method must be successful once before using other methods!");
 		}
@@ -46,6 +77,30 @@ public class ElevatorsPlcConnection implements IElevator {
 		return plc;
 	}
 
+	private IElevatorSnapshotReader getSnapshotReader() {
+		if(snapshotReader == null) {
+			throw new RuntimeException("Connect method must be successful once before using other methods!");
+		}
+		
+		return snapshotReader;
+	}
+
+	/**
+	 * Provides the cache of the current connection.
+	 * @return the cache in front of the remote object, null if connect() wasn't successful yet
+	 */
+	public CachingElevator getCache() {
+		return plc;
+	}
+
+	/**
+	 * Provides whether the remote object supports the bulk API (detected on connect).
+	 * @return whether the elevators are read with one remote call each (true) or with the fine-grained calls (false)
+	 */
+	public boolean isBulkSupported() {
+		return snapshotReader instanceof BulkSnapshotReader;
+	}
+
 	/**
 	 * Connect to the remote IElevator API.
 	 * @param output output stream for displaying information
@@ -72,7 +127,11 @@ public class ElevatorsPlcConnection implements IElevator {
 		assert(output != null);
 		
 		try {
-			plc = (IElevator) registry.lookup(props.getRmiName());
+			IElevator remote = (IElevator) registry.lookup(props.getRmiName());
+			CachingElevator cache = new CachingElevator(remote, Math.max(0, props.getRmiCacheTtl()));
+			snapshotReader = remote instanceof IElevatorBulk ? new BulkSnapshotReader((IElevatorBulk) remote) : new ConcurrentSnapshotReader(this);
+			plc = cache;
+			breaker.closeCircuit();
 			return true;
 		}
 		catch(NotBoundException e) {
@@ -102,102 +161,138 @@ public class ElevatorsPlcConnection implements IElevator {
 
 	@Override
 	public int getCommittedDirection(int elevatorNumber) throws RemoteException {
-		return getPlc().getCommittedDirection(elevatorNumber);
+		return breaker.call(() -> getPlc().getCommittedDirection(elevatorNumber));
 	}
 
 	@Override
 	public int getElevatorAccel(int elevatorNumber) throws RemoteException {
-		return getPlc().getElevatorAccel(elevatorNumber);
+		return breaker.call(() -> getPlc().getElevatorAccel(elevatorNumber));
 	}
 
 	@Override
 	public boolean getElevatorButton(int elevatorNumber, int floor) throws RemoteException {
-		return getPlc().getElevatorButton(elevatorNumber, floor);
+		return breaker.call(() -> getPlc().getElevatorButton(elevatorNumber, floor));
 	}
 
 	@Override
 	public int getElevatorDoorStatus(int elevatorNumber) throws RemoteException {
-		return getPlc().getElevatorDoorStatus(elevatorNumber);
+		return breaker.call(() -> getPlc().getElevatorDoorStatus(elevatorNumber));
 	}
 
 	@Override
 	public int getElevatorFloor(int elevatorNumber) throws RemoteException {
-		return getPlc().getElevatorFloor(elevatorNumber);
+		return breaker.call(() -> getPlc().getElevatorFloor(elevatorNumber));
 	}
 
 	@Override
 	public int getElevatorNum() throws RemoteException {
-		return getPlc().getElevatorNum();
+		Integer cached = getPlc().getCachedElevatorNum();
+		return cached != null ? cached : breaker.call(() -> getPlc().getElevatorNum());
 	}
 
 	@Override
 	public int getElevatorPosition(int elevatorNumber) throws RemoteException {
-		return getPlc().getElevatorPosition(elevatorNumber);
+		return breaker.call(() -> getPlc().getElevatorPosition(elevatorNumber));
 	}
 
 	@Override
 	public int getElevatorSpeed(int elevatorNumber) throws RemoteException {
-		return getPlc().getElevatorSpeed(elevatorNumber);
+		return breaker.call(() -> getPlc().getElevatorSpeed(elevatorNumber));
 	}
 
 	@Override
 	public int getElevatorWeight(int elevatorNumber) throws RemoteException {
-		return getPlc().getElevatorWeight(elevatorNumber);
+		return breaker.call(() -> getPlc().getElevatorWeight(elevatorNumber));
 	}
 
 	@Override
 	public int getElevatorCapacity(int elevatorNumber) throws RemoteException {
-		return getPlc().getElevatorCapacity(elevatorNumber);
+		Integer cached = getPlc().getCachedElevatorCapacity(elevatorNumber);
+		return cached != null ? cached : breaker.call(() -> getPlc().getElevatorCapacity(elevatorNumber));
 	}
 
 	@Override
 	public boolean getFloorButtonDown(int floor) throws RemoteException {
-		return getPlc().getFloorButtonDown(floor);
+		return breaker.call(() -> getPlc().getFloorButtonDown(floor));
 	}
 
 	@Override
 	public boolean getFloorButtonUp(int floor) throws RemoteException {
-		return getPlc().getFloorButtonUp(floor);
+		return breaker.call(() -> getPlc().getFloorButtonUp(floor));
 	}
 
 	@Override
 	public int getFloorHeight() throws RemoteException {
-		return getPlc().getFloorHeight();
+		Integer cached = getPlc().getCachedFloorHeight();
+		return cached != null ? cached : breaker.call(() -> getPlc().getFloorHeight());
 	}
 
 	@Override
 	public int getFloorNum() throws RemoteException {
-		return getPlc().getFloorNum();
+		Integer cached = getPlc().getCachedFloorNum();
+		return cached != null ? cached : breaker.call(() -> getPlc().getFloorNum());
 	}
 
 	@Override
 	public boolean getServicesFloors(int elevatorNumber, int floor) throws RemoteException {
-		return getPlc().getServicesFloors(elevatorNumber, floor);
+		Boolean cached = getPlc().getCachedServicesFloors(elevatorNumber, floor);
+		return cached != null ? cached : breaker.call(() -> getPlc().getServicesFloors(elevatorNumber, floor));
 	}
 
 	@Override
 	public int getTarget(int elevatorNumber) throws RemoteException {
-		return getPlc().getTarget(elevatorNumber);
+		return breaker.call(() -> getPlc().getTarget(elevatorNumber));
 	}
 
 	@Override
 	public void setCommittedDirection(int elevatorNumber, int direction) throws RemoteException {
-		getPlc().setCommittedDirection(elevatorNumber, direction);
+		breaker.call(() -> {
+			getPlc().setCommittedDirection(elevatorNumber, direction);
+			return null;
+		});
 	}
 
 	@Override
 	public void setServicesFloors(int elevatorNumber, int floor, boolean service) throws RemoteException {
-		getPlc().setServicesFloors(elevatorNumber, floor, service);
+		breaker.call(() -> {
+			getPlc().setServicesFloors(elevatorNumber, floor, service);
+			return null;
+		});
 	}
 
 	@Override
 	public void setTarget(int elevatorNumber, int target) throws RemoteException {
-		getPlc().setTarget(elevatorNumber, target);
+		breaker.call(() -> {
+			getPlc().setTarget(elevatorNumber, target);
+			return null;
+		});
 	}
 
 	@Override
 	public long getClockTick() throws RemoteException {
-		return getPlc().getClockTick();
+		return breaker.call(() -> getPlc().getClockTick());
+	}
+
+	@Override
+	public ElevatorSnapshot readElevator(int elevatorNumber, int numberOfFloors) throws RemoteException {
+		IElevatorSnapshotReader reader = getSnapshotReader();
+
+		if(reader instanceof BulkSnapshotReader) {
+			return breaker.call(() -> reader.readElevator(elevatorNumber, numberOfFloors));
+		}
+
+		return reader.readElevator(elevatorNumber, numberOfFloors);
+	}
+
+	@Override
+	public ElevatorSnapshot readElevator(int elevatorNumber, int numberOfFloors, ElevatorSnapshot previous, Predicate<PolledField> due) throws RemoteException {
+		IElevatorSnapshotReader reader = getSnapshotReader();
+
+		if(reader instanceof BulkSnapshotReader) {
+			return breaker.call(() -> reader.readElevator(elevatorNumber, numberOfFloors, previous, due));
+		}
+
+		return reader.readElevator(elevatorNumber, numberOfFloors, previous, due);
 	}
 
 }
@@ -5,13 +5,15 @@ import java.beans.PropertyChangeListener;
 
 import at.fhhagenberg.sqelevator.ElevatorsMqttClient;
 import at.fhhagenberg.sqelevator.Floor;
+import at.fhhagenberg.sqelevator.IFloorListener;
 
 /**
  * Class acting as a bridge between a floor and a MQTT client.
- * The class implements PropertyChangeListener and listens to changes in the Floor class.
+ * The class implements IFloorListener and listens to changes in the Floor class.
  * On changes in the floor class, a MQTT message is published via the MQTT client.
+ * The class still implements PropertyChangeListener, so it can be used with the bean API of the Floor class as well.
  */
-public class FloorMqttBridge implements IMqttBridge, PropertyChangeListener {
+public class FloorMqttBridge implements IMqttBridge, IFloorListener, PropertyChangeListener {
 
 	private final Floor floor;
 	private final ElevatorsMqttClient mqtt;
@@ -27,6 +29,20 @@ public class FloorMqttBridge implements IMqttBridge, PropertyChangeListener {
 		this.mqtt = mqtt;
 	}
 
+	@Override
+	public void onButtonUpChanged(Floor source, boolean buttonUp) {
+		if(source == floor) {
+			publishButtonUp();
+		}
+	}
+
+	@Override
+	public void onButtonDownChanged(Floor source, boolean buttonDown) {
+		if(source == floor) {
+			publishButtonDown();
+		}
+	}
+
 	/**
 	 * Property change method of the implemented PropertyChangeListener interface.
 	 * @param evt property change event from the floor
@@ -50,7 +66,7 @@ public class FloorMqttBridge implements IMqttBridge, PropertyChangeListener {
 	}
 
 	/**
-	 * Start the bridge: Add the property change listener and publish the current information of the elevator..
+	 * Start the bridge: Add the floor listener and publish the current information of the elevator..
 	 */
 	public void start() {
 		if(started) {
@@ -58,17 +74,24 @@ public class FloorMqttBridge implements IMqttBridge, PropertyChangeListener {
 		}
 		
 		started = true;
-		floor.addPropertyChangeListener(this);
+		floor.addFloorListener(this);
 		publishButtonUp();
 		publishButtonDown();
 	}
 
 	/**
-	 * Stop the bridge: Remove the property change listener.
+	 * Stop the bridge: Remove the floor listener.
 	 */
 	public void stop() {
 		started = false;
-		floor.removePropertyChangeListener(this);
+		floor.removeFloorListener(this);
+	}
+	
+	/**
+	 * Flush the bridge: Nothing to do, floor changes are published immediately.
+	 */
+	public void flush() {
+		// Floor buttons have no state frame, changes are published in the listener methods
 	}
 	
 	private void publishButtonUp() {
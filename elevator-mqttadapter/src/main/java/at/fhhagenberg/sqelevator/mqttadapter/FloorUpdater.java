@@ -2,34 +2,98 @@ package at.fhhagenberg.sqelevator.mqttadapter;
 
 import java.rmi.RemoteException;
 
+import at.fhhagenberg.sqelevator.BuildingState;
 import at.fhhagenberg.sqelevator.Floor;
+import at.fhhagenberg.sqelevator.PolledField;
 import sqelevator.IElevator;
 
 /**
  * Class for updating Floor objects from the IElevator API.
+ * A newly pressed button wakes all elevators in the ActivityMonitor, as any of them may serve the call.
+ * With a BuildingState the buttons are also written into its back buffer, which is published after the tick.
  */
 public class FloorUpdater implements IUpdater {
 	
 	private final Floor floor;
 	private final IElevator plc;
 	private final int number;
+	private final PollSchedule schedule;
+	private final ActivityMonitor activity;
+	private final BuildingState state;
 
 	/**
 	 * Create a new Updater object for the given floor.
 	 * @param floor the floor to create the updater for
 	 */
-	public FloorUpdater(Floor floor) {		
+	public FloorUpdater(Floor floor) {
+		this(floor, new PollSchedule());
+	}
+
+	/**
+	 * Create a new Updater object for the given floor which reads the buttons when they are due in the schedule.
+	 * @param floor the floor to create the updater for
+	 * @param schedule the schedule which decides whether the buttons are read on a tick
+	 */
+	public FloorUpdater(Floor floor, PollSchedule schedule) {
+		this(floor, schedule, new ActivityMonitor(0));
+	}
+
+	/**
+	 * Create a new Updater object for the given floor which reads the buttons when they are due in the schedule
+	 * and wakes the elevators in the activity monitor on a newly pressed button.
+	 * @param floor the floor to create the updater for
+	 * @param schedule the schedule which decides whether the buttons are read on a tick
+	 * @param activity the monitor of the elevators to wake
+	 */
+	public FloorUpdater(Floor floor, PollSchedule schedule, ActivityMonitor activity) {
+		this(floor, schedule, activity, null);
+	}
+
+	/**
+	 * Create a new Updater object for the given floor which also writes the read buttons into a BuildingState.
+	 * @param floor the floor to create the updater for
+	 * @param schedule the schedule which decides whether the buttons are read on a tick
+	 * @param activity the monitor of the elevators to wake
+	 * @param state the state to write the buttons into, null to update the floor only
+	 */
+	public FloorUpdater(Floor floor, PollSchedule schedule, ActivityMonitor activity, BuildingState state) {		
 		if(floor == null) {
 			throw new IllegalArgumentException("Floor must be valid!"); 
 		}
 		
+		if(schedule == null) {
+			throw new IllegalArgumentException("Schedule must be valid!"); 
+		}
+		
+		if(activity == null) {
+			throw new IllegalArgumentException("Activity monitor must be valid!"); 
+		}
+		
+		this.activity = activity;
+		this.state = state;
+		this.schedule = schedule;
 		this.floor = floor;
 		this.plc = floor.getPlc();
 		this.number = floor.getNumber();		
 	}
 
 	public void update() throws RemoteException {		
-		floor.setButtonDown(plc.getFloorButtonDown(number));
-		floor.setButtonUp(plc.getFloorButtonUp(number));
+		if(!schedule.isDue(PolledField.FLOOR_BUTTONS)) {
+			return;
+		}
+
+		boolean down = plc.getFloorButtonDown(number);
+		boolean up = plc.getFloorButtonUp(number);
+
+		if((down && !floor.isButtonDown()) || (up && !floor.isButtonUp())) {
+			activity.wakeAll();
+		}
+
+		floor.setButtonDown(down);
+		floor.setButtonUp(up);
+
+		if(state != null) {
+			state.setFloorButtons(number, up, down);
+		}
 	}
 }
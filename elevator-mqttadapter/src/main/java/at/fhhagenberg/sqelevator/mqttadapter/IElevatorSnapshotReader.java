@@ -0,0 +1,37 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import java.rmi.RemoteException;
+import java.util.function.Predicate;
+
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
+import at.fhhagenberg.sqelevator.PolledField;
+
+/**
+ * Common interface for reading the whole state of an elevator from the RMI API (e.g. BulkSnapshotReader, ConcurrentSnapshotReader).
+ */
+public interface IElevatorSnapshotReader {
+
+	/**
+	 * Read the current state of an elevator.
+	 * @param elevatorNumber the number of the elevator
+	 * @param numberOfFloors the number of floors in the building
+	 * @return the snapshot of the elevator
+	 * @throws RemoteException if the connection to the RMI API is lost
+	 */
+	public ElevatorSnapshot readElevator(int elevatorNumber, int numberOfFloors) throws RemoteException;
+
+	/**
+	 * Read the state of an elevator where only the due fields have to be read from the RMI API.
+	 * Readers which get all fields with one call anyway (e.g. BulkSnapshotReader) read the whole state.
+	 * @param elevatorNumber the number of the elevator
+	 * @param numberOfFloors the number of floors in the building
+	 * @param previous the previous snapshot of the elevator which provides the fields which are not due, null to read all fields
+	 * @param due decides which fields are due
+	 * @return the snapshot of the elevator
+	 * @throws RemoteException if the connection to the RMI API is lost
+	 */
+	public default ElevatorSnapshot readElevator(int elevatorNumber, int numberOfFloors, ElevatorSnapshot previous, Predicate<PolledField> due) throws RemoteException {
+		return readElevator(elevatorNumber, numberOfFloors);
+	}
+
+}
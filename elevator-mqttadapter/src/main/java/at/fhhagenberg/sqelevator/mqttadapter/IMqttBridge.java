@@ -15,4 +15,9 @@ public interface IMqttBridge {
 	 */
 	public void stop();
 
+	/**
+	 * Publish the changes collected since the last flush (called once per update cycle).
+	 */
+	public void flush();
+
 }
@@ -6,11 +6,17 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.rmi.RemoteException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
 
 import at.fhhagenberg.sqelevator.Building;
 import at.fhhagenberg.sqelevator.ElevatorProperties;
 import at.fhhagenberg.sqelevator.ElevatorsMqttClient;
 import at.fhhagenberg.sqelevator.ExitCommandThread;
+import at.fhhagenberg.sqelevator.TelemetryFormat;
 import sqelevator.IElevator;
 
 /**
@@ -34,7 +40,8 @@ public class Main {
 
 	/**
 	 * Testable main method of the Main class. Creates the main ElevatorsMqttAdapter object plus necessary objects and runs it.
-	 * Also contains reconnection logic for IElevator RMI API connection losses.
+	 * Also contains reconnection logic for IElevator RMI API connection losses: reconnect attempts back off exponentially
+	 * with jitter and the adapter with its building is kept if the simulator has the same layout after the reconnect.
 	 * @param args the command line arguments provided
 	 * @param input input stream for keyboard input
 	 * @param output output stream for displaying information
@@ -44,6 +51,7 @@ public class Main {
 	 */
 	public void run(String[] args, ElevatorProperties props, InputStream input, OutputStream output) throws InterruptedException, IOException, ExecutionException {
 		ElevatorsMqttClient mqtt = new ElevatorsMqttClient(props.getMqttAddress(), props.getMqttPort());
+		mqtt.configure(props);
 		mqtt.connect();
 		mqtt.publishConnected(false);
 		
@@ -53,40 +61,69 @@ public class Main {
 		OutputStreamWriter writer = new OutputStreamWriter(output);
 		writer.write("Enter \"" + props.getExitLine() + "\" to stop the application.\n");
 		writer.flush();
+
+		try {
+			writer.write("Publish metrics available via JMX: " + mqtt.getPublishMetrics().register("mqttadapter") + "\n");
+		}
+		catch(JMException e) {
+			writer.write("Publish metrics not available via JMX: " + e.getMessage() + "\n");
+		}
+		writer.flush();
 		
 		if(args != null && args.length > 0 && args[0] != null && args[0].contains("rmimock")) {					
 			IElevator plc = new ElevatorPlcMock(2, 2, 5);
 			writer.write("Using RMI API Mock.\n");
 			writer.flush();
-			run(plc, mqtt, exitThread, output, props.getRmiPollingInterval());
+			run(plc, mqtt, exitThread, output, props);
 		}
 		else {
 			ElevatorsPlcConnection plc = new ElevatorsPlcConnection(props);
 			writer.write("Using elevator simulator.\n");
+
+			try {
+				writer.write("RMI circuit breaker available via JMX: " + plc.getCircuitBreaker().register("mqttadapter") + "\n");
+			}
+			catch(JMException e) {
+				writer.write("RMI circuit breaker not available via JMX: " + e.getMessage() + "\n");
+			}
 			writer.flush();
 			
+			long reconnectInitial = props.getRmiReconnectInitial() > 0 ? props.getRmiReconnectInitial() : ReconnectBackoff.DEFAULT_INITIAL_MS;
+			long reconnectMax = props.getRmiReconnectMax() > 0 ? props.getRmiReconnectMax() : ReconnectBackoff.DEFAULT_MAX_MS;
+			ReconnectBackoff backoff = new ReconnectBackoff(reconnectInitial, Math.max(reconnectInitial, reconnectMax));
+			ElevatorsMqttAdapter adapter = null;
+			
 			while(!exitThread.isExitRequest()) {				
 				try {
 					if(plc.connect(output)) {
+						backoff.reset();
 						mqtt.publishConnected(true);
 						writer.write("Connected to RMI API.\n");
 						writer.flush();
-						run(plc, mqtt, exitThread, output, props.getRmiPollingInterval());
+
+						if(adapter == null || !adapter.isStarted() || !adapter.getBuilding().matchesLayout(plc)) {
+							if(adapter != null) {
+								adapter.stop();
+								unregisterTickMetrics(adapter, writer);
+							}
+
+							adapter = createAdapter(plc, mqtt, output, props);
+						}
+
+						adapter.run(exitThread, output);
 					}
 				}
 				catch(RemoteException e) {
 					mqtt.publishConnected(false);
-					writer.write("Lost connection to RMI API: ");
+					writer.write("Lost connection to RMI API (circuit breaker " + plc.getCircuitBreaker().getStateName() + "): ");
 					writer.write(e.getMessage());
 					writer.write("\nTry to reconnect ...\n");
 					writer.flush();
 				}
 				
-				if(exitThread.isExitRequest()) {
+				if(exitThread.awaitExitRequest(backoff.nextDelayMs(), TimeUnit.MILLISECONDS)) {
 					break;
 				}
-
-				Thread.sleep(2500);
 			}
 		}
 
@@ -98,10 +135,76 @@ public class Main {
 		exitThread.join();
 	}
 
-	private void run(IElevator plc, ElevatorsMqttClient mqtt, ExitCommandThread exitThread, OutputStream output, int pollingInterval) throws InterruptedException, IOException, ExecutionException {
-		Building building = new Building(plc);
-		ElevatorsMqttAdapter adapter = new ElevatorsMqttAdapter(building, mqtt);
-		adapter.setUpdateTimerPeriodMs(pollingInterval);
-		adapter.run(exitThread, output);
+	private void run(IElevator plc, ElevatorsMqttClient mqtt, ExitCommandThread exitThread, OutputStream output, ElevatorProperties props) throws InterruptedException, IOException, ExecutionException {
+		createAdapter(plc, mqtt, output, props).run(exitThread, output);
+	}
+
+	private ElevatorsMqttAdapter createAdapter(IElevator plc, ElevatorsMqttClient mqtt, OutputStream output, ElevatorProperties props) throws IOException {
+		TelemetryFormat telemetryFormat = props.getTelemetryFormat() != null ? props.getTelemetryFormat() : TelemetryFormat.FIELDS;
+		Building building = loadBuilding(plc, props.getLoadThreads());
+		OutputStreamWriter writer = new OutputStreamWriter(output);
+		writer.write("Loaded building with " + building.getElevatorCount() + " elevators and " + building.getFloorCount()
+				+ " floors in " + building.getLoadTimeMs() + " ms.\n");
+		writer.flush();
+
+		ElevatorsMqttAdapter adapter = new ElevatorsMqttAdapter(building, mqtt, telemetryFormat, props.isBuildingState());
+		adapter.setUpdateTimerPeriodMs(props.getRmiPollingInterval());
+
+		if(props.getPollingPolicy() != null) {
+			adapter.setPollingPolicy(props.getPollingPolicy());
+		}
+
+		adapter.setClockTickGating(props.isClockTickGating());
+
+		if(props.getIdlePollingInterval() > 0) {
+			adapter.setIdlePollingIntervalMs(props.getIdlePollingInterval());
+		}
+
+		if(props.getTickOverrunPolicy() != null) {
+			adapter.setOverrunPolicy(props.getTickOverrunPolicy());
+		}
+
+		try {
+			writer.write("Tick metrics available via JMX: " + adapter.getTickScheduler().register("mqttadapter") + "\n");
+		}
+		catch(JMException e) {
+			writer.write("Tick metrics not available via JMX: " + e.getMessage() + "\n");
+		}
+		writer.flush();
+
+		if(props.getUpdateThreads() > 0) {
+			adapter.setUpdateThreads(props.getUpdateThreads());
+		}
+
+		return adapter;
+	}
+
+	private void unregisterTickMetrics(ElevatorsMqttAdapter adapter, OutputStreamWriter writer) throws IOException {
+		try {
+			adapter.getTickScheduler().unregister();
+		}
+		catch(JMException e) {
+			writer.write("Tick metrics could not be unregistered from JMX: " + e.getMessage() + "\n");
+			writer.flush();
+		}
+	}
+
+	private Building loadBuilding(IElevator plc, int loadThreads) throws IOException {
+		if(loadThreads <= 1) {
+			return new Building(plc);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(loadThreads, runnable -> {
+			Thread thread = new Thread(runnable, "building-load");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try {
+			return new Building(plc, executor);
+		}
+		finally {
+			executor.shutdownNow();
+		}
 	}
 }
@@ -0,0 +1,346 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import java.lang.management.ManagementFactory;
+import java.rmi.RemoteException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Deadlines and a circuit breaker for the remote calls of an ElevatorsPlcConnection.
+ *
+ * With a call timeout, a remote call runs on a daemon thread and the caller waits at most the timeout for it; a call
+ * which misses its deadline fails with a RemoteException, so a hung simulator cannot freeze the poll loop.
+ * Cancelling does not stop a blocked RMI call, so its thread stays busy until the call returns; at most
+ * MAX_PENDING_CALLS calls run at once and further calls fail with a RemoteException instead of starting more threads.
+ * After failureThreshold consecutive failed calls the breaker opens: all calls fail fast with a RemoteException
+ * without contacting the remote API. After the open interval one trial call is let through (half open); the breaker
+ * closes if it succeeds and opens again if it fails. RuntimeExceptions of the remote API (e.g. invalid arguments)
+ * are passed through and do not count as failures.
+ * The metrics can be registered at the platform MBeanServer to read them with JMX tools (e.g. JConsole).
+ */
+public class PlcCircuitBreaker implements PlcCircuitBreakerMXBean {
+
+	/**
+	 * State of the circuit breaker.
+	 */
+	public enum State {
+		/** Calls are issued. */
+		CLOSED,
+		/** Calls fail fast. */
+		OPEN,
+		/** One trial call is issued, the others fail fast. */
+		HALF_OPEN
+	}
+
+	/**
+	 * A remote call.
+	 * @param <T> the result type of the call
+	 */
+	@FunctionalInterface
+	public interface IRemoteCall<T> {
+
+		/**
+		 * Issue the remote call.
+		 * @return the result of the call
+		 * @throws RemoteException if the connection to the remote API is lost
+		 */
+		T call() throws RemoteException;
+	}
+
+	/** Domain and type of the JMX object names. */
+	public static final String OBJECT_NAME_PREFIX = "at.fhhagenberg.sqelevator:type=PlcCircuitBreaker,name=";
+
+	/** Default number of consecutive failures which open the breaker. */
+	public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+
+	/** Default time the breaker stays open before a trial call. */
+	public static final long DEFAULT_OPEN_MS = 2000;
+
+	/** Maximum number of remote calls with a deadline which run at once. */
+	public static final int MAX_PENDING_CALLS = 64;
+
+	private static ExecutorService sharedExecutor;
+
+	private final long callTimeoutMs;
+	private final int failureThreshold;
+	private final long openNanos;
+	private final LongSupplier clock;
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder trips = new LongAdder();
+	private final LongAdder latencySum = new LongAdder();
+	private final AtomicLong latencyMax = new AtomicLong();
+	private State state = State.CLOSED;
+	private int consecutiveFailures = 0;
+	private long openedAt;
+	private ObjectName objectName;
+
+	/**
+	 * Create a new breaker.
+	 * @param callTimeoutMs the deadline of a remote call in ms, 0 for no deadline (the call runs on the calling thread)
+	 * @param failureThreshold the number of consecutive failures which open the breaker
+	 * @param openMs the time in ms the breaker stays open before a trial call
+	 */
+	public PlcCircuitBreaker(long callTimeoutMs, int failureThreshold, long openMs) {
+		this(callTimeoutMs, failureThreshold, openMs, System::nanoTime);
+	}
+
+	PlcCircuitBreaker(long callTimeoutMs, int failureThreshold, long openMs, LongSupplier clock) {
+		if(callTimeoutMs < 0) {
+			throw new IllegalArgumentException("Call timeout must be >=0!");
+		}
+
+		if(failureThreshold <= 0 || openMs <= 0) {
+			throw new IllegalArgumentException("Failure threshold and open interval must be greater than 0!");
+		}
+
+		this.callTimeoutMs = callTimeoutMs;
+		this.failureThreshold = failureThreshold;
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+		this.clock = clock;
+	}
+
+	private static synchronized ExecutorService getSharedExecutor() {
+		if(sharedExecutor == null) {
+			sharedExecutor = new ThreadPoolExecutor(0, MAX_PENDING_CALLS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+				Thread thread = new Thread(runnable, "plc-call");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		return sharedExecutor;
+	}
+
+	/**
+	 * Issues a remote call with the deadline if the breaker lets it through.
+	 * @param <T> the result type of the call
+	 * @param call the remote call
+	 * @return the result of the call
+	 * @throws RemoteException if the breaker is open, the call timed out or failed
+	 */
+	public <T> T call(IRemoteCall<T> call) throws RemoteException {
+		acquire();
+
+		long start = clock.getAsLong();
+		calls.increment();
+
+		try {
+			T result = callTimeoutMs > 0 ? callWithTimeout(call) : call.call();
+			succeeded();
+			return result;
+		}
+		catch(RemoteException e) {
+			failed();
+			throw e;
+		}
+		catch(RuntimeException e) {
+			succeeded();
+			throw e;
+		}
+		finally {
+			long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(clock.getAsLong() - start));
+			latencySum.add(micros);
+			latencyMax.accumulateAndGet(micros, Math::max);
+		}
+	}
+
+	private <T> T callWithTimeout(IRemoteCall<T> call) throws RemoteException {
+		Future<T> future;
+
+		try {
+			future = getSharedExecutor().submit(call::call);
+		}
+		catch(RejectedExecutionException e) {
+			throw new RemoteException("Too many pending remote calls!");
+		}
+
+		try {
+			return future.get(callTimeoutMs, TimeUnit.MILLISECONDS);
+		}
+		catch(TimeoutException e) {
+			future.cancel(true);
+			timeouts.increment();
+			throw new RemoteException("Remote call timed out after " + callTimeoutMs + " ms!");
+		}
+		catch(InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new RemoteException("Remote call interrupted!", e);
+		}
+		catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+
+			if(cause instanceof RemoteException) {
+				throw (RemoteException) cause;
+			}
+
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+
+			throw new RemoteException("Remote call failed!", cause);
+		}
+	}
+
+	private synchronized void acquire() throws RemoteException {
+		if(state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+			state = State.HALF_OPEN;
+			return;
+		}
+
+		if(state != State.CLOSED) {
+			rejected.increment();
+			throw new RemoteException("Circuit breaker is open!");
+		}
+	}
+
+	private synchronized void succeeded() {
+		consecutiveFailures = 0;
+		state = State.CLOSED;
+	}
+
+	private synchronized void failed() {
+		failures.increment();
+		++consecutiveFailures;
+
+		if(state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+			state = State.OPEN;
+			openedAt = clock.getAsLong();
+			trips.increment();
+		}
+	}
+
+	/**
+	 * Closes the breaker, e.g. after a reconnect to the remote API.
+	 */
+	public synchronized void closeCircuit() {
+		consecutiveFailures = 0;
+		state = State.CLOSED;
+	}
+
+	/**
+	 * Provides the state of the breaker. An open breaker whose open interval elapsed stays OPEN until the next call.
+	 * @return the state of the breaker
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+
+	/**
+	 * Provides whether the breaker is open (or half open), i.e. calls fail fast.
+	 * @return whether the breaker is open (true) or closed (false)
+	 */
+	public boolean isOpen() {
+		return getState() != State.CLOSED;
+	}
+
+	@Override
+	public String getStateName() {
+		return getState().name();
+	}
+
+	@Override
+	public long getCallTimeoutMs() {
+		return callTimeoutMs;
+	}
+
+	@Override
+	public long getCallCount() {
+		return calls.sum();
+	}
+
+	@Override
+	public long getFailureCount() {
+		return failures.sum();
+	}
+
+	@Override
+	public long getTimeoutCount() {
+		return timeouts.sum();
+	}
+
+	@Override
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	@Override
+	public long getTripCount() {
+		return trips.sum();
+	}
+
+	@Override
+	public long getMaxLatencyMicros() {
+		return latencyMax.get();
+	}
+
+	@Override
+	public long getMeanLatencyMicros() {
+		long count = calls.sum();
+		return count > 0 ? latencySum.sum() / count : 0;
+	}
+
+	@Override
+	public void reset() {
+		calls.reset();
+		failures.reset();
+		timeouts.reset();
+		rejected.reset();
+		trips.reset();
+		latencySum.reset();
+		latencyMax.set(0);
+	}
+
+	/**
+	 * Registers the metrics of the breaker at the platform MBeanServer. An existing registration is replaced.
+	 * @param name the name of the breaker, e.g. mqttadapter
+	 * @return the object name of the registered MBean
+	 * @throws JMException if the MBean could not be registered
+	 */
+	public synchronized ObjectName register(String name) throws JMException {
+		unregister();
+
+		ObjectName newName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		if(server.isRegistered(newName)) {
+			server.unregisterMBean(newName);
+		}
+
+		server.registerMBean(this, newName);
+		objectName = newName;
+		return newName;
+	}
+
+	/**
+	 * Removes the registration of the breaker from the platform MBeanServer, if registered.
+	 * @throws JMException if the MBean could not be unregistered
+	 */
+	public synchronized void unregister() throws JMException {
+		if(objectName != null) {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+			if(server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+
+			objectName = null;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+/**
+ * JMX interface of the PlcCircuitBreaker of an ElevatorsPlcConnection.
+ */
+public interface PlcCircuitBreakerMXBean {
+
+	/**
+	 * Provides the name of the state of the breaker.
+	 * @return CLOSED, OPEN or HALF_OPEN
+	 */
+	String getStateName();
+
+	/**
+	 * Provides the deadline of a remote call.
+	 * @return the call timeout in ms, 0 if calls have no deadline
+	 */
+	long getCallTimeoutMs();
+
+	/**
+	 * Provides the number of remote calls which were issued.
+	 * @return the number of calls
+	 */
+	long getCallCount();
+
+	/**
+	 * Provides the number of remote calls which failed, including timeouts.
+	 * @return the number of failed calls
+	 */
+	long getFailureCount();
+
+	/**
+	 * Provides the number of remote calls which did not finish before their deadline.
+	 * @return the number of timed out calls
+	 */
+	long getTimeoutCount();
+
+	/**
+	 * Provides the number of calls which failed fast because the breaker was open.
+	 * @return the number of rejected calls
+	 */
+	long getRejectedCount();
+
+	/**
+	 * Provides how often the breaker opened.
+	 * @return the number of trips
+	 */
+	long getTripCount();
+
+	/**
+	 * Provides the maximum latency of a remote call (bounded by the call timeout).
+	 * @return the maximum latency in microseconds
+	 */
+	long getMaxLatencyMicros();
+
+	/**
+	 * Provides the mean latency of the remote calls.
+	 * @return the mean latency in microseconds
+	 */
+	long getMeanLatencyMicros();
+
+	/**
+	 * Resets all counters and latencies, but not the state of the breaker.
+	 */
+	void reset();
+}
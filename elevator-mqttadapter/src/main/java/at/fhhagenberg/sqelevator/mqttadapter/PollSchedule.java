@@ -0,0 +1,105 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import at.fhhagenberg.sqelevator.PollRate;
+import at.fhhagenberg.sqelevator.PolledField;
+import at.fhhagenberg.sqelevator.PollingPolicy;
+
+/**
+ * Decides per polling tick which fields the updaters read from the RMI API.
+ *
+ * The ticks run at the tick period of the PollingPolicy (the shortest interval in use). A field of a rate with an
+ * interval of n tick periods is due on every n-th tick, static fields only on the first tick. The ElevatorsMqttAdapter
+ * advances the schedule before each tick; the updaters of the tick query it with isDue().
+ */
+public class PollSchedule {
+
+	private volatile PollingPolicy policy;
+	private volatile int[] everyTicks;
+	private volatile long tick = 0;
+
+	/**
+	 * Create a new schedule which polls all fields on every tick.
+	 */
+	public PollSchedule() {
+		this(PollingPolicy.DEFAULT);
+	}
+
+	/**
+	 * Create a new schedule for the given policy.
+	 * @param policy the rates of the fields and the intervals of the rates
+	 */
+	public PollSchedule(PollingPolicy policy) {
+		setPolicy(policy);
+	}
+
+	/**
+	 * Sets the policy of the schedule and starts again with the first tick (all fields due).
+	 * @param policy the rates of the fields and the intervals of the rates
+	 */
+	public void setPolicy(PollingPolicy policy) {
+		if(policy == null) {
+			throw new IllegalArgumentException("Polling policy must not be null!");
+		}
+
+		int period = policy.getTickPeriod();
+		int[] ticks = new int[PollRate.values().length];
+
+		for(PollRate rate : PollRate.values()) {
+			ticks[rate.ordinal()] = rate == PollRate.STATIC ? 0 : Math.max(1, Math.round((float) policy.getInterval(rate) / period));
+		}
+
+		this.policy = policy;
+		this.everyTicks = ticks;
+		this.tick = 0;
+	}
+
+	public PollingPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Provides the period of the ticks.
+	 * @return the tick period in ms
+	 */
+	public int getTickPeriod() {
+		return policy.getTickPeriod();
+	}
+
+	/**
+	 * Provides the number of the current tick.
+	 * @return the current tick, 0 for the first tick
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * Starts the schedule again with the first tick (all fields due), e.g. after a reconnect.
+	 */
+	public void restart() {
+		tick = 0;
+	}
+
+	/**
+	 * Advances the schedule to the next tick.
+	 */
+	public void nextTick() {
+		++tick;
+	}
+
+	/**
+	 * Provides whether the given field is read on the current tick.
+	 * @param field the field
+	 * @return whether the field is due (true) or keeps its last value (false)
+	 */
+	public boolean isDue(PolledField field) {
+		PollRate rate = policy.getRate(field);
+		long current = tick;
+
+		if(rate == PollRate.STATIC) {
+			return current == 0;
+		}
+
+		return current % everyTicks[rate.ordinal()] == 0;
+	}
+}
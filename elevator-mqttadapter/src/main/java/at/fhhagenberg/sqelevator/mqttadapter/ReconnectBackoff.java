@@ -0,0 +1,75 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Exponential backoff with jitter for the reconnect attempts to the RMI API.
+ *
+ * The delay starts at the initial delay and doubles with each failed attempt up to the maximum delay. The actual wait
+ * is a random value between half and the full delay, so several adapters which lost the same simulator do not
+ * reconnect at the same instant. A successful connect resets the backoff to the initial delay.
+ */
+public class ReconnectBackoff {
+
+	/** Default delay before the first reconnect attempt. */
+	public static final long DEFAULT_INITIAL_MS = 500;
+
+	/** Default maximum delay between reconnect attempts. */
+	public static final long DEFAULT_MAX_MS = 10000;
+
+	private final long initialMs;
+	private final long maxMs;
+	private final DoubleSupplier random;
+	private int attempts = 0;
+
+	/**
+	 * Create a new backoff.
+	 * @param initialMs the delay before the first reconnect attempt in ms
+	 * @param maxMs the maximum delay between reconnect attempts in ms
+	 */
+	public ReconnectBackoff(long initialMs, long maxMs) {
+		this(initialMs, maxMs, () -> ThreadLocalRandom.current().nextDouble());
+	}
+
+	ReconnectBackoff(long initialMs, long maxMs, DoubleSupplier random) {
+		if(initialMs <= 0 || maxMs < initialMs) {
+			throw new IllegalArgumentException("Initial delay must be greater than 0 and not greater than the maximum delay!");
+		}
+
+		this.initialMs = initialMs;
+		this.maxMs = maxMs;
+		this.random = random;
+	}
+
+	/**
+	 * Provides the delay before the next reconnect attempt and counts the attempt.
+	 * @return the delay in ms
+	 */
+	public long nextDelayMs() {
+		long delay = maxMs;
+
+		if(attempts < Long.SIZE - 1 && initialMs <= (maxMs >> attempts)) {
+			delay = initialMs << attempts;
+		}
+
+		++attempts;
+		long half = delay / 2;
+		return half + Math.round(random.getAsDouble() * (delay - half));
+	}
+
+	/**
+	 * Resets the backoff to the initial delay, e.g. after a successful connect.
+	 */
+	public void reset() {
+		attempts = 0;
+	}
+
+	/**
+	 * Provides the number of reconnect attempts since the last reset.
+	 * @return the number of attempts
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+}
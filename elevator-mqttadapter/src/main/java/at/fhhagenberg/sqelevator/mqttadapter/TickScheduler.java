@@ -0,0 +1,263 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import at.fhhagenberg.sqelevator.ExitCommandThread;
+import at.fhhagenberg.sqelevator.OverrunPolicy;
+
+/**
+ * Fixed-rate scheduler of the polling ticks of the ElevatorsMqttAdapter.
+ *
+ * The ticks are scheduled on a fixed grid (start + n * period) instead of sleeping the period after each tick, so the
+ * time the updaters take does not add to the period and the ticks do not drift. A tick which takes longer than the
+ * period is counted as overrun; the ticks missed meanwhile are skipped or caught up according to the OverrunPolicy.
+ * The lag (time between scheduled and actual start of a tick) and the duration of the ticks are recorded as metrics.
+ *
+ * The scheduler waits for the next tick on the exit signal of the ExitCommandThread, so an exit request ends the wait
+ * immediately. The metrics can be registered at the platform MBeanServer to read them with JMX tools (e.g. JConsole).
+ */
+public class TickScheduler implements TickSchedulerMXBean {
+
+	/** Domain and type of the JMX object names. */
+	public static final String OBJECT_NAME_PREFIX = "at.fhhagenberg.sqelevator:type=TickScheduler,name=";
+
+	/** Maximum number of missed ticks which are caught up with OverrunPolicy.COMPRESS. */
+	public static final int MAX_CATCH_UP_TICKS = 5;
+
+	private final LongSupplier clock;
+	private final LongAdder ticks = new LongAdder();
+	private final LongAdder overruns = new LongAdder();
+	private final LongAdder skippedTicks = new LongAdder();
+	private final LongAdder lagSum = new LongAdder();
+	private final AtomicLong lagMax = new AtomicLong();
+	private final AtomicLong durationMax = new AtomicLong();
+	private volatile long lastLagNanos;
+	private volatile long lastDurationNanos;
+	private volatile long periodNanos;
+	private volatile OverrunPolicy policy;
+	private long deadline;
+	private long tickStart;
+	private boolean started = false;
+	private ObjectName objectName;
+
+	/**
+	 * Create a new scheduler.
+	 * @param periodMs the target period of the ticks in ms
+	 * @param policy the policy for ticks missed because of overruns
+	 */
+	public TickScheduler(long periodMs, OverrunPolicy policy) {
+		this(periodMs, policy, System::nanoTime);
+	}
+
+	TickScheduler(long periodMs, OverrunPolicy policy, LongSupplier clock) {
+		this.clock = clock;
+		setPeriodMs(periodMs);
+		setOverrunPolicy(policy);
+	}
+
+	/**
+	 * Sets the target period of the ticks. Takes effect after the next tick.
+	 * @param periodMs the tick period in ms
+	 */
+	public void setPeriodMs(long periodMs) {
+		if(periodMs <= 0) {
+			throw new IllegalArgumentException("Tick period must be greater than 0!");
+		}
+
+		this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMs);
+	}
+
+	@Override
+	public long getPeriodMs() {
+		return TimeUnit.NANOSECONDS.toMillis(periodNanos);
+	}
+
+	/**
+	 * Sets the policy for ticks missed because of overruns.
+	 * @param policy the overrun policy
+	 */
+	public void setOverrunPolicy(OverrunPolicy policy) {
+		if(policy == null) {
+			throw new IllegalArgumentException("Overrun policy must not be null!");
+		}
+
+		this.policy = policy;
+	}
+
+	/**
+	 * Provides the policy for ticks missed because of overruns.
+	 * @return the overrun policy
+	 */
+	public OverrunPolicy getOverrunPolicy() {
+		return policy;
+	}
+
+	@Override
+	public String getOverrunPolicyName() {
+		return policy.name();
+	}
+
+	/**
+	 * Starts the schedule: the first tick is due one period from now.
+	 */
+	public void start() {
+		deadline = clock.getAsLong() + periodNanos;
+		started = true;
+	}
+
+	/**
+	 * Waits for the next tick of the schedule. Starts the schedule if it is not started yet.
+	 * Must be called by one thread only (the thread running the ticks).
+	 * @param exitThread the thread which provides the exit signal
+	 * @return whether the next tick is due (true) or the exit was requested (false)
+	 * @throws InterruptedException if the waiting thread is interrupted
+	 */
+	public boolean awaitNextTick(ExitCommandThread exitThread) throws InterruptedException {
+		if(!started) {
+			start();
+		}
+		else {
+			afterTick(clock.getAsLong());
+		}
+
+		long delay = deadline - clock.getAsLong();
+
+		if(delay > 0 && exitThread.awaitExitRequest(delay, TimeUnit.NANOSECONDS)) {
+			return false;
+		}
+
+		if(exitThread.isExitRequest()) {
+			return false;
+		}
+
+		beforeTick(clock.getAsLong());
+		return true;
+	}
+
+	private void afterTick(long now) {
+		long period = periodNanos;
+
+		long duration = now - tickStart;
+		lastDurationNanos = duration;
+		durationMax.accumulateAndGet(duration, Math::max);
+
+		if(duration > period) {
+			overruns.increment();
+		}
+
+		if(now > deadline) {
+			long missed = (now - deadline) / period;
+			long drop = policy == OverrunPolicy.SKIP ? missed : Math.max(0, missed - MAX_CATCH_UP_TICKS);
+			skippedTicks.add(drop);
+			deadline += drop * period;
+		}
+	}
+
+	private void beforeTick(long now) {
+		long lag = Math.max(0, now - deadline);
+		lastLagNanos = lag;
+		lagSum.add(lag);
+		lagMax.accumulateAndGet(lag, Math::max);
+		ticks.increment();
+		tickStart = now;
+		deadline += periodNanos;
+	}
+
+	@Override
+	public long getTickCount() {
+		return ticks.sum();
+	}
+
+	@Override
+	public long getOverrunCount() {
+		return overruns.sum();
+	}
+
+	@Override
+	public long getSkippedTickCount() {
+		return skippedTicks.sum();
+	}
+
+	@Override
+	public long getLastLagMicros() {
+		return TimeUnit.NANOSECONDS.toMicros(lastLagNanos);
+	}
+
+	@Override
+	public long getMeanLagMicros() {
+		long count = ticks.sum();
+		return count > 0 ? TimeUnit.NANOSECONDS.toMicros(lagSum.sum() / count) : 0;
+	}
+
+	@Override
+	public long getMaxLagMicros() {
+		return TimeUnit.NANOSECONDS.toMicros(lagMax.get());
+	}
+
+	@Override
+	public long getLastDurationMicros() {
+		return TimeUnit.NANOSECONDS.toMicros(lastDurationNanos);
+	}
+
+	@Override
+	public long getMaxDurationMicros() {
+		return TimeUnit.NANOSECONDS.toMicros(durationMax.get());
+	}
+
+	@Override
+	public void reset() {
+		ticks.reset();
+		overruns.reset();
+		skippedTicks.reset();
+		lagSum.reset();
+		lagMax.set(0);
+		lastLagNanos = 0;
+		durationMax.set(0);
+		lastDurationNanos = 0;
+	}
+
+	/**
+	 * Registers the metrics of the scheduler at the platform MBeanServer. An existing registration is replaced.
+	 * @param name the name of the scheduler, e.g. mqttadapter
+	 * @return the object name of the registered MBean
+	 * @throws JMException if the MBean could not be registered
+	 */
+	public synchronized ObjectName register(String name) throws JMException {
+		unregister();
+
+		ObjectName newName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		if(server.isRegistered(newName)) {
+			server.unregisterMBean(newName);
+		}
+
+		server.registerMBean(this, newName);
+		objectName = newName;
+		return newName;
+	}
+
+	/**
+	 * Removes the registration of the scheduler from the platform MBeanServer, if registered.
+	 * @throws JMException if the MBean could not be unregistered
+	 */
+	public synchronized void unregister() throws JMException {
+		if(objectName != null) {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+			if(server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+
+			objectName = null;
+		}
+	}
+}
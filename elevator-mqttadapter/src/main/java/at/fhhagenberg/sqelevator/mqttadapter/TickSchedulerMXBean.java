@@ -0,0 +1,72 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+/**
+ * JMX interface of the TickScheduler of the ElevatorsMqttAdapter.
+ */
+public interface TickSchedulerMXBean {
+
+	/**
+	 * Provides the target period of the ticks.
+	 * @return the tick period in ms
+	 */
+	long getPeriodMs();
+
+	/**
+	 * Provides the name of the overrun policy.
+	 * @return the overrun policy, e.g. SKIP
+	 */
+	String getOverrunPolicyName();
+
+	/**
+	 * Provides the number of ticks which were started.
+	 * @return the number of ticks
+	 */
+	long getTickCount();
+
+	/**
+	 * Provides the number of ticks which took longer than the period.
+	 * @return the number of overruns
+	 */
+	long getOverrunCount();
+
+	/**
+	 * Provides the number of ticks which were dropped because of overruns.
+	 * @return the number of skipped ticks
+	 */
+	long getSkippedTickCount();
+
+	/**
+	 * Provides the lag of the last tick, the time between its scheduled and its actual start.
+	 * @return the lag of the last tick in microseconds
+	 */
+	long getLastLagMicros();
+
+	/**
+	 * Provides the mean lag of the ticks.
+	 * @return the mean lag in microseconds
+	 */
+	long getMeanLagMicros();
+
+	/**
+	 * Provides the maximum lag of the ticks.
+	 * @return the maximum lag in microseconds
+	 */
+	long getMaxLagMicros();
+
+	/**
+	 * Provides the duration of the last completed tick (updaters and flush of the bridges).
+	 * @return the duration of the last tick in microseconds
+	 */
+	long getLastDurationMicros();
+
+	/**
+	 * Provides the maximum duration of a tick, bounded by the RMI call timeout if one is set.
+	 * @return the maximum duration of a tick in microseconds
+	 */
+	long getMaxDurationMicros();
+
+	/**
+	 * Resets all counters, lags and durations.
+	 */
+	void reset();
+}
@@ -0,0 +1,136 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs all updaters of one polling tick and waits for all of them (tick barrier).
+ *
+ * With more than one thread the updaters run concurrently on a worker pool, so a tick takes as long as the slowest
+ * updater instead of the sum of all updaters. Updaters are isolated from each other: an exception of one updater
+ * does not abort the others; after all updaters finished the first exception is thrown with the others added
+ * as suppressed exceptions (a RemoteException is preferred, so connection losses are always reported as such).
+ */
+public class UpdateTick implements AutoCloseable {
+
+	private final IUpdater[] updaters;
+	private final ExecutorService executor;
+	private final List<Future<?>> futures;
+
+	/**
+	 * Create a new tick for the given updaters.
+	 * @param updaters the updaters to run on every tick
+	 * @param threads the number of worker threads, 1 runs the updaters one after another in the calling thread
+	 */
+	public UpdateTick(IUpdater[] updaters, int threads) {
+		if(updaters == null) {
+			throw new IllegalArgumentException("Updaters must not be null!");
+		}
+
+		if(threads <= 0) {
+			throw new IllegalArgumentException("Number of update threads must be greater than 0!");
+		}
+
+		this.updaters = updaters.clone();
+		futures = new ArrayList<>(updaters.length);
+
+		if(threads > 1 && updaters.length > 1) {
+			executor = Executors.newFixedThreadPool(Math.min(threads, updaters.length), runnable -> {
+				Thread thread = new Thread(runnable, "updater");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		else {
+			executor = null;
+		}
+	}
+
+	/**
+	 * Provides whether the updaters run concurrently.
+	 * @return whether the updaters run on a worker pool (true) or in the calling thread (false)
+	 */
+	public boolean isParallel() {
+		return executor != null;
+	}
+
+	/**
+	 * Run all updaters once and wait until all of them finished.
+	 * @throws RemoteException the first RemoteException of the updaters, if any
+	 * @throws InterruptedException if the calling thread was interrupted while waiting for the updaters
+	 */
+	public void run() throws RemoteException, InterruptedException {
+		Exception first = null;
+
+		if(executor == null) {
+			for(IUpdater updater : updaters) {
+				try {
+					updater.update();
+				}
+				catch(RemoteException | RuntimeException e) {
+					first = collect(first, e);
+				}
+			}
+		}
+		else {
+			futures.clear();
+
+			for(IUpdater updater : updaters) {
+				futures.add(executor.submit(() -> {
+					updater.update();
+					return null;
+				}));
+			}
+
+			for(Future<?> future : futures) {
+				try {
+					future.get();
+				}
+				catch(ExecutionException e) {
+					first = collect(first, e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+				}
+			}
+		}
+
+		if(first instanceof RemoteException) {
+			throw (RemoteException) first;
+		}
+
+		if(first instanceof RuntimeException) {
+			throw (RuntimeException) first;
+		}
+
+		if(first != null) {
+			throw new RemoteException("Update failed!", first);
+		}
+	}
+
+	private static Exception collect(Exception first, Exception e) {
+		if(first == null) {
+			return e;
+		}
+
+		if(!(first instanceof RemoteException) && e instanceof RemoteException) {
+			e.addSuppressed(first);
+			return e;
+		}
+
+		first.addSuppressed(e);
+		return first;
+	}
+
+	/**
+	 * Stop the worker threads.
+	 */
+	@Override
+	public void close() {
+		if(executor != null) {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
+import sqelevator.IElevator;
+
+class ActivityMonitorTest {
+
+	private static final ElevatorSnapshot IDLE = new ElevatorSnapshot(0, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED, 0, 4,
+			IElevator.ELEVATOR_DOORS_CLOSED, 0, 0, 0, 0, 0, 2, new long[1], new long[1]);
+	private static final ElevatorSnapshot MOVING = new ElevatorSnapshot(0, IElevator.ELEVATOR_DIRECTION_UP, 0, 4,
+			IElevator.ELEVATOR_DOORS_CLOSED, 0, 5, 3, 0, 1, 2, new long[1], new long[1]);
+
+	@Test
+	void testActiveCarPolledEveryTick() {
+		ActivityMonitor activity = new ActivityMonitor(1);
+		activity.setIdleEveryTicks(4);
+
+		for(int i = 0; i < 5; ++i) {
+			assertTrue(activity.shouldPoll(0));
+			activity.update(0, MOVING);
+		}
+
+		assertFalse(activity.isIdle(0));
+	}
+
+	@Test
+	void testIdleCarBacksOff() {
+		ActivityMonitor activity = new ActivityMonitor(2);
+		activity.setIdleEveryTicks(3);
+		activity.update(0, IDLE);
+
+		assertTrue(activity.isIdle(0));
+		assertFalse(activity.isIdle(1));
+		assertFalse(activity.shouldPoll(0));
+		assertFalse(activity.shouldPoll(0));
+		assertTrue(activity.shouldPoll(0));
+		activity.update(0, IDLE);
+		assertFalse(activity.shouldPoll(0));
+		assertFalse(activity.shouldPoll(0));
+		assertTrue(activity.shouldPoll(0));
+		activity.update(0, MOVING);
+		assertTrue(activity.shouldPoll(0));
+		assertTrue(activity.shouldPoll(1));
+	}
+
+	@Test
+	void testWake() {
+		ActivityMonitor activity = new ActivityMonitor(2);
+		activity.setIdleEveryTicks(10);
+		activity.update(0, IDLE);
+		activity.update(1, IDLE);
+		assertFalse(activity.shouldPoll(0));
+
+		activity.wake(0);
+
+		assertFalse(activity.isIdle(0));
+		assertTrue(activity.isIdle(1));
+		assertTrue(activity.shouldPoll(0));
+		assertFalse(activity.shouldPoll(1));
+
+		activity.wakeAll();
+
+		assertTrue(activity.shouldPoll(0));
+		assertTrue(activity.shouldPoll(1));
+	}
+
+	@Test
+	void testWakeDuringReadIsNotLost() {
+		ActivityMonitor activity = new ActivityMonitor(1);
+		activity.setIdleEveryTicks(10);
+
+		assertTrue(activity.shouldPoll(0));
+		activity.wake(0);
+		activity.update(0, IDLE);
+
+		assertTrue(activity.shouldPoll(0));
+		activity.update(0, IDLE);
+		assertFalse(activity.shouldPoll(0));
+	}
+
+	@Test
+	void testOutOfRange() {
+		ActivityMonitor activity = new ActivityMonitor(0);
+		activity.setIdleEveryTicks(10);
+		activity.update(0, IDLE);
+		activity.wake(0);
+		activity.wakeAll();
+
+		assertTrue(activity.shouldPoll(0));
+		assertFalse(activity.isIdle(0));
+	}
+
+	@Test
+	void testInvalidArguments() {
+		ActivityMonitor activity = new ActivityMonitor(1);
+
+		assertEquals(1, activity.getIdleEveryTicks());
+		IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> activity.setIdleEveryTicks(0));
+		assertEquals("Idle interval must be greater than 0!", thrown.getMessage());
+		assertThrows(IllegalArgumentException.class, () -> new ActivityMonitor(-1));
+	}
+}
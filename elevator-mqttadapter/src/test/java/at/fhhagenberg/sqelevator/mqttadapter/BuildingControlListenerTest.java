@@ -0,0 +1,57 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.rmi.RemoteException;
+
+import org.junit.jupiter.api.Test;
+
+import at.fhhagenberg.sqelevator.Building;
+import sqelevator.IElevator;
+
+class BuildingControlListenerTest {
+
+	@Test
+	void testControlMessagesUpdateElevators() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getElevatorNum()).thenReturn(2);
+		when(plc.getFloorNum()).thenReturn(3);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		when(plc.getElevatorDoorStatus(1)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		Building building = new Building(plc);
+		BuildingControlListener listener = new BuildingControlListener(building, new ActivityMonitor(2));
+
+		listener.setTarget(1, 2);
+		listener.setCommittedDirection(1, IElevator.ELEVATOR_DIRECTION_DOWN);
+		listener.setServicesFloor(0, 2, true);
+
+		verify(plc, times(1)).setTarget(1, 2);
+		verify(plc, times(1)).setCommittedDirection(1, IElevator.ELEVATOR_DIRECTION_DOWN);
+		verify(plc, times(1)).setServicesFloors(0, 2, true);
+		assertEquals(2, building.getElevators()[1].getTarget());
+	}
+
+	@Test
+	void testIgnoresUnknownElevator() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getElevatorNum()).thenReturn(1);
+		when(plc.getFloorNum()).thenReturn(3);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		BuildingControlListener listener = new BuildingControlListener(new Building(plc), new ActivityMonitor(1));
+
+		listener.setTarget(1, 2);
+		listener.setCommittedDirection(-1, IElevator.ELEVATOR_DIRECTION_DOWN);
+		listener.setServicesFloor(1, 2, true);
+
+		verify(plc, never()).setTarget(anyInt(), anyInt());
+		verify(plc, never()).setCommittedDirection(anyInt(), anyInt());
+		verify(plc, never()).setServicesFloors(anyInt(), anyInt(), anyBoolean());
+	}
+
+	@Test
+	void testInvalidArguments() {
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> new BuildingControlListener(null, new ActivityMonitor(0)));
+		assertEquals("Building and activity monitor must be valid!", ex.getMessage());
+	}
+}
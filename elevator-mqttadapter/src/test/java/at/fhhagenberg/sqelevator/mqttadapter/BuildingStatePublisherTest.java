@@ -0,0 +1,92 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.Test;
+
+import at.fhhagenberg.sqelevator.BuildingState;
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
+import at.fhhagenberg.sqelevator.ElevatorsMqttClient;
+import at.fhhagenberg.sqelevator.TelemetryFormat;
+
+class BuildingStatePublisherTest {
+
+	private static ElevatorSnapshot snapshot(int number, int position, long stops) {
+		return new ElevatorSnapshot(number, 2, 0, 8, 2, 0, position, 0, 0, 0, 4, new long[] {stops}, new long[1]);
+	}
+
+	@Test
+	void testPublishesDirtySlotsOnly() {
+		ElevatorsMqttClient mqtt = mock(ElevatorsMqttClient.class);
+		BuildingState state = new BuildingState(2, 4);
+		BuildingStatePublisher publisher = new BuildingStatePublisher(state, mqtt);
+		state.write(snapshot(0, 0, 0));
+		state.write(snapshot(1, 0, 0));
+		publisher.publishTick();
+		clearInvocations(mqtt);
+
+		state.write(snapshot(1, 5, 0b100));
+		state.setFloorButtons(3, false, true);
+
+		assertTrue(publisher.publishTick());
+		verify(mqtt, times(1)).publishPosition(1, 5);
+		verify(mqtt, times(1)).publishButtonPressed(1, 2, true);
+		verify(mqtt, times(1)).publishButtonDown(3, true);
+		verifyNoMoreInteractions(mqtt);
+
+		assertFalse(publisher.publishTick());
+		verifyNoMoreInteractions(mqtt);
+	}
+
+	@Test
+	void testPublishesStateTopic() {
+		ElevatorsMqttClient mqtt = mock(ElevatorsMqttClient.class);
+		BuildingState state = new BuildingState(1, 4);
+		BuildingStatePublisher publisher = new BuildingStatePublisher(state, mqtt, TelemetryFormat.STATE);
+		state.write(snapshot(0, 5, 0));
+
+		publisher.publishTick();
+
+		verify(mqtt, times(1)).publishElevatorState(snapshot(0, 5, 0));
+		verify(mqtt, never()).publishPosition(anyInt(), anyInt());
+	}
+
+	@Test
+	void testPublishAll() {
+		ElevatorsMqttClient mqtt = mock(ElevatorsMqttClient.class);
+		BuildingState state = new BuildingState(1, 2);
+		BuildingStatePublisher publisher = new BuildingStatePublisher(state, mqtt);
+		state.write(new ElevatorSnapshot(0, 2, 0, 8, 2, 1, 10, 0, 0, 1, 2, new long[] {0b10}, new long[] {0b11}));
+		state.setFloorButtons(1, true, false);
+
+		publisher.publishAll();
+
+		verify(mqtt, times(1)).publishDirection(0, 2);
+		verify(mqtt, times(1)).publishAcceleration(0, 0);
+		verify(mqtt, times(1)).publishCapacity(0, 8);
+		verify(mqtt, times(1)).publishDoors(0, 2);
+		verify(mqtt, times(1)).publishFloor(0, 1);
+		verify(mqtt, times(1)).publishPosition(0, 10);
+		verify(mqtt, times(1)).publishSpeed(0, 0);
+		verify(mqtt, times(1)).publishWeight(0, 0);
+		verify(mqtt, times(1)).publishTarget(0, 1);
+		verify(mqtt, times(1)).publishButtonPressed(0, 0, false);
+		verify(mqtt, times(1)).publishButtonPressed(0, 1, true);
+		verify(mqtt, times(1)).publishServicesFloor(0, 0, true);
+		verify(mqtt, times(1)).publishServicesFloor(0, 1, true);
+		verify(mqtt, times(1)).publishButtonUp(0, false);
+		verify(mqtt, times(1)).publishButtonDown(0, false);
+		verify(mqtt, times(1)).publishButtonUp(1, true);
+		verify(mqtt, times(1)).publishButtonDown(1, false);
+		verifyNoMoreInteractions(mqtt);
+
+		assertFalse(publisher.publishTick());
+	}
+
+	@Test
+	void testInvalidArguments() {
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> new BuildingStatePublisher(null, mock(ElevatorsMqttClient.class)));
+		assertEquals("State, MQTT client and telemetry format must be valid!", ex.getMessage());
+	}
+}
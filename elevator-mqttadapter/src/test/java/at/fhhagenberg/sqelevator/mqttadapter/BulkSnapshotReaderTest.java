@@ -0,0 +1,45 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.rmi.RemoteException;
+
+import org.junit.jupiter.api.Test;
+
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
+import at.fhhagenberg.sqelevator.IElevatorBulk;
+
+class BulkSnapshotReaderTest {
+
+	@Test
+	void testReadElevator() throws RemoteException {
+		IElevatorBulk plc = mock(IElevatorBulk.class);
+		ElevatorSnapshot snapshot = new ElevatorSnapshot(1, 0, 2, 4, 1, 3, 30, 5, 100, 3, 4, new long[] { 8 }, new long[] { 15 });
+		when(plc.getElevatorSnapshot(1)).thenReturn(snapshot);
+
+		BulkSnapshotReader reader = new BulkSnapshotReader(plc);
+
+		assertSame(snapshot, reader.readElevator(1, 4));
+		verify(plc, times(1)).getElevatorSnapshot(1);
+		verifyNoMoreInteractions(plc);
+	}
+
+	@Test
+	void testReadInvalidSnapshot() throws RemoteException {
+		IElevatorBulk plc = mock(IElevatorBulk.class);
+		ElevatorSnapshot snapshot = new ElevatorSnapshot(1, 0, 2, 4, 1, 3, 30, 5, 100, 3, 4, new long[] { 8 }, new long[] { 15 });
+		when(plc.getElevatorSnapshot(1)).thenReturn(snapshot);
+
+		BulkSnapshotReader reader = new BulkSnapshotReader(plc);
+
+		assertThrows(RemoteException.class, () -> reader.readElevator(1, 5));
+		assertThrows(RemoteException.class, () -> reader.readElevator(0, 4));
+	}
+
+	@Test
+	void testConstructorNull() {
+		IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> new BulkSnapshotReader(null));
+		assertEquals("IElevatorBulk must not be null!", thrown.getMessage());
+	}
+}
@@ -0,0 +1,148 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import sqelevator.IElevator;
+
+class CachingElevatorTest {
+
+	@Test
+	void testMetadataReadOnce() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getElevatorNum()).thenReturn(2);
+		when(plc.getFloorNum()).thenReturn(5);
+		when(plc.getFloorHeight()).thenReturn(3);
+		when(plc.getElevatorCapacity(1)).thenReturn(8);
+		CachingElevator cache = new CachingElevator(plc);
+
+		for(int i = 0; i < 3; ++i) {
+			assertEquals(2, cache.getElevatorNum());
+			assertEquals(5, cache.getFloorNum());
+			assertEquals(3, cache.getFloorHeight());
+			assertEquals(8, cache.getElevatorCapacity(1));
+		}
+
+		verify(plc, times(1)).getElevatorNum();
+		verify(plc, times(1)).getFloorNum();
+		verify(plc, times(1)).getFloorHeight();
+		verify(plc, times(1)).getElevatorCapacity(1);
+		assertEquals(4, cache.getMissCount());
+		assertEquals(8, cache.getHitCount());
+
+		cache.invalidate();
+		assertEquals(5, cache.getFloorNum());
+		verify(plc, times(2)).getFloorNum();
+	}
+
+	@Test
+	void testGetCachedDoesNotCallApi() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(5);
+		when(plc.getServicesFloors(0, 1)).thenReturn(true);
+		CachingElevator cache = new CachingElevator(plc, 1000);
+
+		assertNull(cache.getCachedFloorNum());
+		assertNull(cache.getCachedElevatorNum());
+		assertNull(cache.getCachedFloorHeight());
+		assertNull(cache.getCachedElevatorCapacity(0));
+		assertNull(cache.getCachedServicesFloors(0, 1));
+		verifyNoInteractions(plc);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+
+		assertEquals(5, cache.getFloorNum());
+		assertTrue(cache.getServicesFloors(0, 1));
+		assertEquals(5, cache.getCachedFloorNum());
+		assertEquals(Boolean.TRUE, cache.getCachedServicesFloors(0, 1));
+		verify(plc, times(1)).getFloorNum();
+		verify(plc, times(1)).getServicesFloors(0, 1);
+		assertEquals(2, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	void testServicesFloorsWithoutTtl() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getServicesFloors(0, 1)).thenReturn(true);
+		CachingElevator cache = new CachingElevator(plc);
+
+		assertTrue(cache.getServicesFloors(0, 1));
+		assertTrue(cache.getServicesFloors(0, 1));
+		verify(plc, times(2)).getServicesFloors(0, 1);
+	}
+
+	@Test
+	void testServicesFloorsTtl() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getServicesFloors(0, 1)).thenReturn(true);
+		AtomicLong time = new AtomicLong();
+		CachingElevator cache = new CachingElevator(plc, 1000, time::get);
+
+		assertTrue(cache.getServicesFloors(0, 1));
+		time.set(TimeUnit.MILLISECONDS.toNanos(999));
+		assertTrue(cache.getServicesFloors(0, 1));
+		verify(plc, times(1)).getServicesFloors(0, 1);
+
+		time.set(TimeUnit.MILLISECONDS.toNanos(1000));
+		when(plc.getServicesFloors(0, 1)).thenReturn(false);
+		assertFalse(cache.getServicesFloors(0, 1));
+		verify(plc, times(2)).getServicesFloors(0, 1);
+	}
+
+	@Test
+	void testSetServicesFloorsUpdatesCache() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getServicesFloors(1, 0)).thenReturn(true);
+		CachingElevator cache = new CachingElevator(plc, 1000, () -> 0);
+
+		assertTrue(cache.getServicesFloors(1, 0));
+		cache.setServicesFloors(1, 0, false);
+		assertFalse(cache.getServicesFloors(1, 0));
+
+		verify(plc).setServicesFloors(1, 0, false);
+		verify(plc, times(1)).getServicesFloors(1, 0);
+	}
+
+	@Test
+	void testFailedSetServicesFloorsDropsCachedValue() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getServicesFloors(1, 0)).thenReturn(true);
+		doThrow(new RemoteException()).when(plc).setServicesFloors(1, 0, false);
+		CachingElevator cache = new CachingElevator(plc, 1000, () -> 0);
+
+		assertTrue(cache.getServicesFloors(1, 0));
+		assertThrows(RemoteException.class, () -> cache.setServicesFloors(1, 0, false));
+		assertTrue(cache.getServicesFloors(1, 0));
+		verify(plc, times(2)).getServicesFloors(1, 0);
+	}
+
+	@Test
+	void testForwardsOtherCalls() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getElevatorPosition(0)).thenReturn(12);
+		when(plc.getClockTick()).thenReturn(7L);
+		CachingElevator cache = new CachingElevator(plc);
+
+		assertEquals(12, cache.getElevatorPosition(0));
+		assertEquals(12, cache.getElevatorPosition(0));
+		assertEquals(7, cache.getClockTick());
+		cache.setTarget(0, 3);
+
+		verify(plc, times(2)).getElevatorPosition(0);
+		verify(plc).setTarget(0, 3);
+		assertSame(plc, cache.getPlc());
+	}
+
+	@Test
+	void testInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new CachingElevator(null));
+		assertThrows(IllegalArgumentException.class, () -> new CachingElevator(mock(IElevator.class), -1));
+	}
+}
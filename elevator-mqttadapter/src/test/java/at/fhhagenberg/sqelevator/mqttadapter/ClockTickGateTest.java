@@ -0,0 +1,70 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.rmi.RemoteException;
+
+import org.junit.jupiter.api.Test;
+
+import sqelevator.IElevator;
+
+class ClockTickGateTest {
+
+	@Test
+	void testDisabled() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		ClockTickGate gate = new ClockTickGate(plc);
+
+		assertFalse(gate.isEnabled());
+		assertTrue(gate.advance());
+		assertTrue(gate.advance());
+		assertEquals(ClockTickGate.UNKNOWN_TICK, gate.getTick());
+		assertEquals(0, gate.getSkippedTicks());
+		verify(plc, never()).getClockTick();
+	}
+
+	@Test
+	void testAdvance() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getClockTick()).thenReturn(5L, 5L, 6L, 6L);
+		ClockTickGate gate = new ClockTickGate(plc);
+		gate.setEnabled(true);
+
+		assertTrue(gate.advance());
+		assertEquals(5, gate.getTick());
+		assertFalse(gate.advance());
+		assertTrue(gate.advance());
+		assertEquals(6, gate.getTick());
+		assertFalse(gate.advance());
+		assertEquals(2, gate.getSkippedTicks());
+	}
+
+	@Test
+	void testSetEnabledPollsNextTick() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getClockTick()).thenReturn(3L);
+		ClockTickGate gate = new ClockTickGate(plc);
+		gate.setEnabled(true);
+
+		assertTrue(gate.advance());
+		assertFalse(gate.advance());
+
+		gate.setEnabled(true);
+
+		assertTrue(gate.advance());
+		assertFalse(gate.advance());
+
+		gate.reset();
+
+		assertTrue(gate.advance());
+		assertEquals(3, gate.readTick());
+		assertEquals(3, gate.getTick());
+	}
+
+	@Test
+	void testConstructorNull() {
+		IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> new ClockTickGate(null));
+		assertEquals("Plc must be valid!", thrown.getMessage());
+	}
+}
@@ -0,0 +1,92 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
+import at.fhhagenberg.sqelevator.PolledField;
+import sqelevator.IElevator;
+
+class ConcurrentSnapshotReaderTest {
+
+	@Test
+	void testReadElevator() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getCommittedDirection(1)).thenReturn(IElevator.ELEVATOR_DIRECTION_DOWN);
+		when(plc.getElevatorAccel(1)).thenReturn(2);
+		when(plc.getElevatorCapacity(1)).thenReturn(4);
+		when(plc.getElevatorDoorStatus(1)).thenReturn(IElevator.ELEVATOR_DOORS_OPEN);
+		when(plc.getElevatorFloor(1)).thenReturn(3);
+		when(plc.getElevatorPosition(1)).thenReturn(30);
+		when(plc.getElevatorSpeed(1)).thenReturn(5);
+		when(plc.getElevatorWeight(1)).thenReturn(100);
+		when(plc.getTarget(1)).thenReturn(66);
+		when(plc.getElevatorButton(1, 65)).thenReturn(true);
+		when(plc.getServicesFloors(1, 0)).thenReturn(true);
+		when(plc.getServicesFloors(1, 66)).thenReturn(true);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		ElevatorSnapshot snapshot = new ConcurrentSnapshotReader(plc, executor).readElevator(1, 67);
+		executor.shutdown();
+
+		assertEquals(1, snapshot.getNumber());
+		assertEquals(IElevator.ELEVATOR_DIRECTION_DOWN, snapshot.getCommittedDirection());
+		assertEquals(2, snapshot.getAcceleration());
+		assertEquals(4, snapshot.getCapacity());
+		assertEquals(IElevator.ELEVATOR_DOORS_OPEN, snapshot.getDoorStatus());
+		assertEquals(3, snapshot.getFloor());
+		assertEquals(30, snapshot.getPosition());
+		assertEquals(5, snapshot.getSpeed());
+		assertEquals(100, snapshot.getWeight());
+		assertEquals(66, snapshot.getTarget());
+		assertEquals(67, snapshot.getNumberOfFloors());
+		assertTrue(snapshot.getStopRequest(65));
+		assertFalse(snapshot.getStopRequest(64));
+		assertTrue(snapshot.getServicesFloor(0));
+		assertTrue(snapshot.getServicesFloor(66));
+		assertFalse(snapshot.getServicesFloor(1));
+		verify(plc, times(67)).getElevatorButton(eq(1), anyInt());
+	}
+
+	@Test
+	void testReadDueFields() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getElevatorPosition(0)).thenReturn(12);
+		ElevatorSnapshot previous = new ElevatorSnapshot(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 2, new long[] { 1 }, new long[] { 3 });
+
+		ElevatorSnapshot snapshot = new ConcurrentSnapshotReader(plc).readElevator(0, 2, previous, field -> field == PolledField.POSITION);
+
+		assertEquals(12, snapshot.getPosition());
+		assertEquals(3, snapshot.getCapacity());
+		assertEquals(9, snapshot.getTarget());
+		assertTrue(snapshot.getStopRequest(0));
+		assertTrue(snapshot.getServicesFloor(1));
+		verify(plc, times(1)).getElevatorPosition(0);
+		verifyNoMoreInteractions(plc);
+	}
+
+	@Test
+	void testRemoteExceptionIsRethrown() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getElevatorSpeed(0)).thenThrow(new RemoteException("lost"));
+
+		RemoteException thrown = assertThrows(RemoteException.class, () -> new ConcurrentSnapshotReader(plc).readElevator(0, 2));
+		assertEquals("lost", thrown.getMessage());
+	}
+
+	@Test
+	void testConstructorNull() {
+		IElevator plc = mock(IElevator.class);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		assertThrows(IllegalArgumentException.class, () -> new ConcurrentSnapshotReader(null, executor));
+		assertThrows(IllegalArgumentException.class, () -> new ConcurrentSnapshotReader(plc, null));
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,94 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.rmi.RemoteException;
+
+import org.junit.jupiter.api.Test;
+
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
+import sqelevator.IElevator;
+
+class ConsistentSnapshotReaderTest {
+
+	private static ElevatorSnapshot snapshot(int position) {
+		return new ElevatorSnapshot(0, 0, 0, 4, 1, 0, position, 0, 0, 0, 2, new long[] { 0 }, new long[] { 3 });
+	}
+
+	@Test
+	void testDisabledReadsOnce() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		IElevatorSnapshotReader reader = mock(IElevatorSnapshotReader.class);
+		when(reader.readElevator(eq(0), eq(2), isNull(), any())).thenReturn(snapshot(10));
+
+		ConsistentSnapshotReader consistent = new ConsistentSnapshotReader(reader, new ClockTickGate(plc));
+
+		assertEquals(10, consistent.readElevator(0, 2).getPosition());
+		verify(plc, never()).getClockTick();
+		assertEquals(0, consistent.getRetries());
+	}
+
+	@Test
+	void testReadWithinOneTick() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getClockTick()).thenReturn(7L);
+		IElevatorSnapshotReader reader = mock(IElevatorSnapshotReader.class);
+		when(reader.readElevator(eq(0), eq(2), isNull(), any())).thenReturn(snapshot(10));
+		ClockTickGate gate = new ClockTickGate(plc);
+		gate.setEnabled(true);
+		gate.advance();
+
+		ConsistentSnapshotReader consistent = new ConsistentSnapshotReader(reader, gate);
+
+		assertEquals(10, consistent.readElevator(0, 2).getPosition());
+		verify(plc, times(2)).getClockTick();
+		verify(reader, times(1)).readElevator(eq(0), eq(2), isNull(), any());
+		assertEquals(0, consistent.getRetries());
+	}
+
+	@Test
+	void testRetryTornRead() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getClockTick()).thenReturn(7L, 8L, 8L);
+		IElevatorSnapshotReader reader = mock(IElevatorSnapshotReader.class);
+		when(reader.readElevator(eq(0), eq(2), isNull(), any())).thenReturn(snapshot(10), snapshot(12));
+		ClockTickGate gate = new ClockTickGate(plc);
+		gate.setEnabled(true);
+		gate.advance();
+
+		ConsistentSnapshotReader consistent = new ConsistentSnapshotReader(reader, gate);
+
+		assertEquals(12, consistent.readElevator(0, 2).getPosition());
+		verify(reader, times(2)).readElevator(eq(0), eq(2), isNull(), any());
+		assertEquals(1, consistent.getRetries());
+		assertEquals(7, gate.getTick());
+	}
+
+	@Test
+	void testGiveUpAfterMaxRetries() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getClockTick()).thenReturn(1L, 2L, 3L, 4L);
+		IElevatorSnapshotReader reader = mock(IElevatorSnapshotReader.class);
+		when(reader.readElevator(eq(0), eq(2), isNull(), any())).thenReturn(snapshot(10), snapshot(11), snapshot(12));
+		ClockTickGate gate = new ClockTickGate(plc);
+		gate.setEnabled(true);
+
+		ConsistentSnapshotReader consistent = new ConsistentSnapshotReader(reader, gate, 1);
+
+		assertEquals(11, consistent.readElevator(0, 2).getPosition());
+		verify(reader, times(2)).readElevator(eq(0), eq(2), isNull(), any());
+		assertEquals(1, consistent.getRetries());
+	}
+
+	@Test
+	void testConstructorInvalid() {
+		IElevatorSnapshotReader reader = mock(IElevatorSnapshotReader.class);
+		ClockTickGate gate = new ClockTickGate(mock(IElevator.class));
+
+		IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> new ConsistentSnapshotReader(null, gate));
+		assertEquals("Snapshot reader and clock tick gate must be valid!", thrown.getMessage());
+		assertThrows(IllegalArgumentException.class, () -> new ConsistentSnapshotReader(reader, null));
+		assertThrows(IllegalArgumentException.class, () -> new ConsistentSnapshotReader(reader, gate, -1));
+	}
+}
@@ -1,6 +1,9 @@
 package at.fhhagenberg.sqelevator.mqttadapter;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 import java.beans.PropertyChangeEvent;
@@ -12,7 +15,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import at.fhhagenberg.sqelevator.Elevator;
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
 import at.fhhagenberg.sqelevator.ElevatorsMqttClient;
+import at.fhhagenberg.sqelevator.TelemetryFormat;
+import sqelevator.IElevator;
 
 @ExtendWith(MockitoExtension.class)
 class ElevatorMqttBridgeTest {
@@ -48,7 +54,7 @@ class ElevatorMqttBridgeTest {
 		
 		bridge.start();
 		
-		verify(elevator, times(1)).addPropertyChangeListener(bridge);
+		verify(elevator, times(1)).addElevatorListener(bridge);
 		verify(mqtt, times(1)).publishDirection(0, 0);
 		verify(mqtt, times(1)).publishAcceleration(0, 0);
 		verify(mqtt, times(1)).publishButtonPressed(0, 0, false);
@@ -81,7 +87,7 @@ class ElevatorMqttBridgeTest {
 		bridge.start();
 		bridge.start();
 		
-		verify(elevator, times(1)).addPropertyChangeListener(bridge);
+		verify(elevator, times(1)).addElevatorListener(bridge);
 		verify(mqtt, times(1)).publishDirection(0, 0);
 		verify(mqtt, times(1)).publishAcceleration(0, 0);
 		verify(mqtt, times(0)).publishButtonPressed(0, 0, false);
@@ -97,11 +103,64 @@ class ElevatorMqttBridgeTest {
 		verify(mqtt, times(1)).publishTarget(0, 1);
 	}
 	
+	@Test
+	void testStartStateOnly() {
+		bridge = new ElevatorMqttBridge(elevator, mqtt, TelemetryFormat.STATE);
+		when(elevator.getNumber()).thenReturn(3);
+		when(elevator.getWeight()).thenReturn(100);
+		
+		bridge.start();
+		
+		verify(mqtt, times(1)).publishElevatorState(argThat(state -> state.getNumber() == 3 && state.getWeight() == 100));
+		verify(mqtt, times(0)).publishWeight(anyInt(), anyInt());
+	}
+	
+	@Test
+	void testFlushPublishesStateOncePerChange() {
+		bridge = new ElevatorMqttBridge(elevator, mqtt, TelemetryFormat.STATE);
+		bridge.start();
+		
+		bridge.propertyChange(new PropertyChangeEvent(elevator, Elevator.POSITION_PROPERTY_NAME, null, null));
+		bridge.propertyChange(new PropertyChangeEvent(elevator, Elevator.SPEED_PROPERTY_NAME, null, null));
+		bridge.flush();
+		bridge.flush();
+		
+		verify(mqtt, times(2)).publishElevatorState(any(ElevatorSnapshot.class));
+		verify(mqtt, times(0)).publishPosition(anyInt(), anyInt());
+		verify(mqtt, times(0)).publishSpeed(anyInt(), anyInt());
+	}
+	
+	@Test
+	void testFlushBoth() {
+		bridge = new ElevatorMqttBridge(elevator, mqtt, TelemetryFormat.BOTH);
+		bridge.start();
+		
+		bridge.propertyChange(new PropertyChangeEvent(elevator, Elevator.POSITION_PROPERTY_NAME, null, null));
+		bridge.flush();
+		
+		verify(mqtt, times(2)).publishElevatorState(any(ElevatorSnapshot.class));
+		verify(mqtt, times(2)).publishPosition(anyInt(), anyInt());
+	}
+	
+	@Test
+	void testFlushFieldsOnly() {
+		bridge.propertyChange(new PropertyChangeEvent(elevator, Elevator.POSITION_PROPERTY_NAME, null, null));
+		bridge.flush();
+		
+		verify(mqtt, times(0)).publishElevatorState(any(ElevatorSnapshot.class));
+	}
+	
+	@Test
+	void testInvalidTelemetryFormat() {
+		IllegalArgumentException thrown = assertThrowsExactly(IllegalArgumentException.class, () -> new ElevatorMqttBridge(elevator, mqtt, null));
+		assertEquals("Telemetry format must not be null!", thrown.getMessage());
+	}
+	
 	@Test
 	void testStop() {
 		bridge.stop();
 		
-		verify(elevator, times(1)).removePropertyChangeListener(bridge);
+		verify(elevator, times(1)).removeElevatorListener(bridge);
 	}
 	
 	@Test
@@ -232,6 +291,46 @@ class ElevatorMqttBridgeTest {
 		verify(mqtt, times(1)).publishTarget(0, 1);
 	}
 	
+	@Test
+	void testOnPositionChanged() {
+		when(elevator.getNumber()).thenReturn(0);
+		when(elevator.getPosition()).thenReturn(5);
+		
+		bridge.onPositionChanged(elevator, 0, 5);
+		
+		verify(mqtt, times(1)).publishPosition(0, 5);
+	}
+	
+	@Test
+	void testOnStopRequestChanged() {
+		when(elevator.getNumber()).thenReturn(0);
+		
+		bridge.onStopRequestChanged(elevator, 1, true);
+		
+		verify(mqtt, times(1)).publishButtonPressed(0, 1, true);
+		verify(mqtt, times(1)).publishButtonPressed(anyInt(), anyInt(), anyBoolean());
+	}
+	
+	@Test
+	void testOnServicesFloorChanged() {
+		when(elevator.getNumber()).thenReturn(0);
+		
+		bridge.onServicesFloorChanged(elevator, 1, false);
+		
+		verify(mqtt, times(1)).publishServicesFloor(0, 1, false);
+		verify(mqtt, times(1)).publishServicesFloor(anyInt(), anyInt(), anyBoolean());
+	}
+	
+	@Test
+	void testOnChangedInvalidSource() {
+		Elevator other = mock(Elevator.class);
+		
+		bridge.onTargetChanged(other, 0, 1);
+		bridge.onStopRequestChanged(other, 1, true);
+		
+		verifyNoInteractions(mqtt);
+	}
+	
 	@Test
 	void testPropertyChange_InvalidPropertySource() {
 		Object invalid = new Object();
@@ -369,4 +468,23 @@ class ElevatorMqttBridgeTest {
 		
 		verify(elevator, times(1)).setTarget(0);
 	}
+
+	@Test
+	void testSetTargetWakesElevator() throws RemoteException {
+		when(elevator.getNumber()).thenReturn(0);
+		ActivityMonitor activity = new ActivityMonitor(1);
+		activity.update(0, new ElevatorSnapshot(0, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED, 0, 4, IElevator.ELEVATOR_DOORS_CLOSED, 0, 0, 0, 0, 0, 1, new long[1], new long[1]));
+		ElevatorMqttBridge activityBridge = new ElevatorMqttBridge(elevator, mqtt, TelemetryFormat.FIELDS, activity);
+
+		activityBridge.start();
+		activityBridge.setTarget(1, 0);
+		
+		assertTrue(activity.isIdle(0));
+		
+		activityBridge.setTarget(0, 0);
+		
+		assertFalse(activity.isIdle(0));
+		verify(elevator, times(1)).setTarget(0);
+		assertThrows(IllegalArgumentException.class, () -> new ElevatorMqttBridge(elevator, mqtt, TelemetryFormat.FIELDS, null));
+	}
 }
@@ -10,7 +10,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import at.fhhagenberg.sqelevator.BuildingState;
 import at.fhhagenberg.sqelevator.Elevator;
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
+import at.fhhagenberg.sqelevator.IElevatorBulk;
+import at.fhhagenberg.sqelevator.IElevatorListener;
+import at.fhhagenberg.sqelevator.PollRate;
+import at.fhhagenberg.sqelevator.PolledField;
+import at.fhhagenberg.sqelevator.PollingPolicy;
 import sqelevator.IElevator;
 
 @ExtendWith(MockitoExtension.class)
@@ -190,4 +197,142 @@ class ElevatorUpdaterTest {
 		
 		assertEquals(1, elevator.getTarget());
 	}
+
+	@Test
+	void testUpdateFromBulkApi() throws RemoteException {
+		IElevatorBulk plc = mock(IElevatorBulk.class);
+		when(plc.getFloorNum()).thenReturn(2);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		when(plc.getElevatorSnapshot(0)).thenReturn(new ElevatorSnapshot(0, IElevator.ELEVATOR_DIRECTION_UP, 1, 5, IElevator.ELEVATOR_DOORS_OPEN,
+				1, 0, 2, 150, 1, 2, new long[] { 2 }, new long[] { 3 }));
+
+		Elevator elevator = new Elevator(plc, 0);
+		
+		ElevatorUpdater updater = new ElevatorUpdater(elevator);
+		updater.update();
+		updater.update();
+		
+		assertEquals(IElevator.ELEVATOR_DIRECTION_UP, elevator.getCommittedDirection());
+		assertEquals(IElevator.ELEVATOR_DOORS_OPEN, elevator.getDoorStatus());
+		assertEquals(150, elevator.getWeight());
+		assertEquals(1, elevator.getTarget());
+		assertFalse(elevator.getStopRequest(0));
+		assertTrue(elevator.getStopRequest(1));
+		assertTrue(elevator.getServicesFloor(1));
+		verify(plc, times(1)).getElevatorWeight(0); // only in the constructor of Elevator
+		verify(plc, times(2)).getElevatorSnapshot(0);
+	}
+
+	@Test
+	void testUpdateWithReader() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(1);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		IElevatorSnapshotReader reader = mock(IElevatorSnapshotReader.class);
+		when(reader.readElevator(eq(0), eq(1), isNull(), any())).thenReturn(new ElevatorSnapshot(0, IElevator.ELEVATOR_DIRECTION_DOWN, 0, 5, IElevator.ELEVATOR_DOORS_CLOSED,
+				0, 0, 0, 0, 0, 1, new long[] { 1 }, new long[] { 1 }));
+
+		Elevator elevator = new Elevator(plc, 0);
+		
+		ElevatorUpdater updater = new ElevatorUpdater(elevator, reader);
+		updater.update();
+		
+		assertEquals(IElevator.ELEVATOR_DIRECTION_DOWN, elevator.getCommittedDirection());
+		assertTrue(elevator.getStopRequest(0));
+		assertThrows(IllegalArgumentException.class, () -> new ElevatorUpdater(elevator, null));
+	}
+
+	@Test
+	void testUpdateWritesBuildingState() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(1);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		IElevatorSnapshotReader reader = mock(IElevatorSnapshotReader.class);
+		ElevatorSnapshot snapshot = new ElevatorSnapshot(0, IElevator.ELEVATOR_DIRECTION_DOWN, 0, 5, IElevator.ELEVATOR_DOORS_CLOSED,
+				0, 0, 0, 0, 0, 1, new long[] { 1 }, new long[] { 1 });
+		when(reader.readElevator(eq(0), eq(1), isNull(), any())).thenReturn(snapshot);
+		BuildingState state = new BuildingState(1, 1);
+
+		Elevator elevator = new Elevator(plc, 0);
+		
+		ElevatorUpdater updater = new ElevatorUpdater(elevator, reader, new PollSchedule(), new ActivityMonitor(1), state);
+		updater.update();
+		
+		assertEquals(IElevator.ELEVATOR_DIRECTION_DOWN, elevator.getCommittedDirection());
+		assertTrue(state.swap());
+		assertEquals(snapshot, state.getSnapshot(0));
+	}
+
+	@Test
+	void testUpdateOnlyDueFields() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(2);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		when(plc.getElevatorCapacity(0)).thenReturn(5);
+
+		Elevator elevator = new Elevator(plc, 0);
+		PollSchedule schedule = new PollSchedule(PollingPolicy.DEFAULT
+				.withRate(PolledField.CAPACITY, PollRate.STATIC)
+				.withRate(PolledField.SERVICES_FLOORS, PollRate.STATIC));
+		
+		ElevatorUpdater updater = new ElevatorUpdater(elevator, ElevatorUpdater.createReader(plc), schedule);
+		updater.update();
+		schedule.nextTick();
+		
+		when(plc.getElevatorSpeed(0)).thenReturn(3);
+		updater.update();
+		
+		assertEquals(5, elevator.getCapacity());
+		assertEquals(3, elevator.getSpeed());
+		verify(plc, times(2)).getElevatorCapacity(0); // constructor of Elevator and first tick
+		verify(plc, times(2)).getServicesFloors(0, 1);
+		verify(plc, times(3)).getElevatorSpeed(0);
+	}
+
+	@Test
+	void testBackOffIdleElevator() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(2);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		when(plc.getCommittedDirection(0)).thenReturn(IElevator.ELEVATOR_DIRECTION_UNCOMMITTED);
+
+		Elevator elevator = new Elevator(plc, 0);
+		ActivityMonitor activity = new ActivityMonitor(1);
+		activity.setIdleEveryTicks(3);
+		ElevatorUpdater updater = new ElevatorUpdater(elevator, ElevatorUpdater.createReader(plc), new PollSchedule(), activity);
+
+		for(int i = 0; i < 6; ++i) {
+			updater.update();
+		}
+
+		verify(plc, times(3)).getElevatorSpeed(0); // constructor of Elevator, first and fourth tick
+
+		activity.wake(0);
+		updater.update();
+
+		verify(plc, times(4)).getElevatorSpeed(0);
+		assertThrows(IllegalArgumentException.class, () -> new ElevatorUpdater(elevator, ElevatorUpdater.createReader(plc), new PollSchedule(), null));
+	}
+	
+	@Test
+	void testUpdateFiresOneAggregatedEvent() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorNum()).thenReturn(10);
+		when(plc.getFloorHeight()).thenReturn(10);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		IElevatorListener listener = mock(IElevatorListener.class);
+
+		Elevator elevator = new Elevator(plc, 0);
+		elevator.addElevatorListener(listener);
+		
+		ElevatorUpdater updater = new ElevatorUpdater(elevator);
+		when(plc.getElevatorPosition(0)).thenReturn(15);
+		when(plc.getElevatorSpeed(0)).thenReturn(3);
+		when(plc.getElevatorButton(eq(0), anyInt())).thenAnswer(inv -> (int) inv.getArgument(1) == 4);
+		updater.update();
+		
+		verify(listener, times(1)).onElevatorUpdated(elevator, (1 << PolledField.POSITION.ordinal())
+				| (1 << PolledField.SPEED.ordinal()) | (1 << PolledField.STOP_REQUESTS.ordinal()));
+		verify(listener, times(1)).onElevatorUpdated(any(), anyInt());
+	}
 }
@@ -11,12 +11,15 @@ import java.io.PipedOutputStream;
 import java.rmi.RemoteException;
 import java.time.Duration;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.Test;
 
 import at.fhhagenberg.sqelevator.Building;
 import at.fhhagenberg.sqelevator.ElevatorsMqttClient;
 import at.fhhagenberg.sqelevator.ExitCommandThread;
+import at.fhhagenberg.sqelevator.OverrunPolicy;
+import at.fhhagenberg.sqelevator.TelemetryFormat;
 import sqelevator.IElevator;
 
 class ElevatorsMqttAdapterTest {
@@ -55,6 +58,83 @@ class ElevatorsMqttAdapterTest {
 		assertEquals(7, adapter.getBridges().length);
 	}
 
+	@Test
+	void testBuildingStateReplacesBridges() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		ElevatorsMqttClient mqtt = mock(ElevatorsMqttClient.class);
+		when(plc.getElevatorNum()).thenReturn(2);
+		when(plc.getFloorNum()).thenReturn(3);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		when(plc.getElevatorDoorStatus(1)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		Building building = new Building(plc);
+		
+		ElevatorsMqttAdapter adapter = new ElevatorsMqttAdapter(building, mqtt, TelemetryFormat.FIELDS, true);
+		
+		assertEquals(0, adapter.getBridges().length);
+		assertEquals(5, adapter.getUpdaters().length);
+		assertEquals(2, adapter.getBuildingState().getElevatorCount());
+		assertEquals(3, adapter.getBuildingState().getFloorCount());
+		assertNull(new ElevatorsMqttAdapter(building, mqtt).getBuildingState());
+	}
+
+	@Test
+	void testBuildingStatePublishedAfterTick() throws IOException, InterruptedException, ExecutionException {
+		IElevator plc = mock(IElevator.class);
+		ElevatorsMqttClient mqtt = mock(ElevatorsMqttClient.class);
+		when(plc.getElevatorNum()).thenReturn(1);
+		when(plc.getFloorNum()).thenReturn(2);
+		when(plc.getFloorHeight()).thenReturn(10);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		when(mqtt.subscribeToControlMessages(1, 2)).thenReturn(true);
+		when(mqtt.isConnected()).thenReturn(true);
+		Building building = new Building(plc);
+		ElevatorsMqttAdapter adapter = new ElevatorsMqttAdapter(building, mqtt, TelemetryFormat.FIELDS, true);
+		adapter.setUpdateTimerPeriodMs(50);
+		PipedInputStream input = new PipedInputStream();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		PipedOutputStream out = new PipedOutputStream(input);
+		ExitCommandThread exitThread = new ExitCommandThread(input, "exit");
+		exitThread.start();
+
+		try (OutputStreamWriter inWriter = new OutputStreamWriter(out)) {
+			Thread t1 = new Thread(() -> {
+				try {
+					adapter.run(exitThread, output);
+				} catch (InterruptedException | IOException | ExecutionException e) {
+					throw new IllegalArgumentException("exception");
+				}
+			});
+			t1.start();
+
+			Thread.sleep(100);
+
+			/* the initial state is published once, the listener handles the control messages */
+			verify(mqtt, times(1)).publishButtonUp(0, false);
+			verify(mqtt, times(1)).publishPosition(0, 0);
+			verify(mqtt, times(1)).addListener(any(BuildingControlListener.class));
+
+			when(plc.getFloorButtonUp(0)).thenReturn(true);
+			when(plc.getElevatorPosition(0)).thenReturn(7);
+
+			Thread.sleep(200);
+
+			/* only the changes are published after the tick */
+			verify(mqtt, times(1)).publishButtonUp(0, true);
+			verify(mqtt, times(1)).publishPosition(0, 7);
+			verify(mqtt, times(1)).publishButtonDown(1, false);
+
+			inWriter.write("exit\n");
+			inWriter.flush();
+
+			assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+				t1.join();
+			});
+		}
+
+		/* before the start and on exit */
+		verify(mqtt, times(2)).removeListener(any(BuildingControlListener.class));
+	}
+
 	@Test
 	void testUpdateTimerPeriodSetAndGet() throws RemoteException {
 		IElevator plc = mock(IElevator.class);
@@ -67,6 +147,67 @@ class ElevatorsMqttAdapterTest {
 		adapter.setUpdateTimerPeriodMs(155);
 		
 		assertEquals(155, adapter.getUpdateTimerPeriodMs());
+		assertEquals(155, adapter.getTickScheduler().getPeriodMs());
+		assertEquals(OverrunPolicy.SKIP, adapter.getOverrunPolicy());
+		
+		adapter.setOverrunPolicy(OverrunPolicy.COMPRESS);
+		
+		assertEquals(OverrunPolicy.COMPRESS, adapter.getOverrunPolicy());
+	}
+
+	@Test
+	void testUpdateThreadsSetAndGet() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		ElevatorsMqttClient mqtt = mock(ElevatorsMqttClient.class);
+		Building building = new Building(plc);
+		ElevatorsMqttAdapter adapter = new ElevatorsMqttAdapter(building, mqtt);
+		
+		assertEquals(1, adapter.getUpdateThreads());
+		
+		adapter.setUpdateThreads(4);
+		
+		assertEquals(4, adapter.getUpdateThreads());
+		
+		IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> adapter.setUpdateThreads(0));
+		assertEquals("Number of update threads must be greater than 0!", thrown.getMessage());
+	}
+
+	@Test
+	void testIdlePollingIntervalSetAndGet() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		ElevatorsMqttClient mqtt = mock(ElevatorsMqttClient.class);
+		Building building = new Building(plc);
+		ElevatorsMqttAdapter adapter = new ElevatorsMqttAdapter(building, mqtt);
+		
+		assertEquals(0, adapter.getIdlePollingIntervalMs());
+		assertEquals(1, adapter.getActivityMonitor().getIdleEveryTicks());
+		
+		adapter.setIdlePollingIntervalMs(2000);
+		
+		assertEquals(2000, adapter.getIdlePollingIntervalMs());
+		assertEquals(8, adapter.getActivityMonitor().getIdleEveryTicks());
+		
+		adapter.setUpdateTimerPeriodMs(100);
+		
+		assertEquals(20, adapter.getActivityMonitor().getIdleEveryTicks());
+		
+		IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> adapter.setIdlePollingIntervalMs(-1));
+		assertEquals("Idle polling interval must be >=0!", thrown.getMessage());
+	}
+
+	@Test
+	void testClockTickGatingSetAndGet() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		ElevatorsMqttClient mqtt = mock(ElevatorsMqttClient.class);
+		Building building = new Building(plc);
+		ElevatorsMqttAdapter adapter = new ElevatorsMqttAdapter(building, mqtt);
+		
+		assertFalse(adapter.isClockTickGating());
+		
+		adapter.setClockTickGating(true);
+		
+		assertTrue(adapter.isClockTickGating());
+		assertTrue(adapter.getClockTickGate().isEnabled());
 	}
 
 	@Test
@@ -118,6 +259,66 @@ class ElevatorsMqttAdapterTest {
 		}
 	}
 
+	@Test
+	void testWarmResumeAfterConnectionLoss() throws IOException, InterruptedException, ExecutionException {
+		IElevator plc = mock(IElevator.class);
+		ElevatorsMqttClient mqtt = mock(ElevatorsMqttClient.class);
+		when(plc.getElevatorNum()).thenReturn(1);
+		when(plc.getFloorNum()).thenReturn(1);
+		when(plc.getElevatorDoorStatus(0)).thenReturn(IElevator.ELEVATOR_DOORS_CLOSED);
+		when(mqtt.subscribeToControlMessages(1, 1)).thenReturn(true);
+
+		Building building = new Building(plc);
+		ElevatorsMqttAdapter adapter = new ElevatorsMqttAdapter(building, mqtt);
+		AtomicBoolean connected = new AtomicBoolean(false);
+		doAnswer(invocation -> {
+			if(!connected.get()) {
+				throw new RemoteException("Connection lost");
+			}
+			return true;
+		}).when(plc).getFloorButtonUp(0);
+
+		PipedInputStream input = new PipedInputStream();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		PipedOutputStream out = new PipedOutputStream(input);
+		ExitCommandThread exitThread = new ExitCommandThread(input, "exit");
+		exitThread.start();
+
+		assertThrows(RemoteException.class, () -> adapter.run(exitThread, output));
+		assertTrue(adapter.isStarted());
+		assertFalse(building.getFloors()[0].isButtonUp());
+
+		connected.set(true);
+
+		try (OutputStreamWriter inWriter = new OutputStreamWriter(out)) {
+			Thread t1 = new Thread(() -> {
+				try {
+					adapter.run(exitThread, output);
+				} catch (InterruptedException | IOException | ExecutionException e) {
+					throw new IllegalArgumentException("exception");
+				}
+			});
+			t1.start();
+
+			Thread.sleep(400);
+			assertTrue(building.getFloors()[0].isButtonUp());
+			assertTrue(output.toString().contains("Resumed Elevators Mqtt Adapter."));
+			verify(mqtt, times(1)).subscribeToControlMessages(1, 1);
+			verify(mqtt, times(1)).publishNumberOfElevators(1);
+			verify(mqtt, times(1)).publishButtonUp(0, false);
+			verify(mqtt, times(1)).publishButtonUp(0, true);
+
+			inWriter.write("exit\n");
+			inWriter.flush();
+
+			assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+				t1.join();
+			});
+		}
+
+		assertFalse(adapter.isStarted());
+	}
+
 	@Test
 	void testUpdateFunctions() throws IOException, InterruptedException, ExecutionException {
 		IElevator plc = mock(IElevator.class);
@@ -15,6 +15,8 @@ import java.rmi.server.UnicastRemoteObject;
 import org.junit.jupiter.api.Test;
 
 import at.fhhagenberg.sqelevator.ElevatorProperties;
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
+import at.fhhagenberg.sqelevator.IElevatorBulk;
 import sqelevator.IElevator;
 
 class ElevatorsPlcConnectionTest {
@@ -60,16 +62,82 @@ class ElevatorsPlcConnectionTest {
         // Bind the remote object's stub in the registry
         registry.bind("IElevator", stub);
 		
+		assertNull(conn.getCache());
 		assertTrue(conn.connect(output));
 		String outputString = output.toString();
 		assertTrue(outputString.isBlank());
 		
+		CachingElevator cache = conn.getCache();
+		assertNotNull(cache);
+		assertTrue(conn.connect(output));
+		assertNotSame(cache, conn.getCache());
+		
 		// Cleanup
 		registry.unbind("IElevator");
 		UnicastRemoteObject.unexportObject(obj, true); // unexport IElevator mock object
 		UnicastRemoteObject.unexportObject(registry, true); // close registry
 	}
 
+	@Test
+	void testConnectDetectsBulkApi() throws RemoteException, AlreadyBoundException, NotBoundException {
+		ElevatorProperties props = mock(ElevatorProperties.class);
+		when(props.getRmiAddress()).thenReturn("localhost");
+		when(props.getRmiPort()).thenReturn(65527);
+		when(props.getRmiName()).thenReturn("IElevator");
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ElevatorsPlcConnection conn = new ElevatorsPlcConnection(props);
+		ElevatorSnapshot snapshot = new ElevatorSnapshot(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 2, new long[] { 1 }, new long[] { 3 });
+		
+		assertThrows(RuntimeException.class, () -> conn.readElevator(0, 2));
+
+		Registry registry = LocateRegistry.createRegistry(props.getRmiPort());
+		IElevatorBulk obj = mock(IElevatorBulk.class);
+		when(obj.getElevatorSnapshot(0)).thenReturn(snapshot);
+		IElevator stub = (IElevator) UnicastRemoteObject.exportObject(obj, 0);
+        registry.bind("IElevator", stub);
+		
+		assertTrue(conn.connect(output));
+		assertTrue(conn.isBulkSupported());
+		assertEquals(snapshot, conn.readElevator(0, 2));
+		
+		// Cleanup
+		registry.unbind("IElevator");
+		UnicastRemoteObject.unexportObject(obj, true);
+		UnicastRemoteObject.unexportObject(registry, true);
+	}
+
+	@Test
+	void testConnectWithoutBulkApi() throws RemoteException, AlreadyBoundException, NotBoundException {
+		ElevatorProperties props = mock(ElevatorProperties.class);
+		when(props.getRmiAddress()).thenReturn("localhost");
+		when(props.getRmiPort()).thenReturn(65526);
+		when(props.getRmiName()).thenReturn("IElevator");
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ElevatorsPlcConnection conn = new ElevatorsPlcConnection(props);
+		
+		Registry registry = LocateRegistry.createRegistry(props.getRmiPort());
+		IElevator obj = mock(IElevator.class);
+		when(obj.getTarget(0)).thenReturn(1);
+		when(obj.getElevatorButton(0, 1)).thenReturn(true);
+		IElevator stub = (IElevator) UnicastRemoteObject.exportObject(obj, 0);
+        registry.bind("IElevator", stub);
+		
+		assertTrue(conn.connect(output));
+		assertFalse(conn.isBulkSupported());
+		
+		ElevatorSnapshot snapshot = conn.readElevator(0, 2);
+		assertEquals(1, snapshot.getTarget());
+		assertFalse(snapshot.getStopRequest(0));
+		assertTrue(snapshot.getStopRequest(1));
+		/* each of the 9 + 2 x floors calls goes through the breaker on its own */
+		assertEquals(13, conn.getCircuitBreaker().getCallCount());
+		
+		// Cleanup
+		registry.unbind("IElevator");
+		UnicastRemoteObject.unexportObject(obj, true);
+		UnicastRemoteObject.unexportObject(registry, true);
+	}
+
 	@Test
 	void testConnectNotBound() throws RemoteException, AlreadyBoundException {
 		ElevatorProperties props = mock(ElevatorProperties.class);
@@ -155,7 +223,9 @@ class ElevatorsPlcConnectionTest {
 		UnicastRemoteObject.unexportObject(obj, true); // unexport IElevator mock object		
 		UnicastRemoteObject.unexportObject(registry, true); // close registry
 		
-		RemoteException thrown = assertThrows(RemoteException.class, () -> conn.getElevatorNum());
+		// The metadata is cached for the connection, the other calls fail
+		assertEquals(3, conn.getElevatorNum());
+		RemoteException thrown = assertThrows(RemoteException.class, () -> conn.getElevatorFloor(0));
 		assertEquals("no such object in table", thrown.getMessage());
 	}
 
@@ -184,7 +254,7 @@ class ElevatorsPlcConnectionTest {
 		UnicastRemoteObject.unexportObject(registry, true); // close registry
 		
 		// Assert connection loss
-		assertThrows(RemoteException.class, () -> conn.getElevatorNum());
+		assertThrows(RemoteException.class, () -> conn.getElevatorFloor(0));
 
 		when(props.getRmiPort()).thenReturn(65528);
 		
@@ -194,8 +264,9 @@ class ElevatorsPlcConnectionTest {
         // Bind the remote object's stub in the registry
         registry.bind("IElevator", stub);
 		
+		when(obj.getElevatorNum()).thenReturn(4);
 		assertTrue(conn.connect(output));
-		assertEquals(3, conn.getElevatorNum());
+		assertEquals(4, conn.getElevatorNum());
 		
 		// Cleanup
 		registry.unbind("IElevator");
@@ -203,4 +274,44 @@ class ElevatorsPlcConnectionTest {
 		UnicastRemoteObject.unexportObject(registry, true); // close registry
 	}
 
+	@Test
+	void testCacheHitsBypassCircuitBreaker() throws RemoteException, AlreadyBoundException, NotBoundException {
+		ElevatorProperties props = mock(ElevatorProperties.class);
+		when(props.getRmiAddress()).thenReturn("localhost");
+		when(props.getRmiPort()).thenReturn(65519);
+		when(props.getRmiName()).thenReturn("IElevator");
+		when(props.getRmiBreakerFailures()).thenReturn(1);
+		when(props.getRmiBreakerOpen()).thenReturn(60000);
+		ElevatorsPlcConnection conn = new ElevatorsPlcConnection(props);
+		PlcCircuitBreaker breaker = conn.getCircuitBreaker();
+		
+		Registry registry = LocateRegistry.createRegistry(props.getRmiPort());
+		IElevator obj = mock(IElevator.class);
+		when(obj.getFloorNum()).thenReturn(5);
+		when(obj.getElevatorPosition(0)).thenThrow(new RemoteException("down"));
+		IElevator stub = (IElevator) UnicastRemoteObject.exportObject(obj, 0);
+        registry.bind("IElevator", stub);
+		
+		assertTrue(conn.connect(new ByteArrayOutputStream()));
+		assertEquals(5, conn.getFloorNum());
+		assertEquals(1, breaker.getCallCount());
+		
+		assertEquals(5, conn.getFloorNum());
+		assertEquals(1, breaker.getCallCount());
+		assertEquals(1, conn.getCache().getHitCount());
+		
+		assertThrows(RemoteException.class, () -> conn.getElevatorPosition(0));
+		assertEquals(PlcCircuitBreaker.State.OPEN, breaker.getState());
+		
+		// a cached value is no remote call: it is served while the breaker is open and does not close it
+		assertEquals(5, conn.getFloorNum());
+		assertEquals(PlcCircuitBreaker.State.OPEN, breaker.getState());
+		assertEquals(2, breaker.getCallCount());
+		
+		// Cleanup
+		registry.unbind("IElevator");
+		UnicastRemoteObject.unexportObject(obj, true);
+		UnicastRemoteObject.unexportObject(registry, true);
+	}
+
 }
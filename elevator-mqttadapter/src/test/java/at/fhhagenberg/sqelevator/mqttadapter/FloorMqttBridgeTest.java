@@ -38,7 +38,7 @@ public class FloorMqttBridgeTest {
 		
 		verify(mqtt, times(1)).publishButtonUp(0, false);
 		verify(mqtt, times(1)).publishButtonDown(0, true);
-		verify(floor, times(1)).addPropertyChangeListener(bridge);
+		verify(floor, times(1)).addFloorListener(bridge);
 	}
 	
 	@Test
@@ -52,14 +52,14 @@ public class FloorMqttBridgeTest {
 		
 		verify(mqtt, times(1)).publishButtonUp(0, false);
 		verify(mqtt, times(1)).publishButtonDown(0, false);
-		verify(floor, times(1)).addPropertyChangeListener(bridge);
+		verify(floor, times(1)).addFloorListener(bridge);
 	}
 	
 	@Test
 	void testStop() {
 		bridge.stop();
 		
-		verify(floor, times(1)).removePropertyChangeListener(bridge);
+		verify(floor, times(1)).removeFloorListener(bridge);
 	}
 	
 	@Test
@@ -96,6 +96,20 @@ public class FloorMqttBridgeTest {
 		verify(mqtt, times(2)).publishButtonDown(0, false);
 	}
 	
+	@Test
+	void testOnButtonChanged() {
+		when(floor.isButtonUp()).thenReturn(true);
+		when(floor.isButtonDown()).thenReturn(true);
+		when(floor.getNumber()).thenReturn(0);
+		
+		bridge.onButtonUpChanged(floor, true);
+		bridge.onButtonDownChanged(floor, true);
+		bridge.onButtonUpChanged(mock(Floor.class), true);
+		
+		verify(mqtt, times(1)).publishButtonUp(0, true);
+		verify(mqtt, times(1)).publishButtonDown(0, true);
+	}
+	
 	@Test
 	void testPropertyChange_InvalidPropertySource() {
 		when(floor.isButtonUp()).thenReturn(false);
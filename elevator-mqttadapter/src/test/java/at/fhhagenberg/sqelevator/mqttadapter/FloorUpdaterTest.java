@@ -10,7 +10,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import at.fhhagenberg.sqelevator.BuildingState;
+import at.fhhagenberg.sqelevator.ElevatorSnapshot;
 import at.fhhagenberg.sqelevator.Floor;
+import at.fhhagenberg.sqelevator.PollRate;
+import at.fhhagenberg.sqelevator.PolledField;
+import at.fhhagenberg.sqelevator.PollingPolicy;
 import sqelevator.IElevator;
 
 @ExtendWith(MockitoExtension.class)
@@ -130,6 +135,23 @@ class FloorUpdaterTest {
 		assertTrue(floor.isButtonUp());
 	}
 	
+	@Test
+	void testUpdateWritesBuildingState() throws RemoteException {
+		IElevator plc = mock(IElevator.class);	
+		Floor floor = new Floor(plc, 1);
+		BuildingState state = new BuildingState(0, 2);
+		FloorUpdater updater = new FloorUpdater(floor, new PollSchedule(), new ActivityMonitor(0), state);
+		
+		when(plc.getFloorButtonUp(1)).thenReturn(true);
+		
+		updater.update();
+		
+		assertTrue(state.swap());
+		assertTrue(state.isButtonUp(1));
+		assertFalse(state.isButtonDown(1));
+		assertFalse(state.isButtonUp(0));
+	}
+	
 	@Test
 	void testFloorUpdaterCreateWithNullFloor() throws RemoteException
 	{
@@ -139,5 +161,48 @@ class FloorUpdaterTest {
 		assertEquals("Floor must be valid!", thrown.getMessage());
 	}
 
-}
 
+	@Test
+	void testUpdateOnlyWhenDue() throws RemoteException {
+		IElevator plc = mock(IElevator.class);	
+		Floor floor = new Floor(plc, 0);
+		PollSchedule schedule = new PollSchedule(PollingPolicy.DEFAULT
+				.withInterval(PollRate.FAST, 100)
+				.withInterval(PollRate.NORMAL, 200)
+				.withRate(PolledField.POSITION, PollRate.FAST));
+		FloorUpdater updater = new FloorUpdater(floor, schedule);
+		
+		updater.update();
+		schedule.nextTick();
+		updater.update();
+		schedule.nextTick();
+		updater.update();
+		
+		verify(plc, times(3)).getFloorButtonUp(0); // constructor of Floor, first and third tick
+		assertThrows(IllegalArgumentException.class, () -> new FloorUpdater(floor, null));
+	}
+
+	@Test
+	void testPressedButtonWakesElevators() throws RemoteException {
+		IElevator plc = mock(IElevator.class);
+		when(plc.getFloorButtonUp(0)).thenReturn(false, true);
+		Floor floor = new Floor(plc, 0);
+		ActivityMonitor activity = new ActivityMonitor(2);
+		ElevatorSnapshot idle = new ElevatorSnapshot(0, IElevator.ELEVATOR_DIRECTION_UNCOMMITTED, 0, 4, IElevator.ELEVATOR_DOORS_CLOSED, 0, 0, 0, 0, 0, 1, new long[1], new long[1]);
+		activity.update(0, idle);
+		activity.update(1, idle);
+		FloorUpdater updater = new FloorUpdater(floor, new PollSchedule(), activity);
+		
+		updater.update();
+		
+		assertFalse(activity.isIdle(0));
+		assertFalse(activity.isIdle(1));
+		
+		activity.shouldPoll(0);
+		activity.update(0, idle);
+		updater.update();
+		
+		assertTrue(activity.isIdle(0));
+		assertThrows(IllegalArgumentException.class, () -> new FloorUpdater(floor, new PollSchedule(), null));
+	}
+}
@@ -0,0 +1,205 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import at.fhhagenberg.sqelevator.mqttadapter.PlcCircuitBreaker.State;
+
+class PlcCircuitBreakerTest {
+
+	private static long ms(long millis) {
+		return TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	private static Object fail() throws RemoteException {
+		throw new RemoteException("Connection lost");
+	}
+
+	/* like a blocked RMI call, which does not react to the interrupt of the cancel */
+	private static Object block(AtomicInteger running, CountDownLatch release) {
+		boolean interrupted = false;
+		running.incrementAndGet();
+
+		while(release.getCount() > 0) {
+			try {
+				release.await();
+			}
+			catch(InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if(interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		return null;
+	}
+
+	@Test
+	void testInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new PlcCircuitBreaker(-1, 3, 2000));
+		assertThrows(IllegalArgumentException.class, () -> new PlcCircuitBreaker(0, 0, 2000));
+		assertThrows(IllegalArgumentException.class, () -> new PlcCircuitBreaker(0, 3, 0));
+	}
+
+	@Test
+	void testSuccessfulCall() throws RemoteException {
+		PlcCircuitBreaker breaker = new PlcCircuitBreaker(0, 3, 2000);
+
+		assertEquals(42, breaker.call(() -> 42));
+		assertEquals(State.CLOSED, breaker.getState());
+		assertEquals(1, breaker.getCallCount());
+		assertEquals(0, breaker.getFailureCount());
+	}
+
+	@Test
+	void testTripAfterConsecutiveFailures() throws RemoteException {
+		AtomicLong time = new AtomicLong();
+		PlcCircuitBreaker breaker = new PlcCircuitBreaker(0, 3, 2000, time::get);
+
+		assertThrows(RemoteException.class, () -> breaker.call(PlcCircuitBreakerTest::fail));
+		assertThrows(RemoteException.class, () -> breaker.call(PlcCircuitBreakerTest::fail));
+		assertEquals(1, breaker.call(() -> 1));
+		assertThrows(RemoteException.class, () -> breaker.call(PlcCircuitBreakerTest::fail));
+		assertThrows(RemoteException.class, () -> breaker.call(PlcCircuitBreakerTest::fail));
+		assertFalse(breaker.isOpen());
+
+		assertThrows(RemoteException.class, () -> breaker.call(PlcCircuitBreakerTest::fail));
+		assertTrue(breaker.isOpen());
+		assertEquals("OPEN", breaker.getStateName());
+		assertEquals(1, breaker.getTripCount());
+		assertEquals(5, breaker.getFailureCount());
+
+		RemoteException e = assertThrows(RemoteException.class, () -> breaker.call(() -> 1));
+		assertEquals("Circuit breaker is open!", e.getMessage());
+		assertEquals(1, breaker.getRejectedCount());
+		assertEquals(6, breaker.getCallCount());
+	}
+
+	@Test
+	void testHalfOpenTrialSucceeds() throws RemoteException {
+		AtomicLong time = new AtomicLong();
+		PlcCircuitBreaker breaker = new PlcCircuitBreaker(0, 1, 2000, time::get);
+
+		assertThrows(RemoteException.class, () -> breaker.call(PlcCircuitBreakerTest::fail));
+		assertTrue(breaker.isOpen());
+
+		time.set(ms(1999));
+		assertThrows(RemoteException.class, () -> breaker.call(() -> 1));
+
+		time.set(ms(2000));
+		assertEquals(1, breaker.call(() -> 1));
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	@Test
+	void testHalfOpenTrialFails() throws RemoteException {
+		AtomicLong time = new AtomicLong();
+		PlcCircuitBreaker breaker = new PlcCircuitBreaker(0, 2, 2000, time::get);
+
+		assertThrows(RemoteException.class, () -> breaker.call(PlcCircuitBreakerTest::fail));
+		assertThrows(RemoteException.class, () -> breaker.call(PlcCircuitBreakerTest::fail));
+		assertTrue(breaker.isOpen());
+
+		time.set(ms(2000));
+		assertThrows(RemoteException.class, () -> breaker.call(PlcCircuitBreakerTest::fail));
+		assertEquals(State.OPEN, breaker.getState());
+		assertEquals(2, breaker.getTripCount());
+
+		time.set(ms(3000));
+		assertThrows(RemoteException.class, () -> breaker.call(() -> 1));
+
+		time.set(ms(4000));
+		assertEquals(1, breaker.call(() -> 1));
+		assertFalse(breaker.isOpen());
+	}
+
+	@Test
+	void testCloseCircuit() {
+		PlcCircuitBreaker breaker = new PlcCircuitBreaker(0, 1, 2000, () -> 0);
+
+		assertThrows(RemoteException.class, () -> breaker.call(PlcCircuitBreakerTest::fail));
+		assertTrue(breaker.isOpen());
+
+		breaker.closeCircuit();
+		assertFalse(breaker.isOpen());
+	}
+
+	@Test
+	void testRuntimeExceptionIsNoFailure() {
+		PlcCircuitBreaker breaker = new PlcCircuitBreaker(0, 1, 2000);
+
+		assertThrows(IllegalArgumentException.class, () -> breaker.call(() -> {
+			throw new IllegalArgumentException("Invalid elevator number!");
+		}));
+		assertFalse(breaker.isOpen());
+		assertEquals(0, breaker.getFailureCount());
+	}
+
+	@Test
+	void testCallTimeout() throws RemoteException {
+		PlcCircuitBreaker breaker = new PlcCircuitBreaker(50, 3, 2000);
+
+		RemoteException e = assertThrows(RemoteException.class, () -> breaker.call(() -> {
+			try {
+				Thread.sleep(5000);
+			}
+			catch(InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return 1;
+		}));
+		assertEquals("Remote call timed out after 50 ms!", e.getMessage());
+		assertEquals(1, breaker.getTimeoutCount());
+		assertEquals(1, breaker.getFailureCount());
+		assertTrue(breaker.getMaxLatencyMicros() < TimeUnit.SECONDS.toMicros(5));
+
+		assertEquals(2, breaker.call(() -> 2));
+		assertThrows(RemoteException.class, () -> breaker.call(PlcCircuitBreakerTest::fail));
+		assertEquals(50, breaker.getCallTimeoutMs());
+	}
+
+	@Test
+	void testPendingCallsAreBounded() {
+		PlcCircuitBreaker breaker = new PlcCircuitBreaker(10, Integer.MAX_VALUE, 2000);
+		AtomicInteger running = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+
+		try {
+			/* a call cancelled before it started does not keep its thread */
+			for(int i = 0; i < 4 * PlcCircuitBreaker.MAX_PENDING_CALLS && running.get() < PlcCircuitBreaker.MAX_PENDING_CALLS; ++i) {
+				assertThrows(RemoteException.class, () -> breaker.call(() -> block(running, release)));
+			}
+
+			assertEquals(PlcCircuitBreaker.MAX_PENDING_CALLS, running.get());
+			RemoteException e = assertThrows(RemoteException.class, () -> breaker.call(() -> 1));
+			assertEquals("Too many pending remote calls!", e.getMessage());
+			assertEquals(breaker.getTimeoutCount() + 1, breaker.getFailureCount());
+		}
+		finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	void testReset() {
+		PlcCircuitBreaker breaker = new PlcCircuitBreaker(0, 1, 2000, () -> 0);
+
+		assertThrows(RemoteException.class, () -> breaker.call(PlcCircuitBreakerTest::fail));
+		breaker.reset();
+
+		assertEquals(0, breaker.getCallCount());
+		assertEquals(0, breaker.getFailureCount());
+		assertEquals(0, breaker.getTripCount());
+		assertEquals(0, breaker.getMeanLatencyMicros());
+		assertTrue(breaker.isOpen());
+	}
+}
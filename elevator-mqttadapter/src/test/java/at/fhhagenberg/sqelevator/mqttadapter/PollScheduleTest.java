@@ -0,0 +1,72 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import at.fhhagenberg.sqelevator.PollRate;
+import at.fhhagenberg.sqelevator.PolledField;
+import at.fhhagenberg.sqelevator.PollingPolicy;
+
+class PollScheduleTest {
+
+	@Test
+	void testDefaultPollsAllFields() {
+		PollSchedule schedule = new PollSchedule();
+
+		for(int tick = 0; tick < 3; ++tick) {
+			for(PolledField field : PolledField.values()) {
+				assertTrue(schedule.isDue(field));
+			}
+
+			schedule.nextTick();
+		}
+	}
+
+	@Test
+	void testRates() {
+		PollingPolicy policy = PollingPolicy.DEFAULT
+				.withInterval(PollRate.FAST, 100)
+				.withInterval(PollRate.NORMAL, 200)
+				.withInterval(PollRate.SLOW, 1000)
+				.withRate(PolledField.POSITION, PollRate.FAST)
+				.withRate(PolledField.SERVICES_FLOORS, PollRate.SLOW)
+				.withRate(PolledField.CAPACITY, PollRate.STATIC);
+		PollSchedule schedule = new PollSchedule(policy);
+
+		assertEquals(100, schedule.getTickPeriod());
+
+		int position = 0;
+		int target = 0;
+		int services = 0;
+		int capacity = 0;
+
+		for(int tick = 0; tick < 20; ++tick) {
+			position += schedule.isDue(PolledField.POSITION) ? 1 : 0;
+			target += schedule.isDue(PolledField.TARGET) ? 1 : 0;
+			services += schedule.isDue(PolledField.SERVICES_FLOORS) ? 1 : 0;
+			capacity += schedule.isDue(PolledField.CAPACITY) ? 1 : 0;
+			schedule.nextTick();
+		}
+
+		assertEquals(20, position);
+		assertEquals(10, target);
+		assertEquals(2, services);
+		assertEquals(1, capacity);
+
+		schedule.setPolicy(policy);
+		assertEquals(0, schedule.getTick());
+		assertTrue(schedule.isDue(PolledField.CAPACITY));
+
+		schedule.nextTick();
+		assertFalse(schedule.isDue(PolledField.CAPACITY));
+		schedule.restart();
+		assertTrue(schedule.isDue(PolledField.CAPACITY));
+		assertTrue(schedule.isDue(PolledField.SERVICES_FLOORS));
+	}
+
+	@Test
+	void testInvalidPolicy() {
+		assertThrows(IllegalArgumentException.class, () -> new PollSchedule(null));
+	}
+}
@@ -0,0 +1,55 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ReconnectBackoffTest {
+
+	@Test
+	void testExponentialDelay() {
+		ReconnectBackoff backoff = new ReconnectBackoff(500, 3000, () -> 1.0);
+
+		assertEquals(500, backoff.nextDelayMs());
+		assertEquals(1000, backoff.nextDelayMs());
+		assertEquals(2000, backoff.nextDelayMs());
+		assertEquals(3000, backoff.nextDelayMs());
+		assertEquals(3000, backoff.nextDelayMs());
+		assertEquals(5, backoff.getAttempts());
+
+		backoff.reset();
+
+		assertEquals(0, backoff.getAttempts());
+		assertEquals(500, backoff.nextDelayMs());
+	}
+
+	@Test
+	void testJitter() {
+		ReconnectBackoff backoff = new ReconnectBackoff(500, 3000, () -> 0.0);
+
+		assertEquals(250, backoff.nextDelayMs());
+		assertEquals(500, backoff.nextDelayMs());
+
+		ReconnectBackoff random = new ReconnectBackoff(1000, 1000);
+
+		for(int i = 0; i < 100; ++i) {
+			long delay = random.nextDelayMs();
+			assertTrue(delay >= 500 && delay <= 1000);
+		}
+	}
+
+	@Test
+	void testManyAttemptsDoNotOverflow() {
+		ReconnectBackoff backoff = new ReconnectBackoff(1, Long.MAX_VALUE, () -> 1.0);
+
+		for(int i = 0; i < 200; ++i) {
+			assertTrue(backoff.nextDelayMs() > 0);
+		}
+	}
+
+	@Test
+	void testInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new ReconnectBackoff(0, 1000));
+		assertThrows(IllegalArgumentException.class, () -> new ReconnectBackoff(1000, 500));
+	}
+}
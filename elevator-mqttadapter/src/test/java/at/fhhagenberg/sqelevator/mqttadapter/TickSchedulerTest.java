@@ -0,0 +1,129 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import at.fhhagenberg.sqelevator.ExitCommandThread;
+import at.fhhagenberg.sqelevator.OverrunPolicy;
+
+class TickSchedulerTest {
+
+	private static long ms(long millis) {
+		return TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	@Test
+	void testFixedRate() throws InterruptedException {
+		AtomicLong time = new AtomicLong();
+		TickScheduler scheduler = new TickScheduler(10, OverrunPolicy.SKIP, time::get);
+		ExitCommandThread exitThread = new ExitCommandThread(new PipedInputStream(), "exit");
+
+		scheduler.start();
+		time.set(ms(10));
+		assertTrue(scheduler.awaitNextTick(exitThread));
+		time.set(ms(20));
+		assertTrue(scheduler.awaitNextTick(exitThread));
+		time.set(ms(30));
+		assertTrue(scheduler.awaitNextTick(exitThread));
+		time.set(ms(37));
+		assertTrue(scheduler.awaitNextTick(exitThread));
+
+		assertEquals(4, scheduler.getTickCount());
+		assertEquals(0, scheduler.getOverrunCount());
+		assertEquals(0, scheduler.getSkippedTickCount());
+		assertEquals(0, scheduler.getLastLagMicros());
+	}
+
+	@Test
+	void testSkipOverrun() throws InterruptedException {
+		AtomicLong time = new AtomicLong();
+		TickScheduler scheduler = new TickScheduler(10, OverrunPolicy.SKIP, time::get);
+		ExitCommandThread exitThread = new ExitCommandThread(new PipedInputStream(), "exit");
+
+		scheduler.start();
+		time.set(ms(10));
+		assertTrue(scheduler.awaitNextTick(exitThread));
+		time.set(ms(45));
+		assertTrue(scheduler.awaitNextTick(exitThread));
+
+		assertEquals(2, scheduler.getTickCount());
+		assertEquals(1, scheduler.getOverrunCount());
+		assertEquals(2, scheduler.getSkippedTickCount());
+		assertEquals(5000, scheduler.getLastLagMicros());
+		assertEquals(35000, scheduler.getLastDurationMicros());
+		assertEquals(35000, scheduler.getMaxDurationMicros());
+
+		time.set(ms(50));
+		assertTrue(scheduler.awaitNextTick(exitThread));
+		assertEquals(0, scheduler.getLastLagMicros());
+	}
+
+	@Test
+	void testCompressOverrun() throws InterruptedException {
+		AtomicLong time = new AtomicLong();
+		TickScheduler scheduler = new TickScheduler(10, OverrunPolicy.COMPRESS, time::get);
+		ExitCommandThread exitThread = new ExitCommandThread(new PipedInputStream(), "exit");
+
+		scheduler.start();
+		time.set(ms(10));
+		assertTrue(scheduler.awaitNextTick(exitThread));
+		time.set(ms(45));
+
+		for(int i = 0; i < 3; ++i) {
+			assertTrue(scheduler.awaitNextTick(exitThread));
+		}
+
+		assertEquals(4, scheduler.getTickCount());
+		assertEquals(1, scheduler.getOverrunCount());
+		assertEquals(0, scheduler.getSkippedTickCount());
+		assertEquals(25000, scheduler.getMaxLagMicros());
+		assertEquals(5000, scheduler.getLastLagMicros());
+
+		time.set(ms(1050));
+		assertTrue(scheduler.awaitNextTick(exitThread));
+		assertEquals(100 - TickScheduler.MAX_CATCH_UP_TICKS, scheduler.getSkippedTickCount());
+
+		scheduler.reset();
+		assertEquals(0, scheduler.getTickCount());
+		assertEquals(0, scheduler.getMaxLagMicros());
+	}
+
+	@Test
+	void testExitWhileWaiting() throws IOException {
+		PipedInputStream input = new PipedInputStream();
+		PipedOutputStream out = new PipedOutputStream(input);
+
+		try (OutputStreamWriter writer = new OutputStreamWriter(out)) {
+			ExitCommandThread exitThread = new ExitCommandThread(input, "exit");
+			exitThread.start();
+			TickScheduler scheduler = new TickScheduler(10000, OverrunPolicy.SKIP);
+
+			writer.write("exit\n");
+			writer.flush();
+
+			assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+				assertFalse(scheduler.awaitNextTick(exitThread));
+				exitThread.join();
+			});
+			assertEquals(0, scheduler.getTickCount());
+		}
+	}
+
+	@Test
+	void testInvalidArguments() {
+		IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> new TickScheduler(0, OverrunPolicy.SKIP));
+		assertEquals("Tick period must be greater than 0!", thrown.getMessage());
+		thrown = assertThrows(IllegalArgumentException.class, () -> new TickScheduler(10, null));
+		assertEquals("Overrun policy must not be null!", thrown.getMessage());
+		assertEquals(OverrunPolicy.COMPRESS, OverrunPolicy.parse(" compress "));
+	}
+}
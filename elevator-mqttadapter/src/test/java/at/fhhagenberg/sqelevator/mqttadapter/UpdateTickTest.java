@@ -0,0 +1,77 @@
+package at.fhhagenberg.sqelevator.mqttadapter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class UpdateTickTest {
+
+	@Test
+	void testSequential() throws RemoteException, InterruptedException {
+		IUpdater first = mock(IUpdater.class);
+		IUpdater second = mock(IUpdater.class);
+
+		try (UpdateTick tick = new UpdateTick(new IUpdater[] { first, second }, 1)) {
+			assertFalse(tick.isParallel());
+			tick.run();
+		}
+
+		verify(first, times(1)).update();
+		verify(second, times(1)).update();
+	}
+
+	@Test
+	@Timeout(value = 10, unit = TimeUnit.SECONDS)
+	void testParallelBarrier() throws RemoteException, InterruptedException {
+		CountDownLatch latch = new CountDownLatch(3);
+		IUpdater updater = () -> {
+			latch.countDown();
+
+			try {
+				// only returns if all updaters run at the same time
+				assertTrue(latch.await(5, TimeUnit.SECONDS));
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+
+		try (UpdateTick tick = new UpdateTick(new IUpdater[] { updater, updater, updater }, 3)) {
+			assertTrue(tick.isParallel());
+			tick.run();
+		}
+
+		assertEquals(0, latch.getCount());
+	}
+
+	@Test
+	void testErrorIsolation() throws RemoteException, InterruptedException {
+		IUpdater failing = mock(IUpdater.class);
+		IUpdater broken = mock(IUpdater.class);
+		IUpdater other = mock(IUpdater.class);
+		doAnswer(invocation -> { throw new IllegalStateException("broken"); }).when(broken).update();
+		doAnswer(invocation -> { throw new RemoteException("lost"); }).when(failing).update();
+
+		for(int threads : new int[] { 1, 3 }) {
+			try (UpdateTick tick = new UpdateTick(new IUpdater[] { broken, failing, other }, threads)) {
+				RemoteException thrown = assertThrows(RemoteException.class, tick::run);
+				assertEquals("lost", thrown.getMessage());
+				assertEquals(1, thrown.getSuppressed().length);
+			}
+		}
+
+		verify(other, times(2)).update();
+	}
+
+	@Test
+	void testInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new UpdateTick(null, 1));
+		assertThrows(IllegalArgumentException.class, () -> new UpdateTick(new IUpdater[0], 0));
+	}
+}